@@ -0,0 +1,127 @@
+package diskCacheV111.services.space;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.RetentionPolicy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.LiquibaseException;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.bridge.SLF4JBridgeHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Measures the rate at which concurrent uploads can reserve space in a single space reservation,
+ * with the space reservation updated directly by every upload or through folded deltas.
+ * <p>
+ * Transactions are demarcated explicitly, as the annotation driven transactions of space
+ * manager rely on load time weaving.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SpaceAccountingBenchmark {
+
+    static {
+        // redirect java.util.logging used by liquibase
+        SLF4JBridgeHandler.removeHandlersForRootLogger();
+        SLF4JBridgeHandler.install();
+    }
+
+    @Param({"direct", "deltas"})
+    private String accounting;
+
+    private HikariDataSource dataSource;
+    private JdbcSpaceManagerDatabase db;
+    private SpaceDeltaFolder folder;
+    private TransactionTemplate tx;
+    private long spaceId;
+
+    @Setup
+    public void setUp() throws SQLException, LiquibaseException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:hsqldb:mem:spacemanager-" + accounting + ";hsqldb.tx=mvcc");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(64);
+        config.setAutoCommit(true);
+        config.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+        dataSource = new HikariDataSource(config);
+
+        try (Connection conn = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                  .findCorrectDatabaseImplementation(new JdbcConnection(conn));
+            Liquibase liquibase = new Liquibase(
+                  "diskCacheV111/services/space/db/spacemanager.changelog-master.xml",
+                  new ClassLoaderResourceAccessor(), database);
+            liquibase.update("");
+        }
+
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        db = new JdbcSpaceManagerDatabase();
+        db.setDataSource(dataSource);
+        db.setTransactionManager(tx.getTransactionManager());
+        db.setDeltaAccounting(accounting.equals("deltas"));
+        db.init();
+
+        long linkGroupId = db.updateLinkGroup("lg", Long.MAX_VALUE / 2,
+              System.currentTimeMillis(), true, true, true, true, true, null);
+        spaceId = db.insertSpace(null, null, RetentionPolicy.REPLICA, AccessLatency.ONLINE,
+              linkGroupId, Long.MAX_VALUE / 4, -1, "hot", SpaceState.RESERVED, 0, 0).getId();
+
+        folder = new SpaceDeltaFolder();
+        folder.setDatabase(db);
+        folder.setFoldPeriod(1000);
+        folder.start();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        folder.stop();
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("SHUTDOWN");
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Long upload() {
+        return tx.execute(status -> {
+            try {
+                return db.insertFile(spaceId, null, null, 1, null, FileState.TRANSFERRING);
+            } catch (SpaceException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(SpaceAccountingBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
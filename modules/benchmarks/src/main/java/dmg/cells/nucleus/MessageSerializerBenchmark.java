@@ -0,0 +1,98 @@
+package dmg.cells.nucleus;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import java.util.EnumSet;
+import java.util.List;
+import javax.security.auth.Subject;
+import org.dcache.auth.GidPrincipal;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.auth.UserNamePrincipal;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares Java object serialization with the binary message codecs for a typical {@link
+ * PnfsGetFileAttributes} request and reply.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+public class MessageSerializerBenchmark {
+
+    @Param({"JOS", "BINARY"})
+    private SerializationHandler.Serializer serializer;
+
+    @Param({"request", "reply"})
+    private String kind;
+
+    private PnfsGetFileAttributes message;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        PnfsId pnfsId = new PnfsId("0000D0B1B9A06C7A4D3B9D4DE3F4ABA7F9F6");
+        EnumSet<FileAttribute> requested = EnumSet.of(FileAttribute.PNFSID, FileAttribute.SIZE,
+              FileAttribute.STORAGEINFO, FileAttribute.CHECKSUM, FileAttribute.LOCATIONS,
+              FileAttribute.ACCESS_LATENCY, FileAttribute.RETENTION_POLICY, FileAttribute.TYPE);
+
+        Subject subject = new Subject();
+        subject.getPrincipals().add(new UidPrincipal(1000));
+        subject.getPrincipals().add(new GidPrincipal(1000, true));
+        subject.getPrincipals().add(new UserNamePrincipal("user"));
+
+        message = new PnfsGetFileAttributes(pnfsId, requested);
+        message.setSubject(subject);
+
+        if (kind.equals("reply")) {
+            FileAttributes attributes = new FileAttributes();
+            attributes.setPnfsId(pnfsId);
+            attributes.setSize(1_073_741_824L);
+            attributes.setStorageInfo(new GenericStorageInfo("osm", "atlas:raw"));
+            attributes.setChecksums(List.of(new Checksum(ChecksumType.ADLER32, "0a1b2c3d")));
+            attributes.setLocations(List.of("pool-a-01", "pool-b-17"));
+            attributes.setAccessLatency(AccessLatency.NEARLINE);
+            attributes.setRetentionPolicy(RetentionPolicy.CUSTODIAL);
+            attributes.setFileType(FileType.REGULAR);
+            message.setFileAttributes(attributes);
+            message.setSucceeded();
+        }
+
+        encoded = SerializationHandler.encode(message, serializer);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return SerializationHandler.encode(message, serializer);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return SerializationHandler.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(MessageSerializerBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
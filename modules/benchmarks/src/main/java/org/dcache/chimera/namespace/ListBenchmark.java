@@ -0,0 +1,159 @@
+package org.dcache.chimera.namespace;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.Range;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.RetentionPolicy;
+import java.sql.Connection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.dcache.acl.ACE;
+import org.dcache.acl.enums.AccessMask;
+import org.dcache.acl.enums.AceType;
+import org.dcache.acl.enums.Who;
+import org.dcache.auth.Subjects;
+import org.dcache.chimera.ChimeraFsException;
+import org.dcache.chimera.FileSystemProvider;
+import org.dcache.chimera.FsInode;
+import org.dcache.chimera.FsInode_TAG;
+import org.dcache.chimera.JdbcFs;
+import org.dcache.chimera.StorageGenericLocation;
+import org.dcache.namespace.ACLPermissionHandler;
+import org.dcache.namespace.ChainedPermissionHandler;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.PosixPermissionHandler;
+import org.dcache.util.ChecksumType;
+import org.dcache.util.Glob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+/**
+ * Measures listing a directory with the attributes shown by a long listing on an embedded
+ * database. Every file has a checksum, a disk location, a tape location and an ACL.
+ * <p>
+ * With a batch size of one, the attributes stored outside the inode table are fetched entry by
+ * entry, like list did before entries were batched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ListBenchmark {
+
+    private static final Set<FileAttribute> ATTRIBUTES = EnumSet.of(FileAttribute.PNFSID,
+          FileAttribute.TYPE, FileAttribute.MODE, FileAttribute.OWNER, FileAttribute.OWNER_GROUP,
+          FileAttribute.SIZE, FileAttribute.MODIFICATION_TIME, FileAttribute.CHECKSUM,
+          FileAttribute.LOCATIONS, FileAttribute.STORAGEINFO, FileAttribute.ACL);
+
+    @Param({"10000"})
+    private int entries;
+
+    @Param({"1", "1000"})
+    private int batchSize;
+
+    private HikariDataSource dataSource;
+    private FileSystemProvider fs;
+    private ChimeraNameSpaceProvider provider;
+
+    @Setup
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:hsqldb:mem:chimera-list-" + batchSize + ";hsqldb.tx=mvcc");
+        config.setUsername("sa");
+        config.setPassword("");
+        dataSource = new HikariDataSource(config);
+
+        try (Connection conn = dataSource.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                  .findCorrectDatabaseImplementation(new JdbcConnection(conn));
+            Liquibase liquibase = new Liquibase(
+                  "org/dcache/chimera/changelog/changelog-master.xml",
+                  new ClassLoaderResourceAccessor(), database);
+            liquibase.update("");
+        }
+
+        fs = new JdbcFs(dataSource, new DataSourceTransactionManager(dataSource), "strong");
+
+        FsInode dir = fs.path2inode("/").mkdir("data");
+        writeTag(dir, "OSMTemplate", "StoreName test");
+        writeTag(dir, "sGroup", "default");
+        List<ACE> acl = List.of(new ACE(AceType.ACCESS_ALLOWED_ACE_TYPE, 0,
+              AccessMask.READ_DATA.getValue(), Who.USER, 1000));
+        for (int i = 0; i < entries; i++) {
+            FsInode file = dir.create("file" + i, 1000, 1000, 0644);
+            fs.setInodeChecksum(file, ChecksumType.ADLER32.getType(), "0000000" + (i % 10));
+            fs.addInodeLocation(file, StorageGenericLocation.DISK, "pool" + (i % 10));
+            fs.addInodeLocation(file, StorageGenericLocation.TAPE,
+                  "osm://osm/?store=test&group=default&bfid=" + i);
+            fs.setACL(file, acl);
+        }
+
+        provider = new ChimeraNameSpaceProvider();
+        provider.setFileSystem(fs);
+        provider.setExtractor(new ChimeraOsmStorageInfoExtractor(AccessLatency.NEARLINE,
+              RetentionPolicy.CUSTODIAL));
+        provider.setPermissionHandler(new ChainedPermissionHandler(new ACLPermissionHandler(),
+              new PosixPermissionHandler()));
+        provider.setAclEnabled(true);
+        provider.setListBatchSize(batchSize);
+    }
+
+    private void writeTag(FsInode dir, String name, String value) throws ChimeraFsException {
+        fs.createTag(dir, name);
+        byte[] data = value.getBytes(UTF_8);
+        new FsInode_TAG(fs, dir.ino(), name).write(0, data, 0, data.length);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.createStatement().execute("SHUTDOWN");
+        }
+        dataSource.close();
+        fs.close();
+    }
+
+    @Benchmark
+    public int list() throws CacheException {
+        int[] count = new int[1];
+        provider.list(Subjects.ROOT, "/data", (Glob) null, Range.all(), ATTRIBUTES,
+              (name, attributes) -> count[0]++);
+        return count[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ListBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
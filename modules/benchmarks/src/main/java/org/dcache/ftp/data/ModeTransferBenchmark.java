@@ -0,0 +1,185 @@
+package org.dcache.ftp.data;
+
+import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.ByteUnit.MiB;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the send path of the FTP modes over loopback connections. Each invocation sends the
+ * whole file from the page cache with the given mode and number of streams, either by copying it
+ * through a direct buffer or with zero-copy.
+ * <p>
+ * The bytes counter gives the throughput, and the cpuNanos counter the CPU time spent by the
+ * sending thread per second. Dividing the latter by the former yields the CPU time per byte sent.
+ * Parallel streams are only supported by mode E; run with {@code -p mode=E -p streams=4} to
+ * measure them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ModeTransferBenchmark {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final ConnectionMonitor MONITOR = new ConnectionMonitor() {
+        @Override
+        public void receivedBlock(long position, long size) {
+        }
+
+        @Override
+        public void sentBlock(long position, long size) {
+        }
+    };
+
+    @Param({"1024"})
+    private int fileSizeInMiB;
+
+    @Param({"S", "E"})
+    private String mode;
+
+    @Param({"1"})
+    private int streams;
+
+    @Param({"false", "true"})
+    private boolean zeroCopy;
+
+    @Param({"8", "128"})
+    private int ioBufferSizeInKiB;
+
+    private Path path;
+    private RepositoryChannel file;
+    private ServerSocketChannel server;
+    private ExecutorService executor;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long bytes;
+        public long cpuNanos;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            cpuNanos = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] data = new byte[MiB.toBytes(1)];
+        new Random().nextBytes(data);
+        path = Files.createTempFile("mode-transfer-benchmark", ".tmp");
+        for (int i = 0; i < fileSizeInMiB; i++) {
+            Files.write(path, data, StandardOpenOption.APPEND);
+        }
+        file = new FileRepositoryChannel(path, FileStore.O_READ);
+
+        server = ServerSocketChannel.open()
+              .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        executor = Executors.newCachedThreadPool();
+        executor.execute(() -> {
+            try {
+                while (true) {
+                    SocketChannel peer = server.accept();
+                    executor.execute(() -> drain(peer));
+                }
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        executor.shutdown();
+        file.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public void send(Counters counters) throws Exception {
+        org.dcache.ftp.data.Mode sender = createMode();
+        sender.setActive((InetSocketAddress) server.getLocalAddress());
+        sender.setParallelism(streams);
+        sender.setZeroCopy(zeroCopy);
+        sender.setIoBufferSize(KiB.toBytes(ioBufferSizeInKiB));
+
+        long cpu = THREADS.getCurrentThreadCpuTime();
+        Multiplexer multiplexer = new Multiplexer();
+        try {
+            multiplexer.add(sender);
+            multiplexer.loop();
+        } finally {
+            multiplexer.close();
+            sender.close();
+        }
+        counters.cpuNanos += THREADS.getCurrentThreadCpuTime() - cpu;
+        counters.bytes += file.size();
+    }
+
+    private org.dcache.ftp.data.Mode createMode() throws IOException {
+        int blockSize = MiB.toBytes(1);
+        switch (mode) {
+            case "S":
+                if (streams != 1) {
+                    throw new IllegalArgumentException("Mode S supports a single stream only");
+                }
+                return new ModeS(Role.Sender, file, MONITOR, blockSize);
+            case "E":
+                return new ModeE(Role.Sender, file, MONITOR, blockSize);
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    private static void drain(SocketChannel peer) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MiB.toBytes(1));
+        try (peer) {
+            while (peer.read(buffer.clear()) >= 0) {
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ModeTransferBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,150 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.oidc.jwt;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.impl.client.HttpClients;
+import org.dcache.gplazma.AuthenticationException;
+import org.dcache.gplazma.oidc.ExtractResult;
+import org.dcache.gplazma.oidc.IdentityProvider;
+import org.dcache.gplazma.oidc.UnableToProcess;
+import org.dcache.gplazma.oidc.profiles.OidcProfile;
+import org.dcache.gplazma.util.JsonWebToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the rate at which logins with RS256 signed JWTs can be processed by offline
+ * verification, with and without caching verified tokens.  Clients present one of a fixed
+ * number of tokens, each of which remains valid for the duration of the benchmark.
+ * <p>
+ * The issuer verifies signatures against a locally generated key, rather than fetching the
+ * JWKS document of an OP.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VerifiedTokenCacheBenchmark {
+
+    private static final String ENDPOINT = "https://oidc.example.org/";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    @Param({"0", "10000"})
+    private String cacheSize;
+
+    @Param({"100"})
+    private int tokens;
+
+    private OfflineJwtVerification verification;
+    private List<String> jwts;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keys = generator.generateKeyPair();
+
+        IdentityProvider provider = new IdentityProvider("EXAMPLE", URI.create(ENDPOINT),
+              new OidcProfile(false, false), HttpClients.createDefault(), Duration.ofHours(1),
+              List.of());
+        Issuer issuer = new LocalIssuer(provider, keys.getPublic());
+
+        Properties properties = new Properties();
+        properties.setProperty("gplazma.oidc.verified-token-cache.size", cacheSize);
+        verification = new OfflineJwtVerification(properties, List.of(issuer));
+
+        long exp = Instant.now().plus(Duration.ofDays(1)).getEpochSecond();
+        jwts = new ArrayList<>(tokens);
+        for (int i = 0; i < tokens; i++) {
+            String payload = "{\"iss\":\"" + ENDPOINT + "\",\"sub\":\"user" + i + "\",\"exp\":"
+                  + exp + ",\"jti\":\"" + i + "\"}";
+            jwts.add(sign("{\"alg\":\"RS256\",\"kid\":\"key\"}", payload, keys));
+        }
+    }
+
+    private static String sign(String header, String payload, KeyPair keys)
+          throws GeneralSecurityException {
+        String unsigned = BASE64.encodeToString(header.getBytes(UTF_8)) + "."
+              + BASE64.encodeToString(payload.getBytes(UTF_8));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keys.getPrivate());
+        signature.update(unsigned.getBytes(UTF_8));
+        return unsigned + "." + BASE64.encodeToString(signature.sign());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ExtractResult login() throws AuthenticationException, UnableToProcess {
+        String jwt = jwts.get(ThreadLocalRandom.current().nextInt(jwts.size()));
+        return verification.extract(jwt);
+    }
+
+    /**
+     * An issuer that verifies tokens against a known public key.
+     */
+    private static class LocalIssuer extends Issuer {
+
+        private final PublicKey key;
+
+        LocalIssuer(IdentityProvider provider, PublicKey key) {
+            super(HttpClients.createDefault(), provider, 0);
+            this.key = key;
+        }
+
+        @Override
+        public void checkIssued(JsonWebToken token) throws AuthenticationException {
+            if (!token.isSignedBy(key)) {
+                throw new AuthenticationException("token not signed by issuer");
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(VerifiedTokenCacheBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,109 @@
+package org.dcache.pool.movers;
+
+import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.ByteUnit.MiB;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.util.ChecksumType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time to write a file through a {@link ChecksumChannel} with several concurrent
+ * writers, each writing every n-th block, as done by multi-stream transfers. ADLER32 is computed
+ * per write and combined on close, whereas MD5 is updated sequentially and reads back data
+ * written out of order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChecksumChannelBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int writers;
+
+    @Param({"ADLER32", "MD5_TYPE"})
+    private ChecksumType type;
+
+    @Param({"256"})
+    private int fileSizeInMiB;
+
+    private final int blockSize = KiB.toBytes(128);
+
+    private byte[] block;
+    private Path file;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        block = new byte[blockSize];
+        new Random().nextBytes(block);
+        file = Files.createTempFile("checksum-channel-benchmark", ".tmp");
+        executor = Executors.newFixedThreadPool(writers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) throws Exception {
+        long blocks = MiB.toBytes((long) fileSizeInMiB) / blockSize;
+        ChecksumChannel channel = new ChecksumChannel(
+              new FileRepositoryChannel(file, FileStore.O_RW), EnumSet.of(type));
+        try {
+            List<Future<?>> futures = new ArrayList<>(writers);
+            for (int i = 0; i < writers; i++) {
+                int writer = i;
+                futures.add(executor.submit(() -> {
+                    for (long b = writer; b < blocks; b += writers) {
+                        channel.write(ByteBuffer.wrap(block), b * blockSize);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            channel.close();
+        }
+        blackhole.consume(channel.getChecksums());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ChecksumChannelBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
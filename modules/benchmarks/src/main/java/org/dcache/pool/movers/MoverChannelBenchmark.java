@@ -0,0 +1,100 @@
+package org.dcache.pool.movers;
+
+import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.ByteUnit.MiB;
+
+import diskCacheV111.vehicles.ProtocolInfo;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.statistics.IoStatisticsChannel;
+import org.dcache.vehicles.FileAttributes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of concurrent positional readers sharing a single {@link MoverChannel},
+ * stacked on an {@link IoStatisticsChannel} as in a pool, for 1, 4 and 16 reader threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MoverChannelBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedChannel {
+
+        @Param({"64"})
+        int fileSizeInMiB;
+
+        Path file;
+        MoverChannel<ProtocolInfo> channel;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            byte[] data = new byte[MiB.toBytes(fileSizeInMiB)];
+            new Random().nextBytes(data);
+            file = Files.createTempFile("mover-channel-benchmark", ".tmp");
+            Files.write(file, data);
+            channel = new MoverChannel<>(FileStore.O_READ, new FileAttributes(), null,
+                  new IoStatisticsChannel(new FileRepositoryChannel(file, FileStore.O_READ)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        @Param({"4"})
+        int blockSizeInKiB;
+
+        ByteBuffer buffer;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            buffer = ByteBuffer.allocateDirect(KiB.toBytes(blockSizeInKiB));
+        }
+    }
+
+    @Benchmark
+    public int read(SharedChannel shared, Reader reader) throws IOException {
+        ByteBuffer buffer = reader.buffer;
+        long blocks = MiB.toBytes((long) shared.fileSizeInMiB) / buffer.capacity();
+        long position = ThreadLocalRandom.current().nextLong(blocks) * buffer.capacity();
+        buffer.clear();
+        return shared.channel.read(buffer, position);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4, 16}) {
+            Options opt = new OptionsBuilder()
+                  .include(MoverChannelBenchmark.class.getSimpleName())
+                  .threads(threads)
+                  .build();
+
+            new Runner(opt).run();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.dcache.pool.movers;
+
+import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.ByteUnit.MiB;
+
+import diskCacheV111.vehicles.ProtocolInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.vehicles.FileAttributes;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the two ways the xrootd mover sends the segments of a vector read to a socket: reading
+ * each segment into a pooled buffer as done by the chunked responses, and transferring it directly
+ * from the file as done by the file regions of the zero-copy responses. Each invocation sends one
+ * vector read of random segments over a loopback connection. The bytes counter gives the
+ * throughput, and the GC profiler the allocation rate of both paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReadvTransferBenchmark {
+
+    private static final int READ_LIST_HEADER_SIZE = 16;
+
+    @Param({"256"})
+    private int fileSizeInMiB;
+
+    @Param({"4", "64"})
+    private int segmentSizeInKiB;
+
+    @Param({"256"})
+    private int segments;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+
+    private Path file;
+    private MoverChannel<ProtocolInfo> channel;
+    private ServerSocketChannel server;
+    private SocketChannel socket;
+    private Thread drain;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] data = new byte[MiB.toBytes(fileSizeInMiB)];
+        new Random().nextBytes(data);
+        file = Files.createTempFile("readv-transfer-benchmark", ".tmp");
+        Files.write(file, data);
+        channel = new MoverChannel<>(FileStore.O_READ, new FileAttributes(), null,
+              new FileRepositoryChannel(file, FileStore.O_READ));
+
+        server = ServerSocketChannel.open()
+              .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        socket = SocketChannel.open(server.getLocalAddress());
+        SocketChannel peer = server.accept();
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(MiB.toBytes(1));
+            try (peer) {
+                while (peer.read(buffer.clear()) >= 0) {
+                }
+            } catch (IOException ignored) {
+            }
+        }, "drain");
+        drain.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, InterruptedException {
+        socket.close();
+        drain.join();
+        server.close();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void copy(Counters counters) throws IOException {
+        int length = KiB.toBytes(segmentSizeInKiB);
+        for (int i = 0; i < segments; i++) {
+            long position = randomPosition(length);
+            writeHeader(position, length);
+            ByteBuf chunk = alloc.ioBuffer(length);
+            try {
+                ByteBuffer buffer = chunk.nioBuffer(0, length);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    socket.write(buffer);
+                }
+            } finally {
+                chunk.release();
+            }
+            counters.bytes += READ_LIST_HEADER_SIZE + length;
+        }
+    }
+
+    @Benchmark
+    public void zeroCopy(Counters counters) throws IOException {
+        int length = KiB.toBytes(segmentSizeInKiB);
+        for (int i = 0; i < segments; i++) {
+            long position = randomPosition(length);
+            writeHeader(position, length);
+            long transferred = 0;
+            while (transferred < length) {
+                transferred += channel.transferTo(position + transferred, length - transferred,
+                      socket);
+            }
+            counters.bytes += READ_LIST_HEADER_SIZE + length;
+        }
+    }
+
+    private long randomPosition(int length) {
+        return ThreadLocalRandom.current().nextLong(MiB.toBytes((long) fileSizeInMiB) - length);
+    }
+
+    private void writeHeader(long position, int length) throws IOException {
+        ByteBuf header = alloc.buffer(READ_LIST_HEADER_SIZE);
+        try {
+            header.writeInt(0);
+            header.writeInt(length);
+            header.writeLong(position);
+            ByteBuffer buffer = header.nioBuffer();
+            while (buffer.hasRemaining()) {
+                socket.write(buffer);
+            }
+        } finally {
+            header.release();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ReadvTransferBenchmark.class.getSimpleName())
+              .addProfiler(GCProfiler.class)
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,216 @@
+package org.dcache.pool.repository.meta.db;
+
+import com.google.common.collect.Iterables;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.FileStoreState;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.StickyRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how long it takes to load all replica records of a pool, as done by the repository on
+ * start-up, for the serialized and the compact Berkeley DB record format.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplicaStoreLoadBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"db", "compact-db"})
+    String format;
+
+    @Param({"1000000"})
+    int entries;
+
+    private Path poolDir;
+    private FileStore fileStore;
+    private AbstractBerkeleyDBReplicaStore store;
+
+    @Setup(Level.Trial)
+    public void populate() throws Exception {
+        poolDir = Files.createTempDirectory("replica-store-benchmark");
+        fileStore = new SingleFileStore(Files.createFile(poolDir.resolve("replica")));
+
+        AbstractBerkeleyDBReplicaStore store = createStore();
+        try {
+            List<String> ids = new ArrayList<>(entries);
+            for (int i = 0; i < entries; i++) {
+                ids.add(String.format("0000%020X", i));
+            }
+            long now = System.currentTimeMillis();
+            for (List<String> batch : Iterables.partition(ids, BATCH_SIZE)) {
+                store.run(() -> {
+                    for (String id : batch) {
+                        StorageInfo info = storageInfo(id);
+                        List<StickyRecord> sticky = Collections.singletonList(
+                              new StickyRecord(StickyRecord.NON_EXPIRING));
+                        if (store instanceof CompactBerkeleyDBMetaDataRepository) {
+                            store.getReplicaMap().put(id, new ReplicaEntry(ReplicaState.CACHED,
+                                  sticky, now, now, info.getLegacySize(), info));
+                        } else {
+                            AccessTimeInfo accessTime = new AccessTimeInfo(now);
+                            accessTime.setLastAccessTime(now);
+                            store.getStateMap().put(id,
+                                  new CacheRepositoryEntryState(ReplicaState.CACHED, sticky));
+                            store.getStorageInfoMap().put(id, info);
+                            store.getAccessTimeInfo().put(id, accessTime);
+                        }
+                    }
+                });
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void open() throws Exception {
+        store = createStore();
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() {
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        MoreFiles.deleteRecursively(poolDir, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws Exception {
+        for (PnfsId id : store.index(ReplicaStore.IndexOption.META_ONLY)) {
+            blackhole.consume(store.get(id));
+        }
+    }
+
+    private AbstractBerkeleyDBReplicaStore createStore() throws Exception {
+        AbstractBerkeleyDBReplicaStore store = format.equals("db")
+              ? new BerkeleyDBMetaDataRepository(fileStore, poolDir, "pool", false)
+              : new CompactBerkeleyDBMetaDataRepository(fileStore, poolDir, "pool", false);
+        store.init();
+        return store;
+    }
+
+    private static StorageInfo storageInfo(String id) {
+        GenericStorageInfo info = new GenericStorageInfo("osm", "exp:raw");
+        info.setCacheClass("cc");
+        info.setLegacySize(1_000_000_000L);
+        info.addLocation(URI.create("osm://osm/?store=exp&group=raw&bfid=" + id));
+        info.setKey("flag-c", "1:cafebabe");
+        info.setKey("uid", "1000");
+        info.setKey("gid", "1000");
+        info.setIsNew(false);
+        return info;
+    }
+
+    /**
+     * File store in which every replica is backed by the same data file.
+     */
+    private static class SingleFileStore implements FileStore {
+
+        private final Path file;
+
+        SingleFileStore(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        public URI get(PnfsId id) {
+            return file.toUri();
+        }
+
+        @Override
+        public boolean contains(PnfsId id) {
+            return true;
+        }
+
+        @Override
+        public BasicFileAttributeView getFileAttributeView(PnfsId id) {
+            return Files.getFileAttributeView(file, BasicFileAttributeView.class);
+        }
+
+        @Override
+        public URI create(PnfsId id) {
+            return get(id);
+        }
+
+        @Override
+        public void remove(PnfsId id) {
+        }
+
+        @Override
+        public RepositoryChannel openDataChannel(PnfsId id, Set<? extends OpenOption> mode) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<PnfsId> index() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public long getFreeSpace() {
+            return 0;
+        }
+
+        @Override
+        public long getTotalSpace() {
+            return 0;
+        }
+
+        @Override
+        public FileStoreState isOk() {
+            return FileStoreState.OK;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(ReplicaStoreLoadBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,263 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.qos.services.verifier.data;
+
+import static org.dcache.qos.data.QoSMessageType.ADD_CACHE_LOCATION;
+
+import diskCacheV111.util.PnfsId;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.qos.data.FileQoSUpdate;
+import org.dcache.qos.data.QoSAction;
+import org.dcache.qos.services.verifier.data.VerifyOperationQueueIndex.QueueType;
+import org.dcache.qos.services.verifier.data.db.VerifyOperationDao;
+import org.dcache.qos.services.verifier.data.db.VerifyOperationDao.VerifyOperationCriterion;
+import org.dcache.qos.services.verifier.data.db.VerifyOperationDao.VerifyOperationUpdate;
+import org.dcache.qos.services.verifier.handlers.VerifyAndUpdateHandler;
+import org.dcache.qos.services.verifier.util.QoSVerifierCounters;
+import org.dcache.qos.util.QoSHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how long the verifier operation manager takes to process a large number of operations.
+ * <p>
+ * Operations are enqueued against a stub store and a handler which voids every operation as soon
+ * as it is verified, so that the measured time is that of the manager, its queues and the
+ * post-processor.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VerifyOperationManagerBenchmark {
+
+    @Param({"1000000"})
+    int operations;
+
+    @Param({"1", "4"})
+    int shards;
+
+    private VerifyOperationManager manager;
+    private StubOperationDao dao;
+    private ExecutorService taskExecutor;
+    private ExecutorService postProcessExecutor;
+    private ExecutorService removalExecutor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        taskExecutor = Executors.newFixedThreadPool(cores);
+        postProcessExecutor = Executors.newFixedThreadPool(cores);
+        removalExecutor = Executors.newSingleThreadExecutor();
+
+        QueueType type = new QueueType();
+        type.setName("benchmark");
+        type.setDescription("benchmark queue");
+        type.setMessageTypes(List.of(ADD_CACHE_LOCATION));
+        type.setExecutorService(taskExecutor);
+
+        VerifyOperationQueueIndex queueIndex = new VerifyOperationQueueIndex();
+        queueIndex.setQueueTypes(List.of(type));
+        queueIndex.setShards(shards);
+
+        QoSVerifierCounters counters = new QoSVerifierCounters();
+        counters.initialize();
+        QoSHistory history = new QoSHistory();
+        history.initialize();
+
+        dao = new StubOperationDao();
+        manager = new VerifyOperationManager();
+        manager.setCounters(counters);
+        manager.setHistory(history);
+        manager.setDao(dao);
+        manager.setHandler(new VoidingHandler());
+        manager.setQueueIndex(queueIndex);
+        manager.setMaxRunning(1000);
+        manager.setMaxRetries(1);
+        manager.setPostProcessExecutor(postProcessExecutor);
+        manager.setRemovalExecutor(removalExecutor);
+        manager.setReloadGracePeriod(1);
+        manager.setReloadGracePeriodUnit(TimeUnit.MILLISECONDS);
+        manager.setTimeout(1);
+        manager.setTimeoutUnit(TimeUnit.SECONDS);
+        manager.initialize();
+        manager.reload();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        manager.shutdown();
+        taskExecutor.shutdownNow();
+        postProcessExecutor.shutdownNow();
+        removalExecutor.shutdownNow();
+        if (dao.stored.get() != operations) {
+            throw new IllegalStateException(
+                  "Stored " + dao.stored.get() + " of " + operations + " operations.");
+        }
+    }
+
+    @Benchmark
+    public void processAll() throws InterruptedException {
+        for (int i = 0; i < operations; i++) {
+            manager.createOrUpdateOperation(
+                  new FileQoSUpdate(new PnfsId(String.format("%036X", i)), "pool",
+                        ADD_CACHE_LOCATION));
+        }
+        while (manager.size() > 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private class VoidingHandler implements VerifyAndUpdateHandler {
+
+        @Override
+        public void handleUpdate(FileQoSUpdate data) {
+        }
+
+        @Override
+        public void handleVerification(PnfsId pnfsId) {
+            manager.updateVoided(manager.get(pnfsId));
+        }
+
+        @Override
+        public void updateScanRecord(String pool, boolean failed) {
+        }
+
+        @Override
+        public void handleQoSActionCompleted(PnfsId pnfsId, VerifyOperationState opState,
+              QoSAction action, Serializable exception) {
+        }
+
+        @Override
+        public void operationAborted(VerifyOperation operation, String pool, Set<String> tried,
+              int maxRetries) {
+        }
+
+        @Override
+        public void cancelCurrentFileOpForPool(String pool) {
+        }
+    }
+
+    private static class StubOperationDao implements VerifyOperationDao {
+
+        private final AtomicInteger stored = new AtomicInteger();
+
+        @Override
+        public boolean store(VerifyOperation operation) {
+            stored.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public int delete(VerifyOperationCriterion operation) {
+            return 0;
+        }
+
+        @Override
+        public void deleteBatch(List<PnfsId> targets, int batchSize) {
+        }
+
+        @Override
+        public List<VerifyOperation> load() {
+            return List.of();
+        }
+
+        @Override
+        public VerifyOperationCriterion where() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public VerifyOperationUpdate set() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(VerifyOperationManagerBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,125 @@
+package org.dcache.services.billing.db.impl;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the rate at which mover records can be written to the billing database, in batches
+ * of different sizes.
+ * <p>
+ * A batch size of one corresponds to committing records one by one, as the persistence layer
+ * used to do. The billing schema relies on PostgreSQL specific triggers, so the benchmark creates
+ * a plain copy of the billinginfo table in an embedded database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BillingInsertBenchmark {
+
+    private static final int RECORDS = 1000;
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private HikariDataSource dataSource;
+    private JdbcBillingDataWriter writer;
+    private List<List<IHistogramData>> batches;
+
+    @Setup
+    public void setUp() throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:hsqldb:mem:billing-" + batchSize + ";hsqldb.tx=mvcc");
+        config.setUsername("sa");
+        config.setMaximumPoolSize(16);
+        config.setAutoCommit(true);
+        config.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+        dataSource = new HikariDataSource(config);
+
+        try (Connection conn = dataSource.getConnection();
+              Statement statement = conn.createStatement()) {
+            statement.execute("CREATE TABLE billinginfo (datestamp TIMESTAMP WITH TIME ZONE,"
+                  + " cellname VARCHAR(256), action VARCHAR(256), transaction VARCHAR(256),"
+                  + " pnfsid VARCHAR(36), fullsize BIGINT, transfersize BIGINT,"
+                  + " storageclass VARCHAR(256), isnew BOOLEAN, client VARCHAR(256),"
+                  + " connectiontime BIGINT, errorcode INTEGER, errormessage VARCHAR(8000),"
+                  + " protocol VARCHAR(256), initiator VARCHAR(256), p2p BOOLEAN,"
+                  + " owner VARCHAR(256), mappeduid INTEGER, mappedgid INTEGER,"
+                  + " fqan VARCHAR(256))");
+        }
+
+        writer = new JdbcBillingDataWriter(dataSource, JdbcBillingDataWriter.Method.INSERT);
+
+        batches = new ArrayList<>();
+        List<IHistogramData> batch = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            MoverData mover = new MoverData();
+            mover.setCellName("pool" + (i % 16));
+            mover.setAction("transfer");
+            mover.setPnfsID(String.format("0000%032X", i));
+            mover.setFullSize((long) i);
+            mover.setTransferSize((long) i);
+            mover.setStorageClass("test:default@osm");
+            mover.setClient("192.0.2.1");
+            mover.setOwner("/DC=org/DC=example/CN=Test User");
+            mover.setMappedUID(1000);
+            mover.setMappedGID(1000);
+            batch.add(mover);
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+              Statement statement = conn.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(RECORDS)
+    public void write() throws SQLException {
+        for (List<IHistogramData> batch : batches) {
+            writer.write(batch);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(BillingInsertBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
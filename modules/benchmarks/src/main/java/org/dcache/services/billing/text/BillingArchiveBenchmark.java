@@ -0,0 +1,277 @@
+package org.dcache.services.billing.text;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.dcache.services.billing.text.BillingArchive.Column;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures typical queries over a synthetic year of billing entries, answered either by parsing
+ * the billing text files or from the columnar archives.
+ * <p>
+ * The text baseline filters lines by substring before parsing them, like the indexer does when
+ * searching billing files, and parses every line for aggregates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BillingArchiveBenchmark {
+
+    private static final int DAYS = 365;
+    private static final int POOLS = 50;
+    private static final int OWNERS = 200;
+    private static final int FILES = 100_000;
+
+    private static final ImmutableMap<String, String> FORMATS =
+          ImmutableMap.of(
+                "mover-info-message",
+                "$date$ [$cellType$:$cellName$:$type$] [$pnfsid$,$filesize$] [$path$] $if(storage)$$storage.storageClass$@$storage.hsm$$else$<Unknown>$endif$ $transferred$ $connectionTime$ $created$ {$protocol$} [$initiator$] {$rc$:\"$message$\"}",
+                "door-request-info-message",
+                "$date$ [$cellType$:$cellName$:$type$] [\"$owner$\":$uid$:$gid$:$clientChain$] [$pnfsid$,$filesize$] [$path$] $if(storage)$$storage.storageClass$@$storage.hsm$$else$<Unknown>$endif$ $transactionTime$ $queuingTime$ {$rc$:\"$message$\"}");
+
+    private static final DateTimeFormatter LINE_DATE_FORMAT =
+          DateTimeFormatter.ofPattern("MM.dd HH:mm:ss");
+
+    @Param({"text", "archive"})
+    private String storage;
+
+    @Param({"2000"})
+    private int entriesPerDay;
+
+    private Path dir;
+    private LocalDate today;
+    private String pnfsid;
+    private String owner;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("billing-");
+        today = LocalDate.of(2020, 1, 1).plusDays(DAYS);
+        pnfsid = toPnfsId(42);
+        owner = toOwner(7);
+
+        Random random = new Random(0);
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate date = today.minusDays(DAYS - day);
+            long midnight = date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            BillingArchive.Writer archive = new BillingArchive.Writer(date);
+            try (BufferedWriter text = Files.newBufferedWriter(getTextFile(date), UTF_8)) {
+                for (int i = 0; i < entriesPerDay; i++) {
+                    long timestamp = midnight + (86_400_000L / entriesPerDay) * i;
+                    String time = LINE_DATE_FORMAT.format(LocalDateTime.ofInstant(
+                          Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()));
+                    int file = random.nextInt(FILES);
+                    String id = toPnfsId(file);
+                    String size = String.valueOf(random.nextInt(1_000_000_000));
+                    String path = "/data/dir" + (file % 1000) + "/file" + file;
+                    String[] values = new String[Column.values().length];
+                    values[Column.PNFSID.ordinal()] = id;
+                    values[Column.FILESIZE.ordinal()] = size;
+                    values[Column.PATH.ordinal()] = path;
+                    values[Column.STORAGE_CLASS.ordinal()] = "vo:default";
+                    values[Column.HSM.ordinal()] = "osm";
+                    values[Column.RC.ordinal()] = "0";
+                    values[Column.MESSAGE.ordinal()] = "";
+                    if (i % 2 == 0) {
+                        String pool = "pool" + random.nextInt(POOLS);
+                        values[Column.CELL_TYPE.ordinal()] = "pool";
+                        values[Column.CELL_NAME.ordinal()] = pool;
+                        values[Column.TYPE.ordinal()] = "transfer";
+                        values[Column.TRANSFERRED.ordinal()] = size;
+                        values[Column.CONNECTION_TIME.ordinal()] = "1200";
+                        values[Column.CREATED.ordinal()] = "false";
+                        values[Column.PROTOCOL.ordinal()] = "Http-1.1 10.0.0.1:443";
+                        values[Column.INITIATOR.ordinal()] = "door:webdav@webdavDomain:" + i;
+                        text.append(time).append(" [pool:").append(pool).append(":transfer] [")
+                              .append(id).append(',').append(size).append("] [").append(path)
+                              .append("] vo:default@osm ").append(size)
+                              .append(" 1200 false {Http-1.1 10.0.0.1:443} ")
+                              .append("[door:webdav@webdavDomain:").append(String.valueOf(i))
+                              .append("] {0:\"\"}\n");
+                    } else {
+                        String user = toOwner(random.nextInt(OWNERS));
+                        values[Column.CELL_TYPE.ordinal()] = "door";
+                        values[Column.CELL_NAME.ordinal()] = "webdav@webdavDomain";
+                        values[Column.TYPE.ordinal()] = "request";
+                        values[Column.OWNER.ordinal()] = user;
+                        values[Column.UID.ordinal()] = "1000";
+                        values[Column.GID.ordinal()] = "1000";
+                        values[Column.CLIENT.ordinal()] = "10.0.0.1";
+                        values[Column.TRANSACTION_TIME.ordinal()] = "1300";
+                        values[Column.QUEUING_TIME.ordinal()] = "10";
+                        text.append(time).append(" [door:webdav@webdavDomain:request] [\"")
+                              .append(user).append("\":1000:1000:10.0.0.1] [").append(id)
+                              .append(',').append(size).append("] [").append(path)
+                              .append("] vo:default@osm 1300 10 {0:\"\"}\n");
+                    }
+                    archive.add(timestamp, values);
+                }
+            }
+            archive.writeTo(getArchiveFile(date).toFile());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * All entries of a single file over the last three months.
+     */
+    @Benchmark
+    public int pnfsIdLastQuarter() throws IOException {
+        if (storage.equals("text")) {
+            return count(scanText(90, pnfsid, "pnfsid", pnfsid, null));
+        }
+        return selectArchive(90, new BillingQuery().where(Column.PNFSID,
+              BillingQuery.Operator.EQ, pnfsid));
+    }
+
+    /**
+     * All requests of a single user over the last three months.
+     */
+    @Benchmark
+    public int ownerLastQuarter() throws IOException {
+        if (storage.equals("text")) {
+            return count(scanText(90, owner, "owner", owner, null));
+        }
+        return selectArchive(90, new BillingQuery().where(Column.OWNER,
+              BillingQuery.Operator.EQ, owner));
+    }
+
+    /**
+     * Bytes transferred per pool over the whole year.
+     */
+    @Benchmark
+    public Map<String, long[]> bytesPerPoolLastYear() throws IOException {
+        if (storage.equals("text")) {
+            return scanText(DAYS, "transfer]", "type", "transfer", "transferred");
+        }
+        BillingQuery query = new BillingQuery()
+              .where(Column.TYPE, BillingQuery.Operator.EQ, "transfer")
+              .groupBy(Column.CELL_NAME)
+              .sum(Column.TRANSFERRED);
+        Map<String, long[]> totals = new TreeMap<>();
+        for (int day = 1; day <= DAYS; day++) {
+            BillingArchive archive = openArchive(today.minusDays(day));
+            archive.aggregate(query, archive.select(query), totals);
+        }
+        return totals;
+    }
+
+    private int selectArchive(int days, BillingQuery query) throws IOException {
+        int count = 0;
+        for (int day = 1; day <= days; day++) {
+            BillingArchive archive = openArchive(today.minusDays(day));
+            count += archive.select(query).length;
+        }
+        return count;
+    }
+
+    private BillingArchive openArchive(LocalDate date) throws IOException {
+        return BillingArchive.open(getArchiveFile(date).toFile());
+    }
+
+    private static int count(Map<String, long[]> totals) {
+        return totals.values().stream().mapToInt(total -> (int) total[0]).sum();
+    }
+
+    /**
+     * Parses the lines of the text files of the given number of days that contain term and
+     * aggregates those in which attribute has the given value by cell name.
+     */
+    private Map<String, long[]> scanText(int days, String term, String attribute, String value,
+          String sum) throws IOException {
+        BillingParserBuilder builder = new BillingParserBuilder(FORMATS)
+              .addAttribute(attribute)
+              .addAttribute("cellName");
+        if (sum != null) {
+            builder.addAttribute(sum);
+        }
+        Function<String, String[]> parser = builder.buildToArray();
+        Map<String, long[]> totals = new TreeMap<>();
+        for (int day = 1; day <= days; day++) {
+            try (BufferedReader reader = Files.newBufferedReader(
+                  getTextFile(today.minusDays(day)), UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains(term)) {
+                        String[] values = parser.apply(line);
+                        if (value.equals(values[0])) {
+                            long[] total = totals.computeIfAbsent(values[1], k -> new long[2]);
+                            total[0]++;
+                            if (sum != null && values[2] != null) {
+                                total[1] += Long.parseLong(values[2]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return totals;
+    }
+
+    private Path getTextFile(LocalDate date) {
+        return dir.resolve("billing-" + DateTimeFormatter.ofPattern("uuuu.MM.dd").format(date));
+    }
+
+    private Path getArchiveFile(LocalDate date) {
+        return dir.resolve("archive-" + DateTimeFormatter.ofPattern("uuuu.MM.dd").format(date));
+    }
+
+    private static String toPnfsId(int file) {
+        return String.format("0000%032X", file);
+    }
+
+    private static String toOwner(int user) {
+        return "/C=DE/O=dCache/CN=User " + user;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+              .include(BillingArchiveBenchmark.class.getSimpleName())
+              .build();
+
+        new Runner(opt).run();
+    }
+}
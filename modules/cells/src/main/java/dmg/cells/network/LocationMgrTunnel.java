@@ -26,6 +26,7 @@ import dmg.cells.nucleus.CellRoute;
 import dmg.cells.nucleus.CellTunnel;
 import dmg.cells.nucleus.CellTunnelInfo;
 import dmg.cells.nucleus.MessageEvent;
+import dmg.cells.nucleus.MsgSerializerBinary;
 import dmg.cells.nucleus.NoRouteToCellException;
 import dmg.cells.nucleus.RoutedMessageEvent;
 import dmg.cells.nucleus.SerializationHandler;
@@ -101,7 +102,8 @@ public class LocationMgrTunnel
         _localDomainInfo = new CellDomainInfo(_nucleus.getCellDomainName(),
               Version.of(LocationMgrTunnel.class).getVersion(),
               role,
-              _nucleus.getZone());
+              _nucleus.getZone(),
+              Optional.of(MsgSerializerBinary.getSchema()));
     }
 
     @Override
@@ -179,6 +181,15 @@ public class LocationMgrTunnel
 
                 SerializationHandler.Serializer serializer = samedVersionEndpoint ?
                       _nucleus.getMsgSerialization() : SerializationHandler.Serializer.JOS;
+
+                // Binary codecs are only used if both ends agree on all codec versions
+                if (serializer == SerializationHandler.Serializer.BINARY
+                      && !_remoteDomainInfo.getMessageCodecSchema()
+                      .equals(_localDomainInfo.getMessageCodecSchema())) {
+                    _log.info("Peer {} uses different message codecs; falling back to {}.",
+                          _remoteDomainInfo, SerializationHandler.Serializer.JOS);
+                    serializer = SerializationHandler.Serializer.JOS;
+                }
                 this._serializer = serializer;
                 /* Since dCache 3.0 we use raw encoding of CellMessage. */
                 _input = new RawObjectSource(_rawIn);
@@ -32,12 +32,24 @@ public class CellDomainInfo implements Serializable {
     private final String _zone;
     private CellDomainRole _role;
 
+    /**
+     * The binary message codecs supported by the domain, or null if the domain does not support
+     * the binary message payload encoding (also the case for domains predating the encoding).
+     */
+    private final String _messageCodecSchema;
+
     public CellDomainInfo(String name, String version, CellDomainRole role,
           Optional<String> zone) {
+        this(name, version, role, zone, Optional.empty());
+    }
+
+    public CellDomainInfo(String name, String version, CellDomainRole role,
+          Optional<String> zone, Optional<String> messageCodecSchema) {
         _domainName = requireNonNull(name);
         _version = requireNonNull(version);
         _role = requireNonNull(role);
         _zone = zone.orElse(null);
+        _messageCodecSchema = messageCodecSchema.orElse(null);
     }
 
     public String getVersion() {
@@ -67,6 +79,15 @@ public class CellDomainInfo implements Serializable {
         return Optional.ofNullable(_zone);
     }
 
+    /**
+     * Returns the schema of the binary message codecs supported by the domain, if any.
+     *
+     * @see MsgSerializerBinary#getSchema()
+     */
+    public Optional<String> getMessageCodecSchema() {
+        return Optional.ofNullable(_messageCodecSchema);
+    }
+
     public String toString() {
         return _domainName + ',' + _version + ',' + _role;
     }
@@ -246,7 +246,10 @@ public final class CellMessage implements Cloneable, Serializable {
         checkArgument(handler != null,
               "Cannot ensure CellMessage is encoded. The given msg payload serializer is null.");
 
-        // only one serialization is supported
+        if (!SerializationHandler.isEncodedWith(_messageStream, handler)) {
+            _messageStream = SerializationHandler.encode(
+                  SerializationHandler.decode(_messageStream), handler);
+        }
         return this;
     }
 
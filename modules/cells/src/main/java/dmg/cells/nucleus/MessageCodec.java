@@ -0,0 +1,55 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A hand-written binary encoding for a single message payload type.
+ * <p>
+ * Codecs are discovered using {@link java.util.ServiceLoader} and are used by {@link
+ * MsgSerializerBinary} for payloads whose class is exactly {@link #getType()}. Subclasses of that
+ * type are not handled by the codec and fall back to Java object serialization.
+ * <p>
+ * The wire layout of a codec is identified by its id and version. Two domains only use the binary
+ * encoding on a tunnel if they agree on the id and version of all codecs, thus the version must be
+ * incremented whenever the layout written by {@link #encode} changes.
+ */
+public interface MessageCodec<T> {
+
+    /**
+     * Returns the unique and stable identifier of this codec.
+     */
+    int getId();
+
+    /**
+     * Returns the version of the wire layout of this codec.
+     */
+    int getVersion();
+
+    /**
+     * Returns the payload class handled by this codec.
+     */
+    Class<T> getType();
+
+    void encode(T message, DataOutput out) throws IOException;
+
+    T decode(DataInput in) throws IOException;
+}
@@ -0,0 +1,141 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility methods for implementing {@link MessageCodec}s.
+ */
+public final class MessageCodecs {
+
+    private MessageCodecs() {
+    }
+
+    /**
+     * Writes a string as a length prefixed UTF-8 byte array. Unlike {@link DataOutput#writeUTF},
+     * this is not limited to strings with an encoded length of at most 64 KiB.
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static void writeStrings(DataOutput out, Collection<String> values)
+          throws IOException {
+        if (values == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(values.size());
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    public static List<String> readStrings(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    public static void writeStringMap(DataOutput out, Map<String, String> map)
+          throws IOException {
+        if (map == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(map.size());
+            for (Map.Entry<String, String> e : map.entrySet()) {
+                writeString(out, e.getKey());
+                writeString(out, e.getValue());
+            }
+        }
+    }
+
+    public static Map<String, String> readStringMap(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    /**
+     * Writes an object for which no binary encoding exists using Java object serialization.
+     */
+    public static void writeSerializable(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = MsgSerializerJos.encode(value);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static <T extends Serializable> T readSerializable(DataInput in, Class<T> type)
+          throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try {
+            return type.cast(MsgSerializerJos.decode(bytes));
+        } catch (ClassCastException | SerializationException e) {
+            throw new IOException("Failed to decode embedded " + type.getSimpleName() + ": "
+                  + e.getMessage(), e);
+        }
+    }
+}
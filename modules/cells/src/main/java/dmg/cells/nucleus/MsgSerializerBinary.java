@@ -0,0 +1,140 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package dmg.cells.nucleus;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The class contains methods for serializing and deserializing objects to/from a compact binary
+ * representation using the {@link MessageCodec}s available on the class path. Objects without a
+ * codec are serialized using {@link MsgSerializerJos}.
+ * <p>
+ * Binary encoded payloads start with a two byte magic number which can never start a Java object
+ * serialization stream, followed by the id and version of the codec.
+ */
+public final class MsgSerializerBinary {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MsgSerializerBinary.class);
+
+    private static final short MAGIC = (short) 0xDCB1;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final Map<Class<?>, MessageCodec<?>> CODECS_BY_TYPE = new HashMap<>();
+
+    private static final Map<Integer, MessageCodec<?>> CODECS_BY_ID = new HashMap<>();
+
+    private static final String SCHEMA;
+
+    static {
+        for (MessageCodec<?> codec : ServiceLoader.load(MessageCodec.class)) {
+            MessageCodec<?> other = CODECS_BY_ID.putIfAbsent(codec.getId(), codec);
+            if (other != null) {
+                LOGGER.error("Message codecs {} and {} use the same id {}; ignoring the former.",
+                      codec.getClass().getName(), other.getClass().getName(), codec.getId());
+                continue;
+            }
+            CODECS_BY_TYPE.put(codec.getType(), codec);
+        }
+        SCHEMA = CODECS_BY_ID.values().stream()
+              .sorted(Comparator.comparingInt(MessageCodec::getId))
+              .map(c -> c.getId() + ":" + c.getType().getName() + ":" + c.getVersion())
+              .collect(Collectors.joining(","));
+    }
+
+    private MsgSerializerBinary() {
+    }
+
+    /**
+     * Returns a description of all available codecs and their versions. Two domains can exchange
+     * binary encoded messages only if their schemas are equal.
+     */
+    public static String getSchema() {
+        return SCHEMA;
+    }
+
+    /**
+     * Returns true if the payload was encoded by a binary codec rather than by Java object
+     * serialization.
+     */
+    public static boolean isBinary(byte[] messageStream) {
+        return messageStream.length >= 2
+              && (short) (((messageStream[0] & 0xff) << 8) | (messageStream[1] & 0xff)) == MAGIC;
+    }
+
+    public static byte[] encode(Object message) {
+        checkState(message != null, "Unencoded message payload is null.");
+
+        @SuppressWarnings("unchecked")
+        MessageCodec<Object> codec = (MessageCodec<Object>) CODECS_BY_TYPE.get(message.getClass());
+        if (codec == null) {
+            return MsgSerializerJos.encode(message);
+        }
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        try (DataOutputStream out = new DataOutputStream(array)) {
+            out.writeShort(MAGIC);
+            out.writeShort(codec.getId());
+            out.writeShort(codec.getVersion());
+            codec.encode(message, out);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to encode object: " + e, e);
+        }
+        return array.toByteArray();
+    }
+
+    public static Object decode(byte[] messageStream) {
+        checkState(messageStream != null, "Encoded message payload is null.");
+        if (!isBinary(messageStream)) {
+            return MsgSerializerJos.decode(messageStream);
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(messageStream))) {
+            in.readShort();
+            int id = in.readUnsignedShort();
+            int version = in.readUnsignedShort();
+            MessageCodec<?> codec = CODECS_BY_ID.get(id);
+            if (codec == null) {
+                throw new SerializationException("Failed to decode object: Unknown codec " + id
+                      + ". Is there a software version mismatch in your installation?");
+            }
+            if (codec.getVersion() != version) {
+                throw new SerializationException("Failed to decode object: Codec " + id
+                      + " has version " + codec.getVersion() + ", but message was encoded with "
+                      + "version " + version + ". Is there a software version mismatch in your "
+                      + "installation?");
+            }
+            return codec.decode(in);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to decode object: " + e, e);
+        }
+    }
+}
@@ -26,14 +26,14 @@ import org.slf4j.LoggerFactory;
  * The class contains methods for serializing and deserializing objects to/from a byte array
  * representation. It selects the deserialization method based on a header that is appended to
  * serialized byte arrays based on the used serializer. Currently the class can differentiate
- * between JOS and FST.
+ * between JOS and the binary codecs of {@link MsgSerializerBinary}.
  */
 public final class SerializationHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SerializationHandler.class);
 
     public enum Serializer {
-        UNDEFINED("undefined"), JOS("standard");
+        UNDEFINED("undefined"), JOS("standard"), BINARY("binary");
 
         private final String displayName;
 
@@ -57,6 +57,8 @@ public final class SerializationHandler {
         switch (serializerString) {
             case "standard":
                 return Serializer.JOS;
+            case "binary":
+                return Serializer.BINARY;
             case "experimental":
                 // keep the keyword for the future use.
             default:
@@ -67,14 +69,29 @@ public final class SerializationHandler {
         }
     }
 
+    /**
+     * Returns true if a peer using {@code serializer} is able to decode {@code msgStream}. Peers
+     * supporting the binary codecs also understand JOS, as payloads without a codec fall back to
+     * it.
+     */
     public static boolean isEncodedWith(byte[] msgStream, Serializer serializer) {
-        return true; // we expect only one serialization type
+        switch (serializer) {
+            case BINARY:
+                return true;
+            case JOS:
+                return !MsgSerializerBinary.isBinary(msgStream);
+            case UNDEFINED:
+            default:
+                return false;
+        }
     }
 
     public static byte[] encode(Object message, Serializer serializer) {
         switch (serializer) {
             case JOS:
                 return MsgSerializerJos.encode(message);
+            case BINARY:
+                return MsgSerializerBinary.encode(message);
             case UNDEFINED:
             default:
                 throw new UnsupportedOperationException(
@@ -83,7 +100,7 @@ public final class SerializationHandler {
     }
 
     public static Object decode(byte[] messageStream) {
-        return MsgSerializerJos.decode(messageStream);
+        return MsgSerializerBinary.decode(messageStream);
     }
 
 }
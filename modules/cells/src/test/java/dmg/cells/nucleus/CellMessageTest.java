@@ -63,6 +63,45 @@ public class CellMessageTest {
     }
      */
 
+    @Test
+    public void shouldDeserializeSerializedMessage_Binary() throws Exception {
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
+        CellMessage encoded = message.encodeWith(SerializationHandler.Serializer.BINARY);
+        encoded.ensureEncodedWith(SerializationHandler.Serializer.JOS);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream outStream = new DataOutputStream(out);
+        encoded.writeTo(outStream);
+
+        DataInputStream inStream = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        CellMessage decoded = CellMessage.createFrom(inStream).decode();
+
+        assertEquals(message.getUOID(), decoded.getUOID());
+        assertEquals(message.getDestinationPath(), decoded.getDestinationPath());
+        assertEquals("payload", decoded.getMessageObject());
+    }
+
+    @Test
+    public void shouldDeserializeSerializedMessage_BinaryCodec() throws Exception {
+        TestPayload payload = new TestPayload("payload", 42);
+        CellMessage message = new CellMessage(new CellPath("foo", "bar"), payload);
+        CellMessage encoded = message.encodeWith(SerializationHandler.Serializer.BINARY);
+
+        CellMessage decoded = writeAndRead(encoded).decode();
+
+        assertEquals(message.getUOID(), decoded.getUOID());
+        assertEquals(message.getDestinationPath(), decoded.getDestinationPath());
+        assertEquals(payload, decoded.getMessageObject());
+    }
+
+    @Test
+    public void shouldSelectBinarySerializerFromConfiguration() {
+        assertEquals(SerializationHandler.Serializer.BINARY,
+              SerializationHandler.enumFromConfigString("binary"));
+        assertEquals(SerializationHandler.Serializer.JOS,
+              SerializationHandler.enumFromConfigString("standard"));
+    }
+
     @Test(expected = IllegalStateException.class)
     public void shouldFailToSerializedUnencodedMessages() throws Exception {
         CellMessage message = new CellMessage(new CellPath("foo", "bar"), "payload");
@@ -135,4 +174,11 @@ public class CellMessageTest {
         DataInputStream inStream = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
         CellMessage.createFrom(inStream);
     }
-}
\ No newline at end of file
+
+    private static CellMessage writeAndRead(CellMessage encoded) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoded.writeTo(new DataOutputStream(out));
+        return CellMessage.createFrom(
+              new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+    }
+}
@@ -0,0 +1,87 @@
+package dmg.cells.nucleus;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class MsgSerializerBinaryTest {
+
+    @Test
+    public void shouldEncodePayloadWithRegisteredCodec() {
+        byte[] encoded = MsgSerializerBinary.encode(new TestPayload("foo", 42));
+
+        assertTrue(MsgSerializerBinary.isBinary(encoded));
+        assertEquals(new TestPayload("foo", 42), MsgSerializerBinary.decode(encoded));
+    }
+
+    @Test
+    public void shouldRepackCodecPayloadForJosPeer() {
+        byte[] encoded = SerializationHandler.encode(new TestPayload("foo", 42),
+              SerializationHandler.Serializer.BINARY);
+
+        assertFalse(SerializationHandler.isEncodedWith(encoded,
+              SerializationHandler.Serializer.JOS));
+
+        byte[] repacked = SerializationHandler.encode(SerializationHandler.decode(encoded),
+              SerializationHandler.Serializer.JOS);
+
+        assertEquals(new TestPayload("foo", 42), MsgSerializerJos.decode(repacked));
+    }
+
+    @Test
+    public void shouldFallBackToJosForPayloadWithoutCodec() {
+        byte[] encoded = MsgSerializerBinary.encode("payload");
+
+        assertFalse(MsgSerializerBinary.isBinary(encoded));
+        assertEquals("payload", MsgSerializerBinary.decode(encoded));
+    }
+
+    @Test
+    public void shouldIncludeRegisteredCodecInSchema() {
+        assertThat(MsgSerializerBinary.getSchema(),
+              containsString(TestPayloadCodec.ID + ":" + TestPayload.class.getName() + ":"
+                    + TestPayloadCodec.VERSION));
+    }
+
+    @Test
+    public void shouldRejectUnknownCodecId() throws IOException {
+        byte[] encoded = header(TestPayloadCodec.ID + 1, TestPayloadCodec.VERSION);
+
+        try {
+            MsgSerializerBinary.decode(encoded);
+            fail("Decoded payload with unknown codec");
+        } catch (SerializationException e) {
+            assertThat(e.getMessage(), containsString("Unknown codec"));
+        }
+    }
+
+    @Test
+    public void shouldRejectUnknownCodecVersion() throws IOException {
+        byte[] encoded = header(TestPayloadCodec.ID, TestPayloadCodec.VERSION + 1);
+
+        try {
+            MsgSerializerBinary.decode(encoded);
+            fail("Decoded payload with unknown codec version");
+        } catch (SerializationException e) {
+            assertThat(e.getMessage(), containsString("version"));
+        }
+    }
+
+    private static byte[] header(int id, int version) throws IOException {
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(array)) {
+            out.writeShort(0xDCB1);
+            out.writeShort(id);
+            out.writeShort(version);
+        }
+        return array.toByteArray();
+    }
+}
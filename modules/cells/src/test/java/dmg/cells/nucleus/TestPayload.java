@@ -0,0 +1,42 @@
+package dmg.cells.nucleus;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Message payload with a binary codec registered for tests.
+ */
+public class TestPayload implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+    private final long value;
+
+    public TestPayload(String name, long value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TestPayload)) {
+            return false;
+        }
+        TestPayload other = (TestPayload) o;
+        return value == other.value && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, value);
+    }
+}
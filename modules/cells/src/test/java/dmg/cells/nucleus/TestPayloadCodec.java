@@ -0,0 +1,41 @@
+package dmg.cells.nucleus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Codec for {@link TestPayload}, registered through the service loader of the test class path.
+ */
+public class TestPayloadCodec implements MessageCodec<TestPayload> {
+
+    static final int ID = 999;
+
+    static final int VERSION = 1;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public Class<TestPayload> getType() {
+        return TestPayload.class;
+    }
+
+    @Override
+    public void encode(TestPayload message, DataOutput out) throws IOException {
+        MessageCodecs.writeString(out, message.getName());
+        out.writeLong(message.getValue());
+    }
+
+    @Override
+    public TestPayload decode(DataInput in) throws IOException {
+        return new TestPayload(MessageCodecs.readString(in), in.readLong());
+    }
+}
@@ -273,6 +273,18 @@ public interface FileSystemProvider extends Closeable {
      */
     FsInode id2inode(String id, StatCacheOption stat) throws ChimeraFsException;
 
+    /**
+     * Find the inode with the given id and read its stat together with the requested parts of its
+     * data. Where the database allows it, everything is read with a single query.
+     *
+     * @param id
+     * @param parts the data to read in addition to the stat
+     * @return the inode with its data
+     * @throws FileNotFoundChimeraFsException if there is no inode with the given id
+     * @throws ChimeraFsException
+     */
+    InodeData readInode(String id, Set<InodeData.Part> parts) throws ChimeraFsException;
+
     List<FsInode> path2inodes(String path)
           throws ChimeraFsException;
 
@@ -349,6 +361,16 @@ public interface FileSystemProvider extends Closeable {
     List<StorageLocatable> getInodeLocations(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Get the locations of several inodes with as few database round-trips as possible.
+     *
+     * @param inodes
+     * @return the locations keyed by inode number; inodes without locations are absent.
+     * @throws ChimeraFsException
+     */
+    Map<Long, List<StorageLocatable>> getInodeLocations(Collection<FsInode> inodes)
+          throws ChimeraFsException;
+
     void addInodeLocation(FsInode inode, int type,
           String location) throws ChimeraFsException;
 
@@ -421,6 +443,16 @@ public interface FileSystemProvider extends Closeable {
     Set<Checksum> getInodeChecksums(FsInode inode)
           throws ChimeraFsException;
 
+    /**
+     * Get the checksums of several inodes with as few database round-trips as possible.
+     *
+     * @param inodes
+     * @return the checksums keyed by inode number; inodes without checksums are absent.
+     * @throws ChimeraFsException
+     */
+    Map<Long, Set<Checksum>> getInodeChecksums(Collection<FsInode> inodes)
+          throws ChimeraFsException;
+
     String getInfo();
 
     /**
@@ -444,6 +476,16 @@ public interface FileSystemProvider extends Closeable {
      */
     List<ACE> getACL(FsInode inode) throws ChimeraFsException;
 
+    /**
+     * Get the Access Control Lists of several inodes with as few database round-trips as
+     * possible.
+     *
+     * @param inodes
+     * @return ordered lists of {@link ACE} keyed by inode number; inodes without ACL are absent.
+     * @throws ChimeraFsException
+     */
+    Map<Long, List<ACE>> getACL(Collection<FsInode> inodes) throws ChimeraFsException;
+
     /**
      * Set Access Control Entries list for specified inode.
      *
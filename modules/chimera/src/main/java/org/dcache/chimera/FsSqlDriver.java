@@ -43,6 +43,7 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -116,6 +117,11 @@ public class FsSqlDriver implements AutoCloseable {
     private static final ServiceLoader<DBDriverProvider> ALL_PROVIDERS
           = ServiceLoader.load(DBDriverProvider.class);
 
+    /**
+     * Maximum number of inodes whose attributes are fetched with a single query.
+     */
+    private static final int BULK_QUERY_SIZE = 1000;
+
     final JdbcTemplate _jdbc;
 
     private final long _root;
@@ -387,6 +393,51 @@ public class FsSqlDriver implements AutoCloseable {
               rs -> rs.next() ? toStat(rs) : null);
     }
 
+    /**
+     * Reads the stat of the inode with the given id and the requested parts of its data. This
+     * implementation issues one query per part; drivers for databases that can aggregate the
+     * parts in a single statement override it.
+     *
+     * @param fs
+     * @param id
+     * @param parts
+     * @return the inode data or null if the inode doesn't exist
+     */
+    InodeData readInode(FileSystemProvider fs, String id, Set<InodeData.Part> parts) {
+        Stat stat = stat(id);
+        if (stat == null) {
+            return null;
+        }
+        FsInode inode = new FsInode(fs, stat.getIno(), FsInodeType.INODE, 0, stat);
+        InodeData data = new InodeData(inode, 1);
+        if (parts.contains(InodeData.Part.CHECKSUMS)) {
+            data.setChecksums(getInodeChecksums(inode));
+            data.addQueries(1);
+        }
+        if (parts.contains(InodeData.Part.LOCATIONS)) {
+            data.setLocations(getInodeLocations(inode));
+            data.addQueries(1);
+        }
+        if (parts.contains(InodeData.Part.ACL)) {
+            data.setAcl(readAcl(inode));
+            data.addQueries(1);
+        }
+        if (parts.contains(InodeData.Part.PARENT_TAGS)) {
+            Long parent = _jdbc.query("SELECT iparent FROM t_dirs WHERE ichild=?",
+                  rs -> rs.next() ? rs.getLong("iparent") : null,
+                  inode.ino());
+            data.addQueries(1);
+            if (parent == null) {
+                data.setParentTags(null, Collections.emptyMap());
+            } else {
+                FsInode dir = new FsInode(fs, parent);
+                data.setParentTags(dir, getAllTags(dir));
+                data.addQueries(1);
+            }
+        }
+        return data;
+    }
+
     public Stat stat(FsInode inode) {
         return stat(inode, 0);
     }
@@ -458,7 +509,7 @@ public class FsSqlDriver implements AutoCloseable {
         }
     }
 
-    private Stat toStat(ResultSet rs) throws SQLException {
+    Stat toStat(ResultSet rs) throws SQLException {
         Stat stat = new Stat();
         stat.setIno(rs.getLong("inumber"));
         stat.setId(rs.getString("ipnfsid"));
@@ -1162,6 +1213,64 @@ public class FsSqlDriver implements AutoCloseable {
     }
 
 
+    /**
+     * Returns the 'online' locations of several inodes, keyed by inode number. Inodes without
+     * locations are not contained in the result.
+     *
+     * @param inodes
+     * @return
+     */
+    Map<Long, List<StorageLocatable>> getInodeLocations(Collection<FsInode> inodes) {
+        Map<Long, List<StorageLocatable>> locations = new HashMap<>();
+        for (long[] inumbers : partitionInumbers(inodes)) {
+            _jdbc.query("SELECT inumber,itype,ilocation,ipriority,ictime,iatime FROM t_locationinfo " +
+                        "WHERE " + inumberIn(inumbers.length) + " AND istate=1 ORDER BY ipriority DESC",
+                  ps -> setInumbers(ps, 1, inumbers),
+                  rs -> {
+                      int type = rs.getInt("itype");
+                      long ctime = rs.getTimestamp("ictime").getTime();
+                      long atime = rs.getTimestamp("iatime").getTime();
+                      int priority = rs.getInt("ipriority");
+                      String location = rs.getString("ilocation");
+                      locations.computeIfAbsent(rs.getLong("inumber"), n -> new ArrayList<>())
+                            .add(new StorageGenericLocation(type, priority, location, ctime, atime,
+                                  true));
+                  });
+        }
+        return locations;
+    }
+
+    /**
+     * Splits the inode numbers of the given inodes into arrays of at most
+     * BULK_QUERY_SIZE elements, each to be passed to a single query.
+     */
+    private static List<long[]> partitionInumbers(Collection<FsInode> inodes) {
+        long[] inumbers = inodes.stream().mapToLong(FsInode::ino).distinct().toArray();
+        List<long[]> partitions = new ArrayList<>();
+        for (int i = 0; i < inumbers.length; i += BULK_QUERY_SIZE) {
+            partitions.add(Arrays.copyOfRange(inumbers, i,
+                  Math.min(i + BULK_QUERY_SIZE, inumbers.length)));
+        }
+        return partitions;
+    }
+
+    /**
+     * Returns an SQL condition that matches rows with one of {@code count} inode numbers in the
+     * inumber column. The inode numbers are bound by {@link #setInumbers}.
+     */
+    String inumberIn(int count) {
+        return "inumber IN (" + String.join(",", Collections.nCopies(count, "?")) + ")";
+    }
+
+    /**
+     * Binds inode numbers to the parameters of the condition returned by {@link #inumberIn}.
+     */
+    void setInumbers(PreparedStatement ps, int index, long[] inumbers) throws SQLException {
+        for (long inumber : inumbers) {
+            ps.setLong(index++, inumber);
+        }
+    }
+
     /**
      * adds a new location for the inode
      *
@@ -1708,6 +1817,28 @@ public class FsSqlDriver implements AutoCloseable {
               });
     }
 
+    /**
+     * Returns the checksums of several inodes, keyed by inode number. Inodes without checksums are
+     * not contained in the result.
+     *
+     * @param inodes
+     */
+    Map<Long, List<Checksum>> getInodeChecksums(Collection<FsInode> inodes) {
+        Map<Long, List<Checksum>> checksums = new HashMap<>();
+        for (long[] inumbers : partitionInumbers(inodes)) {
+            _jdbc.query("SELECT inumber, isum, itype FROM t_inodes_checksum WHERE "
+                        + inumberIn(inumbers.length),
+                  ps -> setInumbers(ps, 1, inumbers),
+                  rs -> {
+                      String checksum = rs.getString("isum");
+                      int type = rs.getInt("itype");
+                      checksums.computeIfAbsent(rs.getLong("inumber"), n -> new ArrayList<>())
+                            .add(new Checksum(ChecksumType.getChecksumType(type), checksum));
+                  });
+        }
+        return checksums;
+    }
+
     /**
      * @param inode
      * @param type
@@ -1869,6 +2000,35 @@ public class FsSqlDriver implements AutoCloseable {
               });
     }
 
+    /**
+     * Get the Access Control Lists of several inodes, keyed by inode number. Inodes without ACL are
+     * not contained in the result.
+     *
+     * @param inodes
+     * @return
+     */
+    Map<Long, List<ACE>> readAcls(Collection<FsInode> inodes) {
+        Map<Long, List<ACE>> acls = new HashMap<>();
+        for (long[] inumbers : partitionInumbers(inodes)) {
+            _jdbc.query("SELECT * FROM t_acl WHERE " + inumberIn(inumbers.length)
+                        + " ORDER BY ace_order",
+                  ps -> setInumbers(ps, 1, inumbers),
+                  rs -> {
+                      AceType type =
+                            (rs.getInt("type") == 0)
+                                  ? AceType.ACCESS_ALLOWED_ACE_TYPE
+                                  : AceType.ACCESS_DENIED_ACE_TYPE;
+                      acls.computeIfAbsent(rs.getLong("inumber"), n -> new ArrayList<>())
+                            .add(new ACE(type,
+                                  rs.getInt("flags"),
+                                  rs.getInt("access_msk"),
+                                  Who.valueOf(rs.getInt("who")),
+                                  rs.getInt("who_id")));
+                  });
+        }
+        return acls;
+    }
+
     /**
      * Set inode's Access Control List. The inode must not have any ACLs prior to this call.
      *
@@ -0,0 +1,136 @@
+/*
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU Library General Public License as
+ * published by the Free Software Foundation; either version 2 of the
+ * License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Library General Public License for more details.
+ *
+ * You should have received a copy of the GNU Library General Public
+ * License along with this program (see the file COPYING.LIB for more
+ * details); if not, write to the Free Software Foundation, Inc.,
+ * 675 Mass Ave, Cambridge, MA 02139, USA.
+ */
+package org.dcache.chimera;
+
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.dcache.acl.ACE;
+import org.dcache.util.Checksum;
+
+/**
+ * An inode with its stat and those parts of its data that are not stored in the inode table, as
+ * read by {@link FileSystemProvider#readInode}. Parts that were not requested are {@code null}.
+ */
+public class InodeData {
+
+    /**
+     * Data that may be read together with the stat of an inode.
+     */
+    public enum Part {
+        /**
+         * The checksums of the inode.
+         */
+        CHECKSUMS,
+
+        /**
+         * The online locations of the inode.
+         */
+        LOCATIONS,
+
+        /**
+         * The access control list of the inode.
+         */
+        ACL,
+
+        /**
+         * The parent directory of the inode and the tags of that directory.
+         */
+        PARENT_TAGS
+    }
+
+    private final FsInode inode;
+    private List<Checksum> checksums;
+    private List<StorageLocatable> locations;
+    private List<ACE> acl;
+    private FsInode parent;
+    private Map<String, byte[]> parentTags;
+    private int queries;
+
+    public InodeData(FsInode inode, int queries) {
+        this.inode = inode;
+        this.queries = queries;
+    }
+
+    /**
+     * Returns the inode. Its stat is cached.
+     */
+    public FsInode getInode() {
+        return inode;
+    }
+
+    @Nullable
+    public List<Checksum> getChecksums() {
+        return checksums;
+    }
+
+    void setChecksums(List<Checksum> checksums) {
+        this.checksums = checksums;
+    }
+
+    @Nullable
+    public List<StorageLocatable> getLocations() {
+        return locations;
+    }
+
+    void setLocations(List<StorageLocatable> locations) {
+        this.locations = locations;
+    }
+
+    @Nullable
+    public List<ACE> getAcl() {
+        return acl;
+    }
+
+    void setAcl(List<ACE> acl) {
+        this.acl = acl;
+    }
+
+    /**
+     * Returns the parent directory, or {@code null} if it was not read or the inode is the root
+     * directory.
+     */
+    @Nullable
+    public FsInode getParent() {
+        return parent;
+    }
+
+    /**
+     * Returns the tags of the parent directory, or {@code null} if they were not read. The tags
+     * of the root directory's non-existing parent are empty.
+     */
+    @Nullable
+    public Map<String, byte[]> getParentTags() {
+        return parentTags;
+    }
+
+    void setParentTags(@Nullable FsInode parent, Map<String, byte[]> tags) {
+        this.parent = parent;
+        this.parentTags = tags;
+    }
+
+    /**
+     * Returns the number of database queries used to read the data.
+     */
+    public int getQueries() {
+        return queries;
+    }
+
+    void addQueries(int count) {
+        queries += count;
+    }
+}
@@ -26,6 +26,7 @@ import static org.dcache.chimera.FileSystemProvider.StatCacheOption.STAT;
 import static org.dcache.util.ByteUnit.EiB;
 import static org.dcache.util.SqlHelper.tryToClose;
 
+import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -39,8 +40,10 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -51,6 +54,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.sql.DataSource;
 import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
 import org.dcache.acl.ACE;
@@ -69,6 +74,8 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * JDBC-FS is THE building block of Chimera. It's an abstraction layer, which allows to build
@@ -153,6 +160,33 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                 .maximumSize(100000)
                 .build();
 
+    /* Directory entries (parent inode number, name) to inode number of the child directory.
+     * Only directories are cached; the mapping is invalidated by all operations of this
+     * instance which remove, move or create a directory entry, both when the entry is
+     * modified and once the transaction completes. Changes made by other instances sharing
+     * the same database are only picked up after the entry expires, which is why the cache
+     * is disabled by default.
+     */
+    private volatile Cache<DirectoryEntry, Long> _dirEntryCache;
+
+    /* Incremented on every invalidation. A lookup only caches what it read from the database
+     * if no invalidation happened in the meantime, as it may otherwise have read a directory
+     * entry that a concurrent transaction was about to change.
+     */
+    private final AtomicLong _dirEntryCacheGeneration = new AtomicLong();
+
+    private long _dirEntryCacheSize;
+
+    private long _dirEntryCacheLifetime = 30;
+
+    private TimeUnit _dirEntryCacheLifetimeUnit = TimeUnit.SECONDS;
+
+    private final LongAdder _dirEntryCacheHits = new LongAdder();
+
+    private final LongAdder _dirEntryCacheMisses = new LongAdder();
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+
     private QuotaHandler _quota;
 
     /**
@@ -213,6 +247,77 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         _attributeConsistency = consistency;
         // try to get database dialect specific query engine
         _sqlDriver = FsSqlDriver.getDriverInstance(dataSource, _attributeConsistency);
+        _dirEntryCache = buildDirEntryCache();
+    }
+
+    /**
+     * Sets the maximum number of directory entries kept in the path lookup cache. A value of
+     * zero, the default, disables the cache.
+     * <p>
+     * Only changes made through this instance invalidate the cache. Other instances sharing
+     * the database may see their changes ignored by path lookups of this instance for up to
+     * the cache lifetime.
+     */
+    public void setPathCacheSize(long size) {
+        checkArgument(size >= 0, "Path cache size must not be negative");
+        _dirEntryCacheSize = size;
+        _dirEntryCache = buildDirEntryCache();
+    }
+
+    /**
+     * Sets for how long a directory entry is kept in the path lookup cache.
+     */
+    public void setPathCacheLifetime(long lifetime) {
+        checkArgument(lifetime > 0, "Path cache lifetime must be positive");
+        _dirEntryCacheLifetime = lifetime;
+        _dirEntryCache = buildDirEntryCache();
+    }
+
+    public void setPathCacheLifetimeUnit(TimeUnit unit) {
+        _dirEntryCacheLifetimeUnit = unit;
+        _dirEntryCache = buildDirEntryCache();
+    }
+
+    long getPathCacheHits() {
+        return _dirEntryCacheHits.sum();
+    }
+
+    long getPathCacheMisses() {
+        return _dirEntryCacheMisses.sum();
+    }
+
+    private Cache<DirectoryEntry, Long> buildDirEntryCache() {
+        if (_dirEntryCacheSize == 0) {
+            return null;
+        }
+        return CacheBuilder.newBuilder()
+              .maximumSize(_dirEntryCacheSize)
+              .expireAfterWrite(_dirEntryCacheLifetime, _dirEntryCacheLifetimeUnit)
+              .build();
+    }
+
+    /**
+     * Removes a directory entry from the path lookup cache. Must be called before the entry
+     * is modified. Within a transaction, the entry is invalidated again once the transaction
+     * completes, as a concurrent lookup may have cached the entry in the meantime.
+     */
+    private void invalidateDirEntry(FsInode parent, String name) {
+        Cache<DirectoryEntry, Long> cache = _dirEntryCache;
+        if (cache != null) {
+            DirectoryEntry entry = new DirectoryEntry(parent.ino(), name);
+            _dirEntryCacheGeneration.incrementAndGet();
+            cache.invalidate(entry);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(
+                      new TransactionSynchronization() {
+                          @Override
+                          public void afterCompletion(int status) {
+                              _dirEntryCacheGeneration.incrementAndGet();
+                              cache.invalidate(entry);
+                          }
+                      });
+            }
+        }
     }
 
     public void setQuota(QuotaHandler quota) {
@@ -321,6 +426,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             try {
                 Stat stat = parent.statCache();
                 int group = (stat.getMode() & UnixPermission.S_ISGID) != 0 ? stat.getGid() : gid;
+                invalidateDirEntry(parent, name);
                 inode = _sqlDriver.createFile(parent, name, uid, group, mode,
                       UnixPermission.S_IFLNK);
                 // link is a regular file where content is a reference
@@ -374,6 +480,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     throw new PermissionDeniedChimeraFsException("hard link not allowed for directory");
                 }
 
+                invalidateDirEntry(parent, name);
                 _sqlDriver.createEntryInParent(parent, name, inode);
                 _sqlDriver.incNlinkForFile(inode);
                 _sqlDriver.incNlinkForDir(parent, 0);
@@ -486,6 +593,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     RetentionPolicy rp = getRetentionPolicyFromParentTag(parent);
                     checkQuota(owner, gid, rp);
                 }
+                invalidateDirEntry(parent, name);
                 FsInode inode = _sqlDriver.createFile(parent, name, owner, gid, mode, type);
                 _sqlDriver.copyAcl(parent, inode, RsType.FILE,
                       EnumSet.of(INHERIT_ONLY_ACE, DIRECTORY_INHERIT_ACE, FILE_INHERIT_ACE),
@@ -531,6 +639,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     RetentionPolicy rp = getRetentionPolicyFromParentTag(parent);
                     checkQuota(owner, gid, rp);
                 }
+                invalidateDirEntry(parent, name);
                 FsInode inode = _sqlDriver.createFileWithId(parent, id, name, owner, gid, mode,
                       type);
                 _sqlDriver.copyAcl(parent, inode, RsType.FILE,
@@ -584,6 +693,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             FsInode parent = path2inode(parentPath);
             String name = filePath.getName();
             FsInode inode = _sqlDriver.inodeOf(parent, name, STAT);
+            invalidateDirEntry(parent, name);
             if (inode == null || !_sqlDriver.remove(parent, name, inode)) {
                 throw FileNotFoundChimeraFsException.ofPath(path);
             }
@@ -594,6 +704,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
     @Override
     public void remove(FsInode directory, String name, FsInode inode) throws ChimeraFsException {
         inTransaction(status -> {
+            invalidateDirEntry(directory, name);
             if (!_sqlDriver.remove(directory, name, inode)) {
                 throw FileNotFoundChimeraFsException.ofFileInDirectory(directory, name);
             }
@@ -614,8 +725,15 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             if (!inode.exists()) {
                 throw FileNotFoundChimeraFsException.of(inode);
             }
-            if (inode.isDirectory() && inode.statCache().getNlink() > 2) {
-                throw new DirNotEmptyChimeraFsException("Directory is not empty");
+            if (inode.isDirectory()) {
+                if (inode.statCache().getNlink() > 2) {
+                    throw new DirNotEmptyChimeraFsException("Directory is not empty");
+                }
+                if (_dirEntryCache != null) {
+                    for (Link link : _sqlDriver.find(inode)) {
+                        invalidateDirEntry(link.getParent(), link.getName());
+                    }
+                }
             }
             _sqlDriver.remove(inode);
             return null;
@@ -681,6 +799,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
 
                 // ensure that t_inodes and t_tags_inodes update in the same order as
                 // in removeDir
+                invalidateDirEntry(parent, name);
                 FsInode inode = _sqlDriver.mkdir(parent, name, owner, gid, perm);
                 _sqlDriver.copyTags(parent, inode);
                 _sqlDriver.copyAcl(parent, inode, RsType.DIR, EnumSet.of(INHERIT_ONLY_ACE),
@@ -721,6 +840,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     gid = group;
                     perm = mode;
                 }
+                invalidateDirEntry(parent, name);
                 FsInode inode = _sqlDriver.mkdir(parent, name, owner, gid, perm);
                 _sqlDriver.createTags(inode, owner, gid, perm & 0666, tags);
                 _sqlDriver.writeAcl(inode, RsType.DIR, acl);
@@ -772,7 +892,7 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
             FsInode labelInode = new FsInode_LABEL(this, labelId, stat);
             return labelInode;
         }
-        FsInode inode = _sqlDriver.path2inode(startFrom, path);
+        FsInode inode = lookupPath(startFrom, path);
         if (inode == null) {
             throw FileNotFoundChimeraFsException.ofPath(path);
         }
@@ -780,6 +900,77 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return inode;
     }
 
+    /**
+     * Resolves {@code path} relative to {@code startFrom}, using the directory entry cache for
+     * as many leading path elements as possible. The remainder of the path is resolved by the
+     * database in a single call and any directories found on the way are added to the cache.
+     *
+     * @return inode or null if path does not exist.
+     */
+    private FsInode lookupPath(FsInode startFrom, String path) throws ChimeraFsException {
+        Cache<DirectoryEntry, Long> cache = _dirEntryCache;
+        if (cache == null || startFrom.type() != FsInodeType.INODE) {
+            return _sqlDriver.path2inode(startFrom, path);
+        }
+
+        List<String> elements = PATH_SPLITTER.splitToList(path);
+
+        FsInode dir = startFrom;
+        int resolved = 0;
+        while (resolved < elements.size() && isCacheable(elements.get(resolved))) {
+            Long ino = cache.getIfPresent(new DirectoryEntry(dir.ino(), elements.get(resolved)));
+            if (ino == null) {
+                break;
+            }
+            dir = new FsInode(this, ino);
+            resolved++;
+        }
+
+        if (resolved == elements.size()) {
+            if (resolved > 0) {
+                _dirEntryCacheHits.increment();
+            }
+            return dir;
+        }
+        _dirEntryCacheMisses.increment();
+
+        long generation = _dirEntryCacheGeneration.get();
+        List<String> remaining = elements.subList(resolved, elements.size());
+        List<FsInode> inodes = _sqlDriver.path2inodes(dir, String.join("/", remaining));
+        if (inodes.isEmpty()) {
+            return null;
+        }
+
+        /* The returned inodes match the path elements one-to-one up to the first symbolic
+         * link or special name; only the directories before that point are cached.
+         */
+        if (remaining.stream().allMatch(JdbcFs::isCacheable)) {
+            List<DirectoryEntry> added = new ArrayList<>();
+            for (int i = 0; i < remaining.size() && i + 1 < inodes.size(); i++) {
+                FsInode child = inodes.get(i + 1);
+                Stat stat = child.getStatCache();
+                if (stat == null
+                      || UnixPermission.getType(stat.getMode()) != UnixPermission.S_IFDIR) {
+                    break;
+                }
+                DirectoryEntry entry = new DirectoryEntry(inodes.get(i).ino(), remaining.get(i));
+                cache.put(entry, child.ino());
+                added.add(entry);
+            }
+            /* Entries may have been invalidated while we were reading them, in which case
+             * they may be stale.
+             */
+            if (_dirEntryCacheGeneration.get() != generation) {
+                cache.invalidateAll(added);
+            }
+        }
+        return inodes.get(inodes.size() - 1);
+    }
+
+    private static boolean isCacheable(String name) {
+        return !name.equals(".") && !name.equals("..") && !name.startsWith(".(");
+    }
+
 
     @Override
     public String inode2id(FsInode inode) throws ChimeraFsException {
@@ -832,6 +1023,21 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
     }
 
+    @Override
+    public InodeData readInode(String id, Set<InodeData.Part> parts) throws ChimeraFsException {
+        if (id.startsWith("FFFF")) {
+            // labels have no data outside of their stat
+            return new InodeData(id2inode(id, STAT), 1);
+        }
+        InodeData data = _sqlDriver.readInode(this, id, parts);
+        if (data == null) {
+            throw FileNotFoundChimeraFsException.ofPnfsId(id);
+        }
+        _inoCache.put(id, data.getInode().ino());
+        _idCache.put(data.getInode().ino(), id);
+        return data;
+    }
+
     @Override
     public List<FsInode> path2inodes(String path) throws ChimeraFsException {
         return path2inodes(path, new RootInode(this, _sqlDriver.getRootInumber()));
@@ -1249,12 +1455,15 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
                     throw new FileExistsChimeraFsException(dest);
                 }
 
+                invalidateDirEntry(destDir, dest);
                 if (!_sqlDriver.remove(destDir, dest, destInode)) {
                     // Concurrent modification - retry
                     return rename(inode, srcDir, source, destDir, dest);
                 }
             }
 
+            invalidateDirEntry(srcDir, source);
+            invalidateDirEntry(destDir, dest);
             if (!_sqlDriver.rename(inode, srcDir, source, destDir, dest)) {
                 throw FileNotFoundChimeraFsException.ofPath(source);
             }
@@ -1278,6 +1487,12 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return _sqlDriver.getInodeLocations(inode);
     }
 
+    @Override
+    public Map<Long, List<StorageLocatable>> getInodeLocations(Collection<FsInode> inodes)
+          throws ChimeraFsException {
+        return _sqlDriver.getInodeLocations(inodes);
+    }
+
     @Override
     public void addInodeLocation(FsInode inode, int type, String location)
           throws ChimeraFsException {
@@ -1446,6 +1661,15 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return new HashSet<>(_sqlDriver.getInodeChecksums(inode));
     }
 
+    @Override
+    public Map<Long, Set<Checksum>> getInodeChecksums(Collection<FsInode> inodes)
+          throws ChimeraFsException {
+        Map<Long, Set<Checksum>> checksums = new HashMap<>();
+        _sqlDriver.getInodeChecksums(inodes)
+              .forEach((inumber, list) -> checksums.put(inumber, new HashSet<>(list)));
+        return checksums;
+    }
+
     /**
      * Get inode's Access Control List. An empty list is returned if there are no ACL assigned to
      * the <code>inode</code>.
@@ -1458,6 +1682,11 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         return _sqlDriver.readAcl(inode);
     }
 
+    @Override
+    public Map<Long, List<ACE>> getACL(Collection<FsInode> inodes) throws ChimeraFsException {
+        return _sqlDriver.readAcls(inodes);
+    }
+
     /**
      * Set inode's Access Control List. The existing ACL will be replaced.
      *
@@ -1541,6 +1770,14 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         }
         sb.append("FsId      : ").append(_fsId).append('\n');
         sb.append("Wcc       : ").append(_attributeConsistency).append("\n");
+        Cache<DirectoryEntry, Long> cache = _dirEntryCache;
+        if (cache == null) {
+            sb.append("PathCache : disabled\n");
+        } else {
+            sb.append("PathCache : ").append(cache.size()).append(" entries, ")
+                  .append(_dirEntryCacheHits.sum()).append(" hits, ")
+                  .append(_dirEntryCacheMisses.sum()).append(" misses\n");
+        }
         return sb.toString();
     }
 
@@ -1680,6 +1917,12 @@ public class JdbcFs implements FileSystemProvider, LeaderLatchListener {
         T doInTransaction(TransactionStatus status) throws ChimeraFsException;
     }
 
+    /**
+     * Key of the directory entry cache.
+     */
+    private record DirectoryEntry(long parent, String name) {
+    }
+
     private static class RootInode extends FsInode {
 
         public RootInode(FileSystemProvider fs, long ino) {
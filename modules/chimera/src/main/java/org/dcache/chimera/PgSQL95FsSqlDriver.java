@@ -17,20 +17,35 @@
 package org.dcache.chimera;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import java.io.File;
 import java.net.SocketException;
+import java.sql.Array;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.sql.DataSource;
+import org.dcache.acl.ACE;
 import org.dcache.acl.enums.AceFlags;
+import org.dcache.acl.enums.AceType;
 import org.dcache.acl.enums.RsType;
+import org.dcache.acl.enums.Who;
 import org.dcache.chimera.posix.Stat;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
@@ -58,6 +73,12 @@ public class PgSQL95FsSqlDriver extends FsSqlDriver {
 
     private final boolean enableSoftUpdate;
 
+    /**
+     * The composite queries used by {@link #readInode}, keyed by the parts they read.
+     */
+    private final ConcurrentMap<Set<InodeData.Part>, String> readInodeQueries =
+          new ConcurrentHashMap<>();
+
     /**
      * this is a utility class which is issues SQL queries on database
      */
@@ -562,4 +583,168 @@ public class PgSQL95FsSqlDriver extends FsSqlDriver {
         }
         return stat;
     }
+
+    /**
+     * Reads the stat and all requested parts with a single query. Each part is aggregated by a
+     * lateral subquery into parallel arrays sorted the same way.
+     */
+    @Override
+    InodeData readInode(FileSystemProvider fs, String id, Set<InodeData.Part> parts) {
+        String sql = readInodeQueries.computeIfAbsent(Sets.immutableEnumSet(parts),
+              PgSQL95FsSqlDriver::buildReadInodeQuery);
+        return _jdbc.query(sql,
+              ps -> ps.setString(1, id),
+              rs -> {
+                  if (!rs.next()) {
+                      return null;
+                  }
+                  Stat stat = toStat(rs);
+                  InodeData data = new InodeData(
+                        new FsInode(fs, stat.getIno(), FsInodeType.INODE, 0, stat), 1);
+                  if (parts.contains(InodeData.Part.CHECKSUMS)) {
+                      data.setChecksums(toChecksums(rs));
+                  }
+                  if (parts.contains(InodeData.Part.LOCATIONS)) {
+                      data.setLocations(toLocations(rs));
+                  }
+                  if (parts.contains(InodeData.Part.ACL)) {
+                      data.setAcl(toAcl(rs));
+                  }
+                  if (parts.contains(InodeData.Part.PARENT_TAGS)) {
+                      long parent = rs.getLong("iparent");
+                      if (rs.wasNull()) {
+                          data.setParentTags(null, Collections.emptyMap());
+                      } else {
+                          data.setParentTags(new FsInode(fs, parent), toTags(rs));
+                      }
+                  }
+                  return data;
+              });
+    }
+
+    private static String buildReadInodeQuery(Set<InodeData.Part> parts) {
+        StringBuilder columns = new StringBuilder("SELECT i.*");
+        StringBuilder joins = new StringBuilder(" FROM t_inodes i");
+        if (parts.contains(InodeData.Part.CHECKSUMS)) {
+            columns.append(", c.checksum_types, c.checksum_values");
+            joins.append(" LEFT JOIN LATERAL (SELECT"
+                  + " array_agg(itype ORDER BY itype) AS checksum_types,"
+                  + " array_agg(isum ORDER BY itype) AS checksum_values"
+                  + " FROM t_inodes_checksum WHERE inumber = i.inumber) c ON true");
+        }
+        if (parts.contains(InodeData.Part.LOCATIONS)) {
+            String order = " ORDER BY ipriority DESC, ilocation";
+            columns.append(", l.location_types, l.location_values, l.location_priorities,"
+                  + " l.location_ctimes, l.location_atimes");
+            joins.append(" LEFT JOIN LATERAL (SELECT"
+                  + " array_agg(itype" + order + ") AS location_types,"
+                  + " array_agg(ilocation" + order + ") AS location_values,"
+                  + " array_agg(ipriority" + order + ") AS location_priorities,"
+                  + " array_agg(ictime" + order + ") AS location_ctimes,"
+                  + " array_agg(iatime" + order + ") AS location_atimes"
+                  + " FROM t_locationinfo WHERE inumber = i.inumber AND istate = 1) l ON true");
+        }
+        if (parts.contains(InodeData.Part.ACL)) {
+            String order = " ORDER BY ace_order";
+            columns.append(", a.ace_types, a.ace_flags, a.ace_masks, a.ace_whos, a.ace_who_ids");
+            joins.append(" LEFT JOIN LATERAL (SELECT"
+                  + " array_agg(type" + order + ") AS ace_types,"
+                  + " array_agg(flags" + order + ") AS ace_flags,"
+                  + " array_agg(access_msk" + order + ") AS ace_masks,"
+                  + " array_agg(who" + order + ") AS ace_whos,"
+                  + " array_agg(who_id" + order + ") AS ace_who_ids"
+                  + " FROM t_acl WHERE inumber = i.inumber) a ON true");
+        }
+        if (parts.contains(InodeData.Part.PARENT_TAGS)) {
+            String order = " ORDER BY t.itagname";
+            columns.append(", d.iparent, g.tag_names, g.tag_values, g.tag_sizes");
+            joins.append(" LEFT JOIN LATERAL (SELECT iparent"
+                  + " FROM t_dirs WHERE ichild = i.inumber LIMIT 1) d ON true");
+            joins.append(" LEFT JOIN LATERAL (SELECT"
+                  + " array_agg(t.itagname" + order + ") AS tag_names,"
+                  + " array_agg(ti.ivalue" + order + ") AS tag_values,"
+                  + " array_agg(ti.isize" + order + ") AS tag_sizes"
+                  + " FROM t_tags t JOIN t_tags_inodes ti ON t.itagid = ti.itagid"
+                  + " WHERE t.inumber = d.iparent) g ON true");
+        }
+        return columns.append(joins).append(" WHERE i.ipnfsid = ?").toString();
+    }
+
+    private static Object[] getArray(ResultSet rs, String column) throws SQLException {
+        Array array = rs.getArray(column);
+        return array == null ? new Object[0] : (Object[]) array.getArray();
+    }
+
+    private static List<Checksum> toChecksums(ResultSet rs) throws SQLException {
+        Object[] types = getArray(rs, "checksum_types");
+        Object[] values = getArray(rs, "checksum_values");
+        List<Checksum> checksums = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            checksums.add(new Checksum(ChecksumType.getChecksumType(((Number) types[i]).intValue()),
+                  (String) values[i]));
+        }
+        return checksums;
+    }
+
+    private static List<StorageLocatable> toLocations(ResultSet rs) throws SQLException {
+        Object[] types = getArray(rs, "location_types");
+        Object[] values = getArray(rs, "location_values");
+        Object[] priorities = getArray(rs, "location_priorities");
+        Object[] ctimes = getArray(rs, "location_ctimes");
+        Object[] atimes = getArray(rs, "location_atimes");
+        List<StorageLocatable> locations = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            locations.add(new StorageGenericLocation(((Number) types[i]).intValue(),
+                  ((Number) priorities[i]).intValue(), (String) values[i],
+                  ((Timestamp) ctimes[i]).getTime(), ((Timestamp) atimes[i]).getTime(), true));
+        }
+        return locations;
+    }
+
+    private static List<ACE> toAcl(ResultSet rs) throws SQLException {
+        Object[] types = getArray(rs, "ace_types");
+        Object[] flags = getArray(rs, "ace_flags");
+        Object[] masks = getArray(rs, "ace_masks");
+        Object[] whos = getArray(rs, "ace_whos");
+        Object[] whoIds = getArray(rs, "ace_who_ids");
+        List<ACE> acl = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            AceType type = (((Number) types[i]).intValue() == 0)
+                  ? AceType.ACCESS_ALLOWED_ACE_TYPE
+                  : AceType.ACCESS_DENIED_ACE_TYPE;
+            acl.add(new ACE(type,
+                  ((Number) flags[i]).intValue(),
+                  ((Number) masks[i]).intValue(),
+                  Who.valueOf(((Number) whos[i]).intValue()),
+                  ((Number) whoIds[i]).intValue()));
+        }
+        return acl;
+    }
+
+    private static Map<String, byte[]> toTags(ResultSet rs) throws SQLException {
+        Object[] names = getArray(rs, "tag_names");
+        Object[] values = getArray(rs, "tag_values");
+        Object[] sizes = getArray(rs, "tag_sizes");
+        Map<String, byte[]> tags = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            // we get null if filed id NULL, e.g not set
+            byte[] value = (byte[]) values[i];
+            if (value != null) {
+                int size = Ints.saturatedCast(((Number) sizes[i]).longValue());
+                tags.put((String) names[i], Arrays.copyOf(value, Math.min(value.length, size)));
+            }
+        }
+        return tags;
+    }
+
+    @Override
+    String inumberIn(int count) {
+        return "inumber = ANY(?)";
+    }
+
+    @Override
+    void setInumbers(PreparedStatement ps, int index, long[] inumbers) throws SQLException {
+        Long[] array = Arrays.stream(inumbers).boxed().toArray(Long[]::new);
+        ps.setArray(index, ps.getConnection().createArrayOf("bigint", array));
+    }
 }
@@ -27,9 +27,12 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 import org.dcache.acl.ACE;
 import org.dcache.acl.enums.AccessMask;
 import org.dcache.acl.enums.AceType;
@@ -686,6 +689,26 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         _fs.addInodeLocation(fileInode, StorageGenericLocation.DISK, "/dev/null");
     }
 
+    @Test
+    public void testGetLocationsOfSeveralInodes() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        FsInode file3 = base.create("file3", 0, 0, 0644);
+        _fs.addInodeLocation(file1, StorageGenericLocation.DISK, "pool1");
+        _fs.addInodeLocation(file1, StorageGenericLocation.TAPE, "osm://osm/?store=1");
+        _fs.addInodeLocation(file2, StorageGenericLocation.DISK, "pool2");
+
+        Map<Long, List<StorageLocatable>> locations =
+              _fs.getInodeLocations(List.of(file1, file2, file3));
+
+        assertThat(locations.keySet(), containsInAnyOrder(file1.ino(), file2.ino()));
+        assertThat(locations.get(file1.ino()).stream().map(StorageLocatable::location)
+                    .collect(Collectors.toList()),
+              containsInAnyOrder("pool1", "osm://osm/?store=1"));
+        assertThat(locations.get(file2.ino()).get(0).location(), is("pool2"));
+    }
+
     @Test(expected = FileNotFoundChimeraFsException.class)
     public void testSetSizeNotExist() throws Exception {
 
@@ -738,6 +761,22 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         assertHasChecksum(new Checksum(ChecksumType.getChecksumType(1), sum), fileInode);
     }
 
+    @Test
+    public void testGetChecksumsOfSeveralInodes() throws Exception {
+        FsInode base = _rootInode.mkdir("junit");
+        FsInode file1 = base.create("file1", 0, 0, 0644);
+        FsInode file2 = base.create("file2", 0, 0, 0644);
+        _fs.setInodeChecksum(file1, 1, "abc");
+        _fs.setInodeChecksum(file1, 2, "def");
+
+        Map<Long, Set<Checksum>> checksums = _fs.getInodeChecksums(List.of(file1, file2));
+
+        assertThat(checksums.keySet(), contains(file1.ino()));
+        assertThat(checksums.get(file1.ino()), containsInAnyOrder(
+              new Checksum(ChecksumType.getChecksumType(1), "abc"),
+              new Checksum(ChecksumType.getChecksumType(2), "def")));
+    }
+
     @Test
     public void testCtimeOnUpdateChecksum() throws Exception {
         String sum = "abc";
@@ -933,6 +972,69 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         assertEquals(aces, l2);
     }
 
+    @Test
+    public void testGetAclOfSeveralInodes() throws Exception {
+        FsInode dir1 = _rootInode.mkdir("testDir1", 0, 0, 0755);
+        FsInode dir2 = _rootInode.mkdir("testDir2", 0, 0, 0755);
+
+        List<ACE> aces = new ArrayList<>();
+        aces.add(new ACE(AceType.ACCESS_DENIED_ACE_TYPE, 0,
+              AccessMask.ADD_SUBDIRECTORY.getValue(), Who.USER, 1001));
+        aces.add(new ACE(AceType.ACCESS_ALLOWED_ACE_TYPE, 0,
+              AccessMask.ADD_FILE.getValue(), Who.USER, 1001));
+        _fs.setACL(dir1, aces);
+
+        Map<Long, List<ACE>> acls = _fs.getACL(List.of(dir1, dir2));
+
+        assertThat(acls.keySet(), contains(dir1.ino()));
+        assertEquals(aces, acls.get(dir1.ino()));
+    }
+
+    @Test
+    public void testReadInodeWithAllParts() throws Exception {
+        FsInode dir = _rootInode.mkdir("junit");
+        _fs.createTag(dir, "aTag");
+        byte[] tag = "data".getBytes(UTF_8);
+        new FsInode_TAG(_fs, dir.ino(), "aTag").write(0, tag, 0, tag.length);
+        FsInode file = dir.create("aFile", 0, 0, 0644);
+        _fs.setInodeChecksum(file, 1, "abc");
+        _fs.addInodeLocation(file, StorageGenericLocation.DISK, "pool1");
+        List<ACE> aces = List.of(new ACE(AceType.ACCESS_ALLOWED_ACE_TYPE, 0,
+              AccessMask.READ_DATA.getValue(), Who.USER, 1001));
+        _fs.setACL(file, aces);
+
+        InodeData data = _fs.readInode(file.getId(), EnumSet.allOf(InodeData.Part.class));
+
+        assertThat(data.getInode().ino(), is(file.ino()));
+        assertThat(data.getInode().statCache().getMode(), is(file.stat().getMode()));
+        assertThat(data.getChecksums(),
+              contains(new Checksum(ChecksumType.getChecksumType(1), "abc")));
+        assertThat(data.getLocations().get(0).location(), is("pool1"));
+        assertEquals(aces, data.getAcl());
+        assertThat(data.getParent().ino(), is(dir.ino()));
+        assertArrayEquals(tag, data.getParentTags().get("aTag"));
+        assertThat(data.getQueries(), greaterThanOrEqualTo(1));
+    }
+
+    @Test
+    public void testReadInodeWithoutParts() throws Exception {
+        FsInode file = _rootInode.create("aFile", 0, 0, 0644);
+        _fs.setInodeChecksum(file, 1, "abc");
+
+        InodeData data = _fs.readInode(file.getId(), EnumSet.noneOf(InodeData.Part.class));
+
+        assertThat(data.getInode().ino(), is(file.ino()));
+        assertThat(data.getChecksums(), is(nullValue()));
+        assertThat(data.getParentTags(), is(nullValue()));
+        assertThat(data.getQueries(), is(1));
+    }
+
+    @Test(expected = FileNotFoundChimeraFsException.class)
+    public void testReadInodeNotExist() throws Exception {
+        _fs.readInode("000000000000000000000000000000000000",
+              EnumSet.allOf(InodeData.Part.class));
+    }
+
     @Test
     public void testReSetAcl() throws Exception {
         FsInode dirInode = _rootInode.mkdir("testDir", 0, 0, 0755);
@@ -2128,6 +2230,141 @@ public class JdbcFsTest extends ChimeraTestCaseHelper {
         _fs.rename(dir, _rootInode, "dir", dir2, "subdir3");
     }
 
+    @Test
+    public void testPathLookupAfterDirectoryRename() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        FsInode dir = _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir("/dir/subdir");
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+
+        _fs.rename(dir, _rootInode, "dir", _rootInode, "renamed");
+
+        assertThat(_fs.path2inode("/renamed/subdir"), equalTo(subdir));
+        try {
+            _fs.path2inode("/dir/subdir");
+            fail("Path lookup must not return renamed directory");
+        } catch (FileNotFoundChimeraFsException e) {
+        }
+    }
+
+    @Test
+    public void testPathLookupAfterDirectoryRemoveAndCreate() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        FsInode dir = _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir("/dir/subdir");
+        FsInode file = _fs.createFile(subdir, "aFile");
+        assertThat(_fs.path2inode("/dir/subdir/aFile"), equalTo(file));
+
+        _fs.remove(file);
+        _fs.remove(dir, "subdir", subdir);
+        FsInode newSubdir = _fs.mkdir("/dir/subdir");
+
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(newSubdir));
+        assertThat(_fs.path2inode("/dir/subdir"), not(equalTo(subdir)));
+    }
+
+    @Test(expected = FileNotFoundChimeraFsException.class)
+    public void testPathLookupAfterDirectoryRemoveByInode() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir("/dir/subdir");
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+
+        _fs.remove(subdir);
+        _fs.path2inode("/dir/subdir");
+    }
+
+    @Test
+    public void testPathLookupThroughSymlinkToDirectory() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir("/dir/subdir");
+        _fs.createLink(_rootInode, "link", "/dir");
+
+        assertThat(_fs.path2inode("/link/subdir"), equalTo(subdir));
+
+        _fs.remove("/link");
+        _fs.createLink(_rootInode, "link", "/dir/subdir");
+
+        assertThat(_fs.path2inode("/link"), equalTo(subdir));
+    }
+
+    @Test
+    public void testPathLookupWithCacheDisabled() throws Exception {
+
+        _fs.setPathCacheSize(0);
+        FsInode subdir = _fs.mkdir(_fs.mkdir("/dir"), "subdir");
+
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+        assertThat(_fs.getInfo(), containsString("PathCache : disabled"));
+    }
+
+    @Test
+    public void testPathCacheIsDisabledByDefault() throws Exception {
+
+        assertThat(_fs.getInfo(), containsString("PathCache : disabled"));
+    }
+
+    @Test
+    public void testPathCacheMissThenHit() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        FsInode subdir = _fs.mkdir(_fs.mkdir("/dir"), "subdir");
+        long hits = _fs.getPathCacheHits();
+        long misses = _fs.getPathCacheMisses();
+
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+        assertThat(_fs.getPathCacheMisses(), is(misses + 1));
+        assertThat(_fs.getPathCacheHits(), is(hits));
+
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+        assertThat(_fs.getPathCacheMisses(), is(misses + 1));
+        assertThat(_fs.getPathCacheHits(), is(hits + 1));
+    }
+
+    @Test
+    public void testPathCacheInvalidatedByRename() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        FsInode dir = _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir(dir, "subdir");
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+        long misses = _fs.getPathCacheMisses();
+
+        _fs.rename(subdir, dir, "subdir", dir, "renamed");
+
+        try {
+            _fs.path2inode("/dir/subdir");
+            fail("Path lookup must not return renamed directory");
+        } catch (FileNotFoundChimeraFsException e) {
+        }
+        assertThat(_fs.getPathCacheMisses(), is(misses + 1));
+        assertThat(_fs.path2inode("/dir/renamed"), equalTo(subdir));
+    }
+
+    @Test
+    public void testPathCacheInvalidatedByRemove() throws Exception {
+
+        _fs.setPathCacheSize(1000);
+        FsInode dir = _fs.mkdir("/dir");
+        FsInode subdir = _fs.mkdir(dir, "subdir");
+        assertThat(_fs.path2inode("/dir/subdir"), equalTo(subdir));
+        long misses = _fs.getPathCacheMisses();
+
+        _fs.remove(dir, "subdir", subdir);
+
+        try {
+            _fs.path2inode("/dir/subdir");
+            fail("Path lookup must not return removed directory");
+        } catch (FileNotFoundChimeraFsException e) {
+        }
+        assertThat(_fs.getPathCacheMisses(), is(misses + 1));
+    }
+
     private long getDirEntryCount(FsInode dir) throws IOException {
         try (var s = _fs.newDirectoryStream(dir)) {
             return s.stream().count();
@@ -0,0 +1,107 @@
+package org.dcache.chimera.namespace;
+
+import com.google.common.collect.Sets;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.dcache.chimera.InodeData;
+import org.dcache.namespace.FileAttribute;
+
+/**
+ * Caches, for each set of requested file attributes, the parts of inode data that are read
+ * together with the inode, and counts the database queries used to read them.
+ * <p>
+ * For every plan, the number of queries that reading each part separately takes is reported
+ * next to the average number of queries actually used. The two only differ if the database
+ * driver reads the parts with a composite query.
+ */
+public class AttributePlans {
+
+    /**
+     * The parts of inode data to read for a set of file attributes.
+     */
+    public static class Plan {
+
+        private final Set<FileAttribute> attributes;
+        private final Set<InodeData.Part> parts;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+
+        private Plan(Set<FileAttribute> attributes, Set<InodeData.Part> parts) {
+            this.attributes = attributes;
+            this.parts = parts;
+        }
+
+        public Set<InodeData.Part> getParts() {
+            return parts;
+        }
+
+        /**
+         * Records that the plan was used to read the given data.
+         */
+        public void record(InodeData data) {
+            requests.increment();
+            queries.add(data.getQueries());
+        }
+
+        /**
+         * Returns the number of queries used when reading the stat and each part with a query of
+         * its own.
+         */
+        public int getSeparateQueries() {
+            int count = 1;
+            for (InodeData.Part part : parts) {
+                // finding the parent takes a query of its own
+                count += (part == InodeData.Part.PARENT_TAGS) ? 2 : 1;
+            }
+            return count;
+        }
+    }
+
+    private final ConcurrentMap<Set<FileAttribute>, Plan> plans = new ConcurrentHashMap<>();
+
+    private final Function<Set<FileAttribute>, Set<InodeData.Part>> planner;
+
+    /**
+     * @param planner returns the parts to read for a set of file attributes
+     */
+    public AttributePlans(Function<Set<FileAttribute>, Set<InodeData.Part>> planner) {
+        this.planner = planner;
+    }
+
+    public Plan get(Set<FileAttribute> attributes) {
+        Plan plan = plans.get(attributes);
+        if (plan == null) {
+            Set<FileAttribute> key = Sets.immutableEnumSet(attributes);
+            plan = plans.computeIfAbsent(key,
+                  k -> new Plan(k, Sets.immutableEnumSet(planner.apply(k))));
+        }
+        return plan;
+    }
+
+    /**
+     * Discards all plans and their statistics.
+     */
+    public void clear() {
+        plans.clear();
+    }
+
+    @Override
+    public String toString() {
+        Formatter formatter = new Formatter();
+        formatter.format("%10s %9s %9s  %s%n", "requests", "separate", "actual", "attributes");
+        plans.values().stream()
+              .sorted(Comparator.comparingLong((Plan p) -> p.requests.sum()).reversed())
+              .forEach(p -> {
+                  long requests = p.requests.sum();
+                  double actual = (requests == 0) ? 0 : (double) p.queries.sum() / requests;
+                  formatter.format("%10d %9d %9.2f  %s%n", requests, p.getSeparateQueries(),
+                        actual, p.attributes);
+              });
+        return formatter.toString();
+    }
+}
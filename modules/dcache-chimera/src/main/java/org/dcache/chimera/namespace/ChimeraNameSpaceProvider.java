@@ -100,6 +100,7 @@ import org.dcache.chimera.FileState;
 import org.dcache.chimera.FileSystemProvider;
 import org.dcache.chimera.FileSystemProvider.SetXattrMode;
 import org.dcache.chimera.FsInode;
+import org.dcache.chimera.InodeData;
 import org.dcache.chimera.NoLabelChimeraException;
 import org.dcache.chimera.NoXdataChimeraException;
 import org.dcache.chimera.NotDirChimeraException;
@@ -132,6 +133,12 @@ public class ChimeraNameSpaceProvider
 
     private static final int INHERIT_MODE = -1;
 
+    /**
+     * Number of directory entries for which attributes are fetched together when listing a
+     * directory.
+     */
+    private static final int DEFAULT_LIST_BATCH_SIZE = 1000;
+
     public static final String TAG_EXPECTED_SIZE = "ExpectedSize";
     public static final String TAG_PATH = "Path";
     public static final String TAG_WRITE_TOKEN = "WriteToken";
@@ -160,6 +167,7 @@ public class ChimeraNameSpaceProvider
     private boolean _inheritFileOwnership;
     private boolean _verifyAllLookups;
     private boolean _aclEnabled;
+    private int _listBatchSize = DEFAULT_LIST_BATCH_SIZE;
     private boolean _allowMoveToDirectoryWithDifferentStorageClass;
     private PermissionHandler _permissionHandler;
     private String _uploadDirectory;
@@ -177,6 +185,7 @@ public class ChimeraNameSpaceProvider
           new RequestCounters<>(ChimeraNameSpaceProvider.class.getSimpleName());
     private final RequestExecutionTimeGauges<Method> _gauges =
           new RequestExecutionTimeGauges<>(ChimeraNameSpaceProvider.class.getSimpleName());
+    private final AttributePlans _attributePlans = new AttributePlans(this::getInodeDataParts);
 
     @Required
     public void setExtractor(ChimeraStorageInfoExtractable extractor) {
@@ -210,9 +219,19 @@ public class ChimeraNameSpaceProvider
               _gauges);
     }
 
+    /**
+     * Sets the number of directory entries for which attributes are fetched together when
+     * listing a directory. A value of one fetches the attributes of each entry individually.
+     */
+    public void setListBatchSize(int size) {
+        checkArgument(size > 0, "List batch size must be positive");
+        _listBatchSize = size;
+    }
+
     @Required
     public void setAclEnabled(boolean isEnabled) {
         _aclEnabled = isEnabled;
+        _attributePlans.clear();
     }
 
     /**
@@ -885,6 +904,8 @@ public class ChimeraNameSpaceProvider
         pw.println("Statistics:");
         pw.println(_gauges);
         pw.println(_counters);
+        pw.println("Queries per attribute request:");
+        pw.println(_attributePlans);
     }
 
 
@@ -895,6 +916,7 @@ public class ChimeraNameSpaceProvider
         public String call() {
             _gauges.reset();
             _counters.reset();
+            _attributePlans.clear();
             return "";
         }
     }
@@ -940,6 +962,51 @@ public class ChimeraNameSpaceProvider
         return getFileAttributes(inode, _permissionHandler.getRequiredAttributes());
     }
 
+    /**
+     * Returns the parts of inode data that are read together with the stat of an inode when
+     * fetching the given attributes by PNFS ID. Attributes stored in the inode table, and data
+     * that is only rarely needed for an attribute, are not included.
+     */
+    private Set<InodeData.Part> getInodeDataParts(Set<FileAttribute> attr) {
+        Set<InodeData.Part> parts = EnumSet.noneOf(InodeData.Part.class);
+        for (FileAttribute attribute : attr) {
+            switch (attribute) {
+                case ACL:
+                    if (_aclEnabled) {
+                        parts.add(InodeData.Part.ACL);
+                    }
+                    break;
+                case CHECKSUM:
+                    parts.add(InodeData.Part.CHECKSUMS);
+                    break;
+                case LOCATIONS:
+                    parts.add(InodeData.Part.LOCATIONS);
+                    break;
+                case STORAGEINFO:
+                case STORAGECLASS:
+                case CACHECLASS:
+                case HSM:
+                    parts.add(InodeData.Part.LOCATIONS);
+                    parts.add(InodeData.Part.PARENT_TAGS);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Reads the inode with the given PNFS ID and the data needed for the given attributes.
+     */
+    private ExtendedInode readInode(PnfsId pnfsId, Set<FileAttribute> attr)
+          throws ChimeraFsException {
+        AttributePlans.Plan plan = _attributePlans.get(attr);
+        InodeData data = _fs.readInode(pnfsId.toString(), plan.getParts());
+        plan.record(data);
+        return new ExtendedInode(_fs, data);
+    }
+
     private FileAttributes getFileAttributes(ExtendedInode inode, Set<FileAttribute> attr)
           throws ChimeraFsException, CacheException {
         if (!inode.exists()) {
@@ -1077,10 +1144,8 @@ public class ChimeraNameSpaceProvider
           Set<FileAttribute> attr)
           throws CacheException {
         try {
-            ExtendedInode inode = new ExtendedInode(_fs, pnfsId, STAT);
-
             if (Subjects.isExemptFromNamespaceChecks(subject)) {
-                return getFileAttributes(inode, attr);
+                return getFileAttributes(readInode(pnfsId, attr), attr);
             }
 
             /* If we have to authorize the check then we fetch
@@ -1091,7 +1156,7 @@ public class ChimeraNameSpaceProvider
             required.addAll(_permissionHandler.getRequiredAttributes());
             required.addAll(attr);
             FileAttributes fileAttributes =
-                  getFileAttributes(inode, required);
+                  getFileAttributes(readInode(pnfsId, required), required);
 
             /* The permission check is performed after we fetched the
              * attributes to avoid fetching the attributes twice.
@@ -1292,35 +1357,32 @@ public class ChimeraNameSpaceProvider
                 }
             }
 
+            /* Entries are collected in batches, so that attributes not
+             * contained in the directory stream can be fetched for the
+             * whole batch with a few queries rather than several queries
+             * per entry.
+             */
             int counter = 0;
+            List<String> names = new ArrayList<>(_listBatchSize);
+            List<ExtendedInode> inodes = new ArrayList<>(_listBatchSize);
             try (DirectoryStreamB<ChimeraDirectoryEntry> dirStream = dir
                   .newDirectoryStream()) {
                 for (ChimeraDirectoryEntry entry : dirStream) {
-                    try {
-                        String name = entry.getName();
-                        if (!name.equals(".") && !name.equals("..") &&
-                              (pattern == null || pattern.matcher(name)
-                                    .matches()) &&
-                              range.contains(counter++)) {
-                            // FIXME: actually, ChimeraDirectoryEntry
-                            // already contains most of attributes
-                            FileAttributes fa =
-                                  attrs.isEmpty()
-                                        ? null
-                                        : getFileAttributes(
-                                              new ExtendedInode(_fs, entry.getInode()), attrs);
-                            handler.addEntry(name, fa);
+                    String name = entry.getName();
+                    if (!name.equals(".") && !name.equals("..") &&
+                          (pattern == null || pattern.matcher(name)
+                                .matches()) &&
+                          range.contains(counter++)) {
+                        names.add(name);
+                        inodes.add(new ExtendedInode(dir, entry.getInode()));
+                        if (names.size() >= _listBatchSize) {
+                            addEntries(names, inodes, attrs, handler);
+                            names.clear();
+                            inodes.clear();
                         }
-                    } catch (FileNotFoundChimeraFsException e) {
-                        /* Not an error; files may be deleted during the
-                         * list operation.
-                         */
-                    } catch (CacheException e) {
-                        LOGGER.error(AlarmMarkerFactory.getMarker(PredefinedAlarm.INACCESSIBLE_FILE,
-                                        "namespace"),
-                                "Failed to retrieve file attributes {} : {}", entry.getStat().getId(), e.toString());
                     }
                 }
+                addEntries(names, inodes, attrs, handler);
             }
 
         } catch (FileNotFoundChimeraFsException e) {
@@ -1332,6 +1394,52 @@ public class ChimeraNameSpaceProvider
     }
 
 
+    /**
+     * Passes a batch of directory entries and their attributes to the list handler.
+     */
+    private void addEntries(List<String> names, List<ExtendedInode> inodes,
+          Set<FileAttribute> attrs, ListHandler handler) throws ChimeraFsException {
+        if (!attrs.isEmpty() && inodes.size() > 1) {
+            fetchAttributes(inodes, attrs);
+        }
+        for (int i = 0; i < names.size(); i++) {
+            ExtendedInode inode = inodes.get(i);
+            try {
+                // FIXME: actually, ChimeraDirectoryEntry
+                // already contains most of attributes
+                FileAttributes fa = attrs.isEmpty() ? null : getFileAttributes(inode, attrs);
+                handler.addEntry(names.get(i), fa);
+            } catch (FileNotFoundChimeraFsException e) {
+                /* Not an error; files may be deleted during the
+                 * list operation.
+                 */
+            } catch (CacheException e) {
+                LOGGER.error(AlarmMarkerFactory.getMarker(PredefinedAlarm.INACCESSIBLE_FILE,
+                                "namespace"),
+                        "Failed to retrieve file attributes {} : {}", inode.getId(), e.toString());
+            }
+        }
+    }
+
+    /**
+     * Fetches the data from which the given attributes are derived for all inodes at once,
+     * where the data is stored outside the inode table.
+     */
+    private void fetchAttributes(List<ExtendedInode> inodes, Set<FileAttribute> attrs)
+          throws ChimeraFsException {
+        if (attrs.contains(FileAttribute.CHECKSUM)) {
+            ExtendedInode.fetchChecksums(_fs, inodes);
+        }
+        if (attrs.contains(FileAttribute.LOCATIONS) || attrs.contains(FileAttribute.STORAGEINFO)
+              || attrs.contains(FileAttribute.STORAGECLASS)
+              || attrs.contains(FileAttribute.CACHECLASS) || attrs.contains(FileAttribute.HSM)) {
+            ExtendedInode.fetchLocations(_fs, inodes);
+        }
+        if (_aclEnabled && attrs.contains(FileAttribute.ACL)) {
+            ExtendedInode.fetchAcls(_fs, inodes);
+        }
+    }
+
     @Override
     public void listVirtualDirectory(Subject subject, String path, Range<Integer> range,
                      Set<FileAttribute> attrs, ListHandler handler)
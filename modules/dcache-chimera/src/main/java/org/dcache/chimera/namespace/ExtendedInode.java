@@ -26,10 +26,14 @@ import com.google.common.io.ByteSource;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsId;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.dcache.acl.ACE;
 import org.dcache.acl.ACL;
 import org.dcache.acl.enums.RsType;
@@ -37,6 +41,7 @@ import org.dcache.chimera.ChimeraFsException;
 import org.dcache.chimera.FileSystemProvider;
 import org.dcache.chimera.FsInode;
 import org.dcache.chimera.FsInodeType;
+import org.dcache.chimera.InodeData;
 import org.dcache.chimera.StorageLocatable;
 import org.dcache.chimera.UnixPermission;
 import org.dcache.namespace.FileType;
@@ -59,7 +64,11 @@ public class ExtendedInode extends FsInode {
     private HashMap<Integer, ExtendedInode> levels;
     private Optional<ExtendedInode> parent;
 
-    private ExtendedInode(ExtendedInode parent, FsInode inode) {
+    /**
+     * Creates an extended inode for an entry of the directory {@code parent}. Data cached by the
+     * parent, such as its tags, is shared by all entries created this way.
+     */
+    public ExtendedInode(ExtendedInode parent, FsInode inode) {
         this(parent.getFs(), inode);
         this.parent = Optional.of(parent);
     }
@@ -74,6 +83,30 @@ public class ExtendedInode extends FsInode {
         super(fs, inode);
     }
 
+    /**
+     * Creates an extended inode from data read by {@link FileSystemProvider#readInode}. The data
+     * that was read is cached.
+     */
+    public ExtendedInode(FileSystemProvider fs, InodeData data) {
+        this(fs, data.getInode());
+        if (data.getChecksums() != null) {
+            checksums = ImmutableList.copyOf(data.getChecksums());
+        }
+        if (data.getLocations() != null) {
+            locations = ImmutableList.copyOf(data.getLocations());
+        }
+        if (data.getAcl() != null) {
+            acl = new ACL(isDirectory() ? RsType.DIR : RsType.FILE, data.getAcl());
+        }
+        if (data.getParentTags() != null) {
+            parent = Optional.ofNullable(data.getParent()).map(p -> {
+                ExtendedInode dir = new ExtendedInode(fs, p);
+                dir.tags = ImmutableMap.copyOf(data.getParentTags());
+                return dir;
+            });
+        }
+    }
+
     public ExtendedInode(FileSystemProvider fs, long id, FsInodeType type) {
         super(fs, id, type);
     }
@@ -159,7 +192,7 @@ public class ExtendedInode extends FsInode {
     }
 
     public ImmutableList<String> getLocations(int type) throws ChimeraFsException {
-        return _fs.getInodeLocations(this).stream().filter(l -> l.type() == type)
+        return getLocations().stream().filter(l -> l.type() == type)
                 .map(StorageLocatable::location)
                 .collect(ImmutableList.toImmutableList());
     }
@@ -179,6 +212,60 @@ public class ExtendedInode extends FsInode {
         return acl;
     }
 
+    /**
+     * Fetches the checksums of all given inodes using a single request to the file system. Inodes
+     * that already have cached checksums are skipped.
+     */
+    public static void fetchChecksums(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        List<ExtendedInode> missing = inodes.stream().filter(i -> i.checksums == null)
+              .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            Map<Long, Set<Checksum>> checksums = fs.getInodeChecksums(
+                  Collections.unmodifiableList(missing));
+            for (ExtendedInode inode : missing) {
+                inode.checksums = ImmutableList.copyOf(
+                      checksums.getOrDefault(inode.ino(), Collections.emptySet()));
+            }
+        }
+    }
+
+    /**
+     * Fetches the locations of all given inodes using a single request to the file system. Inodes
+     * that already have cached locations are skipped.
+     */
+    public static void fetchLocations(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        List<ExtendedInode> missing = inodes.stream().filter(i -> i.locations == null)
+              .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            Map<Long, List<StorageLocatable>> locations = fs.getInodeLocations(
+                  Collections.unmodifiableList(missing));
+            for (ExtendedInode inode : missing) {
+                inode.locations = ImmutableList.copyOf(
+                      locations.getOrDefault(inode.ino(), Collections.emptyList()));
+            }
+        }
+    }
+
+    /**
+     * Fetches the ACLs of all given inodes using a single request to the file system. Inodes that
+     * already have a cached ACL are skipped.
+     */
+    public static void fetchAcls(FileSystemProvider fs, Collection<ExtendedInode> inodes)
+          throws ChimeraFsException {
+        List<ExtendedInode> missing = inodes.stream().filter(i -> i.acl == null)
+              .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            Map<Long, List<ACE>> acls = fs.getACL(Collections.unmodifiableList(missing));
+            for (ExtendedInode inode : missing) {
+                RsType rsType = inode.isDirectory() ? RsType.DIR : RsType.FILE;
+                inode.acl = new ACL(rsType,
+                      acls.getOrDefault(inode.ino(), Collections.emptyList()));
+            }
+        }
+    }
+
     public ExtendedInode getLevel(int level) {
         if (levels == null) {
             levels = new HashMap<>();
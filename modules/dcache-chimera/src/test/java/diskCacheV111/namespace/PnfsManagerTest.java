@@ -24,7 +24,12 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 
+import com.google.common.collect.Range;
 import com.google.common.io.Resources;
 import diskCacheV111.util.AccessLatency;
 import diskCacheV111.util.CacheException;
@@ -40,6 +45,10 @@ import diskCacheV111.vehicles.PnfsDeleteEntryMessage;
 import diskCacheV111.vehicles.PnfsGetCacheLocationsMessage;
 import diskCacheV111.vehicles.PnfsRenameMessage;
 import diskCacheV111.vehicles.StorageInfo;
+import dmg.cells.nucleus.CellAddressCore;
+import dmg.cells.nucleus.CellEndpoint;
+import dmg.cells.nucleus.CellMessage;
+import dmg.cells.nucleus.CellPath;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
@@ -49,6 +58,8 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import junit.framework.JUnit4TestAdapter;
 import liquibase.Liquibase;
 import liquibase.database.Database;
@@ -81,6 +92,7 @@ import org.dcache.util.Checksum;
 import org.dcache.util.ChecksumType;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.dcache.vehicles.PnfsSetFileAttributes;
 import org.junit.After;
 import org.junit.Before;
@@ -826,6 +838,65 @@ public class PnfsManagerTest {
         assertThat(pnfsCreateEntryMessage.getReturnCode(), is(0));
     }
 
+    @Test(timeout = 10_000)
+    public void shouldFailFlowControlledListingThatIsAbandoned() throws Exception {
+        FsInode dir = _fs.mkdir("/pnfs/testRoot/abandoned");
+        _fs.createFile(dir, "file1");
+        _fs.createFile(dir, "file2");
+        _fs.createFile(dir, "file3");
+        _pnfsManager.setCellEndpoint(mock(CellEndpoint.class));
+        _pnfsManager.setDirectoryListLimit(1);
+        _pnfsManager.setListCreditTimeout(100);
+        _pnfsManager.setListCreditTimeoutUnit(TimeUnit.MILLISECONDS);
+
+        /* The door grants no credit beyond its initial window and, like
+         * doors do, sends the request without a time limit.
+         */
+        PnfsListDirectoryMessage message = new PnfsListDirectoryMessage(
+              "/pnfs/testRoot/abandoned", null, Range.all(), EnumSet.noneOf(FileAttribute.class));
+        message.setWindow(1);
+        CellMessage envelope = new CellMessage(new CellPath("PnfsManager"), message);
+        envelope.addSourceAddress(new CellAddressCore("door"));
+        _pnfsManager.listDirectory(envelope, message, new LinkedBlockingQueue<>());
+
+        assertThat(message.getReturnCode(), is(CacheException.TIMEOUT));
+    }
+
+    @Test(timeout = 10_000)
+    public void shouldNotDelayListingWhileFlowControlledListingWaitsForCredit()
+          throws Exception {
+        FsInode dir = _fs.mkdir("/pnfs/testRoot/paused");
+        _fs.createFile(dir, "file1");
+        _fs.createFile(dir, "file2");
+        _fs.createFile(dir, "file3");
+        CellEndpoint endpoint = mock(CellEndpoint.class);
+        _pnfsManager.setCellEndpoint(endpoint);
+        _pnfsManager.setDirectoryListLimit(1);
+
+        /* With a single list thread, both listings of the same directory
+         * would be served by the same thread.
+         */
+        PnfsListDirectoryMessage paused = new PnfsListDirectoryMessage(
+              "/pnfs/testRoot/paused", null, Range.all(), EnumSet.noneOf(FileAttribute.class));
+        paused.setWindow(1);
+        _pnfsManager.messageArrived(listRequest(paused), paused);
+        PnfsListDirectoryMessage other = new PnfsListDirectoryMessage(
+              "/pnfs/testRoot/paused", null, Range.all(), EnumSet.noneOf(FileAttribute.class));
+        _pnfsManager.messageArrived(listRequest(other), other);
+
+        verify(endpoint, timeout(5_000).atLeastOnce()).sendMessage(argThat(m ->
+              m.getMessageObject() == other && other.isFinal()));
+        assertThat(other.getReturnCode(), is(0));
+        assertThat(paused.isFinal(), is(false));
+    }
+
+    private static CellMessage listRequest(PnfsListDirectoryMessage message) {
+        message.setReplyRequired(true);
+        CellMessage envelope = new CellMessage(new CellPath("PnfsManager"), message);
+        envelope.addSourceAddress(new CellAddressCore("door"));
+        return envelope;
+    }
+
     private void assertNotExists(String path) throws ChimeraFsException {
         try {
             _fs.path2inode(path);
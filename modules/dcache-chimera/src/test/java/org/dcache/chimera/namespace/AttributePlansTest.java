@@ -0,0 +1,86 @@
+package org.dcache.chimera.namespace;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.dcache.chimera.FsInode;
+import org.dcache.chimera.InodeData;
+import org.dcache.namespace.FileAttribute;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttributePlansTest {
+
+    private AtomicInteger planned;
+    private AttributePlans plans;
+
+    @Before
+    public void setUp() {
+        planned = new AtomicInteger();
+        plans = new AttributePlans(attributes -> {
+            planned.incrementAndGet();
+            Set<InodeData.Part> parts = EnumSet.noneOf(InodeData.Part.class);
+            if (attributes.contains(FileAttribute.CHECKSUM)) {
+                parts.add(InodeData.Part.CHECKSUMS);
+            }
+            if (attributes.contains(FileAttribute.STORAGEINFO)) {
+                parts.add(InodeData.Part.LOCATIONS);
+                parts.add(InodeData.Part.PARENT_TAGS);
+            }
+            return parts;
+        });
+    }
+
+    @Test
+    public void shouldReusePlanForEqualAttributes() {
+        AttributePlans.Plan plan = plans.get(EnumSet.of(FileAttribute.CHECKSUM));
+
+        assertThat(plans.get(EnumSet.of(FileAttribute.CHECKSUM)), is(sameInstance(plan)));
+        assertThat(planned.get(), is(1));
+    }
+
+    @Test
+    public void shouldPlanPartsOfAttributes() {
+        AttributePlans.Plan plan = plans.get(
+              EnumSet.of(FileAttribute.PNFSID, FileAttribute.CHECKSUM, FileAttribute.STORAGEINFO));
+
+        assertThat(plan.getParts(), equalTo(EnumSet.of(InodeData.Part.CHECKSUMS,
+              InodeData.Part.LOCATIONS, InodeData.Part.PARENT_TAGS)));
+    }
+
+    @Test
+    public void shouldCountSeparateQueries() {
+        assertThat(plans.get(EnumSet.of(FileAttribute.PNFSID)).getSeparateQueries(), is(1));
+        assertThat(plans.get(EnumSet.of(FileAttribute.CHECKSUM)).getSeparateQueries(), is(2));
+        assertThat(plans.get(EnumSet.of(FileAttribute.CHECKSUM, FileAttribute.STORAGEINFO))
+              .getSeparateQueries(), is(5));
+    }
+
+    @Test
+    public void shouldReportRecordedQueries() {
+        AttributePlans.Plan plan = plans.get(EnumSet.of(FileAttribute.CHECKSUM));
+        plan.record(new InodeData(new FsInode(null, 1L), 1));
+        plan.record(new InodeData(new FsInode(null, 2L), 1));
+
+        String[] lines = plans.toString().split("\n");
+
+        assertThat(lines.length, is(2));
+        assertThat(lines[1].trim().split("\\s+", 4)[0], is("2"));
+        assertThat(lines[1].trim().split("\\s+", 4)[1], is("2"));
+        assertThat(lines[1].trim().split("\\s+", 4)[2], is("1.00"));
+    }
+
+    @Test
+    public void shouldForgetPlansWhenCleared() {
+        plans.get(EnumSet.of(FileAttribute.CHECKSUM));
+        plans.clear();
+        plans.get(EnumSet.of(FileAttribute.CHECKSUM));
+
+        assertThat(planned.get(), is(2));
+    }
+}
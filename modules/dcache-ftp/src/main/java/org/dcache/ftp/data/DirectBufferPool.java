@@ -0,0 +1,77 @@
+package org.dcache.ftp.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of direct byte buffers for the data channels of FTP transfers.
+ * <p>
+ * Direct buffers avoid the extra copy the JDK makes when a heap buffer is used for socket or file
+ * I/O, but they are expensive to allocate and their memory is only released when they are garbage
+ * collected. Released buffers are therefore kept for reuse by later transfers. The number of
+ * buffers handed out is not limited, but only a bounded number of idle buffers of each size is
+ * retained.
+ * <p>
+ * The class is thread safe.
+ */
+public class DirectBufferPool {
+
+    private static final DirectBufferPool INSTANCE = new DirectBufferPool(64);
+
+    private final int maxIdle;
+    private final ConcurrentMap<Integer, Queue<ByteBuffer>> idle = new ConcurrentHashMap<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public DirectBufferPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns the pool shared by all transfers.
+     */
+    public static DirectBufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a cleared direct buffer with the given capacity.
+     */
+    public ByteBuffer acquire(int capacity) {
+        checkArgument(capacity > 0, "Capacity must be positive");
+        Queue<ByteBuffer> buffers = idle.get(capacity);
+        ByteBuffer buffer = (buffers == null) ? null : buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        idleCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire} to the pool. The buffer must not be used
+     * after it was released.
+     */
+    public void release(ByteBuffer buffer) {
+        checkArgument(buffer.isDirect(), "Buffer must be direct");
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.computeIfAbsent(buffer.capacity(), c -> new ConcurrentLinkedQueue<>())
+                  .add(buffer);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of idle buffers retained by the pool.
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+}
@@ -1,6 +1,7 @@
 package org.dcache.ftp.data;
 
 import static org.dcache.util.ByteUnit.KiB;
+import static org.dcache.util.Exceptions.messageOrClassName;
 import static org.dcache.util.Strings.describe;
 import static org.dcache.util.Strings.describeSize;
 import static org.dcache.util.Strings.toThreeSigFig;
@@ -54,9 +55,31 @@ public abstract class Mode extends AbstractMultiplexerListener {
     protected long _fileSize;
 
     /**
-     * Buffer for transferTo and transferFrom.
+     * Size of the buffer for transferTo and transferFrom.
      */
-    private final ByteBuffer _buffer = ByteBuffer.allocate(KiB.toBytes(8));
+    private int _ioBufferSize = KiB.toBytes(8);
+
+    /**
+     * Direct buffer for transferTo and transferFrom. Acquired from the buffer pool upon first use
+     * and returned by close().
+     */
+    private ByteBuffer _buffer;
+
+    /**
+     * Whether transferTo hands data to RepositoryChannel.transferTo. Cleared if that fails.
+     */
+    private boolean _isZeroCopy;
+
+    /**
+     * The failure that caused zero-copy to be disabled for this transfer.
+     */
+    private String _zeroCopyFailure;
+
+    /**
+     * Bytes sent by zero-copy and bytes copied through the buffer, respectively.
+     */
+    private long _zeroCopyBytes;
+    private long _copiedBytes;
 
     /**
      * The address to connect to for outgoing connections.
@@ -184,6 +207,24 @@ public abstract class Mode extends AbstractMultiplexerListener {
         _bufferSize = value;
     }
 
+    /**
+     * Sets the size of the buffer through which data is copied between the file and the data
+     * channels. Larger buffers reduce the number of system calls per byte transferred.
+     */
+    public void setIoBufferSize(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("I/O buffer size must be positive");
+        }
+        _ioBufferSize = value;
+    }
+
+    /**
+     * Enables zero-copy when sending data. Zero-copy is disabled by default.
+     */
+    public void setZeroCopy(boolean value) {
+        _isZeroCopy = value;
+    }
+
     /**
      * Sets the number of concurrent connections to use. Only relevant for outgoing connections.
      * Parallelism is not supported by all modes.
@@ -216,37 +257,72 @@ public abstract class Mode extends AbstractMultiplexerListener {
         return Collections.unmodifiableCollection(_addresses);
     }
 
+    /**
+     * Returns the buffer for transferTo and transferFrom.
+     */
+    private ByteBuffer buffer() {
+        if (_buffer == null) {
+            _buffer = DirectBufferPool.getInstance().acquire(_ioBufferSize);
+        }
+        return _buffer;
+    }
+
     /**
      * Like calling _file.transferTo().
      * <p>
-     * This method behaves similarly to FileChannel.transferTo, except that it never uses zero-copy
-     * mode. FileChannel.transferTo has been subject to a large number of bugs throughout the
-     * history of Java.
+     * If zero-copy is enabled, the data is handed to RepositoryChannel.transferTo, which for files
+     * on a local file system lets the kernel send the data straight from the page cache. Should
+     * that fail, the mode falls back to copying the data through a direct buffer for the rest of
+     * the transfer. FileChannel.transferTo has been subject to a large number of bugs throughout
+     * the history of Java, which is why zero-copy can be disabled altogether.
+     * <p>
+     * Returns -1 if the end of the file is reached before any data has been transferred.
      */
     protected long transferTo(long position, long count, SocketChannel socket)
           throws IOException {
+        if (_isZeroCopy) {
+            try {
+                long nbytes = _file.transferTo(position, count, socket);
+                if (nbytes == 0 && count > 0 && position >= _file.size()) {
+                    return -1;
+                }
+                _zeroCopyBytes += nbytes;
+                return nbytes;
+            } catch (IOException e) {
+                if (!socket.isOpen() || !_file.isOpen()) {
+                    throw e;
+                }
+                LOGGER.warn("Zero-copy send failed, falling back to copying: {}",
+                      messageOrClassName(e));
+                _zeroCopyFailure = messageOrClassName(e);
+                _isZeroCopy = false;
+            }
+        }
+
+        ByteBuffer buffer = buffer();
         long tr = 0;                        // Total bytes read
         long pos = position;
-        _buffer.clear();
+        buffer.clear();
         while (tr < count) {
-            _buffer.limit((int) Math.min((count - tr),
-                  (long) _buffer.capacity()));
-            int nr = _file.read(_buffer, pos);
+            buffer.limit((int) Math.min((count - tr),
+                  (long) buffer.capacity()));
+            int nr = _file.read(buffer, pos);
             if (nr < 0 && tr == 0) {
                 return -1;
             }
             if (nr <= 0) {
                 break;
             }
-            _buffer.flip();
-            int nw = socket.write(_buffer);
+            buffer.flip();
+            int nw = socket.write(buffer);
             tr += nw;
             if (nw != nr) {
                 break;
             }
             pos += nw;
-            _buffer.clear();
+            buffer.clear();
         }
+        _copiedBytes += tr;
         return tr;
     }
 
@@ -258,9 +334,10 @@ public abstract class Mode extends AbstractMultiplexerListener {
      * observed in some cases (transferFrom returning 0, even though the selector claimed data was
      * ready and a normal read returned data).
      * <p>
-     * The current implementation copies data into memory and writes it do disk. This should be no
-     * slower than using FileChannel.transferFrom() from JDK 6, since that does exactly the same
-     * when copying from a SocketChannel.
+     * The current implementation copies data into a direct buffer and writes it do disk. This
+     * should be no slower than using FileChannel.transferFrom(), since that does exactly the same
+     * when copying from a SocketChannel. In contrast to transferFrom(), writing from a buffer
+     * allows the repository channel to compute checksums on the fly.
      * <p>
      * An alternative would be to map the file into memory and read from the socket directly into
      * the mapped file. That however would be better done at a higher level and it is currently
@@ -268,28 +345,30 @@ public abstract class Mode extends AbstractMultiplexerListener {
      */
     protected long transferFrom(SocketChannel socket, long position, long count)
           throws IOException {
+        ByteBuffer buffer = buffer();
         long tw = 0;                    // Total bytes written
         long pos = position;
         try {
-            _buffer.clear();
+            buffer.clear();
             while (tw < count) {
-                _buffer.limit((int) Math.min((count - tw),
-                      (long) _buffer.capacity()));
-                int nr = socket.read(_buffer);
+                buffer.limit((int) Math.min((count - tw),
+                      (long) buffer.capacity()));
+                int nr = socket.read(buffer);
                 if (nr < 0 && tw == 0) {
                     return -1;
                 }
                 if (nr <= 0) {
                     break;
                 }
-                _buffer.flip();
-                int nw = _file.write(_buffer, pos);
+                buffer.flip();
+                int nw = _file.write(buffer, pos);
                 tw += nw;
+                _copiedBytes += nw;
                 if (nw != nr) {
                     break;
                 }
                 pos += nw;
-                _buffer.clear();
+                buffer.clear();
             }
             return tw;
         } catch (IOException x) {
@@ -546,6 +625,16 @@ public abstract class Mode extends AbstractMultiplexerListener {
         return false;
     }
 
+    /**
+     * Releases the resources held by this mode. Must be called once the transfer has finished.
+     */
+    public void close() {
+        if (_buffer != null) {
+            DirectBufferPool.getInstance().release(_buffer);
+            _buffer = null;
+        }
+    }
+
     /**
      * Called by a Connection object when a new connection has been established.
      */
@@ -587,6 +676,14 @@ public abstract class Mode extends AbstractMultiplexerListener {
                 break;
         }
         pw.println("Closed connections: " + _closed);
+        pw.println("I/O buffer: " + describeSize(_ioBufferSize));
+        if (_zeroCopyBytes > 0 || _isZeroCopy) {
+            pw.println("Sent by zero-copy: " + describeSize(_zeroCopyBytes));
+        }
+        if (_zeroCopyFailure != null) {
+            pw.println("Zero-copy disabled after failure: " + _zeroCopyFailure);
+        }
+        pw.println("Copied through buffer: " + describeSize(_copiedBytes));
 
         if (_size > 0) {
             if (_fileSize > 0) {
@@ -173,6 +173,18 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
      */
     protected boolean _allowPassivePool;
 
+    /**
+     * Whether files are sent with zero-copy, i.e. without copying the data through user space.
+     */
+    protected boolean _zeroCopy;
+
+    /**
+     * Size of the buffer through which data is copied between the file and the network.
+     * <p>
+     * Default values will be used when null.
+     */
+    protected Integer _ioBufferSize;
+
     /**
      * True while the transfer is in progress.
      */
@@ -200,22 +212,31 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
     protected Mode createMode(String mode, Role role, RepositoryChannel fileChannel)
           throws IOException {
         int blockSize;
+        Mode result;
         switch (Character.toUpperCase(mode.charAt(0))) {
             case 'S':
                 blockSize =
                       (_blockSize == null) ? MODE_S_DEFAULT_BLOCK_SIZE : _blockSize;
-                return new ModeS(role, fileChannel, this, blockSize);
+                result = new ModeS(role, fileChannel, this, blockSize);
+                break;
             case 'E':
                 blockSize =
                       (_blockSize == null) ? MODE_E_DEFAULT_BLOCK_SIZE : _blockSize;
-                return new ModeE(role, fileChannel, this, blockSize);
+                result = new ModeE(role, fileChannel, this, blockSize);
+                break;
             case 'X':
                 blockSize =
                       (_blockSize == null) ? MODE_X_DEFAULT_BLOCK_SIZE : _blockSize;
-                return new ModeX(role, fileChannel, this, blockSize);
+                result = new ModeX(role, fileChannel, this, blockSize);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown mode");
         }
+        result.setZeroCopy(_zeroCopy);
+        if (_ioBufferSize != null) {
+            result.setIoBufferSize(_ioBufferSize);
+        }
+        return result;
     }
 
     @Override
@@ -275,6 +296,7 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
              */
             LOGGER.trace("Left event loop and closing channels");
             _multiplexer.close();
+            mode.close();
 
             /* Log some useful information about the transfer.
              */
@@ -631,6 +653,8 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
         System.out.println("  -size=BYTES");
         System.out.println("  -mode=(S|E|X)");
         System.out.println("  -digest=ALGORITHM");
+        System.out.println("  -zero-copy=(true|false)");
+        System.out.println("  -io-buffer=SIZE");
         System.exit(1);
     }
 
@@ -646,6 +670,8 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
             long offset = Long.parseLong(getOption(args, "offset", "0"));
             long size = Long.parseLong(getOption(args, "size", "0"));
             String digest = getOption(args, "digest", "");
+            boolean zeroCopy = Boolean.parseBoolean(getOption(args, "zero-copy", "false"));
+            String ioBufferSize = args.getOpt("io-buffer");
 
             Role role = Role.Receiver;
             if (args.isOneCharOption('r')) {
@@ -658,6 +684,10 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
 
             GFtpProtocol_2_nio mover =
                   new GFtpProtocol_2_nio(null);
+            mover._zeroCopy = zeroCopy;
+            if (ioBufferSize != null) {
+                mover._ioBufferSize = Integer.parseInt(ioBufferSize);
+            }
 
             RepositoryChannel fileChannel =
                   new FileRepositoryChannel(FileSystems.getDefault().getPath(args.argv(0)),
@@ -720,6 +750,14 @@ public class GFtpProtocol_2_nio implements ConnectionMonitor,
         if (args.hasOption("gsiftpBlockSize")) {
             _blockSize = args.getIntOption("gsiftpBlockSize");
         }
+
+        if (args.hasOption("ftpZeroCopy")) {
+            _zeroCopy = args.getBooleanOption("ftpZeroCopy");
+        }
+
+        if (args.hasOption("ftpIoBufferSize")) {
+            _ioBufferSize = args.getIntOption("ftpIoBufferSize");
+        }
     }
 
     @Override
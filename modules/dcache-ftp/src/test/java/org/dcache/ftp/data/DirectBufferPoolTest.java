@@ -0,0 +1,70 @@
+package org.dcache.ftp.data;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectBufferPoolTest {
+
+    private DirectBufferPool pool;
+
+    @Before
+    public void setUp() {
+        pool = new DirectBufferPool(2);
+    }
+
+    @Test
+    public void shouldAllocateDirectBuffers() {
+        ByteBuffer buffer = pool.acquire(4096);
+
+        assertThat(buffer.isDirect(), is(true));
+        assertThat(buffer.capacity(), is(4096));
+        assertThat(buffer.remaining(), is(4096));
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffer() {
+        ByteBuffer buffer = pool.acquire(4096);
+        buffer.put((byte) 1).flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(4096);
+
+        assertThat(reused, is(sameInstance(buffer)));
+        assertThat(reused.position(), is(0));
+        assertThat(reused.limit(), is(4096));
+        assertThat(pool.getIdleCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotReuseBufferOfDifferentSize() {
+        ByteBuffer buffer = pool.acquire(4096);
+        pool.release(buffer);
+
+        assertThat(pool.acquire(8192), is(not(sameInstance(buffer))));
+        assertThat(pool.getIdleCount(), is(1));
+    }
+
+    @Test
+    public void shouldRetainAtMostMaxIdleBuffers() {
+        ByteBuffer buffer1 = pool.acquire(4096);
+        ByteBuffer buffer2 = pool.acquire(4096);
+        ByteBuffer buffer3 = pool.acquire(4096);
+
+        pool.release(buffer1);
+        pool.release(buffer2);
+        pool.release(buffer3);
+
+        assertThat(pool.getIdleCount(), is(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectHeapBuffers() {
+        pool.release(ByteBuffer.allocate(4096));
+    }
+}
@@ -0,0 +1,184 @@
+package org.dcache.ftp.data;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.dcache.pool.repository.FileRepositoryChannel;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.ForwardingRepositoryChannel;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModeTest {
+
+    private static final int SIZE = 1_000_000;
+
+    private Path path;
+    private byte[] data;
+    private SocketChannel source;
+    private SocketChannel sink;
+
+    @Before
+    public void setUp() throws IOException {
+        data = new byte[SIZE];
+        new Random(0).nextBytes(data);
+        path = Files.createTempFile("mode-", "");
+
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress("localhost", 0));
+            source = SocketChannel.open(server.getLocalAddress());
+            sink = server.accept();
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        source.close();
+        sink.close();
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void shouldSendWithZeroCopy() throws Exception {
+        Files.write(path, data);
+        try (RepositoryChannel file = new FileRepositoryChannel(path, FileStore.O_READ)) {
+            Mode mode = new ModeS(Role.Sender, file, mock(ConnectionMonitor.class), SIZE);
+            mode.setActive((InetSocketAddress) sink.getLocalAddress());
+            mode.setZeroCopy(true);
+
+            assertThat(send(mode), is(equalTo(data)));
+            assertThat(info(mode), containsString("Sent by zero-copy"));
+            mode.close();
+        }
+    }
+
+    @Test
+    public void shouldFallBackToCopyingWhenZeroCopyFails() throws Exception {
+        Files.write(path, data);
+        try (RepositoryChannel file = new FileRepositoryChannel(path, FileStore.O_READ)) {
+            RepositoryChannel channel = new ForwardingRepositoryChannel() {
+                @Override
+                protected RepositoryChannel delegate() {
+                    return file;
+                }
+
+                @Override
+                public long transferTo(long position, long count, WritableByteChannel target)
+                      throws IOException {
+                    throw new IOException("Operation not supported");
+                }
+            };
+            Mode mode = new ModeS(Role.Sender, channel, mock(ConnectionMonitor.class), SIZE);
+            mode.setActive((InetSocketAddress) sink.getLocalAddress());
+            mode.setZeroCopy(true);
+            mode.setIoBufferSize(4096);
+
+            assertThat(send(mode), is(equalTo(data)));
+            assertThat(info(mode), containsString(
+                  "Zero-copy disabled after failure: Operation not supported"));
+            mode.close();
+        }
+    }
+
+    @Test
+    public void shouldSendByCopyingWhenZeroCopyIsDisabled() throws Exception {
+        Files.write(path, data);
+        try (RepositoryChannel file = new FileRepositoryChannel(path, FileStore.O_READ)) {
+            Mode mode = new ModeS(Role.Sender, file, mock(ConnectionMonitor.class), SIZE);
+            mode.setIoBufferSize(4096);
+
+            assertThat(send(mode), is(equalTo(data)));
+            mode.close();
+        }
+    }
+
+    @Test
+    public void shouldReceiveThroughBuffer() throws Exception {
+        try (RepositoryChannel file = new FileRepositoryChannel(path, FileStore.O_RW)) {
+            Mode mode = new ModeS(Role.Receiver, file, mock(ConnectionMonitor.class), SIZE);
+            mode.setIoBufferSize(4096);
+
+            Thread writer = new Thread(() -> {
+                try {
+                    ByteBuffer buffer = ByteBuffer.wrap(data);
+                    while (buffer.hasRemaining()) {
+                        source.write(buffer);
+                    }
+                    source.close();
+                } catch (IOException ignored) {
+                }
+            });
+            writer.start();
+
+            long position = 0;
+            long nbytes;
+            while ((nbytes = mode.transferFrom(sink, position, SIZE)) != -1) {
+                position += nbytes;
+            }
+            writer.join();
+            mode.close();
+        }
+
+        assertThat(Files.readAllBytes(path), is(equalTo(data)));
+    }
+
+    @Test
+    public void shouldSignalEndOfFile() throws Exception {
+        Files.write(path, data);
+        try (RepositoryChannel file = new FileRepositoryChannel(path, FileStore.O_READ)) {
+            Mode mode = new ModeS(Role.Sender, file, mock(ConnectionMonitor.class), SIZE);
+            mode.setZeroCopy(true);
+
+            assertThat(mode.transferTo(SIZE, 1, source), is(-1L));
+            mode.close();
+        }
+    }
+
+    /**
+     * Sends the whole file through the mode and returns the data received on the other end.
+     */
+    private byte[] send(Mode mode) throws Exception {
+        ByteBuffer received = ByteBuffer.allocate(SIZE);
+        Thread reader = new Thread(() -> {
+            try {
+                while (received.hasRemaining() && sink.read(received) >= 0) {
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        reader.start();
+
+        long position = 0;
+        while (position < SIZE) {
+            long nbytes = mode.transferTo(position, SIZE - position, source);
+            if (nbytes == -1) {
+                break;
+            }
+            position += nbytes;
+        }
+        reader.join();
+        return received.array();
+    }
+
+    private static String info(Mode mode) {
+        StringWriter out = new StringWriter();
+        mode.getInfo(new PrintWriter(out));
+        return out.toString();
+    }
+}
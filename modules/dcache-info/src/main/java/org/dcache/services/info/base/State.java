@@ -5,9 +5,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.concurrent.GuardedBy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +30,11 @@ import org.slf4j.LoggerFactory;
  * org.dcache.services.info.serialisation package), but some synchronous classes also use this to
  * build lists from dCache current state (e.g., to send a message requesting data to each currently
  * known pool).
+ * <p>
+ * The state tree is persistent: applying a StateTransition builds a new tree that shares all
+ * unaffected subtrees with the current one, which is then published atomically.  Visitors iterate
+ * over the tree that was current when they started, without locking and without blocking (or being
+ * blocked by) updates.  Updates are applied one at a time.
  *
  * @author Paul Millar <paul.millar@desy.de>
  */
@@ -50,9 +53,9 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
      */
 
     /**
-     * The root branch of the dCache state
+     * The root branch of the dCache state.  The tree is frozen: it is replaced, never modified.
      */
-    private final StateComposite _state;
+    private volatile StateComposite _state;
 
     /**
      * All registered StateWatchers
@@ -60,12 +63,9 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
     private volatile Collection<StateWatcherInfo> _watchers = new ArrayList<>();
 
     /**
-     * Our read/write lock: we use the fair version to reduce the risk of writers constantly
-     * blocking a reader
+     * Serialises updates to the state.  Visitors do not take this lock.
      */
-    private final ReadWriteLock _stateRWLock = new ReentrantReadWriteLock(true);
-    private final Lock _stateReadLock = _stateRWLock.readLock();
-    private final Lock _stateWriteLock = _stateRWLock.writeLock();
+    private final Object _stateWriteLock = new Object();
 
     // TODO: remove this completely. It's only needed to support derived
     // metrics
@@ -77,7 +77,9 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
         metadata.addDefault();
 
         // Build our top-level immortal StateComposite.
-        _state = new StateComposite(metadata);
+        StateComposite root = new StateComposite(metadata);
+        root.freeze();
+        _state = root;
     }
 
     /**
@@ -143,10 +145,8 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
             return;
         }
 
-        StateTransition transition = new StateTransition();
-
-        try {
-            _stateReadLock.lock();
+        synchronized (_stateWriteLock) {
+            StateTransition transition = new StateTransition();
 
             /**
              * Update our new StateTransition based on the StateUpdate.
@@ -167,34 +167,27 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
                 _updateManager.enqueueUpdate(resultingUpdate);
             }
 
-        } finally {
-            _stateReadLock.unlock();
+            applyTransition(transition);
         }
-
-        applyTransition(transition);
     }
 
     /**
      * Apply a StateTransition to dCache state. This is the final step in updating the dCache state
-     * where the proposed changes are made permanent. This requires obtaining a writer-lock on the
-     * state.
+     * where the proposed changes are made permanent.  The transition is applied to a copy of the
+     * affected branches, which then replaces the current state.
      *
      * @param transition the StateTransition to apply.
      */
+    @GuardedBy("_stateWriteLock")
     private void applyTransition(StateTransition transition) {
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("now applying following transition to state:\n\n{}",
                   transition.dumpContents());
         }
 
-        try {
-            _stateWriteLock.lock();
-
-            _state.applyTransition(null, transition);
-
-        } finally {
-            _stateWriteLock.unlock();
-        }
+        StateComposite newState = _state.applyTransition(null, transition);
+        newState.freeze();
+        _state = newState;
     }
 
     /**
@@ -350,10 +343,9 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
         }
 
         LOGGER.trace("Building StateTransition for expired StateComponents");
-        StateTransition transition = new StateTransition();
 
-        try {
-            _stateReadLock.lock();
+        synchronized (_stateWriteLock) {
+            StateTransition transition = new StateTransition();
 
             _state.buildRemovalTransition(null, transition, false);
 
@@ -365,11 +357,8 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
                 _updateManager.enqueueUpdate(resultingUpdate);
             }
 
-        } finally {
-            _stateReadLock.unlock();
+            applyTransition(transition);
         }
-
-        applyTransition(transition);
     }
 
     /**
@@ -377,8 +366,9 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
      * call-backs describing the process of walking over the state and the contents therein.
      * <p>
      * The data obtained from a single call of <code>visitState()</code> is protected from
-     * inconsistencies due to data being updated whilst the iteration is taking place. No such
-     * protection is available for multiple calls to <code>visitState()</code>.
+     * inconsistencies due to data being updated whilst the iteration is taking place: the visitor
+     * iterates over the state as it was when the visit started. No such protection is available
+     * for multiple calls to <code>visitState()</code>.
      *
      * @param visitor the algorithm that wishes to visit our current state
      */
@@ -386,30 +376,28 @@ public class State implements StateCaretaker, StateExhibitor, StateObservatory {
     public void visitState(StateVisitor visitor) {
         LOGGER.trace("visitor {} wishing to visit current state", visitor);
 
-        try {
-            long beforeLock = System.currentTimeMillis();
-
-            LOGGER.trace("visitor {} acquiring read lock", visitor);
-            _stateReadLock.lock();
+        StateComposite state = _state;
 
-            long afterLock = System.currentTimeMillis();
+        long beforeVisit = System.currentTimeMillis();
 
-            LOGGER.trace("visitor {} acquired read lock (took {} ms), starting visit.",
-                  visitor, (afterLock - beforeLock) / 1000.0);
-
-            if (visitor.isVisitable(null)) {
-                _state.acceptVisitor(null, visitor);
-            }
+        if (visitor.isVisitable(null)) {
+            state.acceptVisitor(null, visitor);
+        }
 
-            long afterVisit = System.currentTimeMillis();
+        long afterVisit = System.currentTimeMillis();
 
-            LOGGER.trace("visitor {} completed visit (took {} ms), releasing read lock.",
-                  visitor, (afterVisit - afterLock) / 1000.0);
-        } finally {
-            _stateReadLock.unlock();
-        }
+        LOGGER.trace("visitor {} completed visit (took {} ms).",
+              visitor, afterVisit - beforeVisit);
+    }
 
-        LOGGER.trace("visitor {} finished.", visitor);
+    /**
+     * The version of a subtree is the StateComponent at that path (or its deepest existing
+     * ancestor).  As the state tree is persistent, this object is replaced whenever the subtree
+     * changes.
+     */
+    @Override
+    public Object getSubtreeVersion(StatePath path) {
+        return _state.getComponentOrAncestor(path);
     }
 
     /**
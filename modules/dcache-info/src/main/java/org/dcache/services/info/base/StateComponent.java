@@ -57,12 +57,15 @@ interface StateComponent {
           StateTransition transition);
 
     /**
-     * Apply a transformation, updating the live set of data.
+     * Apply a transformation, updating the live set of data.  A StateComponent that is part of
+     * the published state is never modified; instead, the changes are applied to a copy.
      *
      * @param ourPath    the StatePath to this StateComponent
      * @param transition the StateTransition that should be applied.
+     * @return the StateComponent with the transition applied: either this StateComponent or a
+     * modified copy of it.
      */
-    void applyTransition(StatePath ourPath, StateTransition transition);
+    StateComponent applyTransition(StatePath ourPath, StateTransition transition);
 
     /**
      * Update a StateTransition based adding a new metric.
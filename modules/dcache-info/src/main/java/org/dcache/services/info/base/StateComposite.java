@@ -26,6 +26,12 @@ import org.slf4j.LoggerFactory;
  * A StateComposite also maintains a record of the earliest any of its children (or children of
  * children) will expire.  This is an optimisation, allowing a quick determination when a tree
  * should next be purged and, with any subtree, whether it is necessary to purge that subtree.
+ * <p>
+ * Once a StateComposite is part of the published state it is frozen and never modified again:
+ * applying a StateTransition to a frozen StateComposite modifies a copy.  Since only the
+ * StateComposites along the paths affected by a transition are copied, the new tree shares all
+ * unaffected subtrees with the old one.  This allows the state to be visited without locking, and
+ * the identity of a StateComposite identifies the content of its subtree.
  *
  * @author Paul Millar <paul.millar@desy.de>
  */
@@ -43,6 +49,7 @@ public class StateComposite implements StateComponent {
     private Date _earliestChildExpiry;
     private Date _whenIShouldExpire;
     private boolean _isEphemeral;
+    private boolean _isFrozen;
 
     /**
      * The constructor for public use: a StateComposite with a finite lifetime.
@@ -106,6 +113,64 @@ public class StateComposite implements StateComponent {
         _metadataRef = persistentMetadata;
     }
 
+    /**
+     * Build an unfrozen copy of a StateComposite.  The copy shares all children with the
+     * original.
+     *
+     * @param original the StateComposite to copy.
+     */
+    private StateComposite(StateComposite original) {
+        _children.putAll(original._children);
+        _metadataRef = original._metadataRef;
+        _earliestChildExpiry = original._earliestChildExpiry;
+        _whenIShouldExpire = original._whenIShouldExpire;
+        _isEphemeral = original._isEphemeral;
+    }
+
+    /**
+     * Mark this StateComposite and all its descendants as immutable.  Subtrees that are already
+     * frozen are not visited again, so freezing the result of a StateTransition only visits the
+     * StateComposites the transition created or copied.
+     */
+    void freeze() {
+        if (_isFrozen) {
+            return;
+        }
+
+        _isFrozen = true;
+
+        for (StateComponent child : _children.values()) {
+            if (child instanceof StateComposite) {
+                ((StateComposite) child).freeze();
+            }
+        }
+    }
+
+    /**
+     * Return the StateComponent at the given path, relative to this StateComposite.  If there is
+     * no such StateComponent then the deepest existing StateComponent along the path is returned.
+     *
+     * @param path the path to the StateComponent, or null for this StateComposite.
+     * @return the StateComponent at path, or its deepest existing ancestor.
+     */
+    StateComponent getComponentOrAncestor(StatePath path) {
+        if (path == null) {
+            return this;
+        }
+
+        StateComponent child = _children.get(path.getFirstElement());
+
+        if (child == null) {
+            return this;
+        }
+
+        if (path.isSimplePath() || !(child instanceof StateComposite)) {
+            return child;
+        }
+
+        return ((StateComposite) child).getComponentOrAncestor(path.childPath());
+    }
+
     /**
      * Possibly update our belief of the earliest time that a Mortal child StateComponent will
      * expire.  It is safe to call this method with all child Dates: it will update the
@@ -324,20 +389,32 @@ public class StateComposite implements StateComponent {
 
     /**
      * Apply a transition to our current state.  Children are added, updated or removed based on the
-     * supplied transition.
+     * supplied transition.  If this StateComposite is frozen then the transition is applied to a
+     * copy.
      *
      * @param ourPath    the path to this within dCache tree, or null for top-most StateComposite
      * @param transition the StateTransition to apply
+     * @return the StateComposite with the transition applied.
      */
     @Override
-    public void applyTransition(StatePath ourPath, StateTransition transition) {
+    public StateComposite applyTransition(StatePath ourPath, StateTransition transition) {
         StateChangeSet changeSet = transition.getStateChangeSet(ourPath);
 
         if (changeSet == null) {
             LOGGER.warn("cannot find StateChangeSet for path {}", ourPath);
-            return;
+            return this;
         }
 
+        StateComposite target = _isFrozen ? new StateComposite(this) : this;
+        target.applyChangeSet(ourPath, changeSet, transition);
+        return target;
+    }
+
+    /**
+     * Apply the changes of a StateChangeSet to this (unfrozen) StateComposite.
+     */
+    private void applyChangeSet(StatePath ourPath, StateChangeSet changeSet,
+          StateTransition transition) {
         Date newExpDate = changeSet.getWhenIShouldExpireDate();
         updateWhenIShouldExpireDate(newExpDate);
         if (newExpDate == null) {
@@ -388,7 +465,8 @@ public class StateComposite implements StateComponent {
                 continue;
             }
 
-            child.applyTransition(buildChildPath(ourPath, childName), transition);
+            _children.put(childName,
+                  child.applyTransition(buildChildPath(ourPath, childName), transition));
         }
 
         recalcEarliestChildExpiry();
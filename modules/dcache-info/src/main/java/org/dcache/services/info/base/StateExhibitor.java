@@ -6,10 +6,10 @@ package org.dcache.services.info.base;
  * dCache's state must implement the StateVisitor interface.
  * <p>
  * The class implementing StateExhibitor must ensure the self-consistency of the data produced. This
- * is likely achieved by holding some form of read-lock. It is desirable that these locks are not
- * held for an excessive time; therefore, it is important that the class implementing StateVisitor
- * does not undertake activity that is likely to block activity of the Thread for an unpredictable
- * or a long time.
+ * may be achieved by holding some form of read-lock, or by visiting an immutable snapshot. If
+ * locks are held, it is desirable that they are not held for an excessive time; therefore, it is
+ * important that the class implementing StateVisitor does not undertake activity that is likely to
+ * block activity of the Thread for an unpredictable or a long time.
  */
 public interface StateExhibitor {
 
@@ -17,4 +17,17 @@ public interface StateExhibitor {
      * Query the state of dCache.
      */
     void visitState(StateVisitor visitor);
+
+    /**
+     * Return an object that identifies the current content of a subtree.  The same object is
+     * returned for as long as nothing within the subtree changes, so a StateVisitor may use it to
+     * decide whether the result of an earlier visit of that subtree is still valid.  Objects are
+     * compared by identity.
+     *
+     * @param path the root of the subtree, or null for the complete state.
+     * @return the version of the subtree, or null if the exhibitor does not track versions.
+     */
+    default Object getSubtreeVersion(StatePath path) {
+        return null;
+    }
 }
@@ -123,8 +123,9 @@ public abstract class StateValue implements StateComponent {
 
 
     @Override
-    public void applyTransition(StatePath ourPath, StateTransition transition) {
+    public StateValue applyTransition(StatePath ourPath, StateTransition transition) {
         // Simply do nothing. All activity takes place in StateComposite.
+        return this;
     }
 
 
@@ -25,6 +25,8 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
     private StringWriter _string;
     private StatePath _top;
 
+    private final SerialisationCache _cache = new SerialisationCache();
+
     @Required
     public void setStateExhibitor(StateExhibitor exhibitor) {
         _exhibitor = exhibitor;
@@ -105,6 +107,10 @@ public class JsonSerialiser extends SubtreeVisitor implements StateSerialiser {
 
     @Override
     public String serialise(StatePath start) {
+        return _cache.get(_exhibitor, start, () -> buildJson(start));
+    }
+
+    private String buildJson(StatePath start) {
         _top = start;
 
         _string = new StringWriter();
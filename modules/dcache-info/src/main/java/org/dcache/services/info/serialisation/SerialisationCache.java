@@ -0,0 +1,74 @@
+package org.dcache.services.info.serialisation;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.dcache.services.info.base.StateExhibitor;
+import org.dcache.services.info.base.StatePath;
+
+/**
+ * A SerialisationCache remembers the most recent serialisation of a number of subtrees of dCache
+ * state.  A serialisation is reused for as long as the StateExhibitor reports the same version of
+ * the subtree it was built from, so a change within one subtree does not invalidate the
+ * serialisation of any other subtree.
+ * <p>
+ * Versions are held weakly, so a cached serialisation does not prevent an obsolete copy of the
+ * state from being garbage collected.
+ */
+class SerialisationCache {
+
+    /**
+     * The maximum number of subtrees for which a serialisation is cached.
+     */
+    private static final int MAXIMUM_SIZE = 32;
+
+    private static class Serialisation {
+
+        final WeakReference<Object> version;
+        final String data;
+
+        Serialisation(Object version, String data) {
+            this.version = new WeakReference<>(version);
+            this.data = data;
+        }
+    }
+
+    private final Map<StatePath, Serialisation> _serialisations =
+          new LinkedHashMap<>(MAXIMUM_SIZE, 0.75f, true) {
+              @Override
+              protected boolean removeEldestEntry(Map.Entry<StatePath, Serialisation> eldest) {
+                  return size() > MAXIMUM_SIZE;
+              }
+          };
+
+    /**
+     * Return the serialisation of the subtree at start.  The serialiser is called only if the
+     * subtree has changed since it was last serialised.
+     *
+     * @param exhibitor  the source of the state that is serialised.
+     * @param start      the root of the subtree, or null for the complete state.
+     * @param serialiser builds the serialisation of the subtree.
+     * @return the serialised subtree.
+     */
+    synchronized String get(StateExhibitor exhibitor, StatePath start,
+          Supplier<String> serialiser) {
+        Object version = exhibitor.getSubtreeVersion(start);
+
+        if (version == null) {
+            return serialiser.get();
+        }
+
+        Serialisation cached = _serialisations.get(start);
+        if (cached != null && cached.version.get() == version) {
+            return cached.data;
+        }
+
+        /* The state may change while it is serialised.  The result is then recorded with a
+         * version that is already out of date and is not reused.
+         */
+        String data = serialiser.get();
+        _serialisations.put(start, new Serialisation(version, data));
+        return data;
+    }
+}
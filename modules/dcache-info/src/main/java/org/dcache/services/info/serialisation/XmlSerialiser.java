@@ -46,6 +46,8 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
 
     private StateExhibitor _exhibitor;
 
+    private final SerialisationCache _cache = new SerialisationCache();
+
     @Required
     public void setStateExhibitor(StateExhibitor exhibitor) {
         _exhibitor = exhibitor;
@@ -80,6 +82,10 @@ public class XmlSerialiser extends SubtreeVisitor implements StateSerialiser {
      */
     @Override
     public String serialise(StatePath start) {
+        return _cache.get(_exhibitor, start, () -> buildXml(start));
+    }
+
+    private String buildXml(StatePath start) {
         _out = new StringBuilder();
         _isTopBranch = true;
         _haveLastBranch = false;
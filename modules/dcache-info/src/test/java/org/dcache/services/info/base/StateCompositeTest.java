@@ -436,6 +436,51 @@ public class StateCompositeTest extends InfoBaseTestHelper {
     }
 
 
+    @Test
+    public void testApplyTransitionToFrozenComposite() throws MetricStatePathException {
+        StatePath metricPath = BRANCH_MORTAL_PATH.newChild("metric");
+        StateValue metricValue = new StringStateValue("some dummy data");
+        _rootComposite.freeze();
+
+        StateTransition transition = new StateTransition();
+        _rootComposite.buildTransition(null, metricPath, metricValue, transition);
+        StateComposite updatedComposite = _rootComposite.applyTransition(null, transition);
+
+        assertNotSame("frozen composite was updated in place", _rootComposite, updatedComposite);
+        newDefaultVisitor().assertSatisfied("frozen composite changed", _rootComposite);
+
+        VerifyingVisitor visitor = newDefaultVisitor();
+        visitor.addExpectedMetric(metricPath, metricValue);
+        visitor.assertSatisfied("updated composite lacks new metric", updatedComposite);
+
+        assertNotSame("updated branch not copied", _mortalComposite,
+              updatedComposite.getComponentOrAncestor(BRANCH_MORTAL_PATH));
+        assertSame("unaffected branch not shared", _immortalComposite,
+              updatedComposite.getComponentOrAncestor(BRANCH_IMMORTAL_PATH));
+        assertSame("unaffected branch not shared", _ephemeralComposite,
+              updatedComposite.getComponentOrAncestor(BRANCH_EPHEMERAL_PATH));
+    }
+
+    @Test
+    public void testApplyTransitionToUnfrozenComposite() throws MetricStatePathException {
+        StateTransition transition = new StateTransition();
+        _rootComposite.buildTransition(null, BRANCH_MORTAL_PATH.newChild("metric"),
+              new StringStateValue("some dummy data"), transition);
+
+        assertSame("unfrozen composite was copied", _rootComposite,
+              _rootComposite.applyTransition(null, transition));
+    }
+
+    @Test
+    public void testGetComponentOrAncestor() {
+        assertSame(_rootComposite, _rootComposite.getComponentOrAncestor(null));
+        assertSame(_mortalComposite, _rootComposite.getComponentOrAncestor(BRANCH_MORTAL_PATH));
+        assertSame(_mortalComposite,
+              _rootComposite.getComponentOrAncestor(BRANCH_MORTAL_PATH.newChild("missing")));
+        assertSame(_rootComposite,
+              _rootComposite.getComponentOrAncestor(StatePath.parsePath("missing.branch")));
+    }
+
     @Test
     public void testApplyTransitionRemovingMetrics() throws MetricStatePathException {
 
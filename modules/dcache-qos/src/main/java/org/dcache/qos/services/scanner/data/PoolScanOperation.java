@@ -227,6 +227,9 @@ public final class PoolScanOperation extends ScanOperation<PoolScanTask> {
                 ++this.failed;
             }
             lastUpdate = System.currentTimeMillis();
+            if (task != null) {
+                task.childTerminated();
+            }
         }
         LOGGER.trace("leaving incrementCompleted, state {}, failed {}, "
                     + "children {}, completed = {}.",
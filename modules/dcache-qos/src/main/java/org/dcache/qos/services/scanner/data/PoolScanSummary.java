@@ -73,6 +73,8 @@ public final class PoolScanSummary extends ScanSummary {
     private final String storageUnit;
     private final boolean forced;
 
+    private long lastIndex;
+
     public PoolScanSummary(String pool,
           QoSMessageType type,
           String group,
@@ -89,6 +91,14 @@ public final class PoolScanSummary extends ScanSummary {
         return group;
     }
 
+    public synchronized long getLastIndex() {
+        return lastIndex;
+    }
+
+    public synchronized void setLastIndex(long lastIndex) {
+        this.lastIndex = lastIndex;
+    }
+
     public String getStorageUnit() {
         return storageUnit;
     }
@@ -60,6 +60,7 @@ documents or software obtained from this server.
 package org.dcache.qos.services.scanner.data;
 
 import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
 
 abstract class ScanSummary implements Serializable {
 
@@ -67,6 +68,7 @@ abstract class ScanSummary implements Serializable {
 
     private final String id;
     private long count;
+    private long completed;
     private boolean canceled;
 
     protected ScanSummary(String id) {
@@ -87,12 +89,53 @@ abstract class ScanSummary implements Serializable {
         this.count += count;
     }
 
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Called when the verifier reports that one of the files dispatched by this scan has been
+     * handled.
+     */
+    public synchronized void incrementCompleted() {
+        ++completed;
+        notifyAll();
+    }
+
     public synchronized boolean isCancelled() {
         return canceled;
     }
 
     public synchronized void setCancelled(boolean canceled) {
         this.canceled = canceled;
+        notifyAll();
+    }
+
+    /**
+     * Waits until fewer than <code>limit</code> dispatched files are still awaiting verification
+     * or the scan is cancelled.  Since the verifier may have lost requests (e.g., because it was
+     * restarted), the wait is abandoned when no completion has been reported for the given
+     * period.
+     *
+     * @return false if the wait was abandoned because no progress was made.
+     */
+    public synchronized boolean awaitInFlightBelow(long limit, long timeout, TimeUnit unit)
+          throws InterruptedException {
+        long period = unit.toMillis(timeout);
+        long deadline = System.currentTimeMillis() + period;
+        long lastCompleted = completed;
+        while (!canceled && count - completed >= limit) {
+            if (completed != lastCompleted) {
+                lastCompleted = completed;
+                deadline = System.currentTimeMillis() + period;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
     }
 
     public String getId() {
@@ -71,6 +71,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.dcache.chimera.BackEndErrorChimeraFsException;
@@ -80,6 +81,7 @@ import org.dcache.qos.data.QoSMessageType;
 import org.dcache.qos.listeners.QoSVerificationListener;
 import org.dcache.qos.services.scanner.data.PoolScanSummary;
 import org.dcache.qos.services.scanner.data.SystemScanSummary;
+import org.dcache.qos.services.scanner.util.QoSScannerCounters;
 import org.dcache.qos.util.CacheExceptionUtils;
 import org.dcache.qos.vehicles.QoSScannerVerificationRequest;
 import org.slf4j.Logger;
@@ -121,13 +123,20 @@ public class LocalNamespaceAccess implements NamespaceAccess {
     /**
      * Pool status or config changes should be concerned only with the disk status of the file, so
      * we check only ONLINE files again.  Files for which a QoS policy is defined are included.
+     * <p/>
+     * The pool is walked in chunks ordered by inumber, each chunk starting after the last inumber
+     * of the previous one, so that no transaction or cursor is held open for the duration of the
+     * whole scan.
      */
     static final String SQL_GET_ONLINE_FOR_LOCATION
-          = "SELECT n.ipnfsid FROM t_locationinfo l, t_inodes n"
+          = "SELECT n.inumber, n.ipnfsid FROM t_locationinfo l, t_inodes n"
           + " WHERE l.inumber = n.inumber"
           + " AND l.itype = 1"
           + " AND n.iaccess_latency = 1"
-          + " AND l.ilocation = ?";
+          + " AND l.ilocation = ?"
+          + " AND l.inumber > ?"
+          + " ORDER BY l.inumber ASC"
+          + " LIMIT ?";
 
     /**
      * Get the current range of the entire scan.
@@ -144,6 +153,17 @@ public class LocalNamespaceAccess implements NamespaceAccess {
           + " AND n.inumber = n1.inumber"
           + " AND l1.ilocation NOT IN (%s))";
 
+    /**
+     * How long a pool scan waits for the verifier to report progress before it stops honouring
+     * the in-flight limit.
+     */
+    static final long NO_PROGRESS_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Chunk size used when no fetch size is configured.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(LocalNamespaceAccess.class);
 
     interface QueryHandler<S> {
@@ -162,10 +182,27 @@ public class LocalNamespaceAccess implements NamespaceAccess {
     private DataSource connectionPool;
 
     /**
-     * Round-trip buffer used when running pool-based queries.
+     * Round-trip buffer used when running pool-based queries; also the size of each chunk of a
+     * pool scan.
      */
     private int fetchSize;
 
+    /**
+     * Maximum number of files dispatched by a pool scan which may be awaiting verification
+     * before the next chunk is read; 0 means no limit.
+     */
+    private long maxInFlight;
+
+    /**
+     * Where pool scans record their progress; may be null.
+     */
+    private PoolScanCheckpoints checkpoints;
+
+    /**
+     * For recording chunk latency.
+     */
+    private QoSScannerCounters counters;
+
     public long[] getMinMaxInumbers() throws CacheException {
         try {
             Connection connection = getConnection();
@@ -187,9 +224,75 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         }
     }
 
+    /**
+     * Walks the pool chunk by chunk.  A new connection is used for each chunk, and before each
+     * chunk is read, the scan waits until the verifier has caught up with the files already
+     * dispatched.  When a scan of the same type was interrupted by the last restart of the
+     * service, the first scan of the pool after the restart resumes after its checkpoint.
+     * A scan which fails drops its checkpoint.
+     */
     @Override
     public void handlePoolScan(PoolScanSummary poolScan) throws CacheException {
-        handleQuery((connection, scan) -> handleQuery(connection, scan), poolScan);
+        String pool = poolScan.getId();
+        QoSMessageType type = poolScan.getType();
+
+        if (checkpoints != null) {
+            long resumeAfter = checkpoints.resume(pool, type);
+            if (resumeAfter > 0) {
+                LOGGER.info("Resuming {} scan of {} after inumber {}.", type, pool, resumeAfter);
+            }
+            poolScan.setLastIndex(resumeAfter);
+        }
+
+        try {
+            while (!poolScan.isCancelled()) {
+                if (maxInFlight > 0 && !poolScan.awaitInFlightBelow(maxInFlight,
+                      NO_PROGRESS_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("{}: no verification progress reported for {} ms; "
+                          + "continuing scan.", pool, NO_PROGRESS_TIMEOUT);
+                }
+
+                if (poolScan.isCancelled()) {
+                    break;
+                }
+
+                long start = System.currentTimeMillis();
+                long before = poolScan.getCount();
+                handleQuery((connection, scan) -> handleQuery(connection, scan), poolScan);
+                long dispatched = poolScan.getCount() - before;
+
+                if (counters != null) {
+                    counters.recordChunk(pool, System.currentTimeMillis() - start);
+                }
+
+                if (dispatched < getChunkSize()) {
+                    break;
+                }
+
+                if (checkpoints != null) {
+                    checkpoints.update(pool, type, poolScan.getLastIndex());
+                }
+            }
+        } catch (InterruptedException e) {
+            /*
+             *  The service is shutting down; cancellation also sets the flag
+             *  on the scan.  Keep the checkpoint for the restart.
+             */
+            LOGGER.debug("{}: pool scan interrupted.", pool);
+            Thread.currentThread().interrupt();
+            if (!poolScan.isCancelled()) {
+                return;
+            }
+        } catch (CacheException | RuntimeException e) {
+            if (checkpoints != null) {
+                checkpoints.remove(pool);
+            }
+            throw e;
+        }
+
+        if (checkpoints != null) {
+            checkpoints.remove(pool);
+        }
     }
 
     @Override
@@ -234,6 +337,22 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         this.verificationListener = verificationListener;
     }
 
+    public void setMaxInFlight(long maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void setCheckpoints(PoolScanCheckpoints checkpoints) {
+        this.checkpoints = checkpoints;
+    }
+
+    public void setCounters(QoSScannerCounters counters) {
+        this.counters = counters;
+    }
+
+    private int getChunkSize() {
+        return fetchSize > 0 ? fetchSize : DEFAULT_CHUNK_SIZE;
+    }
+
     private Connection getConnection() throws ChimeraFsException {
         try {
             return connectionPool.getConnection();
@@ -261,8 +380,8 @@ public class LocalNamespaceAccess implements NamespaceAccess {
     }
 
     /**
-     * The query processes all online replicas for the location by batching the returned pnfsids
-     * into lists to be dispatched to the verification service.
+     * The query processes the next chunk of online replicas for the location, dispatching the
+     * returned pnfsids to the verification service as a single request.
      */
     private void handleQuery(Connection connection, PoolScanSummary scan)
           throws SQLException, QoSException {
@@ -273,15 +392,17 @@ public class LocalNamespaceAccess implements NamespaceAccess {
         String storageUnit = scan.getStorageUnit();
         QoSMessageType type = scan.getType();
         boolean forced = scan.isForced();
+        long index = scan.getLastIndex();
         List<PnfsId> replicas = new ArrayList<>();
-        QoSScannerVerificationRequest request;
 
-        LOGGER.debug("handleQuery: (pool {})(group {})(storageUnit {})(type {})(forced {})",
-              pool, group, storageUnit, type, forced);
+        LOGGER.debug("handleQuery: (pool {})(group {})(storageUnit {})(type {})(forced {})"
+              + "(after {})", pool, group, storageUnit, type, forced, index);
 
         try {
             statement = connection.prepareStatement(SQL_GET_ONLINE_FOR_LOCATION);
             statement.setString(1, pool);
+            statement.setLong(2, index);
+            statement.setInt(3, getChunkSize());
             statement.setFetchSize(fetchSize);
             if (scan.isCancelled()) {
                 return;
@@ -290,25 +411,25 @@ public class LocalNamespaceAccess implements NamespaceAccess {
             resultSet = statement.executeQuery();
 
             while (resultSet.next() && !scan.isCancelled()) {
-                replicas.add(new PnfsId(resultSet.getString(1)));
-                scan.incrementCount();
-                if (replicas.size() >= fetchSize) {
-                    request = new QoSScannerVerificationRequest(pool, replicas, type, group,
-                          storageUnit, forced);
-                    verificationListener.fileQoSVerificationRequested(request);
-                    replicas = new ArrayList<>();
-                }
-            }
-
-            if (!replicas.isEmpty() && !scan.isCancelled()) {
-                request = new QoSScannerVerificationRequest(pool, replicas, type, group,
-                      storageUnit, forced);
-                verificationListener.fileQoSVerificationRequested(request);
+                index = resultSet.getLong(1);
+                replicas.add(new PnfsId(resultSet.getString(2)));
             }
         } finally {
             tryToClose(resultSet);
             tryToClose(statement);
         }
+
+        if (!replicas.isEmpty() && !scan.isCancelled()) {
+            /*
+             *  Count before sending so that completions reported by the verifier
+             *  are never ahead of the count.
+             */
+            scan.setLastIndex(index);
+            scan.incrementCount(replicas.size());
+            verificationListener.fileQoSVerificationRequested(
+                  new QoSScannerVerificationRequest(pool, replicas, type, group, storageUnit,
+                        forced));
+        }
     }
 
     /**
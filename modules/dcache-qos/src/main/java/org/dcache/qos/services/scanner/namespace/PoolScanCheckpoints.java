@@ -0,0 +1,230 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.qos.services.scanner.namespace;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.qos.data.QoSMessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how far each running pool scan has progressed, so that a scan interrupted by a
+ * restart of the service resumes from where it left off rather than starting over.
+ * <p/>
+ * A checkpoint is the last inumber dispatched for verification by a pool scan of a given type.
+ * The checkpoints are written to a file, at most once per save interval per pool.  The file is
+ * read back in once, when the first scan after a restart is started.  Each checkpoint read from
+ * the file is used by at most one scan; checkpoints recorded by scans of the running service are
+ * never resumed by it, as a later scan of a pool has to cover the whole pool.  Since rescanning
+ * a file is harmless, losing the most recent updates on a crash only means that part of the pool
+ * is scanned twice.
+ */
+public final class PoolScanCheckpoints {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolScanCheckpoints.class);
+
+    private static final long SAVE_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private static class Checkpoint {
+
+        final QoSMessageType type;
+        final long inumber;
+
+        Checkpoint(QoSMessageType type, long inumber) {
+            this.type = type;
+            this.inumber = inumber;
+        }
+    }
+
+    /**
+     * Checkpoints left by the previous run of the service and not yet resumed.
+     */
+    @GuardedBy("this")
+    private Map<String, Checkpoint> resumable;
+
+    /**
+     * Checkpoints of scans of this run of the service.
+     */
+    @GuardedBy("this")
+    private final Map<String, Checkpoint> running = new HashMap<>();
+
+    @GuardedBy("this")
+    private long lastSave;
+
+    private Path checkpointFile;
+
+    /**
+     * Called when a scan is started.  The checkpoint left for the pool by a scan of the same
+     * type interrupted by the last restart is consumed, so that only the first scan of the pool
+     * after the restart resumes from it.
+     *
+     * @return the inumber after which to resume a scan of the pool, or zero if the scan should
+     * start from the beginning.
+     */
+    public synchronized long resume(String pool, QoSMessageType type) {
+        Checkpoint checkpoint = resumable().get(pool);
+        if (checkpoint == null || checkpoint.type != type) {
+            return 0L;
+        }
+        resumable.remove(pool);
+        return checkpoint.inumber;
+    }
+
+    /**
+     * Called when the scan has finished, has been cancelled or has failed.
+     */
+    public synchronized void remove(String pool) {
+        boolean removed = running.remove(pool) != null;
+        removed |= resumable().remove(pool) != null;
+        if (removed) {
+            save();
+        }
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = Paths.get(checkpointFile);
+    }
+
+    /**
+     * Called each time a chunk of the pool has been dispatched.
+     */
+    public synchronized void update(String pool, QoSMessageType type, long inumber) {
+        running.put(pool, new Checkpoint(type, inumber));
+        long now = System.currentTimeMillis();
+        if (now - lastSave >= SAVE_INTERVAL) {
+            save();
+            lastSave = now;
+        }
+    }
+
+    @GuardedBy("this")
+    private Map<String, Checkpoint> resumable() {
+        if (resumable == null) {
+            resumable = load();
+        }
+        return resumable;
+    }
+
+    private Map<String, Checkpoint> load() {
+        Map<String, Checkpoint> loaded = new HashMap<>();
+        if (checkpointFile == null || !Files.exists(checkpointFile)) {
+            return loaded;
+        }
+
+        try {
+            List<String> lines = Files.readAllLines(checkpointFile, StandardCharsets.US_ASCII);
+            for (String line : lines) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length != 3) {
+                    continue;
+                }
+                try {
+                    loaded.put(parts[0], new Checkpoint(QoSMessageType.valueOf(parts[1]),
+                          Long.parseLong(parts[2])));
+                } catch (IllegalArgumentException e) {
+                    LOGGER.warn("Ignoring malformed pool scan checkpoint '{}'.", line);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to read pool scan checkpoints from {}: {}", checkpointFile,
+                  e.getMessage());
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Saves the checkpoints of running scans, along with those of the last run which have not
+     * been resumed yet so that they survive another restart.
+     */
+    @GuardedBy("this")
+    private void save() {
+        if (checkpointFile == null) {
+            return;
+        }
+
+        Map<String, Checkpoint> all = new HashMap<>(resumable());
+        all.putAll(running);
+
+        Path tmp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try {
+            try (PrintWriter pw = new PrintWriter(
+                  Files.newBufferedWriter(tmp, StandardCharsets.US_ASCII))) {
+                all.forEach((pool, c) -> pw.println(pool + " " + c.type + " " + c.inumber));
+            }
+            Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error("Unable to save pool scan checkpoints to {}: {}", checkpointFile,
+                  e.getMessage());
+        }
+    }
+}
@@ -82,6 +82,14 @@ public final class PoolScanTask extends ScanTask {
         scan = new PoolScanSummary(pool, type, group, storageUnit, forced);
     }
 
+    /**
+     * Called when the verifier reports that one of the files dispatched by the scan has been
+     * handled, so that the scan may dispatch more.
+     */
+    public void childTerminated() {
+        scan.incrementCompleted();
+    }
+
     @Override
     public void run() {
         if (!scan.isCancelled()) {
@@ -76,11 +76,12 @@ public final class QoSScannerCounters extends QoSCounters {
     private static final String SCANS = "SCANS";
     private static final String POOLS = "POOLS";
     private static final String FORMAT_SCANS = "%-25s %12s %12s\n";
-    private static final String FORMAT_DETAILS = "%-25s | %12s %12s | %12s %12s %12s | %12s %20s\n";
+    private static final String FORMAT_DETAILS
+          = "%-25s | %12s %12s | %12s %12s %12s | %12s %20s | %12s %12s %12s\n";
     private static final String[] SCANS_HEADER = {"ACTION", "COMPLETED", "FAILED"};
     private static final String[] DETAILS_HEADER = {"NAME", "TOTAL", "FAILED", "UP", "DOWN",
           "FORCED",
-          "FILES", "AVGPRD (ms)"};
+          "FILES", "AVGPRD (ms)", "CHUNKS", "AVGCHK (ms)", "MAXCHK (ms)"};
     private static final String FORMAT_STATS = "%-15s  | %20s | %25s %8s %5s %12s %5s\n";
     private static final String[] STATS_HEADER = {"EPOCH", "DATETIME", "POOL", "STATUS", "FORCED",
           "FILES", "FAILED"};
@@ -118,9 +119,12 @@ public final class QoSScannerCounters extends QoSCounters {
                   .forEach(k -> {
                       QoSPoolCounter c = getCounter(k);
                       long total = c.getTotal();
+                      long chunks = c.chunks.get();
                       builder.append(String.format(FORMAT_DETAILS, k, c.getTotal(), c.getFailed(),
                             c.up.get(), c.down.get(), c.forced.get(), c.files.get(),
-                            total == 0L ? 0L : c.interval.get() / total));
+                            total == 0L ? 0L : c.interval.get() / total,
+                            chunks, chunks == 0L ? 0L : c.chunkTime.get() / chunks,
+                            c.maxChunkTime.get()));
                   });
         }
 
@@ -138,6 +142,9 @@ public final class QoSScannerCounters extends QoSCounters {
         final AtomicLong down = new AtomicLong(0L);
         final AtomicLong up = new AtomicLong(0L);
         final AtomicLong interval = new AtomicLong(0L);
+        final AtomicLong chunks = new AtomicLong(0L);
+        final AtomicLong chunkTime = new AtomicLong(0L);
+        final AtomicLong maxChunkTime = new AtomicLong(0L);
 
         protected QoSPoolCounter(String name) {
             super(name);
@@ -179,6 +186,19 @@ public final class QoSScannerCounters extends QoSCounters {
         counter.canceled.incrementAndGet();
     }
 
+    /**
+     * Records the time taken to read one chunk of a pool scan from the namespace and to dispatch
+     * it to the verifier.
+     */
+    public void recordChunk(String pool, long elapsed) {
+        checkPoolCounters(pool);
+        QoSPoolCounterGroup poolCounterGroup = (QoSPoolCounterGroup) groupMap.get(POOLS);
+        QoSPoolCounter counter = poolCounterGroup.getCounter(pool);
+        counter.chunks.incrementAndGet();
+        counter.chunkTime.addAndGet(elapsed);
+        counter.maxChunkTime.accumulateAndGet(elapsed, Math::max);
+    }
+
     public void appendSweep(StringBuilder builder) {
         builder.append(String.format(LASTSWP, new Date(lastSweep)));
     }
@@ -79,8 +79,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -134,6 +136,11 @@ import org.springframework.beans.factory.annotation.Required;
  *  these tasks are placed in the WAITING state once the adjustment request has been sent, thus
  *  implicitly decreasing the number of operations in the RUNNING state and allowing for other READY
  *  operations to be submitted.  The queues have separated lists for these three states.
+ *  <p/>
+ *  The queue of each message type is sharded by pnfsid (see {@link VerifyOperationQueueIndex}),
+ *  and the operation map is concurrent, so that neither the enqueuing of new operations nor
+ *  their state transitions serialize on a single monitor.  Signals only wake up a consumer
+ *  if it has not already been signalled since it last started processing.
  */
 public class VerifyOperationManager extends RunnableModule implements CellInfoProvider,
       SignalAware {
@@ -168,12 +175,22 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
     }
 
     abstract class OperationProcessor {
-        final List<PnfsId> queue = new ArrayList<>();
+        final Queue<PnfsId> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
 
         void add(PnfsId pnfsId) {
-            synchronized (queue) {
-                queue.add(pnfsId);
+            queue.add(pnfsId);
+            size.incrementAndGet();
+        }
+
+        List<PnfsId> drain() {
+            List<PnfsId> drained = new ArrayList<>();
+            PnfsId pnfsId;
+            while ((pnfsId = queue.poll()) != null) {
+                drained.add(pnfsId);
+                size.decrementAndGet();
             }
+            return drained;
         }
 
         abstract void process();
@@ -188,17 +205,14 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
 
         void process() {
             LOGGER.trace("Running reaper.");
-            List<PnfsId> tmp;
 
-            synchronized (queue) {
-                if (queue.size() < maxRunning) {
-                    return;
-                }
-                LOGGER.trace("Reaper deleting {} operations.", queue.size());
-                tmp = queue.stream().collect(Collectors.toList());
-                queue.clear();
+            if (size.get() < maxRunning) {
+                return;
             }
 
+            List<PnfsId> tmp = drain();
+            LOGGER.trace("Reaper deleting {} operations.", tmp.size());
+
             removalExecutor.submit(()->operationDao.deleteBatch(tmp, maxRunning));
         }
     }
@@ -208,23 +222,11 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
      *  verification or VOIDs and removes the operation.
      */
     class OperationPostProcessor  extends OperationProcessor {
-        final List<PnfsId> queue = new ArrayList<>();
-
-        void add(PnfsId pnfsId) {
-            synchronized (queue) {
-                queue.add(pnfsId);
-            }
-        }
 
         void process() {
             LOGGER.trace("Running postprocessor.");
 
-            List<PnfsId> tmp;
-
-            synchronized (queue) {
-                tmp = queue.stream().collect(Collectors.toList());
-                queue.clear();
-            }
+            List<PnfsId> tmp = drain();
 
             tmp.forEach(pnfsId->postProcessExecutor.submit(()->postProcess(pnfsId)));
         }
@@ -649,7 +651,7 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
         if (op == null) {
             return null;
         }
-        return queueIndex.getQueue(op.getMessageType()).isRunning(pnfsId) ? op : null;
+        return queueIndex.getQueue(op.getMessageType(), pnfsId).isRunning(pnfsId) ? op : null;
     }
 
     public String list(VerifyOperationFilter filter, int limit) {
@@ -676,7 +678,7 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
             for (VerifyOperation op : fromStore) {
                     PnfsId pnfsId = op.getPnfsId();
                     operationMap.put(pnfsId, op);
-                    queueIndex.getQueue(op.getMessageType()).addLast(pnfsId);
+                    queueIndex.getQueue(op.getMessageType(), pnfsId).addLast(pnfsId);
             }
         } catch (QoSException e) {
             LOGGER.error("problem reloading operations from datastore: {}, {}.",
@@ -790,14 +792,21 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
     public void shutdown() {
         queueIndex.stopQueues();
         stopStatisticsCollector();
-        operationDao.deleteBatch(reaper.queue, maxRunning);
+        operationDao.deleteBatch(reaper.drain(), maxRunning);
         super.shutdown();
     }
 
+    /*
+     *  Only the first signal after the consumer has reset the count needs to wake it up;
+     *  await() does not wait while there are pending signals.
+     */
     @Override
-    public synchronized void signal() {
-        signalled.incrementAndGet();
-        notifyAll();
+    public void signal() {
+        if (signalled.getAndIncrement() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
     }
 
     public int size() {
@@ -836,7 +845,7 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
          */
         if (operation.updateOperation(error)) {
             LOGGER.debug("updated operation {}.", operation);
-            queueIndex.getQueue(operation.getMessageType()).signal();
+            queueIndex.getQueue(operation.getMessageType(), pnfsId).signal();
         }
     }
 
@@ -848,25 +857,29 @@ public class VerifyOperationManager extends RunnableModule implements CellInfoPr
         if (request.getAction() == WAIT_FOR_STAGE) {
             PnfsId pnfsId = request.getPnfsId();
             VerifyOperation op = get(pnfsId);
-            queueIndex.getQueue(op.getMessageType()).updateToWaiting(pnfsId);
+            queueIndex.getQueue(op.getMessageType(), pnfsId).updateToWaiting(pnfsId);
         }
     }
 
     public void updateVoided(VerifyOperation operation) {
         operation.voidOperation();
-        queueIndex.getQueue(operation.getMessageType()).signal();
+        queueIndex.getQueue(operation.getMessageType(), operation.getPnfsId()).signal();
     }
 
     private synchronized void await() throws InterruptedException {
-        wait(timeoutUnit.toMillis(timeout));
+        if (signalled.get() == 0) {
+            wait(timeoutUnit.toMillis(timeout));
+        }
     }
 
     private void addFirst(VerifyOperation operation) {
-        queueIndex.getQueue(operation.getMessageType()).addFirst(operation.getPnfsId());
+        queueIndex.getQueue(operation.getMessageType(), operation.getPnfsId())
+              .addFirst(operation.getPnfsId());
     }
 
     private void addLast(VerifyOperation operation) {
-        queueIndex.getQueue(operation.getMessageType()).addLast(operation.getPnfsId());
+        queueIndex.getQueue(operation.getMessageType(), operation.getPnfsId())
+              .addLast(operation.getPnfsId());
     }
 
     private Map<String, Long> getCountsByState() {
@@ -61,16 +61,18 @@ package org.dcache.qos.services.verifier.data;
 
 import com.google.common.annotations.VisibleForTesting;
 import diskCacheV111.util.PnfsId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.qos.services.verifier.data.VerifyOperationQueueIndex.QueueType;
 import org.dcache.util.SignalAware;
@@ -81,14 +83,20 @@ import org.slf4j.LoggerFactory;
  *  Responsible for the management of a verify operation of a given message type.
  *  Uses three internal queues to track the state of the operation (running, ready, waiting).
  *  Calls back the manager when an operation is ready for post-processing.
+ *  <p/>
+ *  The operations of a message type may be spread over several shards, each of which is
+ *  an instance of this class with its own lock and consumer thread.  The shards of a type
+ *  share the count of running operations, so that the maximum applies to the type as a whole;
+ *  a shard freeing slots therefore signals the other shards of its type which have ready
+ *  operations.
  */
 public class VerifyOperationQueue implements SignalAware, Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(VerifyOperationQueue.class);
 
-    private final Deque<PnfsId> running = new LinkedList<PnfsId>();
-    private final Deque<PnfsId> ready = new LinkedList<PnfsId>();
-    private final Deque<PnfsId> waiting = new LinkedList<PnfsId>();
+    private final Set<PnfsId> running = new LinkedHashSet<>();
+    private final Deque<PnfsId> ready = new ArrayDeque<>();
+    private final Set<PnfsId> waiting = new LinkedHashSet<>();
     private final ReadWriteLock lock = new ReentrantReadWriteLock(true);
     private final Lock write = lock.writeLock();
     private final Lock read = lock.readLock();
@@ -99,6 +107,7 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
      */
     private final AtomicInteger signalled = new AtomicInteger(0);
     private final QueueType queueType;
+    private final int shard;
 
     /**
      *  Callback to the manager is necessary for submission and termination.
@@ -111,7 +120,13 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
     private final Predicate<PnfsId> terminated;
 
     public VerifyOperationQueue(QueueType queueType, VerifyOperationManager operationManager) {
+        this(queueType, 0, operationManager);
+    }
+
+    public VerifyOperationQueue(QueueType queueType, int shard,
+          VerifyOperationManager operationManager) {
         this.queueType = queueType;
+        this.shard = shard;
         this.operationManager = operationManager;
         terminated = id -> {
             VerifyOperation op = this.operationManager.get(id);
@@ -148,6 +163,10 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
         return queueType;
     }
 
+    public int getShard() {
+        return shard;
+    }
+
     public boolean isRunning(PnfsId pnfsId) {
         read.lock();
         try {
@@ -210,20 +229,39 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
         LOGGER.info("Exiting {} queue processing.", queueType);
     }
 
+    /*
+     *  Only the first signal after the consumer has reset the count needs to wake it up;
+     *  await() does not wait while there are pending signals.
+     */
     @Override
-    public synchronized void signal() {
-        signalled.incrementAndGet();
-        notifyAll();
+    public void signal() {
+        if (signalled.getAndIncrement() == 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
     }
 
     public void updateToWaiting(PnfsId pnfsId) {
+        boolean released;
+
         write.lock();
         try {
-            running.remove(pnfsId);
-            waiting.addLast(pnfsId);
+            released = running.remove(pnfsId);
+            if (released) {
+                queueType.running.decrementAndGet();
+            }
+            waiting.add(pnfsId);
         } finally {
             write.unlock();
         }
+
+        if (released) {
+            if (hasReady()) {
+                signal();
+            }
+            signalOtherShards();
+        }
     }
 
     @VisibleForTesting
@@ -232,13 +270,12 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
 
         write.lock();
         try {
-            int available = operationManager.getMaxRunning() - running.size();
-            LOGGER.debug("{} queue, available to run: {}", queueType, available);
-            while (available > 0 && !ready.isEmpty()) {
+            int maxRunning = operationManager.getMaxRunning();
+            LOGGER.debug("{} queue {}, running: {}", queueType, shard, queueType.running.get());
+            while (!ready.isEmpty() && tryAcquireRunning(maxRunning)) {
                 PnfsId pnfsId = ready.removeFirst();
-                running.addLast(pnfsId);
+                running.add(pnfsId);
                 next.add(pnfsId);
-                --available;
             }
         } finally {
             write.unlock();
@@ -262,29 +299,82 @@ public class VerifyOperationQueue implements SignalAware, Runnable {
     }
 
     private synchronized void await() throws InterruptedException {
-        wait(operationManager.getTimeoutUnit().toMillis(operationManager.getTimeout()));
+        if (signalled.get() == 0) {
+            wait(operationManager.getTimeoutUnit().toMillis(operationManager.getTimeout()));
+        }
+    }
+
+    private boolean hasReady() {
+        read.lock();
+        try {
+            return !ready.isEmpty();
+        } finally {
+            read.unlock();
+        }
+    }
+
+    /*
+     *  Called without holding the lock, as the other shards' locks are taken.
+     */
+    private void signalOtherShards() {
+        if (queueType.shards == null) {
+            return;
+        }
+
+        for (VerifyOperationQueue queue : queueType.shards) {
+            if (queue != this && queue.hasReady()) {
+                queue.signal();
+            }
+        }
+    }
+
+    private boolean tryAcquireRunning(int maxRunning) {
+        while (true) {
+            int count = queueType.running.get();
+            if (count >= maxRunning) {
+                return false;
+            }
+            if (queueType.running.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
     }
 
     @GuardedBy("lock")
-    private List<PnfsId> removeFrom(String name, Deque<PnfsId> deque) {
-        LOGGER.debug("{} queue, {} before remove {}.", queueType, name, deque.size());
-        List<PnfsId> from = deque.stream().filter(terminated).collect(Collectors.toList());
-        from.forEach(deque::remove);
-        LOGGER.debug("{} queue, {} after remove {}.", queueType, name, deque.size());
+    private List<PnfsId> removeFrom(String name, Collection<PnfsId> collection) {
+        LOGGER.debug("{} queue {}, {} before remove {}.", queueType, shard, name,
+              collection.size());
+        List<PnfsId> from = new ArrayList<>();
+        collection.removeIf(id -> terminated.test(id) && from.add(id));
+        LOGGER.debug("{} queue {}, {} after remove {}.", queueType, shard, name,
+              collection.size());
         return from;
     }
 
     private List<PnfsId> terminated() {
+        List<PnfsId> terminated = new ArrayList<>();
+        int released;
+
         write.lock();
         try {
-            List<PnfsId> terminated = new ArrayList<>();
             terminated.addAll(removeFrom("running", running));
+            released = terminated.size();
+            queueType.running.addAndGet(-released);
             terminated.addAll(removeFrom("waiting", waiting));
             terminated.addAll(removeFrom("ready", ready));
             LOGGER.debug("{} queue, terminated {}.", queueType, terminated.size());
-            return terminated;
         } finally {
             write.unlock();
         }
+
+        /*
+         *  This shard's own ready operations are handled by the processReady()
+         *  which follows in the same scan.
+         */
+        if (released > 0) {
+            signalOtherShards();
+        }
+
+        return terminated;
     }
 }
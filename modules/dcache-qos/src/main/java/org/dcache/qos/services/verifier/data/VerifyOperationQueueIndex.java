@@ -60,12 +60,14 @@ documents or software obtained from this server.
 package org.dcache.qos.services.verifier.data;
 
 import com.google.common.base.Preconditions;
+import diskCacheV111.util.PnfsId;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.dcache.qos.data.QoSMessageType;
 import org.dcache.util.BoundedCachedExecutor;
 import org.dcache.util.FireAndForgetTask;
@@ -74,6 +76,10 @@ import org.springframework.beans.factory.annotation.Required;
 
 /**
  *  Handles the configuration and lifecycle of the queues.
+ *  <p/>
+ *  Each queue type is split into a configurable number of shards.  Operations are
+ *  assigned to a shard by their pnfsid, so that operations on different files can
+ *  be processed without contending for the same lock.
  */
 public class VerifyOperationQueueIndex {
 
@@ -84,6 +90,17 @@ public class VerifyOperationQueueIndex {
         ExecutorService executorService;
         int index;
 
+        /*
+         *  Running operations over all shards of this type.
+         */
+        final AtomicInteger running = new AtomicInteger();
+
+        /*
+         *  The shards of this type; a slot freed by one of them may be
+         *  the one another is waiting for.
+         */
+        VerifyOperationQueue[] shards;
+
         public int getIndex() {
             return index;
         }
@@ -131,31 +148,44 @@ public class VerifyOperationQueueIndex {
 
     private List<QueueType> queueTypes;
     private Map<QoSMessageType, QueueType> typeMap;
-    private VerifyOperationQueue[] operationQueues;
+    private VerifyOperationQueue[][] operationQueues;
     private ExecutorService queueExecutor;
+    private int shards = 1;
 
     public void configure(VerifyOperationManager manager) {
         Preconditions.checkNotNull("No queue types configured.", queueTypes);
 
         int numberOfQueues = queueTypes.size();
-        operationQueues = new VerifyOperationQueue[queueTypes.size()];
+        operationQueues = new VerifyOperationQueue[queueTypes.size()][shards];
         typeMap = new HashMap<>();
 
         for (int index = 0; index < numberOfQueues; ++index) {
             QueueType type = queueTypes.get(index);
             type.index = index;
             type.messageTypes.forEach(mt -> typeMap.put(mt, type));
-            operationQueues[index] = new VerifyOperationQueue(type, manager);
+            for (int shard = 0; shard < shards; ++shard) {
+                operationQueues[index][shard] = new VerifyOperationQueue(type, shard, manager);
+            }
+            type.shards = operationQueues[index];
         }
 
         /*
          *  Configure the executor with exactly the number of threads per queues.
          */
-        queueExecutor = new BoundedCachedExecutor(numberOfQueues);
+        queueExecutor = new BoundedCachedExecutor(numberOfQueues * shards);
+    }
+
+    public VerifyOperationQueue getQueue(QoSMessageType type, PnfsId pnfsId) {
+        return operationQueues[typeMap.get(type).index][Math.floorMod(pnfsId.hashCode(), shards)];
+    }
+
+    public int getShards() {
+        return shards;
     }
 
-    public VerifyOperationQueue getQueue(QoSMessageType type) {
-        return operationQueues[typeMap.get(type).index];
+    public void setShards(int shards) {
+        Preconditions.checkArgument(shards > 0, "At least one shard is required.");
+        this.shards = shards;
     }
 
     @Required
@@ -164,11 +194,12 @@ public class VerifyOperationQueueIndex {
     }
 
     public void signalAll() {
-        Arrays.stream(operationQueues).forEach(SignalAware::signal);
+        Arrays.stream(operationQueues).flatMap(Arrays::stream).forEach(SignalAware::signal);
     }
 
     public void startQueues() {
-        Arrays.stream(operationQueues).map(FireAndForgetTask::new).forEach(queueExecutor::submit);
+        Arrays.stream(operationQueues).flatMap(Arrays::stream).map(FireAndForgetTask::new)
+              .forEach(queueExecutor::submit);
     }
 
     public void stopQueues() {
@@ -0,0 +1,141 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.qos.services.scanner.namespace;
+
+import static org.dcache.qos.data.QoSMessageType.POOL_STATUS_DOWN;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import diskCacheV111.util.CacheException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import org.dcache.qos.listeners.QoSVerificationListener;
+import org.dcache.qos.services.scanner.data.PoolScanSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class LocalNamespaceAccessTest {
+
+    private PreparedStatement statement;
+    private LocalNamespaceAccess access;
+
+    @Before
+    public void setUp() throws Exception {
+        statement = mock(PreparedStatement.class);
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        access = new LocalNamespaceAccess();
+        access.setConnectionPool(dataSource);
+        access.setFetchSize(2);
+        access.setVerificationListener(mock(QoSVerificationListener.class));
+        access.setCheckpoints(new PoolScanCheckpoints());
+    }
+
+    @Test
+    public void shouldScanWholePoolAfterFailedScan() throws Exception {
+        when(statement.executeQuery())
+              .thenReturn(aResultSetWithInumbers(1L, 2L))
+              .thenThrow(new SQLException("connection lost"))
+              .thenReturn(aResultSetWithInumbers());
+
+        try {
+            access.handlePoolScan(aPoolScan());
+            fail("Scan should have failed");
+        } catch (CacheException expected) {
+        }
+        access.handlePoolScan(aPoolScan());
+
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).setLong(2, 0L);
+        inOrder.verify(statement).setLong(2, 2L);
+        inOrder.verify(statement).setLong(2, 0L);
+    }
+
+    private static PoolScanSummary aPoolScan() {
+        return new PoolScanSummary("pool1", POOL_STATUS_DOWN, null, null, false);
+    }
+
+    private static ResultSet aResultSetWithInumbers(Long... inumbers) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        if (inumbers.length == 0) {
+            when(resultSet.next()).thenReturn(false);
+        } else {
+            Boolean[] more = new Boolean[inumbers.length];
+            Arrays.fill(more, 0, inumbers.length - 1, true);
+            more[inumbers.length - 1] = false;
+            when(resultSet.next()).thenReturn(true, more);
+            when(resultSet.getLong(1)).thenReturn(inumbers[0],
+                  Arrays.copyOfRange(inumbers, 1, inumbers.length));
+            when(resultSet.getString(2)).thenReturn("0000000000000000000000000000000000A1");
+        }
+        return resultSet;
+    }
+}
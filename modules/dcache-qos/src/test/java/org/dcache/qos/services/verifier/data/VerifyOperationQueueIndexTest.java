@@ -0,0 +1,149 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.qos.services.verifier.data;
+
+import static org.dcache.qos.data.QoSMessageType.ADD_CACHE_LOCATION;
+import static org.dcache.qos.data.QoSMessageType.POOL_STATUS_DOWN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import diskCacheV111.util.PnfsId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.dcache.qos.data.QoSMessageType;
+import org.dcache.qos.services.verifier.data.VerifyOperationQueueIndex.QueueType;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VerifyOperationQueueIndexTest {
+
+    VerifyOperationQueueIndex queueIndex;
+
+    @Before
+    public void setup() {
+        queueIndex = new VerifyOperationQueueIndex();
+        queueIndex.setQueueTypes(List.of(queueType("cache", ADD_CACHE_LOCATION),
+              queueType("pool", POOL_STATUS_DOWN)));
+    }
+
+    @Test
+    public void shouldUseOneQueuePerTypeByDefault() {
+        queueIndex.configure(new VerifyOperationManager());
+
+        assertEquals(1, queuesFor(ADD_CACHE_LOCATION, 64).size());
+    }
+
+    @Test
+    public void shouldSpreadFilesOverAllShards() {
+        queueIndex.setShards(4);
+        queueIndex.configure(new VerifyOperationManager());
+
+        assertEquals(4, queuesFor(ADD_CACHE_LOCATION, 64).size());
+    }
+
+    @Test
+    public void shouldAlwaysAssignFileToSameShard() {
+        queueIndex.setShards(4);
+        queueIndex.configure(new VerifyOperationManager());
+
+        for (int i = 0; i < 64; i++) {
+            assertSame(queueIndex.getQueue(ADD_CACHE_LOCATION, pnfsId(i)),
+                  queueIndex.getQueue(ADD_CACHE_LOCATION, pnfsId(i)));
+        }
+    }
+
+    @Test
+    public void shouldNotShareShardsBetweenTypes() {
+        queueIndex.setShards(4);
+        queueIndex.configure(new VerifyOperationManager());
+
+        for (int i = 0; i < 64; i++) {
+            assertNotSame(queueIndex.getQueue(ADD_CACHE_LOCATION, pnfsId(i)),
+                  queueIndex.getQueue(POOL_STATUS_DOWN, pnfsId(i)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectZeroShards() {
+        queueIndex.setShards(0);
+    }
+
+    private Set<VerifyOperationQueue> queuesFor(QoSMessageType type, int files) {
+        Set<VerifyOperationQueue> queues = new HashSet<>();
+        for (int i = 0; i < files; i++) {
+            queues.add(queueIndex.getQueue(type, pnfsId(i)));
+        }
+        return queues;
+    }
+
+    private static PnfsId pnfsId(int i) {
+        return new PnfsId(String.format("%036X", i));
+    }
+
+    private static QueueType queueType(String name, QoSMessageType messageType) {
+        QueueType type = new QueueType();
+        type.setName(name);
+        type.setDescription(name);
+        type.setMessageTypes(List.of(messageType));
+        return type;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.qos.services.verifier.data;
+
+import static org.dcache.qos.data.QoSMessageType.ADD_CACHE_LOCATION;
+import static org.dcache.qos.services.verifier.data.VerifyOperationState.DONE;
+import static org.dcache.qos.services.verifier.data.VerifyOperationState.READY;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import diskCacheV111.util.PnfsId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dcache.qos.services.verifier.data.VerifyOperationQueueIndex.QueueType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VerifyOperationQueueTest {
+
+    VerifyOperationManager manager;
+    VerifyOperationQueueIndex queueIndex;
+    VerifyOperation operationA;
+    VerifyOperation operationB;
+    VerifyOperationQueue shardA;
+    VerifyOperationQueue shardB;
+
+    @Before
+    public void setup() {
+        operationA = operation(0);
+        operationB = operation(1);
+
+        /*
+         *  One running operation for the whole type, and a scan period long
+         *  enough that only a signal can start the next one.
+         */
+        manager = mock(VerifyOperationManager.class);
+        given(manager.getMaxRunning()).willReturn(1);
+        given(manager.getTimeout()).willReturn(1L);
+        given(manager.getTimeoutUnit()).willReturn(TimeUnit.HOURS);
+        given(manager.get(operationA.getPnfsId())).willReturn(operationA);
+        given(manager.get(operationB.getPnfsId())).willReturn(operationB);
+
+        QueueType type = new QueueType();
+        type.setName("cache");
+        type.setDescription("cache");
+        type.setMessageTypes(List.of(ADD_CACHE_LOCATION));
+
+        queueIndex = new VerifyOperationQueueIndex();
+        queueIndex.setQueueTypes(List.of(type));
+        queueIndex.setShards(2);
+        queueIndex.configure(manager);
+
+        shardA = queueIndex.getQueue(ADD_CACHE_LOCATION, operationA.getPnfsId());
+        shardB = queueIndex.getQueue(ADD_CACHE_LOCATION, operationB.getPnfsId());
+        assertNotSame(shardA, shardB);
+
+        queueIndex.startQueues();
+    }
+
+    @After
+    public void tearDown() {
+        queueIndex.stopQueues();
+    }
+
+    @Test
+    public void shouldStartReadyOperationOfOtherShardWhenOperationWaits() {
+        givenShardAIsRunningAndShardBIsReady();
+
+        shardA.updateToWaiting(operationA.getPnfsId());
+
+        verify(manager, timeout(1000)).submitToRun(eq(operationB.getPnfsId()), any());
+    }
+
+    @Test
+    public void shouldStartReadyOperationOfOtherShardWhenOperationTerminates() {
+        givenShardAIsRunningAndShardBIsReady();
+
+        operationA.setState(DONE);
+        shardA.signal();
+
+        verify(manager, timeout(1000)).submitToRun(eq(operationB.getPnfsId()), any());
+    }
+
+    private void givenShardAIsRunningAndShardBIsReady() {
+        shardA.addLast(operationA.getPnfsId());
+        verify(manager, timeout(1000)).submitToRun(eq(operationA.getPnfsId()), any());
+
+        shardB.addLast(operationB.getPnfsId());
+        verify(manager, after(200).never()).submitToRun(eq(operationB.getPnfsId()), any());
+    }
+
+    /*
+     *  Two pnfsids hashing to different shards.
+     */
+    private static VerifyOperation operation(int shard) {
+        for (int i = 0; ; i++) {
+            PnfsId pnfsId = new PnfsId(String.format("%036X", i));
+            if (Math.floorMod(pnfsId.hashCode(), 2) == shard) {
+                VerifyOperation operation = new VerifyOperation(pnfsId);
+                operation.setState(READY);
+                return operation;
+            }
+        }
+    }
+}
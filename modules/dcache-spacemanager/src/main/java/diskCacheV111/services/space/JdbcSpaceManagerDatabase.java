@@ -16,20 +16,33 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Stream;
 import org.dcache.util.SqlGlob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.JdbcUpdateAffectedIncorrectNumberOfRowsException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.support.JdbcDaoSupport;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Repository
 public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceManagerDatabase {
@@ -101,9 +114,104 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
     */
     private static final String SPACEFILE_TABLE = "srmspacefile";
 
+    /*
+                Table "public.srmspacedelta"
+           Column          |  Type  | Modifiers
+    -----------------------+--------+-----------
+     id                    | bigint | not null
+     spacereservationid    | bigint | not null
+     allocatedspaceinbytes | bigint | not null
+     usedspaceinbytes      | bigint | not null
+    */
+    private static final String SPACE_DELTA_TABLE = "srmspacedelta";
+
+    private static final String SPACE_ACCOUNTING_TABLE = "srmspaceaccounting";
+
+    /**
+     * Maximum number of deltas folded in a single transaction.
+     */
+    private static final int FOLD_BATCH_SIZE = 10_000;
+
+    private boolean deltaAccounting;
+
+    private boolean accountingModeChangeAllowed;
+
+    /**
+     * Demarcates the transaction of every fold batch. Folds are called from within this object,
+     * so annotation driven transactions do not apply to them.
+     */
+    private TransactionTemplate foldTransaction;
+
+    /**
+     * Conservative estimates of the free space of reservations, used to admit files without
+     * locking the reservation when delta accounting is enabled.
+     * <p>
+     * The estimates assume that this instance is the only one admitting files. Files admitted
+     * by other instances sharing the database are only accounted for once their deltas are
+     * folded, thus with several instances a space reservation may be overbooked.
+     */
+    private final ConcurrentMap<Long, SpaceEstimate> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Read locked by every transaction that admitted a file until the transaction completes.
+     * Write locked to discard the estimates, so that an estimate is never reloaded while files
+     * admitted against the previous one are still uncommitted.
+     */
+    private final ReadWriteLock estimatesLock = new ReentrantReadWriteLock();
+
+    /**
+     * Whether file reservations update the space reservation directly or only record a delta
+     * that is later folded into the space reservation. Delta accounting avoids serializing all
+     * uploads into a space reservation on its row lock, at the expense of admitting files against
+     * a conservative estimate of the free space and of space reservations lagging behind by up to
+     * a fold period.
+     */
+    public void setDeltaAccounting(boolean deltaAccounting) {
+        this.deltaAccounting = deltaAccounting;
+    }
+
+    /**
+     * Whether this instance may change the accounting mode recorded in the database. The mode is
+     * shared by all instances using the database, as the database triggers record deltas
+     * according to it. Without permission, an instance configured for another mode than the
+     * recorded one refuses to start.
+     */
+    public void setAccountingModeChangeAllowed(boolean accountingModeChangeAllowed) {
+        this.accountingModeChangeAllowed = accountingModeChangeAllowed;
+    }
+
+    @Required
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        foldTransaction = new TransactionTemplate(transactionManager);
+    }
+
     public void init() throws DataAccessException {
         insertRetentionPolicies();
         insertAccessLatencies();
+        checkAccountingMode();
+        foldAll();
+    }
+
+    private void checkAccountingMode() throws DataAccessException {
+        boolean recorded = getJdbcTemplate().queryForObject(
+              "SELECT deltas FROM " + SPACE_ACCOUNTING_TABLE, Integer.class) == 1;
+        if (recorded != deltaAccounting) {
+            if (!accountingModeChangeAllowed) {
+                throw new IllegalStateException("Space accounting mode of the database is "
+                      + accountingMode(recorded) + ", but " + accountingMode(deltaAccounting)
+                      + " is configured. Stop all space manager instances sharing the database"
+                      + " and start one with spacemanager.accounting.allow-mode-change=true to"
+                      + " change the mode.");
+            }
+            getJdbcTemplate().update("UPDATE " + SPACE_ACCOUNTING_TABLE + " SET deltas = ?",
+                  deltaAccounting ? 1 : 0);
+            LOGGER.warn("Changed space accounting mode of the database from {} to {}.",
+                  accountingMode(recorded), accountingMode(deltaAccounting));
+        }
+    }
+
+    private static String accountingMode(boolean deltas) {
+        return deltas ? "deltas" : "direct";
     }
 
     private void insertRetentionPolicies() throws DataAccessException {
@@ -510,6 +618,7 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
     }
 
     @Override
+    @Transactional(propagation = Propagation.MANDATORY)
     public long insertFile(final long reservationId,
           final String voGroup,
           final String voRole,
@@ -519,7 +628,9 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
           throws DataAccessException, SpaceException {
         final long creationTime = System.currentTimeMillis();
 
-        Space space = selectSpaceForUpdate(reservationId);
+        Space space = deltaAccounting
+              ? getSpace(reservationId)
+              : selectSpaceForUpdate(reservationId);
         long currentTime = System.currentTimeMillis();
         if (space.getExpirationTime() != null && space.getExpirationTime() <= currentTime) {
             throw new SpaceExpiredException("space with id=" + reservationId + " has expired");
@@ -530,7 +641,8 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
         if (space.getState() == SpaceState.RELEASED) {
             throw new SpaceReleasedException("space with id=" + reservationId + " was released");
         }
-        if (space.getAvailableSpaceInBytes() < sizeInBytes) {
+        if (deltaAccounting ? !admit(space, sizeInBytes)
+              : space.getAvailableSpaceInBytes() < sizeInBytes) {
             throw new NoFreeSpaceException(
                   "space with id=" + reservationId + " does not have enough space");
         }
@@ -571,6 +683,143 @@ public class JdbcSpaceManagerDatabase extends JdbcDaoSupport implements SpaceMan
                     + " WHERE " + c.getPredicate(), c.getArguments());
     }
 
+    /**
+     * Reserves space for a file against the estimated free space of a space reservation. The
+     * estimate is only ever decreased until the next fold, thus space freed in the meantime
+     * is not available to new files.
+     *
+     * @return true if the file was admitted
+     */
+    private boolean admit(Space space, long sizeInBytes) {
+        estimatesLock.readLock().lock();
+        TransactionSynchronizationManager.registerSynchronization(
+              new TransactionSynchronization() {
+                  @Override
+                  public void afterCompletion(int status) {
+                      estimatesLock.readLock().unlock();
+                  }
+              });
+        SpaceEstimate estimate = estimates.compute(space.getId(),
+              (id, e) -> (e == null || e.size != space.getSizeInBytes()) ? loadEstimate(id) : e);
+        return estimate.tryAdmit(sizeInBytes);
+    }
+
+    private SpaceEstimate loadEstimate(long reservationId) {
+        return getJdbcTemplate().queryForObject(
+              "SELECT s.sizeinbytes, s.sizeinbytes - s.usedspaceinbytes - s.allocatedspaceinbytes"
+                    + " - COALESCE((SELECT SUM(d.allocatedspaceinbytes + d.usedspaceinbytes) FROM "
+                    + SPACE_DELTA_TABLE + " d WHERE d.spacereservationid = s.id"
+                    + " AND d.allocatedspaceinbytes + d.usedspaceinbytes > 0), 0)"
+                    + " FROM " + SPACE_TABLE + " s WHERE s.id = ?",
+              (rs, rowNum) -> new SpaceEstimate(rs.getLong(1), rs.getLong(2)),
+              reservationId);
+    }
+
+    @Override
+    public int foldSpaceDeltas() throws DataAccessException {
+        return deltaAccounting ? foldAll() : 0;
+    }
+
+    private int foldAll() throws DataAccessException {
+        int total = 0;
+        int folded;
+        do {
+            folded = foldTransaction.execute(status -> fold());
+            total += folded;
+        } while (folded == FOLD_BATCH_SIZE);
+
+        estimatesLock.writeLock().lock();
+        try {
+            estimates.clear();
+        } finally {
+            estimatesLock.writeLock().unlock();
+        }
+        return total;
+    }
+
+    /**
+     * Folds a batch of deltas. Must be called within a transaction, as the deltas are deleted
+     * before the space reservations are updated.
+     */
+    private int fold() throws DataAccessException {
+        List<SpaceDelta> deltas = getJdbcTemplate().query(
+              "SELECT id, spacereservationid, allocatedspaceinbytes, usedspaceinbytes FROM "
+                    + SPACE_DELTA_TABLE + " ORDER BY id LIMIT ?",
+              (rs, rowNum) -> new SpaceDelta(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    rs.getLong(4)),
+              FOLD_BATCH_SIZE);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        /* Another instance may be folding the same deltas. Only those deltas we managed to
+         * delete are applied. Drivers that cannot report the number of deleted rows return
+         * SUCCESS_NO_INFO for rows they did delete.
+         */
+        int[] deleted = getJdbcTemplate().batchUpdate(
+              "DELETE FROM " + SPACE_DELTA_TABLE + " WHERE id = ?",
+              new BatchPreparedStatementSetter() {
+                  @Override
+                  public void setValues(PreparedStatement ps, int i) throws SQLException {
+                      ps.setLong(1, deltas.get(i).id());
+                  }
+
+                  @Override
+                  public int getBatchSize() {
+                      return deltas.size();
+                  }
+              });
+
+        /* Sorted to update space reservations in a consistent order. */
+        SortedMap<Long, long[]> sums = new TreeMap<>();
+        int folded = 0;
+        for (int i = 0; i < deltas.size(); i++) {
+            if (deleted[i] > 0 || deleted[i] == Statement.SUCCESS_NO_INFO) {
+                SpaceDelta delta = deltas.get(i);
+                long[] sum = sums.computeIfAbsent(delta.spaceId(), id -> new long[2]);
+                sum[0] += delta.allocated();
+                sum[1] += delta.used();
+                folded++;
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>(sums.size());
+        sums.forEach((id, sum) -> {
+            if (sum[0] != 0 || sum[1] != 0) {
+                updates.add(new Object[]{sum[0], sum[1], id});
+            }
+        });
+        getJdbcTemplate().batchUpdate(
+              "UPDATE " + SPACE_TABLE + " SET allocatedspaceinbytes = allocatedspaceinbytes + ?,"
+                    + " usedspaceinbytes = usedspaceinbytes + ? WHERE id = ?", updates);
+        return folded;
+    }
+
+    private record SpaceDelta(long id, long spaceId, long allocated, long used) {
+    }
+
+    private static class SpaceEstimate {
+
+        private final long size;
+        private final AtomicLong available;
+
+        private SpaceEstimate(long size, long available) {
+            this.size = size;
+            this.available = new AtomicLong(available);
+        }
+
+        private boolean tryAdmit(long bytes) {
+            long current;
+            do {
+                current = available.get();
+                if (current < bytes) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - bytes));
+            return true;
+        }
+    }
+
     private static class JdbcCriterion {
 
         final StringBuilder predicate = new StringBuilder();
@@ -0,0 +1,68 @@
+package diskCacheV111.services.space;
+
+import dmg.cells.nucleus.CellInfoProvider;
+import java.io.PrintWriter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Required;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * Periodically folds space accounting deltas into the space reservations they belong to.
+ *
+ * @see JdbcSpaceManagerDatabase#setDeltaAccounting
+ */
+public class SpaceDeltaFolder implements CellInfoProvider, Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpaceDeltaFolder.class);
+
+    private long foldPeriod;
+
+    private SpaceManagerDatabase db;
+
+    private ScheduledExecutorService executor;
+
+    private volatile long foldedDeltas;
+
+    @Required
+    public void setFoldPeriod(long foldPeriod) {
+        this.foldPeriod = foldPeriod;
+    }
+
+    @Required
+    public void setDatabase(SpaceManagerDatabase db) {
+        this.db = db;
+    }
+
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        executor.scheduleWithFixedDelay(this, foldPeriod, foldPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void getInfo(PrintWriter printWriter) {
+        printWriter.append("foldPeriod = ").println(foldPeriod);
+        printWriter.append("foldedDeltas = ").println(foldedDeltas);
+    }
+
+    @Override
+    public void run() {
+        try {
+            foldedDeltas += db.foldSpaceDeltas();
+        } catch (DataAccessException | TransactionException e) {
+            LOGGER.error("Folding space accounting deltas failed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.error("Folding space accounting deltas failed: " + e.toString(), e);
+        }
+    }
+}
@@ -32,6 +32,14 @@ public interface SpaceManagerDatabase {
 
     void expire(SpaceCriterion criterion);
 
+    /**
+     * Applies pending space accounting deltas to the space reservations they belong to. Does
+     * nothing unless delta based space accounting is enabled.
+     *
+     * @return the number of deltas applied
+     */
+    int foldSpaceDeltas() throws DataAccessException;
+
     Space insertSpace(@Nullable String voGroup,
           @Nullable String voRole,
           RetentionPolicy retentionPolicy,
@@ -0,0 +1,163 @@
+package diskCacheV111.services.space;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.RetentionPolicy;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import liquibase.Liquibase;
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class JdbcSpaceManagerDatabaseTest {
+
+    private static final String FOLD_UPDATE = "UPDATE srmspace SET allocatedspaceinbytes";
+
+    private final AtomicBoolean failFoldUpdate = new AtomicBoolean();
+
+    private HikariDataSource hikari;
+    private JdbcSpaceManagerDatabase db;
+    private TransactionTemplate tx;
+    private long spaceId;
+
+    @Before
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:hsqldb:mem:spacemanager-test;hsqldb.tx=mvcc");
+        config.setUsername("sa");
+        config.setAutoCommit(true);
+        hikari = new HikariDataSource(config);
+
+        try (Connection conn = hikari.getConnection()) {
+            Database database = DatabaseFactory.getInstance()
+                  .findCorrectDatabaseImplementation(new JdbcConnection(conn));
+            new Liquibase("diskCacheV111/services/space/db/spacemanager.changelog-master.xml",
+                  new ClassLoaderResourceAccessor(), database).update("");
+        }
+
+        DataSource dataSource = new FailingDataSource(hikari);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        db = new JdbcSpaceManagerDatabase();
+        db.setDataSource(dataSource);
+        db.setTransactionManager(tx.getTransactionManager());
+        db.setDeltaAccounting(true);
+        db.setAccountingModeChangeAllowed(true);
+        db.init();
+
+        long linkGroupId = db.updateLinkGroup("lg", 1_000_000, System.currentTimeMillis(),
+              true, true, true, true, true, null);
+        spaceId = db.insertSpace(null, null, RetentionPolicy.REPLICA, AccessLatency.ONLINE,
+              linkGroupId, 100_000, -1, "token", SpaceState.RESERVED, 0, 0).getId();
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Connection conn = hikari.getConnection()) {
+            conn.createStatement().execute("SHUTDOWN");
+        }
+        hikari.close();
+    }
+
+    @Test
+    public void shouldFoldDeltasIntoSpaceReservation() {
+        givenFile(100);
+        givenFile(200);
+
+        db.foldSpaceDeltas();
+
+        assertThat(db.getSpace(spaceId).getAllocatedSpaceInBytes(), is(300L));
+    }
+
+    @Test
+    public void shouldNotLoseDeltasWhenFoldFailsAfterDelete() {
+        givenFile(100);
+
+        failFoldUpdate.set(true);
+        try {
+            db.foldSpaceDeltas();
+            fail("Fold should have failed");
+        } catch (DataAccessException expected) {
+        }
+        failFoldUpdate.set(false);
+
+        db.foldSpaceDeltas();
+
+        assertThat(db.getSpace(spaceId).getAllocatedSpaceInBytes(), is(100L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRefuseToStartWithOtherAccountingMode() {
+        JdbcSpaceManagerDatabase other = new JdbcSpaceManagerDatabase();
+        other.setDataSource(hikari);
+        other.setTransactionManager(tx.getTransactionManager());
+        other.setDeltaAccounting(false);
+        other.init();
+    }
+
+    @Test
+    public void shouldStartWithSameAccountingMode() {
+        JdbcSpaceManagerDatabase other = new JdbcSpaceManagerDatabase();
+        other.setDataSource(hikari);
+        other.setTransactionManager(tx.getTransactionManager());
+        other.setDeltaAccounting(true);
+        other.init();
+    }
+
+    private void givenFile(long size) {
+        tx.execute(status -> {
+            try {
+                return db.insertFile(spaceId, null, null, size, null, FileState.TRANSFERRING);
+            } catch (SpaceException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * Fails the statement that applies folded deltas to the space reservations on request.
+     */
+    private class FailingDataSource extends DelegatingDataSource {
+
+        FailingDataSource(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                  new Class<?>[]{Connection.class},
+                  (proxy, method, args) -> {
+                      if (method.getName().equals("prepareStatement")
+                            && ((String) args[0]).startsWith(FOLD_UPDATE)
+                            && failFoldUpdate.get()) {
+                          throw new SQLException("Injected failure");
+                      }
+                      try {
+                          return method.invoke(connection, args);
+                      } catch (InvocationTargetException e) {
+                          throw e.getCause();
+                      }
+                  });
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.dcache.vehicles;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.vehicles.Message;
+import diskCacheV111.vehicles.PnfsMessage;
+import java.util.UUID;
+
+/**
+ * Grants additional credit to a flow controlled directory listing, or cancels it.
+ * <p>
+ * A {@link PnfsListDirectoryMessage} with a window of N allows PnfsManager to have at most N
+ * partial replies in flight. The client sends this notification to the PnfsManager instance that
+ * replied whenever it has consumed replies, allowing the same number of replies to be sent. If the
+ * client stops reading the listing early, it cancels the listing so that PnfsManager stops
+ * listing the directory.
+ */
+public class PnfsListDirectoryCreditMessage extends PnfsMessage {
+
+    private static final long serialVersionUID = 4427316389722105862L;
+
+    private final UUID _uuid;
+    private final int _credits;
+    private final boolean _cancel;
+
+    private PnfsListDirectoryCreditMessage(String path, UUID uuid, int credits, boolean cancel) {
+        setPnfsPath(requireNonNull(path));
+        setReplyRequired(false);
+        _uuid = requireNonNull(uuid);
+        _credits = credits;
+        _cancel = cancel;
+    }
+
+    /**
+     * Returns a message granting credit for the given number of partial replies of the listing
+     * with the given UUID.
+     */
+    public static PnfsListDirectoryCreditMessage credit(String path, UUID uuid, int credits) {
+        return new PnfsListDirectoryCreditMessage(path, uuid, credits, false);
+    }
+
+    /**
+     * Returns a message cancelling the listing with the given UUID.
+     */
+    public static PnfsListDirectoryCreditMessage cancel(String path, UUID uuid) {
+        return new PnfsListDirectoryCreditMessage(path, uuid, 0, true);
+    }
+
+    /**
+     * Returns the UUID of the listing.
+     */
+    public UUID getUUID() {
+        return _uuid;
+    }
+
+    public int getCredits() {
+        return _credits;
+    }
+
+    public boolean isCancel() {
+        return _cancel;
+    }
+
+    @Override
+    public boolean invalidates(Message message) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + ";uuid=" + _uuid
+              + (_cancel ? ";cancel" : ";credits=" + _credits);
+    }
+}
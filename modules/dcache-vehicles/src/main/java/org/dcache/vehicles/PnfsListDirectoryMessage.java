@@ -55,6 +55,12 @@ public class PnfsListDirectoryMessage extends PnfsMessage {
      *  */
     private PathType _pathType = PathType.PATH;
 
+    /**
+     * The maximum number of partial replies that may be in flight, or zero if the listing is not
+     * flow controlled.
+     */
+    private int _window;
+
 
 
     /**
@@ -175,6 +181,22 @@ public class PnfsListDirectoryMessage extends PnfsMessage {
         _messageCount = messageCount;
     }
 
+    /**
+     * Returns the maximum number of partial replies that may be in flight, or zero if the
+     * listing is not flow controlled.
+     */
+    public int getWindow() {
+        return _window;
+    }
+
+    /**
+     * Enables flow control for the listing. PnfsManager sends at most {@code window} partial
+     * replies before waiting for credit granted by {@link PnfsListDirectoryCreditMessage}.
+     */
+    public void setWindow(int window) {
+        _window = window;
+    }
+
     @Override
     public boolean invalidates(Message message) {
         return false;
@@ -182,6 +204,12 @@ public class PnfsListDirectoryMessage extends PnfsMessage {
 
     @Override
     public boolean fold(Message message) {
+        /* Replies to a flow controlled listing must be paced by the credit
+         * of that listing rather than by the listing they are folded into.
+         */
+        if (_window > 0) {
+            return false;
+        }
         if (message instanceof PnfsListDirectoryMessage) {
             String path = getPnfsPath();
             Set<FileAttribute> requested = getRequestedAttributes();
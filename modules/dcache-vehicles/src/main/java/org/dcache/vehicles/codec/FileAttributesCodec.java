@@ -0,0 +1,269 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles.codec;
+
+import static dmg.cells.nucleus.MessageCodecs.readSerializable;
+import static dmg.cells.nucleus.MessageCodecs.readString;
+import static dmg.cells.nucleus.MessageCodecs.readStringMap;
+import static dmg.cells.nucleus.MessageCodecs.readStrings;
+import static dmg.cells.nucleus.MessageCodecs.writeSerializable;
+import static dmg.cells.nucleus.MessageCodecs.writeString;
+import static dmg.cells.nucleus.MessageCodecs.writeStringMap;
+import static dmg.cells.nucleus.MessageCodecs.writeStrings;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.dcache.acl.ACL;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+import org.dcache.vehicles.FileAttributes;
+
+/**
+ * Binary encoding of {@link FileAttributes} for use by message codecs.
+ * <p>
+ * Only defined attributes are written. ACLs and storage info have many implementations and are
+ * embedded using Java object serialization.
+ */
+public final class FileAttributesCodec {
+
+    private static final FileAttribute[] ATTRIBUTES = FileAttribute.values();
+
+    private FileAttributesCodec() {
+    }
+
+    public static void write(DataOutput out, FileAttributes attributes) throws IOException {
+        Set<FileAttribute> defined = attributes.getDefinedAttributes();
+        out.writeLong(toBits(defined));
+        for (FileAttribute attribute : defined) {
+            switch (attribute) {
+                case ACCESS_LATENCY:
+                    out.writeByte(attributes.getAccessLatency().getId());
+                    break;
+                case ACCESS_TIME:
+                    out.writeLong(attributes.getAccessTime());
+                    break;
+                case ACL:
+                    writeSerializable(out, attributes.getAcl());
+                    break;
+                case CACHECLASS:
+                    writeString(out, attributes.getCacheClass());
+                    break;
+                case CHECKSUM:
+                    Set<Checksum> checksums = attributes.getChecksums();
+                    out.writeInt(checksums.size());
+                    for (Checksum checksum : checksums) {
+                        out.writeByte(checksum.getType().getType());
+                        out.writeUTF(checksum.getValue());
+                    }
+                    break;
+                case CHANGE_TIME:
+                    out.writeLong(attributes.getChangeTime());
+                    break;
+                case CREATION_TIME:
+                    out.writeLong(attributes.getCreationTime());
+                    break;
+                case FLAGS:
+                    writeStringMap(out, attributes.getFlags());
+                    break;
+                case HSM:
+                    writeString(out, attributes.getHsm());
+                    break;
+                case LOCATIONS:
+                    writeStrings(out, attributes.getLocations());
+                    break;
+                case MODE:
+                    out.writeInt(attributes.getMode());
+                    break;
+                case MODIFICATION_TIME:
+                    out.writeLong(attributes.getModificationTime());
+                    break;
+                case OWNER:
+                    out.writeInt(attributes.getOwner());
+                    break;
+                case OWNER_GROUP:
+                    out.writeInt(attributes.getGroup());
+                    break;
+                case RETENTION_POLICY:
+                    out.writeByte(attributes.getRetentionPolicy().getId());
+                    break;
+                case SIZE:
+                    out.writeLong(attributes.getSize());
+                    break;
+                case STORAGECLASS:
+                    writeString(out, attributes.getStorageClass());
+                    break;
+                case STORAGEINFO:
+                    writeSerializable(out, attributes.getStorageInfo());
+                    break;
+                case TYPE:
+                    out.writeByte(attributes.getFileType().ordinal());
+                    break;
+                case PNFSID:
+                    out.writeUTF(attributes.getPnfsId().toString());
+                    break;
+                case NLINK:
+                    out.writeInt(attributes.getNlink());
+                    break;
+                case XATTR:
+                    writeStringMap(out, attributes.getXattrs());
+                    break;
+                case LABELS:
+                    writeStrings(out, attributes.getLabels());
+                    break;
+                case QOS_POLICY:
+                    writeString(out, attributes.getQosPolicy());
+                    break;
+                case QOS_STATE:
+                    out.writeInt(attributes.getQosState());
+                    break;
+                default:
+                    throw new IOException("Unsupported file attribute: " + attribute);
+            }
+        }
+    }
+
+    public static FileAttributes read(DataInput in) throws IOException {
+        FileAttributes attributes = new FileAttributes();
+        for (FileAttribute attribute : fromBits(in.readLong())) {
+            switch (attribute) {
+                case ACCESS_LATENCY:
+                    attributes.setAccessLatency(AccessLatency.getAccessLatency(in.readByte()));
+                    break;
+                case ACCESS_TIME:
+                    attributes.setAccessTime(in.readLong());
+                    break;
+                case ACL:
+                    attributes.setAcl(readSerializable(in, ACL.class));
+                    break;
+                case CACHECLASS:
+                    attributes.setCacheClass(intern(readString(in)));
+                    break;
+                case CHECKSUM:
+                    int count = in.readInt();
+                    List<Checksum> checksums = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        ChecksumType type = ChecksumType.getChecksumType(in.readByte());
+                        checksums.add(new Checksum(type, in.readUTF()));
+                    }
+                    attributes.setChecksums(checksums);
+                    break;
+                case CHANGE_TIME:
+                    attributes.setChangeTime(in.readLong());
+                    break;
+                case CREATION_TIME:
+                    attributes.setCreationTime(in.readLong());
+                    break;
+                case FLAGS:
+                    attributes.setFlags(readStringMap(in));
+                    break;
+                case HSM:
+                    attributes.setHsm(intern(readString(in)));
+                    break;
+                case LOCATIONS:
+                    attributes.setLocations(readStrings(in));
+                    break;
+                case MODE:
+                    attributes.setMode(in.readInt());
+                    break;
+                case MODIFICATION_TIME:
+                    attributes.setModificationTime(in.readLong());
+                    break;
+                case OWNER:
+                    attributes.setOwner(in.readInt());
+                    break;
+                case OWNER_GROUP:
+                    attributes.setGroup(in.readInt());
+                    break;
+                case RETENTION_POLICY:
+                    attributes.setRetentionPolicy(RetentionPolicy.getRetentionPolicy(in.readByte()));
+                    break;
+                case SIZE:
+                    attributes.setSize(in.readLong());
+                    break;
+                case STORAGECLASS:
+                    attributes.setStorageClass(intern(readString(in)));
+                    break;
+                case STORAGEINFO:
+                    attributes.setStorageInfo(readSerializable(in, StorageInfo.class));
+                    break;
+                case TYPE:
+                    attributes.setFileType(FileType.values()[in.readByte()]);
+                    break;
+                case PNFSID:
+                    attributes.setPnfsId(new PnfsId(in.readUTF()));
+                    break;
+                case NLINK:
+                    attributes.setNlink(in.readInt());
+                    break;
+                case XATTR:
+                    attributes.setXattrs(readStringMap(in));
+                    break;
+                case LABELS:
+                    List<String> labels = readStrings(in);
+                    attributes.setLabels(labels == null ? null : new HashSet<>(labels));
+                    break;
+                case QOS_POLICY:
+                    attributes.setQosPolicy(readString(in));
+                    break;
+                case QOS_STATE:
+                    attributes.setQosState(in.readInt());
+                    break;
+                default:
+                    throw new IOException("Unsupported file attribute: " + attribute);
+            }
+        }
+        return attributes;
+    }
+
+    static long toBits(Set<FileAttribute> attributes) {
+        long bits = 0;
+        for (FileAttribute attribute : attributes) {
+            bits |= 1L << attribute.ordinal();
+        }
+        return bits;
+    }
+
+    static EnumSet<FileAttribute> fromBits(long bits) throws IOException {
+        EnumSet<FileAttribute> attributes = EnumSet.noneOf(FileAttribute.class);
+        for (int i = 0; i < Long.SIZE; i++) {
+            if ((bits & (1L << i)) != 0) {
+                if (i >= ATTRIBUTES.length) {
+                    throw new IOException("Unknown file attribute: " + i);
+                }
+                attributes.add(ATTRIBUTES[i]);
+            }
+        }
+        return attributes;
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+}
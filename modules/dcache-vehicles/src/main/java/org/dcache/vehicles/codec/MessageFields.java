@@ -0,0 +1,126 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles.codec;
+
+import static dmg.cells.nucleus.MessageCodecs.readSerializable;
+import static dmg.cells.nucleus.MessageCodecs.readString;
+import static dmg.cells.nucleus.MessageCodecs.writeSerializable;
+import static dmg.cells.nucleus.MessageCodecs.writeString;
+
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.Message;
+import diskCacheV111.vehicles.PnfsMessage;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.Set;
+import javax.security.auth.Subject;
+import org.dcache.acl.enums.AccessMask;
+import org.dcache.auth.Subjects;
+import org.dcache.auth.attributes.Restriction;
+import org.dcache.auth.attributes.Restrictions;
+
+/**
+ * Binary encoding of the fields shared by all {@link Message}s and {@link PnfsMessage}s.
+ */
+final class MessageFields {
+
+    private static final AccessMask[] ACCESS_MASKS = AccessMask.values();
+
+    private MessageFields() {
+    }
+
+    static void writeMessage(DataOutput out, Message message) throws IOException {
+        out.writeBoolean(message.getReplyRequired());
+        out.writeBoolean(message.isReply());
+        out.writeInt(message.getReturnCode());
+        writeSerializable(out, message.getErrorObject());
+        out.writeLong(message.getId());
+
+        Subject subject = message.getSubject();
+        if (subject == Subjects.ROOT) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            writeSerializable(out, subject);
+        }
+    }
+
+    static void readMessage(DataInput in, Message message) throws IOException {
+        message.setReplyRequired(in.readBoolean());
+        boolean isReply = in.readBoolean();
+        int returnCode = in.readInt();
+        Serializable errorObject = readSerializable(in, Serializable.class);
+        if (isReply) {
+            message.setReply(returnCode, errorObject);
+        }
+        message.setId(in.readLong());
+        if (in.readBoolean()) {
+            message.setSubject(readSerializable(in, Subject.class));
+        }
+    }
+
+    static void writePnfsMessage(DataOutput out, PnfsMessage message) throws IOException {
+        writeMessage(out, message);
+
+        PnfsId pnfsId = message.getPnfsId();
+        writeString(out, pnfsId == null ? null : pnfsId.toString());
+        writeString(out, message.getPnfsPath());
+        out.writeBoolean(message.isFollowSymlink());
+
+        long mask = 0;
+        for (AccessMask m : message.getAccessMask()) {
+            mask |= 1L << m.ordinal();
+        }
+        out.writeLong(mask);
+
+        Restriction restriction = message.getRestriction();
+        if (restriction.equals(Restrictions.none())) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            writeSerializable(out, restriction);
+        }
+    }
+
+    static void readPnfsMessage(DataInput in, PnfsMessage message) throws IOException {
+        readMessage(in, message);
+
+        String pnfsId = readString(in);
+        message.setPnfsId(pnfsId == null ? null : new PnfsId(pnfsId));
+        message.setPnfsPath(readString(in));
+        message.setFollowSymlink(in.readBoolean());
+
+        long mask = in.readLong();
+        if (mask != 0) {
+            Set<AccessMask> masks = EnumSet.noneOf(AccessMask.class);
+            for (AccessMask m : ACCESS_MASKS) {
+                if ((mask & (1L << m.ordinal())) != 0) {
+                    masks.add(m);
+                }
+            }
+            message.setAccessMask(masks);
+        }
+
+        if (in.readBoolean()) {
+            message.setRestriction(readSerializable(in, Restriction.class));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles.codec;
+
+import diskCacheV111.util.PnfsId;
+import dmg.cells.nucleus.MessageCodec;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Set;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
+
+/**
+ * Binary codec for {@link PnfsGetFileAttributes}, the most frequent message sent to PnfsManager.
+ */
+public class PnfsGetFileAttributesCodec implements MessageCodec<PnfsGetFileAttributes> {
+
+    @Override
+    public int getId() {
+        return 1;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public Class<PnfsGetFileAttributes> getType() {
+        return PnfsGetFileAttributes.class;
+    }
+
+    @Override
+    public void encode(PnfsGetFileAttributes message, DataOutput out) throws IOException {
+        Set<FileAttribute> requested = message.getRequestedAttributes();
+        out.writeBoolean(requested != null);
+        if (requested != null) {
+            out.writeLong(FileAttributesCodec.toBits(requested));
+        }
+
+        MessageFields.writePnfsMessage(out, message);
+        out.writeBoolean(message.getUpdateAtime());
+
+        FileAttributes attributes = message.getFileAttributes();
+        out.writeBoolean(attributes != null);
+        if (attributes != null) {
+            FileAttributesCodec.write(out, attributes);
+        }
+    }
+
+    @Override
+    public PnfsGetFileAttributes decode(DataInput in) throws IOException {
+        Set<FileAttribute> requested =
+              in.readBoolean() ? FileAttributesCodec.fromBits(in.readLong()) : null;
+
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes((PnfsId) null, requested);
+        MessageFields.readPnfsMessage(in, message);
+        message.setUpdateAtime(in.readBoolean());
+
+        if (in.readBoolean()) {
+            message.setFileAttributes(FileAttributesCodec.read(in));
+        }
+        return message;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.vehicles.codec;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import dmg.cells.nucleus.MsgSerializerBinary;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import javax.security.auth.Subject;
+import org.dcache.auth.UidPrincipal;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.namespace.FileType;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.junit.Test;
+
+public class PnfsGetFileAttributesCodecTest {
+
+    private static final PnfsId PNFSID = new PnfsId("0000D0B1B9A06C7A4D3B9D4DE3F4ABA7F9F6");
+
+    @Test
+    public void shouldUseBinaryEncoding() {
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes(PNFSID,
+              EnumSet.of(FileAttribute.SIZE));
+
+        assertThat(MsgSerializerBinary.isBinary(MsgSerializerBinary.encode(message)), is(true));
+    }
+
+    @Test
+    public void shouldRoundTripRequest() {
+        Subject subject = new Subject();
+        subject.getPrincipals().add(new UidPrincipal(1000));
+
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes("/data/file",
+              EnumSet.of(FileAttribute.SIZE, FileAttribute.LOCATIONS, FileAttribute.CHECKSUM));
+        message.setSubject(subject);
+        message.setId(42);
+        message.setUpdateAtime(true);
+
+        PnfsGetFileAttributes decoded = roundTrip(message);
+
+        assertThat(decoded.getPnfsId(), is(nullValue()));
+        assertThat(decoded.getPnfsPath(), is("/data/file"));
+        assertThat(decoded.getRequestedAttributes(), is(message.getRequestedAttributes()));
+        assertThat(decoded.getSubject(), is(subject));
+        assertThat(decoded.getId(), is(42L));
+        assertThat(decoded.getUpdateAtime(), is(true));
+        assertThat(decoded.getReplyRequired(), is(true));
+        assertThat(decoded.isReply(), is(false));
+        assertThat(decoded.getFileAttributes(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldRoundTripReply() {
+        FileAttributes attributes = new FileAttributes();
+        attributes.setPnfsId(PNFSID);
+        attributes.setSize(1024);
+        attributes.setFileType(FileType.REGULAR);
+        attributes.setAccessLatency(AccessLatency.NEARLINE);
+        attributes.setRetentionPolicy(RetentionPolicy.CUSTODIAL);
+        attributes.setChecksums(List.of(new Checksum(ChecksumType.ADLER32, "12345678")));
+        attributes.setLocations(List.of("pool1", "pool2"));
+        attributes.setFlags(Map.of("flag", "value"));
+        attributes.setStorageClass("test:disk");
+        attributes.setHsm("osm");
+        attributes.setCacheClass(null);
+        attributes.setStorageInfo(new GenericStorageInfo("osm", "test:disk"));
+
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes(PNFSID,
+              attributes.getDefinedAttributes());
+        message.setFileAttributes(attributes);
+        message.setSucceeded();
+
+        PnfsGetFileAttributes decoded = roundTrip(message);
+        FileAttributes decodedAttributes = decoded.getFileAttributes();
+
+        assertThat(decoded.isReply(), is(true));
+        assertThat(decoded.getReturnCode(), is(0));
+        assertThat(decoded.getPnfsId(), is(PNFSID));
+        assertThat(decodedAttributes.getDefinedAttributes(),
+              is(attributes.getDefinedAttributes()));
+        assertThat(decodedAttributes.getSize(), is(1024L));
+        assertThat(decodedAttributes.getFileType(), is(FileType.REGULAR));
+        assertThat(decodedAttributes.getAccessLatency(), is(AccessLatency.NEARLINE));
+        assertThat(decodedAttributes.getRetentionPolicy(), is(RetentionPolicy.CUSTODIAL));
+        assertThat(decodedAttributes.getChecksums(), is(attributes.getChecksums()));
+        assertThat(decodedAttributes.getLocations(), contains("pool1", "pool2"));
+        assertThat(decodedAttributes.getFlags(), is(attributes.getFlags()));
+        assertThat(decodedAttributes.getStorageClass(), is("test:disk"));
+        assertThat(decodedAttributes.getHsm(), is("osm"));
+        assertThat(decodedAttributes.getCacheClass(), is(nullValue()));
+        assertThat(decodedAttributes.getStorageInfo().getStorageClass(), is("test:disk"));
+    }
+
+    @Test
+    public void shouldRoundTripStringsLongerThan64KiB() {
+        String value = "\u00e4".repeat(40_000);
+        FileAttributes attributes = new FileAttributes();
+        attributes.setXattrs(Map.of("key", value));
+
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes("/data/" + value,
+              attributes.getDefinedAttributes());
+        message.setFileAttributes(attributes);
+        message.setSucceeded();
+
+        PnfsGetFileAttributes decoded = roundTrip(message);
+
+        assertThat(decoded.getPnfsPath(), is("/data/" + value));
+        assertThat(decoded.getFileAttributes().getXattrs(), is(Map.of("key", value)));
+    }
+
+    @Test
+    public void shouldRoundTripFailure() {
+        PnfsGetFileAttributes message = new PnfsGetFileAttributes(PNFSID,
+              EnumSet.of(FileAttribute.SIZE));
+        message.setFailed(CacheException.FILE_NOT_FOUND, "No such file");
+
+        PnfsGetFileAttributes decoded = roundTrip(message);
+
+        assertThat(decoded.isReply(), is(true));
+        assertThat(decoded.getReturnCode(), is(CacheException.FILE_NOT_FOUND));
+        assertThat(decoded.getErrorObject(), is("No such file"));
+    }
+
+    private static PnfsGetFileAttributes roundTrip(PnfsGetFileAttributes message) {
+        return (PnfsGetFileAttributes) MsgSerializerBinary.decode(
+              MsgSerializerBinary.encode(message));
+    }
+}
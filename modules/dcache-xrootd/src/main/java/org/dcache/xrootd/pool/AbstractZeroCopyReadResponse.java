@@ -0,0 +1,85 @@
+package org.dcache.xrootd.pool;
+
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ok;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.PromiseCombiner;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.pool.movers.RepositoryFileRegion;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.dcache.xrootd.protocol.messages.XrootdRequest;
+import org.dcache.xrootd.protocol.messages.XrootdResponse;
+
+/**
+ * Base class for read responses that send file data as {@link RepositoryFileRegion}s rather than
+ * copying it into buffers.
+ * <p>
+ * The complete response, which may consist of several frames, is written at once. Only the frame
+ * headers are held in memory, so unlike the chunked responses no flow control is needed. File
+ * regions cannot be encrypted, thus these responses must not be used on TLS channels.
+ */
+public abstract class AbstractZeroCopyReadResponse<T extends XrootdRequest>
+      implements XrootdResponse<T> {
+
+    protected static final int FRAME_HEADER_SIZE = 8;
+
+    protected final T request;
+    protected final int maxFrameSize;
+
+    protected AbstractZeroCopyReadResponse(T request, int maxFrameSize) {
+        this.request = request;
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    @Override
+    public T getRequest() {
+        return request;
+    }
+
+    @Override
+    public int getStatus() {
+        return kXR_ok;
+    }
+
+    @Override
+    public void writeTo(ChannelHandlerContext ctx, ChannelPromise promise) {
+        PromiseCombiner combiner = new PromiseCombiner(ctx.executor());
+        writeFrames(ctx, combiner);
+        combiner.finish(promise);
+    }
+
+    /**
+     * Writes all frames of the response using {@link #write}.
+     */
+    protected abstract void writeFrames(ChannelHandlerContext ctx, PromiseCombiner combiner);
+
+    /**
+     * Writes a buffer or file region as part of this response.
+     */
+    protected static void write(ChannelHandlerContext ctx, PromiseCombiner combiner, Object msg) {
+        ChannelPromise promise = ctx.newPromise();
+        combiner.add(promise);
+        ctx.write(msg, promise);
+    }
+
+    /**
+     * Returns a buffer holding the header of a frame, with room for the given number of additional
+     * bytes.
+     */
+    protected ByteBuf frameHeader(ChannelHandlerContext ctx, int status, int dataLength,
+          int extra) {
+        ByteBuf header = ctx.alloc().buffer(FRAME_HEADER_SIZE + extra);
+        header.writeShort(request.getStreamId());
+        header.writeShort(status);
+        header.writeInt(dataLength);
+        return header;
+    }
+
+    protected static RepositoryFileRegion<XrootdProtocolInfo> region(
+          NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel, long position,
+          int length) {
+        return new RepositoryFileRegion<>(channel, position, length);
+    }
+}
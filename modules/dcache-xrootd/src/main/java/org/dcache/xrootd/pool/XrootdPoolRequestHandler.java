@@ -42,6 +42,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileCorruptedCacheException;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import java.io.IOException;
@@ -165,6 +166,11 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
      */
     private final Map<String, String> _queryConfig;
 
+    /**
+     * Whether read data is sent as file regions on channels without TLS.
+     */
+    private final boolean _useZeroCopy;
+
     /**
      * The switch from synchronized collection to read-write lock is to facilitate removing write
      * descriptors on inactive channel events. This is to avoid allowing a subsequent write call to
@@ -176,10 +182,12 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
 
     public XrootdPoolRequestHandler(XrootdTransferService server,
           int maxFrameSize,
-          Map<String, String> queryConfig) {
+          Map<String, String> queryConfig,
+          boolean useZeroCopy) {
         _server = server;
         _maxFrameSize = maxFrameSize;
         _queryConfig = queryConfig;
+        _useZeroCopy = useZeroCopy;
     }
 
     @Override
@@ -615,6 +623,12 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
 
         if (msg.bytesToRead() == 0) {
             return withOk(msg);
+        } else if (canZeroCopy(ctx)) {
+            try {
+                return new ZeroCopyReadResponse(msg, _maxFrameSize, getDescriptor(fd));
+            } catch (IOException e) {
+                throw new XrootdException(kXR_IOError, e.getMessage());
+            }
         } else {
             return new ChunkedFileDescriptorReadResponse(msg, _maxFrameSize, getDescriptor(fd));
         }
@@ -656,9 +670,24 @@ public class XrootdPoolRequestHandler extends AbstractXrootdRequestHandler {
             }
         }
 
+        if (canZeroCopy(ctx)) {
+            try {
+                return new ZeroCopyReadvResponse(msg, _maxFrameSize, copyDescriptors());
+            } catch (IOException e) {
+                throw new XrootdException(kXR_IOError, e.getMessage());
+            }
+        }
         return new ChunkedFileDescriptorReadvResponse(msg, _maxFrameSize, copyDescriptors());
     }
 
+    /**
+     * The TLS handler cannot encrypt file regions, so data can only be sent without copying it if
+     * the channel is not encrypted.
+     */
+    private boolean canZeroCopy(ChannelHandlerContext ctx) {
+        return _useZeroCopy && ctx.pipeline().get(SslHandler.class) == null;
+    }
+
     /**
      * Lookup the file descriptor and delegate message processing to it.
      *
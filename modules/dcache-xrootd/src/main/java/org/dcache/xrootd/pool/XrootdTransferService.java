@@ -147,6 +147,7 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
 
     private int maxFrameSize;
     private int maxWriteBufferSize;
+    private boolean zeroCopy;
     private List<ChannelHandlerFactory> plugins;
     private List<ChannelHandlerFactory> accessLogPlugins;
     private List<ChannelHandlerFactory> tpcClientPlugins;
@@ -320,6 +321,14 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
         return maxFrameSize;
     }
 
+    public void setZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+    }
+
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
     @Required
     public void setMaxWriteBufferSize(int maxWriteBufferSize) {
         this.maxWriteBufferSize = maxWriteBufferSize;
@@ -451,7 +460,8 @@ public class XrootdTransferService extends NettyTransferService<XrootdProtocolIn
         XrootdPoolRequestHandler handler
               = new XrootdPoolRequestHandler(this,
               maxFrameSize,
-              queryConfig);
+              queryConfig,
+              zeroCopy);
         handler.setSigningPolicy(signingPolicy);
         handler.setTlsSessionInfo(tlsSessionInfo);
         pipeline.addLast("transfer", handler);
@@ -0,0 +1,51 @@
+package org.dcache.xrootd.pool;
+
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ok;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_oksofar;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.PromiseCombiner;
+import java.io.IOException;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.dcache.xrootd.protocol.messages.ReadRequest;
+
+/**
+ * Response to a kXR_read request sending the file data as file regions. Like {@link
+ * ChunkedFileDescriptorReadResponse}, the data is split into frames of at most the maximum frame
+ * size, and the response is truncated at the end of the file.
+ */
+public class ZeroCopyReadResponse extends AbstractZeroCopyReadResponse<ReadRequest> {
+
+    private final NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel;
+    private final long position;
+    private final int length;
+
+    public ZeroCopyReadResponse(ReadRequest request, int maxFrameSize,
+          FileDescriptor descriptor) throws IOException {
+        super(request, maxFrameSize);
+        this.channel = descriptor.getChannel();
+        this.position = request.getReadOffset();
+        this.length = (int) Math.max(0,
+              Math.min(request.bytesToRead(), channel.size() - position));
+    }
+
+    @Override
+    public int getDataLength() {
+        return length;
+    }
+
+    @Override
+    protected void writeFrames(ChannelHandlerContext ctx, PromiseCombiner combiner) {
+        int offset = 0;
+        do {
+            int count = Math.min(length - offset, maxFrameSize);
+            boolean isLast = offset + count == length;
+            write(ctx, combiner, frameHeader(ctx, isLast ? kXR_ok : kXR_oksofar, count, 0));
+            if (count > 0) {
+                write(ctx, combiner, region(channel, position + offset, count));
+            }
+            offset += count;
+        } while (offset < length);
+    }
+}
@@ -0,0 +1,111 @@
+package org.dcache.xrootd.pool;
+
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ArgTooLong;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_FileNotOpen;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_ok;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_oksofar;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.PromiseCombiner;
+import java.io.IOException;
+import java.util.List;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.dcache.xrootd.core.XrootdException;
+import org.dcache.xrootd.protocol.messages.GenericReadRequestMessage.EmbeddedReadRequest;
+import org.dcache.xrootd.protocol.messages.ReadVRequest;
+import org.dcache.xrootd.protocol.messages.ReadVResponse;
+
+/**
+ * Response to a kXR_readv request sending the file data as file regions. Like {@link
+ * ChunkedFileDescriptorReadvResponse}, the segments are packed into frames of at most the maximum
+ * frame size, and each segment is truncated at the end of its file.
+ */
+public class ZeroCopyReadvResponse extends AbstractZeroCopyReadResponse<ReadVRequest> {
+
+    private static class Segment {
+
+        private final int fd;
+        private final NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel;
+        private final long position;
+        private final int length;
+
+        private Segment(int fd, NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel,
+              long position, int length) {
+            this.fd = fd;
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+        }
+
+        private int frameLength() {
+            return ReadVResponse.READ_LIST_HEADER_SIZE + length;
+        }
+    }
+
+    private final Segment[] segments;
+    private final int dataLength;
+
+    public ZeroCopyReadvResponse(ReadVRequest request, int maxFrameSize,
+          List<FileDescriptor> descriptors) throws IOException, XrootdException {
+        super(request, maxFrameSize);
+        EmbeddedReadRequest[] list = request.getReadRequestList();
+        segments = new Segment[list.length];
+        long total = 0;
+        for (int i = 0; i < list.length; i++) {
+            int fd = list[i].getFileHandle();
+            if (fd < 0 || fd >= descriptors.size() || descriptors.get(fd) == null) {
+                throw new XrootdException(kXR_FileNotOpen, "Invalid file descriptor");
+            }
+            NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel =
+                  descriptors.get(fd).getChannel();
+            long position = list[i].getOffset();
+            int length = (int) Math.max(0,
+                  Math.min(list[i].BytesToRead(), channel.size() - position));
+            segments[i] = new Segment(fd, channel, position, length);
+            total += segments[i].frameLength();
+        }
+        if (total > Integer.MAX_VALUE) {
+            /* The response length has to fit the signed 32 bit dlen field. */
+            throw new XrootdException(kXR_ArgTooLong, "Single readv transfer is too large.");
+        }
+        dataLength = (int) total;
+    }
+
+    @Override
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    @Override
+    protected void writeFrames(ChannelHandlerContext ctx, PromiseCombiner combiner) {
+        int first = 0;
+        do {
+            int frameLength = segments[first].frameLength();
+            int last = first + 1;
+            while (last < segments.length
+                  && frameLength + segments[last].frameLength() <= maxFrameSize) {
+                frameLength += segments[last].frameLength();
+                last++;
+            }
+            int status = (last == segments.length) ? kXR_ok : kXR_oksofar;
+
+            for (int i = first; i < last; i++) {
+                Segment segment = segments[i];
+                ByteBuf header = (i == first)
+                      ? frameHeader(ctx, status, frameLength, ReadVResponse.READ_LIST_HEADER_SIZE)
+                      : ctx.alloc().buffer(ReadVResponse.READ_LIST_HEADER_SIZE);
+                header.writeInt(segment.fd);
+                header.writeInt(segment.length);
+                header.writeLong(segment.position);
+                write(ctx, combiner, header);
+                if (segment.length > 0) {
+                    write(ctx, combiner, region(segment.channel, segment.position,
+                          segment.length));
+                }
+            }
+            first = last;
+        } while (first < segments.length);
+    }
+}
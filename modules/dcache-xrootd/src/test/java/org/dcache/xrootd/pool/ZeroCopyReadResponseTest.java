@@ -0,0 +1,207 @@
+package org.dcache.xrootd.pool;
+
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_read;
+import static org.dcache.xrootd.protocol.XrootdProtocol.kXR_readv;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import org.dcache.pool.movers.NettyTransferService;
+import org.dcache.vehicles.XrootdProtocolInfo;
+import org.dcache.xrootd.core.XrootdEncoder;
+import org.dcache.xrootd.protocol.messages.ReadRequest;
+import org.dcache.xrootd.protocol.messages.ReadVRequest;
+import org.dcache.xrootd.stream.ChunkedResponseWriteHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that the zero-copy read responses put the same bytes on the wire as the chunked
+ * responses they replace.
+ */
+public class ZeroCopyReadResponseTest {
+
+    private static final int FILE_SIZE = 10_000;
+    private static final int MAX_FRAME_SIZE = 1024;
+    private static final int FRAME_HEADER_SIZE = 8;
+
+    private Path file;
+    private FileChannel fileChannel;
+    private List<FileDescriptor> descriptors;
+
+    @Before
+    public void setUp() throws IOException {
+        byte[] data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        file = Files.createTempFile("zero-copy", null);
+        Files.write(file, data);
+        fileChannel = FileChannel.open(file);
+
+        NettyTransferService<XrootdProtocolInfo>.NettyMoverChannel channel =
+              mock(NettyTransferService.NettyMoverChannel.class);
+        given(channel.size()).willReturn((long) FILE_SIZE);
+        given(channel.transferTo(anyLong(), anyLong(), any(WritableByteChannel.class)))
+              .willAnswer(i -> fileChannel.transferTo(i.getArgument(0), i.getArgument(1),
+                    i.getArgument(2)));
+
+        FileDescriptor descriptor = mock(FileDescriptor.class);
+        given(descriptor.getChannel()).willReturn(channel);
+        willReadFromFile(descriptor);
+
+        descriptors = List.of(descriptor, descriptor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fileChannel.close();
+        Files.delete(file);
+    }
+
+    @Test
+    public void shouldWriteSameBytesForReadOfSeveralFrames() throws Exception {
+        ReadRequest request = readRequest(100, 3000);
+
+        byte[] chunked = write(new ChunkedFileDescriptorReadResponse(request, MAX_FRAME_SIZE,
+              descriptors.get(0)));
+        byte[] zeroCopy = write(new ZeroCopyReadResponse(request, MAX_FRAME_SIZE,
+              descriptors.get(0)));
+
+        assertEquals(3 * FRAME_HEADER_SIZE + 3000, zeroCopy.length);
+        assertArrayEquals(chunked, zeroCopy);
+    }
+
+    @Test
+    public void shouldWriteSameBytesForShortReadAtEndOfFile() throws Exception {
+        ReadRequest request = readRequest(7500, 4000);
+
+        byte[] chunked = write(new ChunkedFileDescriptorReadResponse(request, MAX_FRAME_SIZE,
+              descriptors.get(0)));
+        byte[] zeroCopy = write(new ZeroCopyReadResponse(request, MAX_FRAME_SIZE,
+              descriptors.get(0)));
+
+        assertEquals(3 * FRAME_HEADER_SIZE + 2500, zeroCopy.length);
+        assertArrayEquals(chunked, zeroCopy);
+    }
+
+    @Test
+    public void shouldWriteSameBytesForReadvOfSeveralFrames() throws Exception {
+        ReadVRequest request = readvRequest(
+              new long[]{0, 0, 100},
+              new long[]{1, 5000, 400},
+              new long[]{0, 200, 300},
+              new long[]{1, 1234, 256},
+              new long[]{0, 4321, 1},
+              new long[]{0, 9800, 400});
+
+        byte[] chunked = write(new ChunkedFileDescriptorReadvResponse(request, MAX_FRAME_SIZE,
+              descriptors));
+        byte[] zeroCopy = write(new ZeroCopyReadvResponse(request, MAX_FRAME_SIZE,
+              descriptors));
+
+        assertEquals(2 * FRAME_HEADER_SIZE + 6 * 16 + 100 + 400 + 300 + 256 + 1 + 200,
+              zeroCopy.length);
+        assertArrayEquals(chunked, zeroCopy);
+    }
+
+    private void willReadFromFile(FileDescriptor descriptor) throws IOException {
+        willAnswer(i -> {
+            ByteBuffer buffer = i.getArgument(0);
+            long position = i.getArgument(1);
+            while (buffer.hasRemaining()) {
+                int n = fileChannel.read(buffer, position);
+                if (n < 0) {
+                    break;
+                }
+                position += n;
+            }
+            return null;
+        }).given(descriptor).read(any(ByteBuffer.class), anyLong());
+    }
+
+    private static ReadRequest readRequest(long offset, int length) {
+        ByteBuf buffer = Unpooled.buffer(24);
+        buffer.writeShort(1);
+        buffer.writeShort(kXR_read);
+        buffer.writeInt(0);
+        buffer.writeLong(offset);
+        buffer.writeInt(length);
+        buffer.writeInt(0);
+        try {
+            return new ReadRequest(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Creates a kXR_readv request from segments given as file handle, offset and length.
+     */
+    private static ReadVRequest readvRequest(long[]... segments) {
+        ByteBuf buffer = Unpooled.buffer(24 + 16 * segments.length);
+        buffer.writeShort(1);
+        buffer.writeShort(kXR_readv);
+        buffer.writeZero(16);
+        buffer.writeInt(16 * segments.length);
+        for (long[] segment : segments) {
+            buffer.writeInt((int) segment[0]);
+            buffer.writeInt((int) segment[2]);
+            buffer.writeLong(segment[1]);
+        }
+        try {
+            return new ReadVRequest(buffer);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Writes a response through the encoder and chunked writer of the pool's pipeline and returns
+     * the bytes that would have been sent to the client.
+     */
+    private static byte[] write(Object response) throws IOException {
+        EmbeddedChannel channel = new EmbeddedChannel(new XrootdEncoder(),
+              new ChunkedResponseWriteHandler());
+        channel.writeOutbound(response);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            try {
+                if (msg instanceof ByteBuf) {
+                    ByteBuf buf = (ByteBuf) msg;
+                    buf.readBytes(out, buf.readableBytes());
+                } else {
+                    FileRegion region = (FileRegion) msg;
+                    while (region.transferred() < region.count()) {
+                        region.transferTo(target, region.transferred());
+                    }
+                }
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        channel.finishAndReleaseAll();
+        return out.toByteArray();
+    }
+}
@@ -47,6 +47,7 @@ import diskCacheV111.util.NotDirCacheException;
 import diskCacheV111.util.PermissionDeniedCacheException;
 import diskCacheV111.util.PnfsId;
 import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.util.TimeoutCacheException;
 import diskCacheV111.vehicles.DoorCancelledUploadNotificationMessage;
 import diskCacheV111.vehicles.Message;
 import diskCacheV111.vehicles.PnfsAddCacheLocationMessage;
@@ -104,15 +105,19 @@ import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.security.auth.Subject;
@@ -151,6 +156,7 @@ import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsCreateSymLinkMessage;
 import org.dcache.vehicles.PnfsGetFileAttributes;
 import org.dcache.vehicles.PnfsListLabelsMessage;
+import org.dcache.vehicles.PnfsListDirectoryCreditMessage;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsResolveSymlinksMessage;
@@ -193,6 +199,17 @@ public class PnfsManagerV3
     private final RequestCounters<Class<?>> _foldedCounters =
           new RequestCounters<>("PnfsManagerV3.Folded");
 
+    /**
+     * Per-queue statistics: the number of requests waiting when a request is taken from the
+     * queue, how long the request waited and how long it took to process.
+     */
+    private final RequestExecutionTimeGauges<Integer> _queueDepthGauges =
+          new RequestExecutionTimeGauges<>("PnfsManagerV3.QueueDepth");
+    private final RequestExecutionTimeGauges<Integer> _queueWaitGauges =
+          new RequestExecutionTimeGauges<>("PnfsManagerV3.QueueWait");
+    private final RequestExecutionTimeGauges<Integer> _queueServiceGauges =
+          new RequestExecutionTimeGauges<>("PnfsManagerV3.QueueService");
+
     /**
      * These messages are subject to being discarded if their time to live has been exceeded (or is
      * expected to be exceeded).
@@ -208,9 +225,12 @@ public class PnfsManagerV3
     };
 
     private int _threads;
+    private int _queueCount;
+    private boolean _useVirtualThreads;
     private int _directoryListLimit;
     private int _queueMaxSize;
     private int _listThreads;
+    private int _flowControlledListThreads = 8;
     private long _logSlowThreshold;
 
     private ScheduledFuture<?> updateFsFuture;
@@ -234,21 +254,45 @@ public class PnfsManagerV3
     private boolean _canFold;
 
     /**
-     * Queues for list operations.
+     * Queues for list operations. The last queue is the one for flow controlled listings.
      */
     private BlockingQueue<CellMessage>[] _listQueues;
 
     /**
-     * Tasks queues used for messages that do not operate on cache locations.
+     * Queue for flow controlled listings. As such a listing occupies a thread while waiting for
+     * credit, these listings are served by their own threads, all taking from this queue, so
+     * that a slow client neither delays other listings nor is stuck behind another slow client.
+     */
+    private BlockingQueue<CellMessage> _flowControlledListQueue;
+
+    /**
+     * Flow controlled listings in progress, by the UUID of the list request.
+     */
+    private final Map<UUID, ListHandlerImpl> _flowControlledListings =
+          new ConcurrentHashMap<>();
+
+    /**
+     * Number of flow controlled listings waiting for the client to grant credit.
+     */
+    private final AtomicInteger _listingsWaitingForCredit = new AtomicInteger();
+
+    /**
+     * Time a flow controlled listing waits for credit before it fails.
+     */
+    private long _listCreditTimeout = 5;
+    private TimeUnit _listCreditTimeoutUnit = TimeUnit.MINUTES;
+
+    /**
+     * Tasks queues used for messages other than directory listing. Requests for the same pnfsid
+     * or path always go to the same queue, but the queues are served by a shared pool of
+     * _threads workers.
      */
-    private BlockingQueue<CellMessage>[] _fifos;
+    private WorkStealingQueues<CellMessage> _fifos;
 
     /**
      * Executor for ProcessThread instances.
      */
-    private final ExecutorService executor =
-          Executors.newCachedThreadPool(
-                new ThreadFactoryBuilder().setNameFormat("proc-%d").build());
+    private ExecutorService executor;
 
     private CellPath _cacheModificationRelay;
 
@@ -359,11 +403,37 @@ public class PnfsManagerV3
         _threads = threads;
     }
 
+    /**
+     * Sets the number of request queues. A value of zero or less creates one queue per thread.
+     */
+    public void setQueues(int queues) {
+        _queueCount = queues;
+    }
+
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        _useVirtualThreads = useVirtualThreads;
+    }
+
     @Required
     public void setListThreads(int threads) {
         _listThreads = threads;
     }
 
+    @Required
+    public void setFlowControlledListThreads(int threads) {
+        _flowControlledListThreads = threads;
+    }
+
+    @Required
+    public void setListCreditTimeout(long timeout) {
+        _listCreditTimeout = timeout;
+    }
+
+    @Required
+    public void setListCreditTimeoutUnit(TimeUnit unit) {
+        _listCreditTimeoutUnit = unit;
+    }
+
     @Required
     public void setCacheModificationRelay(String path) {
         _cacheModificationRelay =
@@ -449,15 +519,20 @@ public class PnfsManagerV3
     public void init() {
         _stub = new CellStub(getCellEndpoint());
 
-        _fifos = new BlockingQueue[_threads];
-        LOGGER.info("Starting {} threads", _fifos.length);
-        for (int i = 0; i < _fifos.length; i++) {
-            if (_queueMaxSize > 0) {
-                _fifos[i] = new LinkedBlockingQueue<>(_queueMaxSize);
-            } else {
-                _fifos[i] = new LinkedBlockingQueue<>();
-            }
-            executor.execute(new ProcessThread(_fifos[i]));
+        if (_useVirtualThreads) {
+            executor = Executors.newThreadPerTaskExecutor(
+                  Thread.ofVirtual().name("proc-", 0).factory());
+        } else {
+            executor = Executors.newCachedThreadPool(
+                  new ThreadFactoryBuilder().setNameFormat("proc-%d").build());
+        }
+
+        _fifos = new WorkStealingQueues<>(_queueCount > 0 ? _queueCount : _threads,
+              _queueMaxSize);
+        LOGGER.info("Starting {} {} threads serving {} queues", _threads,
+              _useVirtualThreads ? "virtual" : "platform", _fifos.size());
+        for (int i = 0; i < _threads; i++) {
+            executor.execute(new DispatchThread(_fifos));
         }
 
         if (useParallelListing) {
@@ -465,7 +540,7 @@ public class PnfsManagerV3
              * when using parallel listing we have _listThreads
              * consumers serving a single queue.
              */
-            _listQueues = new BlockingQueue[1];
+            _listQueues = new BlockingQueue[2];
             if (_queueMaxSize > 0) {
                 _listQueues[0] = new LinkedBlockingQueue<>(_queueMaxSize);
             } else {
@@ -485,8 +560,8 @@ public class PnfsManagerV3
              * Start separate _listThreads queues for list operations.
              * each consumer processes a dedicated queue
              */
-            _listQueues = new BlockingQueue[_listThreads];
-            for (int i = 0; i < _listQueues.length; i++) {
+            _listQueues = new BlockingQueue[_listThreads + 1];
+            for (int i = 0; i < _listThreads; i++) {
                 if (_queueMaxSize > 0) {
                     _listQueues[i] = new LinkedBlockingQueue<>(_queueMaxSize);
                 } else {
@@ -498,11 +573,27 @@ public class PnfsManagerV3
                 executor.execute(t);
             }
         }
+
+        if (_queueMaxSize > 0) {
+            _flowControlledListQueue = new LinkedBlockingQueue<>(_queueMaxSize);
+        } else {
+            _flowControlledListQueue = new LinkedBlockingQueue<>();
+        }
+        _listQueues[_listQueues.length - 1] = _flowControlledListQueue;
+        for (int i = 0; i < _flowControlledListThreads; i++) {
+            ProcessThread t = new ProcessThread(_flowControlledListQueue);
+            _listProcessThreads.add(t);
+            executor.execute(t);
+        }
     }
 
     public void shutdown() throws InterruptedException {
-        drainQueues(_fifos);
+        Arrays.stream(_fifos.queues()).forEach(this::discardQueue);
+        _fifos.shutdown(_threads);
         drainQueues(_listQueues);
+        for (int i = 1; i < _flowControlledListThreads; i++) {
+            _flowControlledListQueue.offer(SHUTDOWN_SENTINEL);
+        }
         MoreExecutors.shutdownAndAwaitTermination(executor, 1, TimeUnit.SECONDS);
     }
 
@@ -511,6 +602,11 @@ public class PnfsManagerV3
     }
 
     private void drainQueue(BlockingQueue<CellMessage> queue) {
+        discardQueue(queue);
+        queue.offer(SHUTDOWN_SENTINEL);
+    }
+
+    private void discardQueue(BlockingQueue<CellMessage> queue) {
         String error = "Name space is shutting down.";
         ArrayList<CellMessage> drained = new ArrayList<>();
         queue.drainTo(drained);
@@ -522,7 +618,6 @@ public class PnfsManagerV3
                 sendMessage(envelope);
             }
         }
-        queue.offer(SHUTDOWN_SENTINEL);
     }
 
     @Override
@@ -591,14 +686,20 @@ public class PnfsManagerV3
         pw.println("List queue: "
               + Arrays.stream(_listQueues)
               .mapToInt(BlockingQueue::size).sum());
+        pw.println("Flow controlled listings: " + _flowControlledListings.size()
+              + " (" + _listingsWaitingForCredit.get() + " waiting for credit)");
         pw.println();
-        pw.println("Threads (" + _fifos.length + ") Queue");
-        for (int i = 0; i < _fifos.length; i++) {
-            pw.println("    [" + i + "] " + _fifos[i].size());
+        pw.println("Threads (" + _threads + (_useVirtualThreads ? ", virtual" : "")
+              + ") Queues (" + _fifos.size() + ")");
+        for (int i = 0; i < _fifos.size(); i++) {
+            int size = _fifos.get(i).size();
+            if (size > 0) {
+                pw.println("    [" + i + "] " + size);
+            }
         }
         pw.println();
         pw.println("Threads: "
-              + Arrays.stream(_fifos).mapToInt(BlockingQueue::size).sum());
+              + Arrays.stream(_fifos.queues()).mapToInt(BlockingQueue::size).sum());
         pw.println();
 
         pw.println("Statistics:");
@@ -622,10 +723,13 @@ public class PnfsManagerV3
               + "\n"
               + "\"folds\" is the message folding counts, labelled 'PnfsManagerV3.Folded'.\n"
               + "\n"
+              + "\"queues\" is the per-queue depth, wait and service time gauges, shown by\n"
+              + "the 'show queues' command.\n"
+              + "\n"
               + "\"all\" resets everything.\n"
               + "\n"
               + "If this option is not specified then \"all\" is assumed.",
-              values = {"calls", "folds", "all"})
+              values = {"calls", "folds", "queues", "all"})
         private String target;
 
         @Override
@@ -637,6 +741,7 @@ public class PnfsManagerV3
                 case "all":
                     _gauges.reset();
                     _foldedCounters.reset();
+                    resetQueueGauges();
                     break;
                 case "calls":
                     _gauges.reset();
@@ -644,6 +749,9 @@ public class PnfsManagerV3
                 case "folds":
                     _foldedCounters.reset();
                     break;
+                case "queues":
+                    resetQueueGauges();
+                    break;
                 default:
                     throw new CommandException("Unknown target \"" + target + "\".");
             }
@@ -651,6 +759,28 @@ public class PnfsManagerV3
         }
     }
 
+    private void resetQueueGauges() {
+        _queueDepthGauges.reset();
+        _queueWaitGauges.reset();
+        _queueServiceGauges.reset();
+    }
+
+    @Command(name = "show queues", hint = "show request queue statistics",
+          description = "Shows, for each request queue that has seen traffic, the number of"
+                + " requests waiting when a request is taken from the queue, the time requests"
+                + " spent waiting in the queue and the time spent processing them.  A queue with"
+                + " a large wait time compared to its service time suffers from head-of-line"
+                + " blocking.")
+    public class ShowQueuesCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            return _queueDepthGauges.toString("req") + "\n\n"
+                  + _queueWaitGauges + "\n\n"
+                  + _queueServiceGauges;
+        }
+    }
+
     @Command(name = "pnfsidof",
           hint = "find the Pnfs-Id of a file",
           description = "Print the Pnfs-Id of a file given by its absolute path.")
@@ -928,7 +1058,7 @@ public class PnfsManagerV3
             dumpThreadQueue(threadId);
             return "dumped";
         }
-        for (int threadId = 0; threadId < _fifos.length; ++threadId) {
+        for (int threadId = 0; threadId < _fifos.size(); ++threadId) {
             dumpThreadQueue(threadId);
         }
         return "dumped";
@@ -1696,10 +1826,10 @@ public class PnfsManagerV3
     }
 
     private void dumpThreadQueue(int queueId) {
-        if (queueId < 0 || queueId >= _fifos.length) {
+        if (queueId < 0 || queueId >= _fifos.size()) {
             throw new IllegalArgumentException(" illegal queue #" + queueId);
         }
-        BlockingQueue<CellMessage> fifo = _fifos[queueId];
+        BlockingQueue<CellMessage> fifo = _fifos.get(queueId);
         Object[] fifoContent = fifo.toArray();
 
         LOGGER.warn("PnfsManager thread #{} queue dump ({}):", queueId, fifoContent.length);
@@ -2170,6 +2300,12 @@ public class PnfsManagerV3
      * This filter collects entries and sends partial replies for the PnfsListDirectoryMessage when
      * a certain number of entries have been collected. The filter will not send the final reply
      * (the caller has to do that).
+     * <p>
+     * If the client requested flow control, a partial reply is only sent once the client has
+     * granted credit for it. Until then the filter blocks, bounding the number of replies the
+     * client has to buffer. A client that neither grants credit nor cancels the listing within
+     * the list credit timeout fails the listing. The timeout is independent of the lifetime of
+     * the request, as doors usually send list requests without a time limit.
      */
     private class ListHandlerImpl implements ListHandler {
 
@@ -2183,6 +2319,8 @@ public class PnfsManagerV3
         private long _deadline;
         private int _messageCount;
         private final BlockingQueue<CellMessage> _fifo;
+        private final Semaphore _credits;
+        private volatile boolean _isCancelled;
 
         public ListHandlerImpl(CellPath requestor, UOID uoid,
               PnfsListDirectoryMessage msg,
@@ -2201,6 +2339,44 @@ public class PnfsManagerV3
                         ? Long.MAX_VALUE
                         : System.currentTimeMillis() + initialDelay;
             _fifo = fifo;
+            _credits = (msg.getWindow() > 0) ? new Semaphore(msg.getWindow()) : null;
+        }
+
+        public boolean isFlowControlled() {
+            return _credits != null;
+        }
+
+        public void grant(int credits) {
+            _credits.release(credits);
+        }
+
+        public void cancel() {
+            _isCancelled = true;
+            _credits.release();
+        }
+
+        /**
+         * Blocks until the client has granted credit for another reply.
+         */
+        public void awaitCredit() throws CacheException {
+            if (_credits == null) {
+                return;
+            }
+            _listingsWaitingForCredit.incrementAndGet();
+            try {
+                if (!_credits.tryAcquire(_listCreditTimeout, _listCreditTimeoutUnit)) {
+                    throw new TimeoutCacheException(
+                          "Client did not consume listing of " + _directory + " in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TimeoutCacheException("Listing of " + _directory + " was interrupted");
+            } finally {
+                _listingsWaitingForCredit.decrementAndGet();
+            }
+            if (_isCancelled) {
+                throw new ListCancelledException(_directory);
+            }
         }
 
         private void sendPartialReply() {
@@ -2238,14 +2414,16 @@ public class PnfsManagerV3
         }
 
         @Override
-        public void addEntry(String name, FileAttributes attrs) {
+        public void addEntry(String name, FileAttributes attrs) throws CacheException {
             if (Subjects.isRoot(_subject)
                   || !_restriction.isRestricted(READ_METADATA, _directory, name, true)) {
                 long now = System.currentTimeMillis();
                 _msg.addEntry(name, attrs);
                 if (_msg.getEntries().size() >= _directoryListLimit ||
                       now > _deadline) {
+                    awaitCredit();
                     sendPartialReply();
+                    now = System.currentTimeMillis();
                     _deadline =
                           (_delay == Long.MAX_VALUE) ? Long.MAX_VALUE : now + _delay;
                 }
@@ -2257,12 +2435,25 @@ public class PnfsManagerV3
         }
     }
 
-    private void listDirectory(CellMessage envelope, PnfsListDirectoryMessage msg,
+    /**
+     * Thrown by a flow controlled listing that the client cancelled.
+     */
+    private static class ListCancelledException extends CacheException {
+
+        private static final long serialVersionUID = 1L;
+
+        ListCancelledException(FsPath directory) {
+            super("Listing of " + directory + " was cancelled");
+        }
+    }
+
+    void listDirectory(CellMessage envelope, PnfsListDirectoryMessage msg,
           BlockingQueue<CellMessage> fifo) {
         if (!msg.getReplyRequired()) {
             return;
         }
 
+        ListHandlerImpl handler = null;
         try {
             String path = msg.getPnfsPath();
 
@@ -2275,9 +2466,11 @@ public class PnfsManagerV3
                         ? Long.MAX_VALUE
                         : delay - envelope.getLocalAge();
             CellPath source = envelope.getSourcePath().revert();
-            ListHandlerImpl handler =
-                  new ListHandlerImpl(source, envelope.getUOID(),
-                        msg, initialDelay, delay, fifo);
+            handler = new ListHandlerImpl(source, envelope.getUOID(),
+                  msg, initialDelay, delay, fifo);
+            if (handler.isFlowControlled()) {
+                _flowControlledListings.put(msg.getUUID(), handler);
+            }
 
             if (msg.getPathType() == PnfsListDirectoryMessage.PathType.LABEL) {
                 _nameSpaceProvider.listVirtualDirectory(msg.getSubject(), path.substring(1),
@@ -2292,7 +2485,13 @@ public class PnfsManagerV3
                       msg.getRequestedAttributes(),
                       handler);
             }
+            if (!msg.getEntries().isEmpty()) {
+                handler.awaitCredit();
+            }
             msg.setSucceeded(handler.getMessageCount() + 1);
+        } catch (ListCancelledException e) {
+            LOGGER.debug(e.getMessage());
+            msg.setReplyRequired(false);
         } catch (FileNotFoundCacheException | NotDirCacheException e) {
             msg.setFailed(e.getRc(), e.getMessage());
         } catch (CacheException e) {
@@ -2302,6 +2501,10 @@ public class PnfsManagerV3
             LOGGER.error(e.toString(), e);
             msg.setFailed(CacheException.UNEXPECTED_SYSTEM_EXCEPTION,
                   e.getMessage());
+        } finally {
+            if (handler != null && handler.isFlowControlled()) {
+                _flowControlledListings.remove(msg.getUUID());
+            }
         }
     }
 
@@ -2387,17 +2590,14 @@ public class PnfsManagerV3
         }
     }
 
-    private class ProcessThread implements Runnable {
-
-        private final BlockingQueue<CellMessage> _fifo;
+    /**
+     * Base class for threads processing PnfsManager requests.
+     */
+    private abstract class AbstractProcessThread implements Runnable {
 
         private volatile CellMessage _activeMessage;
         private volatile Instant _whenStarted;
 
-        private ProcessThread(BlockingQueue<CellMessage> fifo) {
-            _fifo = fifo;
-        }
-
         public synchronized Optional<ActivityReport> getCurrentActivity() {
             if (_activeMessage == null) {
                 return Optional.empty();
@@ -2417,59 +2617,55 @@ public class PnfsManagerV3
             _whenStarted = null;
         }
 
-        @Override
-        public void run() {
+        /**
+         * Processes a message taken from {@code fifo}. Other messages in {@code fifo} may be
+         * folded into the reply.
+         */
+        protected void process(CellMessage message, BlockingQueue<CellMessage> fifo) {
+            CDC.setMessageContext(message);
             try {
-                for (CellMessage message = _fifo.take(); message != SHUTDOWN_SENTINEL;
-                      message = _fifo.take()) {
-                    CDC.setMessageContext(message);
-                    try {
-                        recordActivity(message);
+                recordActivity(message);
 
-                        /* Discard messages if we are close to their
-                         * timeout (within 10% of the TTL or 10 seconds,
-                         * whatever is smaller)
-                         */
-                        PnfsMessage pnfs = (PnfsMessage) message.getMessageObject();
-                        if (message.getLocalAge() > message.getAdjustedTtl() && useEarlyDiscard(
-                              pnfs)) {
-                            LOGGER.warn("Discarding {} because its time to live has been exceeded.",
-                                  pnfs.getClass().getSimpleName());
-                            sendTimeout(message, "TTL exceeded");
-                            continue;
-                        }
-                        if (!(pnfs instanceof PnfsListDirectoryMessage)) {
-                            processPnfsMessage(message, pnfs);
-                        } else {
-                            long ctime = System.currentTimeMillis();
-                            listDirectory(message, (PnfsListDirectoryMessage) pnfs, _fifo);
-                            long duration = System.currentTimeMillis() - ctime;
-                            _gauges.update(pnfs.getClass(), duration);
-                            if (_logSlowThreshold != THRESHOLD_DISABLED &&
-                                  duration > _logSlowThreshold) {
-                                LOGGER.warn("{} processed in {} ms", pnfs.getClass(), duration);
-                            } else {
-                                LOGGER.info("{} processed in {} ms", pnfs.getClass(), duration);
-                            }
-                            postProcessMessage(message, pnfs);
-                        }
-                        fold(pnfs);
-                    } catch (Throwable e) {
-                        LOGGER.warn("processPnfsMessage: {} : {}",
-                              Thread.currentThread().getName(), e);
-                    } finally {
-                        clearActivity();
-                        CDC.clearMessageContext();
+                /* Discard messages if we are close to their
+                 * timeout (within 10% of the TTL or 10 seconds,
+                 * whatever is smaller)
+                 */
+                PnfsMessage pnfs = (PnfsMessage) message.getMessageObject();
+                if (message.getLocalAge() > message.getAdjustedTtl() && useEarlyDiscard(
+                      pnfs)) {
+                    LOGGER.warn("Discarding {} because its time to live has been exceeded.",
+                          pnfs.getClass().getSimpleName());
+                    sendTimeout(message, "TTL exceeded");
+                    return;
+                }
+                if (!(pnfs instanceof PnfsListDirectoryMessage)) {
+                    processPnfsMessage(message, pnfs);
+                } else {
+                    long ctime = System.currentTimeMillis();
+                    listDirectory(message, (PnfsListDirectoryMessage) pnfs, fifo);
+                    long duration = System.currentTimeMillis() - ctime;
+                    _gauges.update(pnfs.getClass(), duration);
+                    if (_logSlowThreshold != THRESHOLD_DISABLED &&
+                          duration > _logSlowThreshold) {
+                        LOGGER.warn("{} processed in {} ms", pnfs.getClass(), duration);
+                    } else {
+                        LOGGER.info("{} processed in {} ms", pnfs.getClass(), duration);
                     }
+                    postProcessMessage(message, pnfs);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                fold(pnfs, fifo);
+            } catch (Throwable e) {
+                LOGGER.warn("processPnfsMessage: {} : {}",
+                      Thread.currentThread().getName(), e);
+            } finally {
+                clearActivity();
+                CDC.clearMessageContext();
             }
         }
 
-        protected void fold(PnfsMessage message) {
+        protected void fold(PnfsMessage message, BlockingQueue<CellMessage> fifo) {
             if (_canFold && message.getReturnCode() == 0) {
-                Iterator<CellMessage> i = _fifo.iterator();
+                Iterator<CellMessage> i = fifo.iterator();
                 while (i.hasNext()) {
                     CellMessage envelope = i.next();
                     PnfsMessage other =
@@ -2491,6 +2687,67 @@ public class PnfsManagerV3
         }
     }
 
+    /**
+     * Thread serving a single queue until SHUTDOWN_SENTINEL is taken from it.
+     */
+    private class ProcessThread extends AbstractProcessThread {
+
+        private final BlockingQueue<CellMessage> _fifo;
+
+        private ProcessThread(BlockingQueue<CellMessage> fifo) {
+            _fifo = fifo;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (CellMessage message = _fifo.take(); message != SHUTDOWN_SENTINEL;
+                      message = _fifo.take()) {
+                    process(message, _fifo);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Thread serving whichever of a set of queues next has pending work. Only one thread serves
+     * a given queue at any time, thus messages in the same queue are processed in order.
+     */
+    private class DispatchThread extends AbstractProcessThread {
+
+        private final WorkStealingQueues<CellMessage> _queues;
+
+        private DispatchThread(WorkStealingQueues<CellMessage> queues) {
+            _queues = queues;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int index = _queues.claim(); index >= 0; index = _queues.claim()) {
+                    try {
+                        BlockingQueue<CellMessage> fifo = _queues.get(index);
+                        CellMessage message = fifo.poll();
+                        if (message != null) {
+                            _queueDepthGauges.update(index, fifo.size());
+                            _queueWaitGauges.update(index, message.getLocalAge());
+                            long start = System.currentTimeMillis();
+                            process(message, fifo);
+                            _queueServiceGauges.update(index,
+                                  System.currentTimeMillis() - start);
+                        }
+                    } finally {
+                        _queues.release(index);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     /*
      *  ------------------------------------- QUOTA SYSTEM -------------------------------------
      */
@@ -2773,7 +3030,8 @@ public class PnfsManagerV3
 	if (!useParallelListing) {
 	    index = (int)(Math.abs((long)Objects.hashCode(path.toString())) % _listThreads);
 	}
-        BlockingQueue<CellMessage> queue = _listQueues[index];
+        BlockingQueue<CellMessage> queue =
+              (message.getWindow() > 0) ? _flowControlledListQueue : _listQueues[index];
 
         /**
          * Do counts only if maxListRequestsInQueue is enabled
@@ -2797,6 +3055,21 @@ public class PnfsManagerV3
         }
     }
 
+    /**
+     * Credit and cancellation of flow controlled listings bypass the queues, as the listing
+     * they refer to occupies a flow controlled list thread while waiting for them.
+     */
+    public void messageArrived(CellMessage envelope, PnfsListDirectoryCreditMessage message) {
+        ListHandlerImpl handler = _flowControlledListings.get(message.getUUID());
+        if (handler == null) {
+            LOGGER.debug("Ignoring {} for unknown listing", message);
+        } else if (message.isCancel()) {
+            handler.cancel();
+        } else {
+            handler.grant(message.getCredits());
+        }
+    }
+
     public void messageArrived(CellMessage envelope, PnfsMessage message)
           throws CacheException {
         PnfsId pnfsId = message.getPnfsId();
@@ -2804,7 +3077,7 @@ public class PnfsManagerV3
 
         int index;
         if (pnfsId != null) {
-            index = (int) (Math.abs((long) pnfsId.hashCode()) % _threads);
+            index = (int) (Math.abs((long) pnfsId.hashCode()) % _fifos.size());
             LOGGER.info("Using thread [{}] {}", pnfsId, index);
         } else if (path != null) {
             if (message instanceof PnfsCreateEntryMessage && useParentHashOnCreate) {
@@ -2812,18 +3085,18 @@ public class PnfsManagerV3
                     FsPath parentPath = FsPath.create(path).parent();
                     index = (int) (Math.abs((long) parentPath
                           .toString()
-                          .hashCode()) % _threads);
+                          .hashCode()) % _fifos.size());
                     LOGGER.info("Using parent hash to select thread [{}] {}", path, index);
                 } catch (IllegalStateException e) {
-                    index = (int) (Math.abs((long) path.hashCode()) % _threads);
+                    index = (int) (Math.abs((long) path.hashCode()) % _fifos.size());
                     LOGGER.info("Using thread [{}] {}", path, index);
                 }
             } else {
-                index = (int) (Math.abs((long) path.hashCode()) % _threads);
+                index = (int) (Math.abs((long) path.hashCode()) % _fifos.size());
                 LOGGER.info("Using thread [{}] {}", path, index);
             }
         } else {
-            index = _random.nextInt(_fifos.length);
+            index = _random.nextInt(_fifos.size());
             LOGGER.info("Using random thread {}", index);
         }
 
@@ -2831,7 +3104,7 @@ public class PnfsManagerV3
          * try to add a message into queue.
          * tell requester, that queue is full
          */
-        if (!_fifos[index].offer(envelope)) {
+        if (!_fifos.offer(index, envelope)) {
             throw new MissingResourceCacheException("PnfsManager queue limit exceeded");
         }
     }
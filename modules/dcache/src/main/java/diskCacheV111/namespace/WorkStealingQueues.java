@@ -0,0 +1,135 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package diskCacheV111.namespace;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed set of FIFO queues served by a shared pool of workers.
+ * <p>
+ * Each queue is served by at most one worker at a time, so elements added to the same queue are
+ * processed in the order in which they were added.  Unlike a one-thread-per-queue design, queues
+ * are not bound to a particular worker: an idle worker claims whichever queue next has pending
+ * work.  A slow element therefore only delays the elements queued behind it, not those of every
+ * other queue that happens to share a thread.
+ * <p>
+ * A worker {@link #claim claims} a queue, takes a single element from it and then
+ * {@link #release releases} the queue again; if more elements are pending the queue is put back
+ * at the end of the ready list.  While a queue is claimed the worker may freely inspect and
+ * remove elements from it (e.g., to fold requests).
+ */
+class WorkStealingQueues<E> {
+
+    private static final int SHUTDOWN = -1;
+
+    private final BlockingQueue<E>[] _queues;
+
+    /**
+     * Whether a queue is either on the ready list or claimed by a worker.
+     */
+    private final AtomicIntegerArray _scheduled;
+
+    /**
+     * Indices of queues with pending work that are not currently claimed.
+     */
+    private final BlockingQueue<Integer> _ready = new LinkedBlockingQueue<>();
+
+    /**
+     * @param count    number of queues
+     * @param capacity maximum number of elements per queue; zero or less for unbounded queues
+     */
+    @SuppressWarnings("unchecked")
+    WorkStealingQueues(int count, int capacity) {
+        checkArgument(count > 0, "Number of queues must be positive");
+        _queues = new BlockingQueue[count];
+        for (int i = 0; i < count; i++) {
+            _queues[i] = capacity > 0
+                  ? new LinkedBlockingQueue<>(capacity)
+                  : new LinkedBlockingQueue<>();
+        }
+        _scheduled = new AtomicIntegerArray(count);
+    }
+
+    public int size() {
+        return _queues.length;
+    }
+
+    public BlockingQueue<E> get(int index) {
+        return _queues[index];
+    }
+
+    public BlockingQueue<E>[] queues() {
+        return Arrays.copyOf(_queues, _queues.length);
+    }
+
+    /**
+     * Adds an element to a queue.
+     *
+     * @return false if the queue is full
+     */
+    public boolean offer(int index, E element) {
+        if (!_queues[index].offer(element)) {
+            return false;
+        }
+        schedule(index);
+        return true;
+    }
+
+    /**
+     * Blocks until some queue has pending work and claims it for the calling worker.  The caller
+     * must call {@link #release} once done with the queue.
+     *
+     * @return the index of the claimed queue, or a negative value if the worker should terminate
+     */
+    public int claim() throws InterruptedException {
+        return _ready.take();
+    }
+
+    /**
+     * Releases a queue claimed by {@link #claim}.
+     */
+    public void release(int index) {
+        _scheduled.set(index, 0);
+        /* An element added while the queue was claimed did not schedule the queue; do it now. */
+        if (!_queues[index].isEmpty()) {
+            schedule(index);
+        }
+    }
+
+    /**
+     * Causes {@code workers} calls to {@link #claim} to return a negative value once any
+     * currently ready queues have been claimed.
+     */
+    public void shutdown(int workers) {
+        for (int i = 0; i < workers; i++) {
+            _ready.add(SHUTDOWN);
+        }
+    }
+
+    private void schedule(int index) {
+        if (_scheduled.compareAndSet(index, 0, 1)) {
+            _ready.add(index);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package diskCacheV111.poolManager;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.pools.PoolCostInfo.NamedPoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolQueueInfo;
+import diskCacheV111.pools.PoolCostInfo.PoolSpaceInfo;
 import diskCacheV111.pools.PoolV2Mode;
 import diskCacheV111.vehicles.CostModulePoolInfoTable;
 import diskCacheV111.vehicles.PoolManagerPoolUpMessage;
@@ -19,7 +23,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
@@ -45,6 +52,12 @@ public class CostModuleV1
     private double _cachedPercentileCostCut;
     private double _cachedPercentileFraction;
 
+    /**
+     * Pools as included in the last delta, by pool name. Only used by the instance in pool
+     * manager.
+     */
+    private transient Map<String, Entry> _published;
+
     /**
      * Information about some specific pool.
      */
@@ -85,6 +98,45 @@ public class CostModuleV1
         }
     }
 
+    /**
+     * Changes to the cost module since the previous delta.
+     * <p>
+     * Pools whose cost information, tags or address changed are included in full. Pools from
+     * which only a heartbeat was received since the previous delta are included by name.
+     */
+    public static class Delta implements Serializable {
+
+        private static final long serialVersionUID = 3107209528475813497L;
+
+        private final List<PoolInfo> _changed;
+        private final List<String> _refreshed;
+        private final List<String> _removed;
+
+        public Delta(List<PoolInfo> changed, List<String> refreshed, List<String> removed) {
+            _changed = ImmutableList.copyOf(changed);
+            _refreshed = ImmutableList.copyOf(refreshed);
+            _removed = ImmutableList.copyOf(removed);
+        }
+
+        public List<PoolInfo> getChanged() {
+            return _changed;
+        }
+
+        public List<String> getRefreshed() {
+            return _refreshed;
+        }
+
+        public List<String> getRemoved() {
+            return _removed;
+        }
+
+        @Override
+        public String toString() {
+            return "changed=" + _changed.size() + ";refreshed=" + _refreshed.size()
+                  + ";removed=" + _removed.size();
+        }
+    }
+
     public synchronized void messageArrived(CellMessage envelope, PoolManagerPoolUpMessage msg) {
         CellAddressCore poolAddress = envelope.getSourceAddress();
         String poolName = msg.getPoolName();
@@ -352,6 +404,128 @@ public class CostModuleV1
         return map;
     }
 
+    /**
+     * Returns the changes since the previous call of this method. The first call includes all
+     * pools.
+     * <p>
+     * Every heartbeat of a pool replaces its entry, but most heartbeats report the same
+     * information as the previous one. A pool is therefore only included in full if its entry
+     * differs in content from the one included in the previous delta.
+     */
+    public synchronized Delta delta() {
+        if (_published == null) {
+            _published = new HashMap<>();
+        }
+
+        List<PoolInfo> changed = new ArrayList<>();
+        List<String> refreshed = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : _hash.entrySet()) {
+            Entry entry = e.getValue();
+            Entry previous = _published.put(e.getKey(), entry);
+            if (previous == null || !isSame(previous, entry)) {
+                changed.add(entry.getPoolInfo());
+            } else if (previous != entry) {
+                refreshed.add(e.getKey());
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        Iterator<String> names = _published.keySet().iterator();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!_hash.containsKey(name)) {
+                removed.add(name);
+                names.remove();
+            }
+        }
+        return new Delta(changed, refreshed, removed);
+    }
+
+    /**
+     * Applies a delta obtained from the instance in pool manager to this copy of the cost
+     * module. Pools included in the delta are considered to have sent a heartbeat now.
+     */
+    public synchronized void apply(Delta delta) {
+        for (PoolInfo info : delta.getChanged()) {
+            _hash.put(info.getName(),
+                  new Entry(info.getAddress(), info.getCostInfo(), info.getTags()));
+        }
+        for (String name : delta.getRefreshed()) {
+            Entry entry = _hash.get(name);
+            if (entry != null) {
+                _hash.put(name, new Entry(entry._address, entry._info, entry._tagMap));
+            }
+        }
+        for (String name : delta.getRemoved()) {
+            _hash.remove(name);
+        }
+        _cachedPercentileCostCutIsValid = false;
+    }
+
+    /**
+     * Returns a copy of this cost module. The entries of the pools are shared, as they are
+     * replaced rather than modified when a pool reports.
+     */
+    public synchronized CostModuleV1 copy() {
+        CostModuleV1 copy = new CostModuleV1();
+        copy._hash.putAll(_hash);
+        return copy;
+    }
+
+    private static boolean isSame(Entry a, Entry b) {
+        return Objects.equals(a._address, b._address)
+              && a._tagMap.equals(b._tagMap)
+              && isSame(a._info, b._info);
+    }
+
+    private static boolean isSame(PoolCostInfo a, PoolCostInfo b) {
+        return a.getMoverCostFactor() == b.getMoverCostFactor()
+              && a.getDefaultQueueName().equals(b.getDefaultQueueName())
+              && isSame(a.getSpaceInfo(), b.getSpaceInfo())
+              && isSame(a.getStoreQueue(), b.getStoreQueue())
+              && isSame(a.getRestoreQueue(), b.getRestoreQueue())
+              && isSame(a.getP2pQueue(), b.getP2pQueue())
+              && isSame(a.getP2pClientQueue(), b.getP2pClientQueue())
+              && isSame(a.getExtendedMoverHash(), b.getExtendedMoverHash());
+    }
+
+    private static boolean isSame(Map<String, NamedPoolQueueInfo> a,
+          Map<String, NamedPoolQueueInfo> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, NamedPoolQueueInfo> e : a.entrySet()) {
+            if (!isSame(e.getValue(), b.get(e.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSame(PoolQueueInfo a, PoolQueueInfo b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getActive() == b.getActive()
+              && a.getMaxActive() == b.getMaxActive()
+              && a.getQueued() == b.getQueued()
+              && a.getReaders() == b.getReaders()
+              && a.getWriters() == b.getWriters();
+    }
+
+    private static boolean isSame(PoolSpaceInfo a, PoolSpaceInfo b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getTotalSpace() == b.getTotalSpace()
+              && a.getFreeSpace() == b.getFreeSpace()
+              && a.getPreciousSpace() == b.getPreciousSpace()
+              && a.getRemovableSpace() == b.getRemovableSpace()
+              && a.getLRUSeconds() == b.getLRUSeconds()
+              && a.getGap() == b.getGap()
+              && a.getBreakEven() == b.getBreakEven();
+    }
+
     private synchronized void writeObject(ObjectOutputStream stream) throws IOException {
         stream.defaultWriteObject();
     }
@@ -58,6 +58,7 @@ import org.dcache.alarms.PredefinedAlarm;
 import org.dcache.cells.CellStub;
 import org.dcache.poolmanager.PoolInfo;
 import org.dcache.poolmanager.PoolLinkGroupInfo;
+import org.dcache.poolmanager.PoolMonitorUpdate;
 import org.dcache.poolmanager.PoolSelector;
 import org.dcache.poolmanager.SelectedPool;
 import org.dcache.poolmanager.SerializablePoolMonitor;
@@ -84,6 +85,7 @@ public class PoolManagerV5
     private CostModule _costModule;
     private CellStub _poolStatusTopic;
     private CellStub _poolMonitorTopic;
+    private CellStub _poolMonitorDeltaTopic;
     private PnfsHandler _pnfsHandler;
 
     private RequestContainerV5 _requestContainer;
@@ -143,6 +145,11 @@ public class PoolManagerV5
         _poolMonitorTopic = stub;
     }
 
+    @Required
+    public void setPoolMonitorDeltaTopic(CellStub stub) {
+        _poolMonitorDeltaTopic = stub;
+    }
+
     @Required
     public void setPoolMonitorUpdatePeriod(long period) {
         _poolMonitorUpdatePeriod = period;
@@ -273,16 +280,31 @@ public class PoolManagerV5
         }
     }
 
+    /**
+     * Publishes the pool monitor.
+     * <p>
+     * The complete pool monitor is published on the pool monitor topic. Versioned updates are
+     * published on the pool monitor delta topic. Changes to the setup or to the state of a pool
+     * trigger an update that includes the pool selection unit and the partition manager; other
+     * updates only include the changes to the cost module.
+     */
     private class PoolMonitorThread extends Thread {
 
         private boolean isChanged;
 
         private final RateLimiter limiter = RateLimiter.create(_poolMonitorMaxUpdatesPerSecond);
 
+        private final long epoch = System.currentTimeMillis();
+
+        private long version;
+
+        private PoolMonitorUpdate lastUpdate;
+
         @Override
         public void run() {
             try {
                 limiter.acquire();
+                boolean isStructural = true;
                 while (!Thread.interrupted()) {
                     if (LOGGER.isDebugEnabled()) { // For RT 9250.
                         if (_poolMonitor.getPoolSelectionUnit().getLinkGroups().isEmpty()) {
@@ -290,18 +312,47 @@ public class PoolManagerV5
                         }
                     }
                     _poolMonitorTopic.notify(_poolMonitor);
-                    waitUntilNextUpdate();
+                    _poolMonitorDeltaTopic.notify(nextUpdate(isStructural));
+                    isStructural = waitUntilNextUpdate();
                     limiter.acquire();
                 }
             } catch (InterruptedException ignored) {
             }
         }
 
-        protected synchronized void waitUntilNextUpdate() throws InterruptedException {
+        private synchronized PoolMonitorUpdate nextUpdate(boolean isStructural) {
+            version++;
+            lastUpdate = new PoolMonitorUpdate(epoch, version,
+                  _poolMonitorUpdatePeriodUnit.toMillis(_poolMonitorUpdatePeriod),
+                  isStructural ? _poolMonitor.getPoolSelectionUnit() : null,
+                  isStructural ? _poolMonitor.getPartitionManager() : null,
+                  ((CostModuleV1) _poolMonitor.getCostModule()).delta());
+            return lastUpdate;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public synchronized long getVersion() {
+            return version;
+        }
+
+        public synchronized PoolMonitorUpdate getLastUpdate() {
+            return lastUpdate;
+        }
+
+        /**
+         * Waits until the next update is due and returns whether the setup or the state of a
+         * pool changed.
+         */
+        protected synchronized boolean waitUntilNextUpdate() throws InterruptedException {
             if (!isChanged) {
                 _poolMonitorUpdatePeriodUnit.timedWait(this, _poolMonitorUpdatePeriod);
             }
+            boolean changed = isChanged;
             isChanged = false;
+            return changed;
         }
 
         public synchronized void onChange() {
@@ -358,6 +409,11 @@ public class PoolManagerV5
         pw.println("Message counts");
         pw.println("           PoolUp : " + _counterPoolUp);
         pw.println("         Watchdog : " + _watchdog);
+        pw.println("PoolMonitor updates");
+        pw.println("            Epoch : " + _poolMonitorThread.getEpoch());
+        pw.println("          Version : " + _poolMonitorThread.getVersion());
+        PoolMonitorUpdate lastUpdate = _poolMonitorThread.getLastUpdate();
+        pw.println("      Last update : " + (lastUpdate == null ? "none" : lastUpdate));
     }
 
     public static final String hh_set_max_threads = "# OBSOLETE";
@@ -666,6 +722,7 @@ public class PoolManagerV5
     public PoolManagerGetPoolMonitor
     messageArrived(PoolManagerGetPoolMonitor msg) {
         msg.setPoolMonitor(_poolMonitor);
+        msg.setVersion(_poolMonitorThread.getEpoch(), _poolMonitorThread.getVersion());
         msg.setSucceeded();
         return msg;
     }
@@ -42,6 +42,7 @@ import org.dcache.poolmanager.CostException;
 import org.dcache.poolmanager.Partition;
 import org.dcache.poolmanager.PartitionManager;
 import org.dcache.poolmanager.PoolInfo;
+import org.dcache.poolmanager.PoolMonitorUpdate;
 import org.dcache.poolmanager.PoolSelector;
 import org.dcache.poolmanager.SelectedPool;
 import org.dcache.poolmanager.SerializablePoolMonitor;
@@ -98,6 +99,42 @@ public class PoolMonitorV5
         _partitionManager = partitionManager;
     }
 
+    /**
+     * Returns a pool monitor with the given update applied to this pool monitor.
+     * <p>
+     * This pool monitor is not modified, except that unless the update contains a new pool
+     * selection unit, the pools included in the cost update are marked as active in the pool
+     * selection unit shared by both. This only refreshes the volatile heartbeat time of these
+     * pools, as heartbeats do in the pool selection unit of pool manager, and is thus safe for
+     * pool selectors of either monitor. The cost module is copied before the update is applied.
+     */
+    public PoolMonitorV5 apply(PoolMonitorUpdate update) {
+        if (!(_costModule instanceof CostModuleV1)) {
+            throw new IllegalStateException("Cost module does not support updates.");
+        }
+        CostModuleV1 costModule = ((CostModuleV1) _costModule).copy();
+        costModule.apply(update.getCosts());
+
+        PoolSelectionUnit selectionUnit = update.getPoolSelectionUnit();
+        if (selectionUnit == null) {
+            selectionUnit = _selectionUnit;
+            Stream.concat(update.getCosts().getChanged().stream().map(PoolInfo::getName),
+                        update.getCosts().getRefreshed().stream())
+                  .map(selectionUnit::getPool)
+                  .filter(Objects::nonNull)
+                  .forEach(pool -> pool.setActive(true));
+        }
+        PartitionManager partitionManager = update.getPartitionManager();
+
+        PoolMonitorV5 monitor = new PoolMonitorV5();
+        monitor.setPoolSelectionUnit(selectionUnit);
+        monitor.setCostModule(costModule);
+        monitor.setPartitionManager(
+              partitionManager == null ? _partitionManager : partitionManager);
+        monitor.setEnableLinkFallback(_enableLinkFallback);
+        return monitor;
+    }
+
     @Override
     public PoolSelector getPoolSelector(FileAttributes fileAttributes,
           ProtocolInfo protocolInfo,
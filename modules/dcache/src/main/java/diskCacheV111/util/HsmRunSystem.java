@@ -25,7 +25,21 @@ public class HsmRunSystem extends RunSystem {
 
     public String execute() throws IOException, CacheException {
         go();
-        int returnCode = getExitValue();
+        checkExitValue(storageName, getExitValue(), getErrorString());
+        return getOutputString();
+    }
+
+    /**
+     * Translates the return code of an HSM integration script to an exception, raising an alarm
+     * for failures other than requests to retry.
+     *
+     * @param storageName name of the nearline storage the script was called for
+     * @param returnCode  the return code reported by the script
+     * @param error       error output of the script
+     * @throws CacheException if the return code is non-zero
+     */
+    public static void checkExitValue(String storageName, int returnCode, String error)
+          throws CacheException {
         try {
             switch (returnCode) {
                 case 0:
@@ -33,20 +47,20 @@ public class HsmRunSystem extends RunSystem {
                 case 71:
                     throw new CacheException(CacheException.HSM_DELAY_ERROR,
                           "HSM script failed (script reported 71: "
-                                + getErrorString() + ")");
+                                + error + ")");
                 case 72:
                     throw new InProgressCacheException(72,
                           "HSM script requested retry (script reported 72: "
-                                + getErrorString() + ")");
+                                + error + ")");
                 case 143:
                     throw new TimeoutCacheException(
                           "HSM script was killed (script reported 143: "
-                                + getErrorString() + ")");
+                                + error + ")");
                 default:
                     throw new CacheException(returnCode,
                           "HSM script failed (script reported: "
                                 + returnCode + ": "
-                                + getErrorString() + ")");
+                                + error + ")");
             }
         } catch (InProgressCacheException e) {
             throw e;
@@ -54,14 +68,13 @@ public class HsmRunSystem extends RunSystem {
             LOGGER.error(AlarmMarkerFactory.getMarker(PredefinedAlarm.HSM_SCRIPT_FAILURE,
                         NetworkUtils.getCanonicalHostName(),
                         storageName,
-                        extractPossibleEnstoreIds(getErrorString())),
+                        extractPossibleEnstoreIds(error)),
                   e.getMessage());
             throw e;
         }
-        return getOutputString();
     }
 
-    private String extractPossibleEnstoreIds(String error) {
+    private static String extractPossibleEnstoreIds(String error) {
         StringBuilder ids = new StringBuilder();
 
         /*
@@ -8,6 +8,13 @@ public class PoolManagerGetPoolMonitor extends PoolManagerMessage {
 
     private SerializablePoolMonitor _poolMonitor;
 
+    /**
+     * Epoch and version of the last update published by pool manager before the pool monitor
+     * was obtained, or zero if pool manager does not publish updates.
+     */
+    private long _epoch;
+    private long _version;
+
     public PoolManagerGetPoolMonitor() {
     }
 
@@ -18,6 +25,19 @@ public class PoolManagerGetPoolMonitor extends PoolManagerMessage {
     public SerializablePoolMonitor getPoolMonitor() {
         return _poolMonitor;
     }
+
+    public void setVersion(long epoch, long version) {
+        _epoch = epoch;
+        _version = version;
+    }
+
+    public long getEpoch() {
+        return _epoch;
+    }
+
+    public long getVersion() {
+        return _version;
+    }
 }
 
 
@@ -1,7 +1,5 @@
 package org.dcache.pool.classic;
 
-import static java.util.Comparator.naturalOrder;
-
 import com.google.common.base.Preconditions;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FileNotInCacheException;
@@ -19,18 +17,18 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.Predicate;
+import javax.annotation.concurrent.GuardedBy;
 
 import org.dcache.namespace.FileAttribute;
 import org.dcache.pool.PoolDataBeanProvider;
 import org.dcache.pool.classic.json.SweeperData;
+import org.dcache.pool.classic.sweeper.EvictionPolicy;
+import org.dcache.pool.classic.sweeper.EvictionPolicyType;
 import org.dcache.pool.repository.Account;
 import org.dcache.pool.repository.CacheEntry;
 import org.dcache.pool.repository.EntryChangeEvent;
@@ -56,7 +54,15 @@ public class SpaceSweeper2
     private static final DateTimeFormatter ISO8601_FORMAT =
           DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneId.systemDefault());
 
-    private final LruQueue<PnfsId> _queue = new LruQueue<>();
+    private EvictionPolicyType _policyType = EvictionPolicyType.LRU;
+    private volatile EvictionPolicy _policy = _policyType.createPolicy();
+
+    /**
+     * Replicas the sweeper is removing to reclaim space. The eviction is reported to the policy
+     * when the removal is notified, as the policy stops tracking the replica at that point.
+     */
+    @GuardedBy("this")
+    private final Set<PnfsId> _evicting = new HashSet<>();
 
     private Repository _repository;
 
@@ -69,6 +75,7 @@ public class SpaceSweeper2
 
     public void printSetup(PrintWriter pw) {
         pw.println("sweeper reclaim margin " + _margin);
+        pw.println("sweeper set policy " + _policyType.getName());
     }
 
     @Required
@@ -91,6 +98,24 @@ public class SpaceSweeper2
         _margin = margin;
     }
 
+    /**
+     * Sets the eviction policy. Replicas tracked by the current policy are carried over to the new
+     * policy, although access counts gathered so far are lost.
+     */
+    public synchronized void setPolicy(String name) {
+        EvictionPolicyType type = EvictionPolicyType.forName(name);
+        if (type != _policyType) {
+            EvictionPolicy policy = type.createPolicy();
+            _policy.copyTo(policy);
+            _policy = policy;
+            _policyType = type;
+        }
+    }
+
+    public synchronized String getPolicy() {
+        return _policyType.getName();
+    }
+
     public void start() {
         _thread = new Thread(this, "sweeper");
         _thread.start();
@@ -115,19 +140,12 @@ public class SpaceSweeper2
         return _margin;
     }
 
-    /**
-     * Returns the pnfsid of the eldest removable entry.
-     */
-    private synchronized PnfsId getEldest() {
-        return _queue.getLeastRecentlyUsedElement();
-    }
-
     /**
      * Returns the last access time of the eldest removable entry.
      */
     @Override
     public long getLru() {
-        return _queue.getTimeOfLeastRecentlyUsedElement();
+        return _policy.getTimeOfLeastRecentlyUsed();
     }
 
     /**
@@ -142,7 +160,7 @@ public class SpaceSweeper2
         }
 
         PnfsId id = entry.getPnfsId();
-        if (_queue.add(id, entry.getLastAccessTime())) {
+        if (_policy.add(id, entry.getReplicaSize(), entry.getLastAccessTime())) {
             LOGGER.debug("Added {} to sweeper", id);
             /* The sweeper thread may be waiting for more files to
              * delete.
@@ -156,7 +174,7 @@ public class SpaceSweeper2
      */
     private synchronized boolean remove(CacheEntry entry) {
         PnfsId id = entry.getPnfsId();
-        if (_queue.remove(id)) {
+        if (_policy.remove(id)) {
             LOGGER.debug("Removed {} from sweeper", id);
             return true;
         }
@@ -168,6 +186,12 @@ public class SpaceSweeper2
         CacheEntry entry = event.getNewEntry();
         switch (event.getNewState()) {
             case REMOVED:
+                if (_evicting.remove(entry.getPnfsId())) {
+                    _policy.evict(entry.getPnfsId());
+                }
+                remove(entry);
+                break;
+
             case DESTROYED:
                 remove(entry);
                 break;
@@ -195,8 +219,33 @@ public class SpaceSweeper2
     @Override
     public synchronized void accessTimeChanged(EntryChangeEvent event) {
         CacheEntry entry = event.getNewEntry();
-        if (remove(entry)) {
-            add(entry);
+        _policy.access(entry.getPnfsId(), entry.getLastAccessTime());
+    }
+
+    @AffectsSetup
+    @Command(name = "sweeper set policy",
+          hint = "set the eviction policy",
+          description = "Sets the order in which removable files are deleted "
+                + "when the sweeper reclaims space. Valid policies are:\n\n"
+                + "    lru   least recently used files first.\n"
+                + "    slru  segmented LRU: files read only once since becoming "
+                + "removable before files read repeatedly.\n"
+                + "    gdsf  greedy-dual-size-frequency: large files read "
+                + "rarely first.\n"
+                + "    arc   adaptive replacement: adapts between lru and "
+                + "slru-like behaviour based on files that are read again "
+                + "shortly after having been deleted.\n\n"
+                + "Access counts are not persistent and are reset when the "
+                + "policy is changed or the pool is restarted.")
+    public class SweeperSetPolicyCommand implements Callable<String> {
+
+        @Argument(valueSpec = "lru|slru|gdsf|arc")
+        String policy;
+
+        @Override
+        public String call() {
+            setPolicy(policy);
+            return "Eviction policy is now " + getPolicy() + ".";
         }
     }
 
@@ -287,9 +336,7 @@ public class SpaceSweeper2
               throws CacheException, InterruptedException {
             StringBuilder sb = new StringBuilder();
             List<PnfsId> list;
-            synchronized (SpaceSweeper2.this) {
-                list = _queue.values();
-            }
+            list = _policy.victims();
             int i = 0;
             for (PnfsId id : list) {
                 try {
@@ -331,35 +378,27 @@ public class SpaceSweeper2
               SweeperData.createUnconfiguredLastAccessHistogram();
 
         SweeperData info = new SweeperData(histogram);
-        info.setLabel("Space Sweeper v2");
+        info.setLabel("Space Sweeper v2 (" + getPolicy() + ")");
         info.setMargin(_margin);
 
-        List<PnfsId> list;
-
-        synchronized (this) {
-            list = _queue.values();
-            info.setLruQueueSize(_queue.values().size());
-            info.setLruTimestamp(System.currentTimeMillis() - getLru());
-        }
+        EvictionPolicy policy = _policy;
+        List<Long> list = policy.getLastAccessTimes();
+        info.setLruQueueSize(list.size());
+        info.setLruTimestamp(System.currentTimeMillis() - policy.getTimeOfLeastRecentlyUsed());
 
         List<Double> fileLifetime = new ArrayList<>();
         long now = System.currentTimeMillis();
 
-        for (PnfsId id : list) {
-            Long lastAccess = _queue.timeStamps.get(id);
-            if (lastAccess == null) {
-                continue;
-            }
+        for (long lastAccess : list) {
             long lvalue = now - lastAccess;
             if (lvalue < 0L) {
                 now = System.currentTimeMillis();
                 lvalue = now - lastAccess;
                 if (lvalue < 0L) {
-                    LOGGER.warn("repository last access time for {}"
-                                + " is later than current "
-                                + "system time - now {}, "
+                    LOGGER.warn("repository last access time is later than "
+                                + "current system time - now {}, "
                                 + "last access {}",
-                          id, now, lastAccess);
+                          now, lastAccess);
                 }
             }
             fileLifetime.add((double) lvalue);
@@ -425,7 +464,8 @@ public class SpaceSweeper2
         /* We copy the entries into a tmp list to avoid
          * ConcurrentModificationException.
          */
-        List<PnfsId> tmpList = _queue.values();
+        EvictionPolicy policy = _policy;
+        List<PnfsId> tmpList = policy.victims();
 
         /* Delete the files.
          */
@@ -452,7 +492,17 @@ public class SpaceSweeper2
 
                 long size = entry.getReplicaSize();
                 LOGGER.debug("Sweeper removes {}.", id);
-                _repository.setState(id, ReplicaState.REMOVED, why);
+                synchronized (this) {
+                    _evicting.add(id);
+                }
+                try {
+                    _repository.setState(id, ReplicaState.REMOVED, why);
+                } catch (CacheException | RuntimeException e) {
+                    synchronized (this) {
+                        _evicting.remove(id);
+                    }
+                    throw e;
+                }
                 deleted += size;
             } catch (IllegalTransitionException | FileNotInCacheException e) {
                 /* Normal if file got removed just as we wanted to
@@ -520,64 +570,4 @@ public class SpaceSweeper2
             _repository.removeListener(this);
         }
     }
-
-    /**
-     * Queue of keys ordered by a timestamp.
-     */
-    private static class LruQueue<T extends Comparable<T>> {
-
-        /**
-         * Tracks the time stamp of each element in the queue.
-         */
-        private final Map<T, Long> timeStamps = new HashMap<>();
-
-        /**
-         * Elements sorted by access time and value.
-         * <p>
-         * The comparator uses {@code timeStamps} to look up the time of keys. A compound comparator
-         * is used to ensure consistency with equals (otherwise two keys with the same time would be
-         * collapsed to a single element in the set).
-         * <p>
-         * Any element inserted into this set must have its access time recorded in {@code
-         * timeStamps} before being inserted into the set. The time must not change while the key is
-         * in the set.
-         */
-        private final SortedSet<T> queue =
-              new TreeSet<>(Comparator.<T, Long>comparing(k -> timeStamps.getOrDefault(k, 0L))
-                    .thenComparing(naturalOrder()));
-
-        public synchronized boolean add(T key, long time) {
-            if (timeStamps.putIfAbsent(key, time) == null) {
-                queue.add(key);
-                return true;
-            }
-            return false;
-        }
-
-        public synchronized boolean remove(T key) {
-            if (queue.remove(key)) {
-                timeStamps.remove(key);
-                return true;
-            }
-            return false;
-        }
-
-        public synchronized T getLeastRecentlyUsedElement() {
-            if (queue.isEmpty()) {
-                return null;
-            }
-            return queue.first();
-        }
-
-        public synchronized long getTimeOfLeastRecentlyUsedElement() {
-            if (queue.isEmpty()) {
-                return 0;
-            }
-            return timeStamps.get(queue.first());
-        }
-
-        public synchronized List<T> values() {
-            return new ArrayList<>(queue);
-        }
-    }
 }
@@ -0,0 +1,174 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import diskCacheV111.util.PnfsId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Base class for eviction policies.
+ * <p>
+ * Keeps track of the size, last access time and number of accesses of every replica, as well as
+ * of the least recently used replica. Subclasses maintain their own eviction order by
+ * implementing {@link #link} and {@link #unlink}. A replica is always unlinked before any of its
+ * fields are modified and linked again afterwards, so subclasses may order replicas by any of
+ * those fields.
+ */
+public abstract class AbstractEvictionPolicy implements EvictionPolicy {
+
+    /**
+     * Orders replicas by last access time, using the PNFS ID to break ties.
+     */
+    protected static final Comparator<Replica> BY_ACCESS_TIME =
+          Comparator.<Replica>comparingLong(r -> r.lastAccessTime).thenComparing(r -> r.id);
+
+    protected static class Replica {
+
+        protected final PnfsId id;
+        protected final long size;
+        protected long lastAccessTime;
+
+        /**
+         * Number of accesses since the replica became removable.
+         */
+        protected long hits;
+
+        /**
+         * Policy specific state.
+         */
+        protected int segment;
+        protected double priority;
+
+        protected Replica(PnfsId id, long size, long lastAccessTime) {
+            this.id = id;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    @GuardedBy("this")
+    protected final Map<PnfsId, Replica> replicas = new HashMap<>();
+
+    @GuardedBy("this")
+    protected final NavigableSet<Replica> byAccessTime = new TreeSet<>(BY_ACCESS_TIME);
+
+    @Override
+    public synchronized boolean add(PnfsId id, long size, long lastAccessTime) {
+        if (replicas.containsKey(id)) {
+            return false;
+        }
+        Replica replica = new Replica(id, size, lastAccessTime);
+        replicas.put(id, replica);
+        byAccessTime.add(replica);
+        added(replica);
+        link(replica);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(PnfsId id) {
+        Replica replica = replicas.remove(id);
+        if (replica == null) {
+            return false;
+        }
+        byAccessTime.remove(replica);
+        unlink(replica);
+        return true;
+    }
+
+    @Override
+    public synchronized void access(PnfsId id, long lastAccessTime) {
+        Replica replica = replicas.get(id);
+        if (replica != null) {
+            byAccessTime.remove(replica);
+            unlink(replica);
+            replica.lastAccessTime = lastAccessTime;
+            replica.hits++;
+            byAccessTime.add(replica);
+            link(replica);
+        }
+    }
+
+    @Override
+    public synchronized void evict(PnfsId id) {
+        Replica replica = replicas.get(id);
+        if (replica != null) {
+            evicted(replica);
+        }
+    }
+
+    @Override
+    public synchronized long getTimeOfLeastRecentlyUsed() {
+        return byAccessTime.isEmpty() ? 0 : byAccessTime.first().lastAccessTime;
+    }
+
+    @Override
+    public synchronized List<Long> getLastAccessTimes() {
+        List<Long> times = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas.values()) {
+            times.add(replica.lastAccessTime);
+        }
+        return times;
+    }
+
+    @Override
+    public synchronized int size() {
+        return replicas.size();
+    }
+
+    @Override
+    public synchronized void copyTo(EvictionPolicy policy) {
+        for (Replica replica : byAccessTime) {
+            policy.add(replica.id, replica.size, replica.lastAccessTime);
+        }
+    }
+
+    /**
+     * Called when a replica starts being tracked, before it is linked for the first time.
+     */
+    @GuardedBy("this")
+    protected void added(Replica replica) {
+    }
+
+    /**
+     * Called when the sweeper is about to evict a replica.
+     */
+    @GuardedBy("this")
+    protected void evicted(Replica replica) {
+    }
+
+    /**
+     * Adds a replica to the eviction order of the policy.
+     */
+    @GuardedBy("this")
+    protected abstract void link(Replica replica);
+
+    /**
+     * Removes a replica from the eviction order of the policy.
+     */
+    @GuardedBy("this")
+    protected abstract void unlink(Replica replica);
+}
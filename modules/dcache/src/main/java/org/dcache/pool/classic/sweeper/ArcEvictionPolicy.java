@@ -0,0 +1,169 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import diskCacheV111.util.PnfsId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Adaptive replacement in the style of ARC.
+ * <p>
+ * Removable replicas are kept in two lists: one for replicas that have not been accessed since
+ * they became removable and one for replicas that have. The policy remembers the IDs of recently
+ * evicted replicas in two ghost lists. When a replica that was recently evicted from the first
+ * list is written or staged again, the target size of the first list grows; when one that was
+ * evicted from the second list returns, the target shrinks. Replicas are evicted from the first
+ * list while it is larger than its target, and from the second list otherwise. This lets the
+ * pool adapt between recency and frequency driven workloads.
+ * <p>
+ * Unlike ARC, sizes are measured in bytes and the cache size is taken to be the removable space
+ * of the pool, as precious and sticky replicas are not subject to eviction.
+ */
+public class ArcEvictionPolicy extends AbstractEvictionPolicy {
+
+    private static final int RECENT = 0;
+    private static final int FREQUENT = 1;
+
+    @GuardedBy("this")
+    private final NavigableSet<Replica> recent = new TreeSet<>(BY_ACCESS_TIME);
+
+    @GuardedBy("this")
+    private final NavigableSet<Replica> frequent = new TreeSet<>(BY_ACCESS_TIME);
+
+    @GuardedBy("this")
+    private final Map<PnfsId, Long> recentGhosts = new LinkedHashMap<>();
+
+    @GuardedBy("this")
+    private final Map<PnfsId, Long> frequentGhosts = new LinkedHashMap<>();
+
+    @GuardedBy("this")
+    private long recentBytes;
+
+    @GuardedBy("this")
+    private long frequentBytes;
+
+    @GuardedBy("this")
+    private long recentGhostBytes;
+
+    @GuardedBy("this")
+    private long frequentGhostBytes;
+
+    /**
+     * Target size in bytes of the list of replicas not accessed since becoming removable.
+     */
+    @GuardedBy("this")
+    private long target;
+
+    @Override
+    public synchronized List<PnfsId> victims() {
+        List<PnfsId> victims = new ArrayList<>(replicas.size());
+        Iterator<Replica> r = recent.iterator();
+        Iterator<Replica> f = frequent.iterator();
+        long remaining = recentBytes;
+        while (r.hasNext() || f.hasNext()) {
+            if (r.hasNext() && (remaining > target || !f.hasNext())) {
+                Replica replica = r.next();
+                remaining -= replica.size;
+                victims.add(replica.id);
+            } else {
+                victims.add(f.next().id);
+            }
+        }
+        return victims;
+    }
+
+    @Override
+    protected void added(Replica replica) {
+        long capacity = recentBytes + frequentBytes + replica.size;
+        Long size = recentGhosts.remove(replica.id);
+        if (size != null) {
+            recentGhostBytes -= size;
+            long delta = Math.max(frequentGhostBytes / Math.max(recentGhostBytes, 1), 1);
+            target = Math.min(capacity, target + delta * replica.size);
+            replica.segment = FREQUENT;
+            return;
+        }
+        size = frequentGhosts.remove(replica.id);
+        if (size != null) {
+            frequentGhostBytes -= size;
+            long delta = Math.max(recentGhostBytes / Math.max(frequentGhostBytes, 1), 1);
+            target = Math.max(0, target - delta * replica.size);
+            replica.segment = FREQUENT;
+        }
+    }
+
+    @Override
+    protected void evicted(Replica replica) {
+        if (replica.segment == RECENT) {
+            recentGhosts.put(replica.id, replica.size);
+            recentGhostBytes += replica.size;
+        } else {
+            frequentGhosts.put(replica.id, replica.size);
+            frequentGhostBytes += replica.size;
+        }
+
+        long capacity = recentBytes + frequentBytes;
+        while (recentGhostBytes + frequentGhostBytes > capacity) {
+            if (recentGhostBytes >= frequentGhostBytes) {
+                recentGhostBytes -= removeEldest(recentGhosts);
+            } else {
+                frequentGhostBytes -= removeEldest(frequentGhosts);
+            }
+        }
+    }
+
+    private static long removeEldest(Map<PnfsId, Long> ghosts) {
+        Iterator<Long> i = ghosts.values().iterator();
+        long size = i.next();
+        i.remove();
+        return size;
+    }
+
+    @Override
+    protected void link(Replica replica) {
+        if (replica.hits > 0) {
+            replica.segment = FREQUENT;
+        }
+        if (replica.segment == FREQUENT) {
+            frequent.add(replica);
+            frequentBytes += replica.size;
+        } else {
+            recent.add(replica);
+            recentBytes += replica.size;
+        }
+    }
+
+    @Override
+    protected void unlink(Replica replica) {
+        if (replica.segment == FREQUENT) {
+            frequent.remove(replica);
+            frequentBytes -= replica.size;
+        } else {
+            recent.remove(replica);
+            recentBytes -= replica.size;
+        }
+    }
+}
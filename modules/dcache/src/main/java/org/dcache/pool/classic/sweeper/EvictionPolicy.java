@@ -0,0 +1,84 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import diskCacheV111.util.PnfsId;
+import java.util.List;
+
+/**
+ * Decides the order in which the sweeper removes replicas.
+ * <p>
+ * A policy only tracks replicas that are currently removable. The sweeper adds a replica when it
+ * becomes removable, removes it when it no longer is, and reports each access to a replica it
+ * tracks. Implementations must be thread safe.
+ */
+public interface EvictionPolicy {
+
+    /**
+     * Starts tracking a removable replica.
+     *
+     * @return true if the replica was not already tracked
+     */
+    boolean add(PnfsId id, long size, long lastAccessTime);
+
+    /**
+     * Stops tracking a replica.
+     *
+     * @return true if the replica was tracked
+     */
+    boolean remove(PnfsId id);
+
+    /**
+     * Records an access to a tracked replica. Accesses to untracked replicas are ignored.
+     */
+    void access(PnfsId id, long lastAccessTime);
+
+    /**
+     * Called by the sweeper once it removed a replica to reclaim space, as opposed to the replica
+     * being deleted or becoming non-removable for any other reason. The replica is still tracked
+     * when this method is called.
+     */
+    void evict(PnfsId id);
+
+    /**
+     * Returns the tracked replicas in the order in which they should be evicted.
+     */
+    List<PnfsId> victims();
+
+    /**
+     * Returns the last access time of the least recently used tracked replica, or zero if no
+     * replica is tracked.
+     */
+    long getTimeOfLeastRecentlyUsed();
+
+    /**
+     * Returns the last access times of all tracked replicas.
+     */
+    List<Long> getLastAccessTimes();
+
+    /**
+     * Returns the number of tracked replicas.
+     */
+    int size();
+
+    /**
+     * Adds all replicas tracked by this policy to another policy.
+     */
+    void copyTo(EvictionPolicy policy);
+}
@@ -0,0 +1,59 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import java.util.function.Supplier;
+
+/**
+ * The available eviction policies.
+ */
+public enum EvictionPolicyType {
+    LRU(LruEvictionPolicy::new),
+    SLRU(SegmentedLruEvictionPolicy::new),
+    GDSF(GdsfEvictionPolicy::new),
+    ARC(ArcEvictionPolicy::new);
+
+    private final Supplier<EvictionPolicy> factory;
+
+    EvictionPolicyType(Supplier<EvictionPolicy> factory) {
+        this.factory = factory;
+    }
+
+    public EvictionPolicy createPolicy() {
+        return factory.get();
+    }
+
+    public String getName() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * Returns the policy type with the given case insensitive name.
+     *
+     * @throws IllegalArgumentException if there is no such policy
+     */
+    public static EvictionPolicyType forName(String name) {
+        for (EvictionPolicyType type : values()) {
+            if (type.name().equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown eviction policy: " + name);
+    }
+}
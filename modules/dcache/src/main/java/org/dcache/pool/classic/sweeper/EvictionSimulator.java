@@ -0,0 +1,240 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.dcache.util.ByteUnits.isoSymbol;
+
+import diskCacheV111.util.PnfsId;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.dcache.util.Args;
+import org.dcache.util.ByteSizeParser;
+
+/**
+ * Predicts the hit rate of eviction policies by replaying transfers against a simulated pool.
+ * <p>
+ * The simulated pool has a fixed capacity and all replicas are considered removable. A read of a
+ * replica on the pool is a hit; a read of any other replica is a miss, after which the replica is
+ * assumed to be staged or copied to the pool. Writes place the replica on the pool. When space is
+ * needed, replicas are evicted in the order given by the policy, reclaiming the margin in
+ * addition to the space needed, like the sweeper does.
+ * <p>
+ * The {@link #main} method replays billing files in the default text format. Replicas are keyed
+ * by PNFS ID and the sequence number of a record is used as its access time.
+ */
+public class EvictionSimulator {
+
+    private static final Pattern TRANSFER = Pattern.compile(
+          "\\[pool:([^:@\\]]+)[^\\]]*:transfer\\] \\[([0-9A-Fa-f]+),(\\d+)\\] .*"
+                + " \\d+ \\d+ (true|false) \\{.*\\{0:\"[^\"]*\"\\}\\s*$");
+
+    private static final Pattern REMOVE = Pattern.compile(
+          "\\[pool:([^:@\\]]+)[^\\]]*:remove\\] \\[([0-9A-Fa-f]+),(\\d+)\\] .*\\{0:\"[^\"]*\"\\}\\s*$");
+
+    private final EvictionPolicy policy;
+    private final long capacity;
+    private final long margin;
+    private final Map<PnfsId, Long> sizes = new HashMap<>();
+
+    private long time;
+    private long used;
+    private long reads;
+    private long hits;
+    private long bytesRead;
+    private long bytesHit;
+    private long evictions;
+
+    public EvictionSimulator(EvictionPolicy policy, long capacity, double margin) {
+        checkArgument(capacity > 0, "Capacity must be positive.");
+        checkArgument(margin >= 0 && margin <= 1, "Margin must be between 0.0 and 1.0.");
+        this.policy = policy;
+        this.capacity = capacity;
+        this.margin = (long) (capacity * margin);
+    }
+
+    /**
+     * Replays a read of a replica. Returns true if the replica was on the pool.
+     */
+    public boolean read(PnfsId id, long size) {
+        time++;
+        reads++;
+        bytesRead += size;
+        if (sizes.containsKey(id)) {
+            hits++;
+            bytesHit += size;
+            policy.access(id, time);
+            return true;
+        }
+        store(id, size);
+        return false;
+    }
+
+    /**
+     * Replays the upload of a new replica.
+     */
+    public void write(PnfsId id, long size) {
+        time++;
+        if (!sizes.containsKey(id)) {
+            store(id, size);
+        }
+    }
+
+    /**
+     * Replays the deletion of a replica.
+     */
+    public void remove(PnfsId id) {
+        time++;
+        Long size = sizes.remove(id);
+        if (size != null) {
+            used -= size;
+            policy.remove(id);
+        }
+    }
+
+    private void store(PnfsId id, long size) {
+        if (size > capacity) {
+            return;
+        }
+        if (used + size > capacity) {
+            reclaim(used + size - capacity + margin);
+        }
+        sizes.put(id, size);
+        used += size;
+        policy.add(id, size, time);
+    }
+
+    private void reclaim(long amount) {
+        long reclaimed = 0;
+        for (PnfsId victim : policy.victims()) {
+            if (reclaimed >= amount) {
+                break;
+            }
+            policy.evict(victim);
+            policy.remove(victim);
+            long size = sizes.remove(victim);
+            used -= size;
+            reclaimed += size;
+            evictions++;
+        }
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+
+    public double getByteHitRate() {
+        return bytesRead == 0 ? 0 : (double) bytesHit / bytesRead;
+    }
+
+    /**
+     * Replays a billing record. Records other than successful transfers and removals on the
+     * given pool, or on any pool if {@code pool} is null, are ignored.
+     */
+    public void replay(String record, String pool) {
+        Matcher m = TRANSFER.matcher(record);
+        if (m.find()) {
+            if (pool == null || pool.equals(m.group(1))) {
+                PnfsId id = new PnfsId(m.group(2));
+                long size = Long.parseLong(m.group(3));
+                if (Boolean.parseBoolean(m.group(4))) {
+                    write(id, size);
+                } else {
+                    read(id, size);
+                }
+            }
+            return;
+        }
+        m = REMOVE.matcher(record);
+        if (m.find() && (pool == null || pool.equals(m.group(1)))) {
+            remove(new PnfsId(m.group(2)));
+        }
+    }
+
+    public static void main(String[] arguments) throws IOException {
+        Args args = new Args(arguments);
+        if (args.argc() < 2) {
+            System.err.println(
+                  "Synopsis: EvictionSimulator [-policy=NAME] [-pool=NAME] [-margin=FRACTION]"
+                        + " SIZE FILE...");
+            System.err.println();
+            System.err.println(
+                  "Where SIZE is the capacity of the simulated pool, eg 10TiB, and FILE is a");
+            System.err.println(
+                  "billing file. All policies are simulated unless a policy is specified.");
+            System.exit(1);
+        }
+
+        long capacity = ByteSizeParser.using(isoSymbol()).build().parse(args.argv(0));
+        double margin = args.getDoubleOption("margin", 0.0);
+        String pool = args.getOption("pool");
+        String name = args.getOption("policy");
+
+        List<EvictionPolicyType> types = name == null
+              ? List.of(EvictionPolicyType.values())
+              : List.of(EvictionPolicyType.forName(name));
+        List<EvictionSimulator> simulators = new ArrayList<>(types.size());
+        for (EvictionPolicyType type : types) {
+            simulators.add(new EvictionSimulator(type.createPolicy(), capacity, margin));
+        }
+
+        for (String file : args.getArguments().subList(1, args.argc())) {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(file))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    for (EvictionSimulator simulator : simulators) {
+                        simulator.replay(line, pool);
+                    }
+                }
+            }
+        }
+
+        PrintStream out = System.out;
+        out.format("%-6s %12s %12s %10s %10s %12s%n",
+              "POLICY", "READS", "HITS", "HIT RATE", "BYTE RATE", "EVICTIONS");
+        for (int i = 0; i < types.size(); i++) {
+            EvictionSimulator simulator = simulators.get(i);
+            out.format("%-6s %12d %12d %9.2f%% %9.2f%% %12d%n",
+                  types.get(i).getName(), simulator.getReads(), simulator.getHits(),
+                  simulator.getHitRate() * 100, simulator.getByteHitRate() * 100,
+                  simulator.getEvictions());
+        }
+    }
+}
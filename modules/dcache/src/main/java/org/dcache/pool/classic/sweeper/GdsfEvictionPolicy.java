@@ -0,0 +1,74 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import diskCacheV111.util.PnfsId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Greedy-Dual-Size-Frequency.
+ * <p>
+ * Each replica is assigned the priority {@code L + frequency / size}, in which frequency is the
+ * number of accesses since the replica became removable plus one and {@code L} is an inflation
+ * value that is raised to the priority of each evicted replica. Replicas with the lowest
+ * priority are evicted first. Compared to LRU this favours keeping many small, frequently read
+ * replicas over a few large ones, while the inflation value ages replicas that are no longer
+ * being read.
+ */
+public class GdsfEvictionPolicy extends AbstractEvictionPolicy {
+
+    private static final Comparator<Replica> BY_PRIORITY =
+          Comparator.<Replica>comparingDouble(r -> r.priority).thenComparing(BY_ACCESS_TIME);
+
+    @GuardedBy("this")
+    private final NavigableSet<Replica> queue = new TreeSet<>(BY_PRIORITY);
+
+    @GuardedBy("this")
+    private double inflation;
+
+    @Override
+    public synchronized List<PnfsId> victims() {
+        List<PnfsId> victims = new ArrayList<>(queue.size());
+        for (Replica replica : queue) {
+            victims.add(replica.id);
+        }
+        return victims;
+    }
+
+    @Override
+    protected void evicted(Replica replica) {
+        inflation = Math.max(inflation, replica.priority);
+    }
+
+    @Override
+    protected void link(Replica replica) {
+        replica.priority = inflation + (replica.hits + 1) / (double) Math.max(replica.size, 1);
+        queue.add(replica);
+    }
+
+    @Override
+    protected void unlink(Replica replica) {
+        queue.remove(replica);
+    }
+}
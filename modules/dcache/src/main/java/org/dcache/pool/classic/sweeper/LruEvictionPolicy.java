@@ -0,0 +1,46 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import diskCacheV111.util.PnfsId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evicts the least recently used replica first. This is the traditional behaviour of the sweeper.
+ */
+public class LruEvictionPolicy extends AbstractEvictionPolicy {
+
+    @Override
+    public synchronized List<PnfsId> victims() {
+        List<PnfsId> victims = new ArrayList<>(byAccessTime.size());
+        for (Replica replica : byAccessTime) {
+            victims.add(replica.id);
+        }
+        return victims;
+    }
+
+    @Override
+    protected void link(Replica replica) {
+    }
+
+    @Override
+    protected void unlink(Replica replica) {
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.classic.sweeper;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import diskCacheV111.util.PnfsId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Segmented LRU.
+ * <p>
+ * Replicas that become removable enter a probationary segment. Replicas that are accessed again
+ * while removable are promoted to a protected segment. Replicas in the probationary segment are
+ * evicted before any replica in the protected segment, so a single scan over many files does not
+ * flush replicas that are read repeatedly. Each segment is ordered by last access time.
+ * <p>
+ * The protected segment is limited to a fraction of the removable space. When it grows beyond
+ * that, its least recently used replicas are demoted to the probationary segment.
+ */
+public class SegmentedLruEvictionPolicy extends AbstractEvictionPolicy {
+
+    private static final int PROBATIONARY = 0;
+    private static final int PROTECTED = 1;
+
+    private static final double DEFAULT_PROTECTED_FRACTION = 0.8;
+
+    private final double protectedFraction;
+
+    @GuardedBy("this")
+    private final NavigableSet<Replica> probationary = new TreeSet<>(BY_ACCESS_TIME);
+
+    @GuardedBy("this")
+    private final NavigableSet<Replica> protectedSegment = new TreeSet<>(BY_ACCESS_TIME);
+
+    @GuardedBy("this")
+    private long protectedBytes;
+
+    @GuardedBy("this")
+    private long totalBytes;
+
+    public SegmentedLruEvictionPolicy() {
+        this(DEFAULT_PROTECTED_FRACTION);
+    }
+
+    public SegmentedLruEvictionPolicy(double protectedFraction) {
+        checkArgument(protectedFraction >= 0 && protectedFraction <= 1,
+              "Protected fraction must be between 0.0 and 1.0.");
+        this.protectedFraction = protectedFraction;
+    }
+
+    @Override
+    public synchronized List<PnfsId> victims() {
+        List<PnfsId> victims = new ArrayList<>(replicas.size());
+        for (Replica replica : probationary) {
+            victims.add(replica.id);
+        }
+        for (Replica replica : protectedSegment) {
+            victims.add(replica.id);
+        }
+        return victims;
+    }
+
+    @Override
+    protected void link(Replica replica) {
+        totalBytes += replica.size;
+        if (replica.hits > 0) {
+            replica.segment = PROTECTED;
+            protectedSegment.add(replica);
+            protectedBytes += replica.size;
+            while (protectedBytes > totalBytes * protectedFraction
+                  && !protectedSegment.isEmpty()) {
+                Replica demoted = protectedSegment.pollFirst();
+                protectedBytes -= demoted.size;
+                demoted.segment = PROBATIONARY;
+                probationary.add(demoted);
+            }
+        } else {
+            replica.segment = PROBATIONARY;
+            probationary.add(replica);
+        }
+    }
+
+    @Override
+    protected void unlink(Replica replica) {
+        totalBytes -= replica.size;
+        if (replica.segment == PROTECTED) {
+            protectedSegment.remove(replica);
+            protectedBytes -= replica.size;
+        } else {
+            probationary.remove(replica);
+        }
+    }
+}
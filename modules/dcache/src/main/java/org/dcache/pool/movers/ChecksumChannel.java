@@ -9,6 +9,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.DiscreteDomain;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeSet;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.TreeRangeSet;
 import java.io.IOException;
 import java.io.InterruptedIOException;
@@ -19,7 +20,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.pool.repository.ForwardingRepositoryChannel;
@@ -30,8 +34,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A wrapper for RepositoryChannel that computes a digest on the fly during write as long as all
- * writes are sequential.
+ * A wrapper for RepositoryChannel that computes a digest on the fly during write.
+ * <p>
+ * Checksums of a {@link CombinableChecksum} type are computed for each write on the writing thread
+ * and combined when the channel is closed, thus writes may arrive in any order. Other digests are
+ * updated sequentially: a write beyond the contiguous range of data written from the start of the
+ * file is read back once the gap has been filled.
  */
 public class ChecksumChannel extends ForwardingRepositoryChannel {
 
@@ -49,6 +57,19 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
      */
     private final List<MessageDigest> _digests;
 
+    /**
+     * Checksums computed per write and combined on close.
+     */
+    @GuardedBy("_dataRangeSet")
+    private ImmutableList<CombinableChecksum> _combinable;
+
+    /**
+     * Checksums of written blocks, indexed by offset. Adjacent blocks are merged as they are
+     * recorded, thus there are no more entries than there are ranges in {@code _dataRangeSet}.
+     */
+    @GuardedBy("_dataRangeSet")
+    private final TreeMap<Long, Block> _blocks = new TreeMap<>();
+
     /**
      * Cached checksum after getChecksums is called the first time.
      */
@@ -93,7 +114,12 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
 
     public ChecksumChannel(RepositoryChannel inner, Set<ChecksumType> types) {
         _channel = inner;
+        _combinable = types.stream()
+              .map(CombinableChecksum::of)
+              .flatMap(Optional::stream)
+              .collect(ImmutableList.toImmutableList());
         _digests = types.stream()
+              .filter(t -> CombinableChecksum.of(t).isEmpty())
               .map(t -> t.createMessageDigest())
               .collect(Collectors.toList());
     }
@@ -103,28 +129,49 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
      * already registered then this method does nothing, otherwise the ChecksumChannel is updated to
      * calculate the new ChecksumType. If the ChecksumChannel has accepted a contiguous range of
      * data from offset 0 then this method will reread that contiguous range.
+     * <p>
+     * A combinable ChecksumType added before any data was accepted is computed per write;
+     * otherwise it is computed sequentially like any other digest.
      *
      * @param type The algorithm this ChecksumChannel should calculate.
      * @throws IOException if the Channel has already started accepting data and an attempt to
      *                     reread data from disk fails.
      */
     public void addType(ChecksumType type) throws IOException {
-        synchronized (_digests) {
-            if (_digests.stream()
-                  .map(MessageDigest::getAlgorithm)
-                  .noneMatch(t -> t.equals(type.getName()))) {
-                MessageDigest digest = type.createMessageDigest();
-
-                if (_isChecksumViable) {
-                    try {
-                        updateFromChannel(Collections.singleton(digest), 0L, _nextChecksumOffset);
-                    } catch (IOException e) {
-                        throw new IOException("Failed when reading received data: "
-                              + messageOrClassName(e), e);
+        synchronized (_dataRangeSet) {
+            synchronized (_digests) {
+                if (_combinable.stream().noneMatch(c -> c.getType() == type)
+                      && _digests.stream()
+                      .map(MessageDigest::getAlgorithm)
+                      .noneMatch(t -> t.equals(type.getName()))) {
+                    Optional<CombinableChecksum> combinable = CombinableChecksum.of(type);
+                    if (combinable.isPresent() && _dataRangeSet.isEmpty()) {
+                        _combinable = ImmutableList.<CombinableChecksum>builder()
+                              .addAll(_combinable).add(combinable.get()).build();
+                        return;
+                    }
+
+                    MessageDigest digest = type.createMessageDigest();
+
+                    if (_digests.isEmpty()) {
+                        /* Until now no digest was updated sequentially. */
+                        Range<Long> fileStartRange = _dataRangeSet.rangeContaining(0L);
+                        _nextChecksumOffset =
+                              fileStartRange == null ? 0L : fileStartRange.upperEndpoint();
                     }
-                }
 
-                _digests.add(digest);
+                    if (_isChecksumViable) {
+                        try {
+                            updateFromChannel(Collections.singleton(digest), 0L,
+                                  _nextChecksumOffset);
+                        } catch (IOException e) {
+                            throw new IOException("Failed when reading received data: "
+                                  + messageOrClassName(e), e);
+                        }
+                    }
+
+                    _digests.add(digest);
+                }
             }
         }
     }
@@ -220,14 +267,18 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
         synchronized (_dataRangeSet) {
             synchronized (_digests) {
                 try {
-                    if (_dataRangeSet.asRanges().size() > 1
-                            || (_dataRangeSet.asRanges().size() == 1 && _nextChecksumOffset == 0)) {
+                    Range<Long> fileStartRange = _dataRangeSet.rangeContaining(0L);
+                    boolean isSparse = _dataRangeSet.asRanges().size() > 1
+                          || (_dataRangeSet.asRanges().size() == 1 && fileStartRange == null);
+                    if (isSparse && !_digests.isEmpty()) {
                         feedZerosToDigesterForRangeGaps();
                     }
 
-                    return _digests.stream()
+                    Set<Checksum> checksums = _digests.stream()
                           .map(Checksum::new)
                           .collect(Collectors.toSet());
+                    checksums.addAll(combineBlocks(isSparse ? size() : 0L));
+                    return checksums;
                 } catch (IOException e) {
                     LOGGER.info("Unable to generate checksum of sparse file: {}", e.toString());
                     return Collections.emptySet();
@@ -236,6 +287,51 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
         }
     }
 
+    /**
+     * Combines the checksums of all written blocks, treating gaps as zero bytes.
+     *
+     * @param size the length of the file, up to which a trailing gap is filled with zeros
+     */
+    @GuardedBy("_dataRangeSet")
+    private List<Checksum> combineBlocks(long size) {
+        List<Checksum> checksums = new ArrayList<>(_combinable.size());
+        for (int i = 0; i < _combinable.size(); i++) {
+            CombinableChecksum checksum = _combinable.get(i);
+            long value = checksum.initial();
+            long offset = 0L;
+            for (Block block : _blocks.values()) {
+                if (block.offset > offset) {
+                    value = checksum.combine(value, checksum.zeros(block.offset - offset),
+                          block.offset - offset);
+                }
+                value = checksum.combine(value, block.values[i], block.length);
+                offset = block.offset + block.length;
+            }
+            if (size > offset) {
+                value = checksum.combine(value, checksum.zeros(size - offset), size - offset);
+            }
+            checksums.add(checksum.toChecksum(value));
+        }
+        return checksums;
+    }
+
+    /**
+     * Records the checksums of a written block, merging it with adjacent blocks.
+     */
+    @GuardedBy("_dataRangeSet")
+    private void addBlock(List<CombinableChecksum> combinable, Block block) {
+        Map.Entry<Long, Block> previous = _blocks.lowerEntry(block.offset);
+        if (previous != null && previous.getValue().end() == block.offset) {
+            block = previous.getValue().append(combinable, block);
+            _blocks.remove(previous.getKey());
+        }
+        Block next = _blocks.remove(block.end());
+        if (next != null) {
+            block = block.append(combinable, next);
+        }
+        _blocks.put(block.offset, block);
+    }
+
     private void feedZerosToDigesterForRangeGaps() throws IOException {
         ArrayList<Range<Long>> complement = newArrayList(
               _dataRangeSet.complement().subRangeSet(Range.closed(0L, size())).asRanges());
@@ -289,6 +385,8 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
         Range<Long> writeRange = Range.closed(position, position + buffer.remaining() - 1)
               .canonical(DiscreteDomain.longs());
         Range<Long> fileStartRange;
+        List<CombinableChecksum> combinable;
+        boolean isSequential;
 
         synchronized (_dataRangeSet) {
 
@@ -304,14 +402,28 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
                   && fileStartRange.upperEndpoint() == position);
 
             _dataRangeSet.add(writeRange);
-            if (!canCalculateChecksum) {
-                return;
-            }
+            combinable = _combinable;
+            isSequential = canCalculateChecksum && !_digests.isEmpty();
 
             // get it again as we may have merged two segments
             fileStartRange = _dataRangeSet.rangeContaining(0L);
         }
 
+        if (!combinable.isEmpty()) {
+            long[] values = new long[combinable.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = combinable.get(i).compute(buffer.duplicate());
+            }
+            Block block = new Block(position, buffer.remaining(), values);
+            synchronized (_dataRangeSet) {
+                addBlock(combinable, block);
+            }
+        }
+
+        if (!isSequential) {
+            return;
+        }
+
         synchronized (_digests) {
             /*
              * we are one of the threads which got the merge into continues block.
@@ -371,4 +483,32 @@ public class ChecksumChannel extends ForwardingRepositoryChannel {
             throw e;
         }
     }
+
+    /**
+     * Checksums of a contiguous block of written data.
+     */
+    private static class Block {
+
+        private final long offset;
+        private final long length;
+        private final long[] values;
+
+        Block(long offset, long length, long[] values) {
+            this.offset = offset;
+            this.length = length;
+            this.values = values;
+        }
+
+        long end() {
+            return offset + length;
+        }
+
+        Block append(List<CombinableChecksum> combinable, Block next) {
+            long[] combined = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                combined[i] = combinable.get(i).combine(values[i], next.values[i], next.length);
+            }
+            return new Block(offset, length + next.length, combined);
+        }
+    }
 }
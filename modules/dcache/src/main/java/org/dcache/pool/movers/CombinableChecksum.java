@@ -0,0 +1,137 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.movers;
+
+import com.google.common.primitives.Ints;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+import org.dcache.util.Checksum;
+import org.dcache.util.ChecksumType;
+
+/**
+ * Checksum algorithms for which the checksum of a concatenation of two blocks can be computed
+ * from the checksums of the blocks and the length of the second block.
+ * <p>
+ * This allows the checksum of each write to be computed independently, in any order and on the
+ * writing thread, with the results being combined once all data has been written.
+ */
+enum CombinableChecksum {
+    ADLER32(ChecksumType.ADLER32) {
+        private static final long BASE = 65521;
+
+        @Override
+        long initial() {
+            return 1L;
+        }
+
+        @Override
+        long compute(ByteBuffer data) {
+            java.util.zip.Adler32 adler = new java.util.zip.Adler32();
+            adler.update(data);
+            return adler.getValue();
+        }
+
+        /**
+         * Follows {@code adler32_combine} of zlib.
+         */
+        @Override
+        long combine(long first, long second, long secondLength) {
+            long rem = secondLength % BASE;
+            long sum1 = first & 0xffff;
+            long sum2 = (rem * sum1) % BASE;
+            sum1 += (second & 0xffff) + BASE - 1;
+            sum2 += ((first >> 16) & 0xffff) + ((second >> 16) & 0xffff) + BASE - rem;
+            if (sum1 >= BASE) {
+                sum1 -= BASE;
+            }
+            if (sum1 >= BASE) {
+                sum1 -= BASE;
+            }
+            if (sum2 >= (BASE << 1)) {
+                sum2 -= (BASE << 1);
+            }
+            if (sum2 >= BASE) {
+                sum2 -= BASE;
+            }
+            return sum1 | (sum2 << 16);
+        }
+
+        /**
+         * Zero bytes leave the first sum at one and increment the second sum by one each.
+         */
+        @Override
+        long zeros(long length) {
+            return ((length % BASE) << 16) | 1L;
+        }
+
+        @Override
+        byte[] toBytes(long value) {
+            return Ints.toByteArray((int) value);
+        }
+    };
+
+    private final ChecksumType type;
+
+    CombinableChecksum(ChecksumType type) {
+        this.type = type;
+    }
+
+    ChecksumType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the checksum of no data.
+     */
+    abstract long initial();
+
+    /**
+     * Returns the checksum of the remaining bytes of {@code data}. The position of the buffer is
+     * advanced to its limit.
+     */
+    abstract long compute(ByteBuffer data);
+
+    /**
+     * Returns the checksum of the concatenation of two blocks.
+     *
+     * @param first        checksum of the first block
+     * @param second       checksum of the second block
+     * @param secondLength length of the second block in bytes
+     */
+    abstract long combine(long first, long second, long secondLength);
+
+    /**
+     * Returns the checksum of {@code length} zero bytes.
+     */
+    abstract long zeros(long length);
+
+    abstract byte[] toBytes(long value);
+
+    Checksum toChecksum(long value) {
+        return new Checksum(type, toBytes(value));
+    }
+
+    /**
+     * Returns the combinable algorithm for the given checksum type, if there is one.
+     */
+    static Optional<CombinableChecksum> of(ChecksumType type) {
+        return Arrays.stream(values()).filter(c -> c.type == type).findFirst();
+    }
+}
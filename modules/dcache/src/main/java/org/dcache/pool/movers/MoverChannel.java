@@ -8,6 +8,7 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import org.dcache.pool.repository.ForwardingRepositoryChannel;
 import org.dcache.pool.repository.RepositoryChannel;
 import org.dcache.vehicles.FileAttributes;
@@ -16,6 +17,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A wrapper for RepositoryChannel adding features used by movers.
+ * <p>
+ * Positional IO is not synchronized, so that concurrent requests on the same channel do not
+ * contend. Only operations using or modifying the channel position are serialized.
  */
 public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryChannel {
 
@@ -48,8 +52,12 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     /**
      * The number of bytes transferred.
      */
-    private final AtomicLong _bytesTransferred =
-          new AtomicLong(0);
+    private final LongAdder _bytesTransferred = new LongAdder();
+
+    /**
+     * Lock serializing operations that use or modify the channel position.
+     */
+    private final Object _positionLock = new Object();
 
     /**
      * ProtocolInfo associated with the transfer.
@@ -79,36 +87,42 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     }
 
     @Override
-    public synchronized MoverChannel<T> position(long position)
+    public MoverChannel<T> position(long position)
           throws IOException {
-        _channel.position(position);
-        return this;
+        synchronized (_positionLock) {
+            _channel.position(position);
+            return this;
+        }
     }
 
     @Override
-    public synchronized MoverChannel<T> truncate(long size) throws IOException {
-        try {
-            _channel.truncate(size);
-            return this;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public MoverChannel<T> truncate(long size) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                _channel.truncate(size);
+                return this;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
     @Override
     public void close() throws IOException {
-        _lastTransferred.set(System.currentTimeMillis());
+        updateLastTransferred();
         _channel.close();
     }
 
     @Override
-    public synchronized int read(ByteBuffer dst) throws IOException {
-        try {
-            int bytes = _channel.read(dst);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public int read(ByteBuffer dst) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                int bytes = _channel.read(dst);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
@@ -116,43 +130,49 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     public int read(ByteBuffer buffer, long position) throws IOException {
         try {
             int bytes = _channel.read(buffer, position);
-            _bytesTransferred.getAndAdd(bytes);
+            _bytesTransferred.add(bytes);
             return bytes;
         } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+            updateLastTransferred();
         }
     }
 
     @Override
-    public synchronized long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
-        try {
-            long bytes = _channel.read(dsts, offset, length);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                long bytes = _channel.read(dsts, offset, length);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
     @Override
-    public synchronized long read(ByteBuffer[] dsts) throws IOException {
-        try {
-            long bytes = _channel.read(dsts);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public long read(ByteBuffer[] dsts) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                long bytes = _channel.read(dsts);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
     @Override
-    public synchronized int write(ByteBuffer src) throws IOException {
-        try {
-            int bytes = _channel.write(src);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public int write(ByteBuffer src) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                int bytes = _channel.write(src);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
@@ -160,32 +180,36 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     public int write(ByteBuffer buffer, long position) throws IOException {
         try {
             int bytes = _channel.write(buffer, position);
-            _bytesTransferred.getAndAdd(bytes);
+            _bytesTransferred.add(bytes);
             return bytes;
         } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+            updateLastTransferred();
         }
     }
 
     @Override
-    public synchronized long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
-        try {
-            long bytes = _channel.write(srcs, offset, length);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                long bytes = _channel.write(srcs, offset, length);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
     @Override
-    public synchronized long write(ByteBuffer[] srcs) throws IOException {
-        try {
-            long bytes = _channel.write(srcs);
-            _bytesTransferred.getAndAdd(bytes);
-            return bytes;
-        } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+    public long write(ByteBuffer[] srcs) throws IOException {
+        synchronized (_positionLock) {
+            try {
+                long bytes = _channel.write(srcs);
+                _bytesTransferred.add(bytes);
+                return bytes;
+            } finally {
+                updateLastTransferred();
+            }
         }
     }
 
@@ -194,10 +218,10 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
           throws IOException {
         try {
             long bytes = _channel.transferTo(position, count, target);
-            _bytesTransferred.getAndAdd(bytes);
+            _bytesTransferred.add(bytes);
             return bytes;
         } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+            updateLastTransferred();
         }
     }
 
@@ -206,10 +230,10 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
           throws IOException {
         try {
             long bytes = _channel.transferFrom(src, position, count);
-            _bytesTransferred.getAndAdd(bytes);
+            _bytesTransferred.add(bytes);
             return bytes;
         } finally {
-            _lastTransferred.set(System.currentTimeMillis());
+            updateLastTransferred();
         }
     }
 
@@ -226,7 +250,7 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     }
 
     public long getBytesTransferred() {
-        return _bytesTransferred.get();
+        return _bytesTransferred.sum();
     }
 
     public long getTransferTime() {
@@ -238,4 +262,15 @@ public class MoverChannel<T extends ProtocolInfo> extends ForwardingRepositoryCh
     public long getLastTransferred() {
         return _lastTransferred.get();
     }
+
+    /**
+     * Advances the time of the last transfer to now. The shared counter is only written when the
+     * clock has moved on, thus concurrent requests rarely write the same cache line.
+     */
+    private void updateLastTransferred() {
+        long now = System.currentTimeMillis();
+        if (_lastTransferred.get() < now) {
+            _lastTransferred.accumulateAndGet(now, Math::max);
+        }
+    }
 }
@@ -309,6 +309,12 @@ public class NearlineStorageHandler
               flushTimeout.stream().map(TimeUnit.MILLISECONDS::toSeconds).findAny().orElse(-1));
         info.setRestoreTimeoutInSeconds(
               stageTimeout.stream().map(TimeUnit.MILLISECONDS::toSeconds).findAny().orElse(-1));
+        info.setAggregatedStores(flushRequests.aggregator.getPending());
+        info.setAggregatedRestores(stageRequests.aggregator.getPending());
+        info.setStoreBatchSizes(flushRequests.aggregator.getBatchSizeHistogram());
+        info.setStoreQueueTimes(flushRequests.aggregator.getQueueTimeHistogram());
+        info.setRestoreBatchSizes(stageRequests.aggregator.getBatchSizeHistogram());
+        info.setRestoreQueueTimes(stageRequests.aggregator.getQueueTimeHistogram());
         return info;
     }
 
@@ -323,6 +329,17 @@ public class NearlineStorageHandler
         removeTimeout
               .ifPresent(
                     v -> pw.append("rm set timeout ").println(TimeUnit.MILLISECONDS.toSeconds(v)));
+        printBatchSetup(pw, "rh", stageRequests.aggregator);
+        printBatchSetup(pw, "st", flushRequests.aggregator);
+    }
+
+    private static void printBatchSetup(PrintWriter pw, String prefix,
+          RequestAggregator<?> aggregator) {
+        aggregator.getLimits().forEach((instance, limits) ->
+              pw.println(prefix + " set batch -files=" + limits.maxRequests()
+                    + " -size=" + limits.maxBytes()
+                    + " -delay=" + TimeUnit.MILLISECONDS.toSeconds(limits.maxDelay())
+                    + " " + instance));
     }
 
     /**
@@ -776,7 +793,7 @@ public class NearlineStorageHandler
              * the shutdown call might have missed them when cancelling requests.
              */
             if (state.isShutdown()) {
-                cancelRequests();
+                shutdown();
             }
         }
 
@@ -786,7 +803,7 @@ public class NearlineStorageHandler
         public void cancel(K key) {
             R request = requests.get(key);
             if (request != null) {
-                request.cancel();
+                cancelRequest(request);
             }
         }
 
@@ -797,7 +814,7 @@ public class NearlineStorageHandler
             long now = System.currentTimeMillis();
             for (R request : requests.values()) {
                 if (request.getDeadline() <= now) {
-                    request.cancel();
+                    cancelRequest(request);
                 }
             }
         }
@@ -806,7 +823,14 @@ public class NearlineStorageHandler
          * Cancels all requests.
          */
         public void cancelRequests() {
-            requests.values().forEach(AbstractRequest::cancel);
+            requests.values().forEach(this::cancelRequest);
+        }
+
+        /**
+         * Cancels a request of this container.
+         */
+        protected void cancelRequest(R request) {
+            request.cancel();
         }
 
         /**
@@ -898,11 +922,71 @@ public class NearlineStorageHandler
         /**
          * Submits requests to the nearline storage.
          */
-        protected abstract void submit(NearlineStorage storage, Iterable<R> requests);
+        protected abstract void submit(NearlineStorage storage, List<R> requests);
+    }
+
+    /**
+     * A request container that collects requests into batches per HSM instance and storage
+     * class before submitting them to the nearline storage.
+     */
+    private abstract class AggregatingRequestContainer<F,
+          R extends AbstractRequest<PnfsId> & NearlineRequest<?>>
+          extends AbstractRequestContainer<PnfsId, F, R> {
+
+        protected final RequestAggregator<R> aggregator = new RequestAggregator<>(
+              this::submitBatch,
+              NearlineStorageHandler.this::getInstanceName,
+              r -> getStorageClass(getFileAttributes(r)),
+              r -> getFileAttributes(r).getSizeIfPresent().orElse(0L),
+              () -> scheduledExecutor);
+
+        @Override
+        protected void submit(NearlineStorage storage, List<R> requests) {
+            aggregator.add(storage, requests);
+        }
+
+        /**
+         * Cancels a request. The nearline storage does not know about requests waiting for
+         * their batch, thus such requests are removed from their batch and failed here.
+         */
+        @Override
+        protected void cancelRequest(R request) {
+            request.cancel();
+            if (aggregator.remove(request)) {
+                request.failed(new CancellationException("Request was cancelled."));
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            super.shutdown();
+            /* Hand requests cancelled before they reached their batch to the nearline
+             * storage, which fails them. */
+            aggregator.submitAll(null);
+        }
+
+        /**
+         * Returns the attributes of the file of a request.
+         */
+        protected abstract FileAttributes getFileAttributes(R request);
+
+        /**
+         * Submits a batch of requests to the nearline storage.
+         */
+        protected abstract void submitBatch(NearlineStorage storage, List<R> requests);
+    }
+
+    private String getInstanceName(NearlineStorage storage) {
+        return hsmSet.describe(storage).getInstance();
+    }
+
+    private static String getStorageClass(FileAttributes attributes) {
+        return attributes.isDefined(FileAttribute.STORAGECLASS)
+              ? attributes.getStorageClass() : "";
     }
 
     private class FlushRequestContainer extends
-          AbstractRequestContainer<PnfsId, PnfsId, FlushRequestImpl> {
+          AggregatingRequestContainer<PnfsId, FlushRequestImpl> {
 
         @Override
         protected PnfsId extractKey(PnfsId id) {
@@ -916,13 +1000,18 @@ public class NearlineStorageHandler
         }
 
         @Override
-        protected void submit(NearlineStorage storage, Iterable<FlushRequestImpl> requests) {
+        protected FileAttributes getFileAttributes(FlushRequestImpl request) {
+            return request.getFileAttributes();
+        }
+
+        @Override
+        protected void submitBatch(NearlineStorage storage, List<FlushRequestImpl> requests) {
             storage.flush(transform(requests, Functions.<FlushRequest>identity()));
         }
     }
 
     private class StageRequestContainer extends
-          AbstractRequestContainer<PnfsId, FileAttributes, StageRequestImpl> {
+          AggregatingRequestContainer<FileAttributes, StageRequestImpl> {
 
         @Override
         protected PnfsId extractKey(FileAttributes file) {
@@ -937,7 +1026,12 @@ public class NearlineStorageHandler
         }
 
         @Override
-        protected void submit(NearlineStorage storage, Iterable<StageRequestImpl> requests) {
+        protected FileAttributes getFileAttributes(StageRequestImpl request) {
+            return request.getFileAttributes();
+        }
+
+        @Override
+        protected void submitBatch(NearlineStorage storage, List<StageRequestImpl> requests) {
             storage.stage(transform(requests, Functions.<StageRequest>identity()));
         }
     }
@@ -956,7 +1050,7 @@ public class NearlineStorageHandler
         }
 
         @Override
-        protected void submit(NearlineStorage storage, Iterable<RemoveRequestImpl> requests) {
+        protected void submit(NearlineStorage storage, List<RemoveRequestImpl> requests) {
             storage.remove(transform(requests, Functions.<RemoveRequest>identity()));
         }
     }
@@ -1530,6 +1624,37 @@ public class NearlineStorageHandler
         }
     }
 
+    @AffectsSetup
+    @Command(name = "rh set batch",
+          hint = "aggregate restore requests",
+          description = "Collect restore requests for an HSM instance into batches before "
+                + "submitting them to the nearline storage. Requests are batched per storage "
+                + "class. A batch is submitted when it holds the given number of files or "
+                + "bytes, or when its oldest request has waited for the given delay, whichever "
+                + "comes first.\n\n"
+                + "Batching allows nearline storages that process several requests at once to "
+                + "order restores by tape and reduce the number of mounts.")
+    class RestoreSetBatchCommand extends SetBatchCommand {
+
+        @Override
+        protected RequestAggregator<?> aggregator() {
+            return stageRequests.aggregator;
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "rh unset batch",
+          hint = "submit restore requests immediately",
+          description = "Stop aggregating restore requests for an HSM instance. Requests "
+                + "already collected are submitted immediately.")
+    class RestoreUnsetBatchCommand extends UnsetBatchCommand {
+
+        @Override
+        protected RequestAggregator<?> aggregator() {
+            return stageRequests.aggregator;
+        }
+    }
+
     @Command(name = "rh kill",
           hint = "kill restore request",
           description = "Remove an HSM restore request.")
@@ -1604,6 +1729,84 @@ public class NearlineStorageHandler
         }
     }
 
+    @AffectsSetup
+    @Command(name = "st set batch",
+          hint = "aggregate flush requests",
+          description = "Collect flush requests for an HSM instance into batches before "
+                + "submitting them to the nearline storage. Requests are batched per storage "
+                + "class. A batch is submitted when it holds the given number of files or "
+                + "bytes, or when its oldest request has waited for the given delay, whichever "
+                + "comes first.\n\n"
+                + "Batching allows nearline storages that process several requests at once to "
+                + "write files of the same storage class in a single mount.")
+    class StoreSetBatchCommand extends SetBatchCommand {
+
+        @Override
+        protected RequestAggregator<?> aggregator() {
+            return flushRequests.aggregator;
+        }
+    }
+
+    @AffectsSetup
+    @Command(name = "st unset batch",
+          hint = "submit flush requests immediately",
+          description = "Stop aggregating flush requests for an HSM instance. Requests "
+                + "already collected are submitted immediately.")
+    class StoreUnsetBatchCommand extends UnsetBatchCommand {
+
+        @Override
+        protected RequestAggregator<?> aggregator() {
+            return flushRequests.aggregator;
+        }
+    }
+
+    /**
+     * Base class of commands setting the batch limits of an HSM instance.
+     */
+    abstract static class SetBatchCommand implements Callable<String> {
+
+        @Option(name = "files", metaVar = "count",
+              usage = "Maximum number of files in a batch.")
+        int files = Integer.MAX_VALUE;
+
+        @Option(name = "size", metaVar = "bytes",
+              usage = "Maximum total size of the files in a batch.")
+        long size = Long.MAX_VALUE;
+
+        @Option(name = "delay", metaVar = "seconds", required = true,
+              usage = "Maximum time a request waits for its batch to be submitted.")
+        long delay;
+
+        @Argument(metaVar = "hsm", usage = "HSM instance name.")
+        String instance;
+
+        protected abstract RequestAggregator<?> aggregator();
+
+        @Override
+        public String call() {
+            aggregator().setLimits(instance, new RequestAggregator.Limits(files, size,
+                  TimeUnit.SECONDS.toMillis(delay)));
+            return "";
+        }
+    }
+
+    /**
+     * Base class of commands removing the batch limits of an HSM instance.
+     */
+    abstract static class UnsetBatchCommand implements Callable<String> {
+
+        @Argument(metaVar = "hsm", usage = "HSM instance name.")
+        String instance;
+
+        protected abstract RequestAggregator<?> aggregator();
+
+        @Override
+        public String call() {
+            aggregator().removeLimits(instance);
+            return "";
+        }
+    }
+
     @Command(name = "st kill",
           hint = "kill store request",
           description = "Remove an HSM store request.")
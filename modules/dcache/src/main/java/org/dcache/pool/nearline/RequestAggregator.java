@@ -0,0 +1,327 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.nearline;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import javax.annotation.concurrent.GuardedBy;
+import org.dcache.pool.nearline.spi.NearlineStorage;
+import org.dcache.util.histograms.CountingHistogram;
+
+/**
+ * Collects nearline requests into batches before submitting them to a nearline storage.
+ * <p>
+ * Requests are grouped by nearline storage and by a request specific group, such as the storage
+ * class. A batch is submitted when it reaches a maximum number of requests, a maximum number of
+ * bytes, or when its oldest request has waited for the maximum delay, whichever comes first.
+ * Limits are configured per HSM instance; requests for instances without limits are submitted
+ * immediately.
+ * <p>
+ * The aggregator keeps the sizes of recent batches and the time requests spent waiting for their
+ * batch to be submitted.
+ *
+ * @param <R> type of request
+ */
+class RequestAggregator<R> {
+
+    /**
+     * Number of recent samples kept for the batch size and queue time histograms.
+     */
+    private static final int SAMPLES = 1024;
+
+    private static final int BIN_COUNT = 20;
+
+    /**
+     * Thresholds at which a batch is submitted.
+     *
+     * @param maxRequests maximum number of requests in a batch
+     * @param maxBytes    maximum sum of file sizes in a batch
+     * @param maxDelay    maximum time in milliseconds a request waits for its batch
+     */
+    record Limits(int maxRequests, long maxBytes, long maxDelay) {
+
+        Limits {
+            checkArgument(maxRequests > 0, "Maximum number of files must be positive.");
+            checkArgument(maxBytes > 0, "Maximum size must be positive.");
+            checkArgument(maxDelay > 0, "Maximum delay must be positive.");
+        }
+    }
+
+    private record BatchKey(NearlineStorage storage, String group) {
+    }
+
+    private class Batch {
+
+        private final BatchKey key;
+        private final Limits limits;
+        private final List<R> requests = new ArrayList<>();
+        private final List<Long> queuedAt = new ArrayList<>();
+        private long bytes;
+        private ScheduledFuture<?> timer;
+
+        Batch(BatchKey key, Limits limits) {
+            this.key = key;
+            this.limits = limits;
+        }
+
+        void add(R request, long size) {
+            requests.add(request);
+            queuedAt.add(System.currentTimeMillis());
+            bytes += size;
+        }
+
+        boolean isFull() {
+            return requests.size() >= limits.maxRequests() || bytes >= limits.maxBytes();
+        }
+    }
+
+    private final BiConsumer<NearlineStorage, List<R>> sink;
+    private final Function<NearlineStorage, String> instanceOf;
+    private final Function<R, String> groupOf;
+    private final ToLongFunction<R> sizeOf;
+    private final Supplier<ScheduledExecutorService> scheduler;
+
+    private final Map<String, Limits> limits = new ConcurrentHashMap<>();
+
+    @GuardedBy("this")
+    private final Map<BatchKey, Batch> batches = new HashMap<>();
+
+    private final Samples batchSizes = new Samples();
+    private final Samples queueTimes = new Samples();
+
+    /**
+     * @param sink       submits a batch of requests to a nearline storage
+     * @param instanceOf returns the HSM instance name of a nearline storage
+     * @param groupOf    returns the group of a request; only requests of the same group are
+     *                   batched together
+     * @param sizeOf     returns the size in bytes of the file of a request
+     * @param scheduler  supplies the executor used to submit batches on expiry
+     */
+    RequestAggregator(BiConsumer<NearlineStorage, List<R>> sink,
+          Function<NearlineStorage, String> instanceOf,
+          Function<R, String> groupOf,
+          ToLongFunction<R> sizeOf,
+          Supplier<ScheduledExecutorService> scheduler) {
+        this.sink = sink;
+        this.instanceOf = instanceOf;
+        this.groupOf = groupOf;
+        this.sizeOf = sizeOf;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the limits of an HSM instance. Batches already collected for the instance are
+     * submitted.
+     */
+    void setLimits(String instance, Limits limits) {
+        this.limits.put(instance, limits);
+        submitAll(instance);
+    }
+
+    /**
+     * Removes the limits of an HSM instance, causing its requests to be submitted immediately.
+     * Batches already collected for the instance are submitted.
+     */
+    void removeLimits(String instance) {
+        limits.remove(instance);
+        submitAll(instance);
+    }
+
+    Optional<Limits> getLimits(String instance) {
+        return Optional.ofNullable(limits.get(instance));
+    }
+
+    Map<String, Limits> getLimits() {
+        return ImmutableMap.copyOf(limits);
+    }
+
+    /**
+     * Adds requests to the batches of a nearline storage, submitting any batch that reaches
+     * its limits.
+     */
+    void add(NearlineStorage storage, List<R> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        String instance = instanceOf.apply(storage);
+        Limits limits = (instance == null) ? null : this.limits.get(instance);
+        if (limits == null) {
+            batchSizes.add(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                queueTimes.add(0);
+            }
+            sink.accept(storage, requests);
+            return;
+        }
+
+        List<Batch> full = new ArrayList<>();
+        try {
+            synchronized (this) {
+                for (R request : requests) {
+                    BatchKey key = new BatchKey(storage, groupOf.apply(request));
+                    Batch batch = batches.get(key);
+                    if (batch == null) {
+                        batch = new Batch(key, limits);
+                        Batch expiring = batch;
+                        batch.timer = scheduler.get().schedule(() -> expire(expiring),
+                              limits.maxDelay(), TimeUnit.MILLISECONDS);
+                        batches.put(key, batch);
+                    }
+                    batch.add(request, sizeOf.applyAsLong(request));
+                    if (batch.isFull()) {
+                        batches.remove(key);
+                        batch.timer.cancel(false);
+                        full.add(batch);
+                    }
+                }
+            }
+        } finally {
+            full.forEach(this::submit);
+        }
+    }
+
+    /**
+     * Removes a request from the batch it is waiting in.
+     *
+     * @return true if the request was waiting for its batch to be submitted, false otherwise
+     */
+    boolean remove(R request) {
+        synchronized (this) {
+            for (Batch batch : batches.values()) {
+                int index = batch.requests.indexOf(request);
+                if (index >= 0) {
+                    batch.requests.remove(index);
+                    batch.queuedAt.remove(index);
+                    batch.bytes -= sizeOf.applyAsLong(request);
+                    if (batch.requests.isEmpty()) {
+                        batches.remove(batch.key);
+                        batch.timer.cancel(false);
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Submits all collected batches of an HSM instance, or of all instances if {@code instance}
+     * is null.
+     */
+    void submitAll(String instance) {
+        List<Batch> pending = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Batch> i = batches.values().iterator();
+            while (i.hasNext()) {
+                Batch batch = i.next();
+                if (instance == null || instance.equals(instanceOf.apply(batch.key.storage()))) {
+                    i.remove();
+                    batch.timer.cancel(false);
+                    pending.add(batch);
+                }
+            }
+        }
+        pending.forEach(this::submit);
+    }
+
+    /**
+     * Returns the number of requests waiting for their batch to be submitted.
+     */
+    synchronized int getPending() {
+        return batches.values().stream().mapToInt(b -> b.requests.size()).sum();
+    }
+
+    /**
+     * Returns a histogram of the number of requests in recently submitted batches.
+     */
+    CountingHistogram getBatchSizeHistogram() {
+        return batchSizes.toHistogram("Batch Size", "FILES", 1.0);
+    }
+
+    /**
+     * Returns a histogram of the time recently submitted requests waited for their batch.
+     */
+    CountingHistogram getQueueTimeHistogram() {
+        return queueTimes.toHistogram("Aggregation Queue Time", "SECONDS", 1000.0);
+    }
+
+    private void expire(Batch batch) {
+        synchronized (this) {
+            if (!batches.remove(batch.key, batch)) {
+                return;
+            }
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        long now = System.currentTimeMillis();
+        batchSizes.add(batch.requests.size());
+        for (long queuedAt : batch.queuedAt) {
+            queueTimes.add(now - queuedAt);
+        }
+        sink.accept(batch.key.storage(), batch.requests);
+    }
+
+    /**
+     * Ring buffer of recent samples.
+     */
+    private static class Samples {
+
+        private final double[] values = new double[SAMPLES];
+        private long count;
+
+        synchronized void add(double value) {
+            values[(int) (count++ % SAMPLES)] = value;
+        }
+
+        synchronized CountingHistogram toHistogram(String identifier, String binUnitLabel,
+              double binUnit) {
+            List<Double> data = new ArrayList<>();
+            for (int i = 0; i < Math.min(count, SAMPLES); i++) {
+                data.add(values[i]);
+            }
+            CountingHistogram histogram = new CountingHistogram();
+            histogram.setIdentifier(identifier);
+            histogram.setDataUnitLabel("Count");
+            histogram.setBinCount(BIN_COUNT);
+            histogram.setBinUnit(binUnit);
+            histogram.setBinUnitLabel(binUnitLabel);
+            histogram.setData(data);
+            histogram.configure();
+            return histogram;
+        }
+    }
+}
@@ -61,6 +61,8 @@ package org.dcache.pool.nearline.json;
 
 import java.io.PrintWriter;
 import java.io.Serializable;
+import org.dcache.util.histograms.CountingHistogram;
+import org.dcache.util.histograms.HistogramMetadata;
 
 /**
  * <p>Corresponds to the information delivered
@@ -80,6 +82,12 @@ public class StorageHandlerData implements Serializable {
     private Integer queuedRestores;
     private Integer activeRemoves;
     private Integer queuedRemoves;
+    private Integer aggregatedStores;
+    private Integer aggregatedRestores;
+    private CountingHistogram storeBatchSizes;
+    private CountingHistogram storeQueueTimes;
+    private CountingHistogram restoreBatchSizes;
+    private CountingHistogram restoreQueueTimes;
 
     public Integer getActiveRemoves() {
         return activeRemoves;
@@ -93,6 +101,14 @@ public class StorageHandlerData implements Serializable {
         return activeStores;
     }
 
+    public Integer getAggregatedRestores() {
+        return aggregatedRestores;
+    }
+
+    public Integer getAggregatedStores() {
+        return aggregatedStores;
+    }
+
     public String getLabel() {
         return label;
     }
@@ -121,6 +137,22 @@ public class StorageHandlerData implements Serializable {
         return storeTimeoutInSeconds;
     }
 
+    public CountingHistogram getRestoreBatchSizes() {
+        return restoreBatchSizes;
+    }
+
+    public CountingHistogram getRestoreQueueTimes() {
+        return restoreQueueTimes;
+    }
+
+    public CountingHistogram getStoreBatchSizes() {
+        return storeBatchSizes;
+    }
+
+    public CountingHistogram getStoreQueueTimes() {
+        return storeQueueTimes;
+    }
+
     public void print(PrintWriter pw) {
         if (restoreTimeoutInSeconds < 0) {
             pw.println(" Restore Timeout  : -");
@@ -150,6 +182,26 @@ public class StorageHandlerData implements Serializable {
         pw.append("    delete     " + "").print(activeRemoves);
         pw.append("/").print(queuedRemoves);
         pw.println();
+        if (storeBatchSizes != null && restoreBatchSizes != null) {
+            pw.println("  Batches (aggregating/recent/mean files/mean wait)");
+            pw.append("    to store   ");
+            printBatches(pw, aggregatedStores, storeBatchSizes, storeQueueTimes);
+            pw.append("    from store ");
+            printBatches(pw, aggregatedRestores, restoreBatchSizes, restoreQueueTimes);
+        }
+    }
+
+    private static void printBatches(PrintWriter pw, Integer aggregated,
+          CountingHistogram batchSizes, CountingHistogram queueTimes) {
+        HistogramMetadata sizes = batchSizes.getMetadata();
+        HistogramMetadata times = queueTimes.getMetadata();
+        double meanFiles = sizes.getCount() == 0 ? 0.0 : sizes.getSum() / sizes.getCount();
+        double meanWait = times.getCount() == 0 ? 0.0 : times.getSum() / times.getCount();
+        pw.print(aggregated);
+        pw.append("/").print(sizes.getCount());
+        pw.append("/").printf("%.1f", meanFiles);
+        pw.append("/").printf("%.1f s", meanWait / 1000.0);
+        pw.println();
     }
 
     public void setActiveRemoves(Integer activeRemoves) {
@@ -164,6 +216,14 @@ public class StorageHandlerData implements Serializable {
         this.activeStores = activeStores;
     }
 
+    public void setAggregatedRestores(Integer aggregatedRestores) {
+        this.aggregatedRestores = aggregatedRestores;
+    }
+
+    public void setAggregatedStores(Integer aggregatedStores) {
+        this.aggregatedStores = aggregatedStores;
+    }
+
     public void setLabel(String label) {
         this.label = label;
     }
@@ -191,4 +251,20 @@ public class StorageHandlerData implements Serializable {
     public void setStoreTimeoutInSeconds(Long storeTimeoutInSeconds) {
         this.storeTimeoutInSeconds = storeTimeoutInSeconds;
     }
+
+    public void setRestoreBatchSizes(CountingHistogram restoreBatchSizes) {
+        this.restoreBatchSizes = restoreBatchSizes;
+    }
+
+    public void setRestoreQueueTimes(CountingHistogram restoreQueueTimes) {
+        this.restoreQueueTimes = restoreQueueTimes;
+    }
+
+    public void setStoreBatchSizes(CountingHistogram storeBatchSizes) {
+        this.storeBatchSizes = storeBatchSizes;
+    }
+
+    public void setStoreQueueTimes(CountingHistogram storeQueueTimes) {
+        this.storeQueueTimes = storeQueueTimes;
+    }
 }
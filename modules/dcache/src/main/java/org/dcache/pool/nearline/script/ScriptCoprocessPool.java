@@ -0,0 +1,316 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.nearline.script;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.HsmRunSystem;
+import diskCacheV111.util.TimeoutCacheException;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A fixed number of long-lived HSM integration script processes, each serving many requests.
+ * <p>
+ * Every coprocess is started as {@code command coprocess [options]} and serves one request at a
+ * time using a line oriented protocol. A request is written to the standard input of the
+ * coprocess as
+ * <pre>
+ *     id put|get|remove arguments...
+ * </pre>
+ * where the arguments are those the script receives on the command line when it is run once per
+ * request. The coprocess answers on its standard output with
+ * <pre>
+ *     id rc [output...]
+ * </pre>
+ * where rc has the meaning of the exit code of the script and the output is either the storage
+ * URIs of a flushed file or an error message. Fields are separated by a single space. Spaces,
+ * control characters and percent signs inside a field are percent-encoded.
+ * <p>
+ * Callers block until a coprocess is idle, thus the number of coprocesses limits the number of
+ * requests processed concurrently. A coprocess that exits, violates the protocol or fails to
+ * answer before the deadline of a request is killed and restarted on its next use.
+ */
+class ScriptCoprocessPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptCoprocessPool.class);
+
+    private static final long TERMINATION_TIMEOUT = SECONDS.toMillis(5);
+
+    private final String storageName;
+    private final List<String> command;
+    private final Executor executor;
+    private final BlockingQueue<Coprocess> idle = new LinkedBlockingQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile boolean isShutdown;
+
+    /**
+     * @param storageName name of the nearline storage, used for logging and alarms
+     * @param command     command line starting a coprocess
+     * @param size        number of coprocesses
+     * @param executor    executor for the threads reading the output of the coprocesses
+     */
+    ScriptCoprocessPool(String storageName, List<String> command, int size, Executor executor) {
+        this.storageName = storageName;
+        this.command = command;
+        this.executor = executor;
+        for (int i = 0; i < size; i++) {
+            idle.add(new Coprocess());
+        }
+    }
+
+    /**
+     * Submits a request to the next idle coprocess, starting it if necessary, and waits for the
+     * answer.
+     *
+     * @param args     the request, starting with the operation
+     * @param deadline time in milliseconds since the epoch by which the request must complete
+     * @return the output fields of the coprocess
+     * @throws TimeoutCacheException if no coprocess became idle or the coprocess did not answer
+     *                               before the deadline
+     * @throws CacheException        if the coprocess reported a failure or failed itself
+     * @throws IOException           if the coprocess could not be started
+     */
+    List<String> execute(String[] args, long deadline)
+          throws IOException, CacheException, InterruptedException {
+        if (isShutdown) {
+            throw new CacheException("Nearline storage has been shut down.");
+        }
+        Coprocess coprocess = idle.poll(deadline - System.currentTimeMillis(), MILLISECONDS);
+        if (coprocess == null) {
+            throw new TimeoutCacheException(
+                  "No HSM coprocess became available before the deadline.");
+        }
+        try {
+            return coprocess.execute(args, deadline);
+        } finally {
+            release(coprocess);
+        }
+    }
+
+    /**
+     * Returns a coprocess to the idle queue, or stops it if the pool has been shut down. The
+     * check is made under the same lock as in {@link #shutdown} to avoid returning a coprocess
+     * after the idle queue was drained.
+     */
+    private void release(Coprocess coprocess) {
+        synchronized (idle) {
+            if (!isShutdown) {
+                idle.add(coprocess);
+                return;
+            }
+        }
+        coprocess.stop();
+    }
+
+    /**
+     * Stops all idle coprocesses. Busy coprocesses are stopped once their current request
+     * completes.
+     */
+    void shutdown() {
+        List<Coprocess> coprocesses = new ArrayList<>();
+        synchronized (idle) {
+            isShutdown = true;
+            idle.drainTo(coprocesses);
+        }
+        coprocesses.forEach(Coprocess::stop);
+    }
+
+    @VisibleForTesting
+    static String encode(String field) {
+        StringBuilder encoded = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c <= ' ' || c == '%' || c == 0x7f) {
+                encoded.append('%').append(String.format("%02X", (int) c));
+            } else {
+                encoded.append(c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    @VisibleForTesting
+    static String decode(String field) {
+        int i = field.indexOf('%');
+        if (i == -1) {
+            return field;
+        }
+        StringBuilder decoded = new StringBuilder(field.length());
+        decoded.append(field, 0, i);
+        while (i < field.length()) {
+            char c = field.charAt(i);
+            if (c == '%') {
+                if (i + 3 > field.length()) {
+                    throw new IllegalArgumentException("Truncated escape sequence: " + field);
+                }
+                decoded.append((char) Integer.parseInt(field.substring(i + 1, i + 3), 16));
+                i += 3;
+            } else {
+                decoded.append(c);
+                i++;
+            }
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * A single coprocess. Only accessed by the thread that took it from the idle queue.
+     */
+    private class Coprocess {
+
+        private Process process;
+        private BufferedWriter requests;
+        private BlockingQueue<Optional<String>> responses;
+
+        List<String> execute(String[] args, long deadline)
+              throws IOException, CacheException, InterruptedException {
+            if (process == null || !process.isAlive()) {
+                stop();
+                start();
+            }
+
+            String id = Long.toString(ids.incrementAndGet());
+            try {
+                requests.write(Stream.concat(Stream.of(id), Stream.of(args).map(
+                      ScriptCoprocessPool::encode)).collect(Collectors.joining(" ")));
+                requests.newLine();
+                requests.flush();
+            } catch (IOException e) {
+                stop();
+                throw new CacheException("Failed to send request to HSM coprocess: " + e, e);
+            }
+
+            Optional<String> response;
+            try {
+                response = responses.poll(deadline - System.currentTimeMillis(), MILLISECONDS);
+            } catch (InterruptedException e) {
+                stop();
+                throw e;
+            }
+            if (response == null) {
+                stop();
+                throw new TimeoutCacheException(
+                      "HSM coprocess did not answer before the deadline.");
+            }
+            if (response.isEmpty()) {
+                stop();
+                throw new CacheException("HSM coprocess exited unexpectedly.");
+            }
+
+            List<String> fields = Splitter.on(' ').splitToList(response.get());
+            int rc;
+            List<String> output;
+            try {
+                if (fields.size() < 2 || !fields.get(0).equals(id)) {
+                    throw new IllegalArgumentException("Unexpected response: " + response.get());
+                }
+                rc = Integer.parseInt(fields.get(1));
+                output = fields.subList(2, fields.size()).stream()
+                      .map(ScriptCoprocessPool::decode)
+                      .collect(Collectors.toList());
+            } catch (IllegalArgumentException e) {
+                stop();
+                throw new CacheException("HSM coprocess violated protocol: " + e.getMessage());
+            }
+            HsmRunSystem.checkExitValue(storageName, rc, String.join(" ", output));
+            return output;
+        }
+
+        private void start() throws IOException {
+            LOGGER.debug("Starting HSM coprocess: {}", command);
+            process = new ProcessBuilder(command).start();
+            requests = new BufferedWriter(
+                  new OutputStreamWriter(process.getOutputStream(), UTF_8));
+            responses = new LinkedBlockingQueue<>();
+
+            BufferedReader stdout = new BufferedReader(
+                  new InputStreamReader(process.getInputStream(), UTF_8));
+            BufferedReader stderr = new BufferedReader(
+                  new InputStreamReader(process.getErrorStream(), UTF_8));
+            BlockingQueue<Optional<String>> queue = responses;
+            executor.execute(() -> {
+                try (stdout) {
+                    String line;
+                    while ((line = stdout.readLine()) != null) {
+                        queue.add(Optional.of(line));
+                    }
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to read from HSM coprocess: {}", e.toString());
+                } finally {
+                    queue.add(Optional.empty());
+                }
+            });
+            executor.execute(() -> {
+                try (stderr) {
+                    String line;
+                    while ((line = stderr.readLine()) != null) {
+                        LOGGER.info("[{}] {}", storageName, line);
+                    }
+                } catch (IOException e) {
+                    LOGGER.debug("Failed to read from HSM coprocess: {}", e.toString());
+                }
+            });
+        }
+
+        /**
+         * Closes the standard input of the coprocess and kills it, forcibly if it does not
+         * terminate in time.
+         */
+        void stop() {
+            if (process != null) {
+                try {
+                    requests.close();
+                } catch (IOException ignored) {
+                }
+                process.destroy();
+                try {
+                    if (!process.waitFor(TERMINATION_TIMEOUT, MILLISECONDS)) {
+                        LOGGER.warn("HSM coprocess ignores SIGTERM. Terminating forcefully "
+                              + "with SIGKILL.");
+                        process.destroyForcibly();
+                    }
+                } catch (InterruptedException e) {
+                    process.destroyForcibly();
+                    Thread.currentThread().interrupt();
+                }
+                process = null;
+            }
+        }
+    }
+}
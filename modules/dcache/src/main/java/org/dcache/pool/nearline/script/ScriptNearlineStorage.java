@@ -78,13 +78,14 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
     public static final String CONCURRENT_GETS = "c:gets";
     public static final String CONCURRENT_REMOVES = "c:removes";
     public static final String POLLING_DELAY = "p:delay";
+    public static final String COPROCESSES = "c:coprocesses";
 
     private static final int DEFAULT_FLUSH_THREADS = 100;
     private static final int DEFAULT_STAGE_THREADS = 100;
     private static final int DEFAULT_REMOVE_THREADS = 1;
     private static final Collection<String> PROPERTIES = asList(COMMAND, CONCURRENT_PUTS,
           CONCURRENT_GETS, CONCURRENT_REMOVES,
-          POLLING_DELAY);
+          POLLING_DELAY, COPROCESSES);
     private static final long DEFAULT_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
 
     private final ExecutorService executor = Executors.newCachedThreadPool();
@@ -100,6 +101,7 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
     private volatile String command;
     private volatile List<String> options;
     private volatile long retryDelay;
+    private volatile ScriptCoprocessPool coprocesses;
 
     public ScriptNearlineStorage(String type, String name) {
         super(type, name);
@@ -127,14 +129,13 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
     }
 
     @Override
-    protected Set<URI> flush(FlushRequest request) throws IOException, CacheException {
+    protected Set<URI> flush(FlushRequest request)
+          throws IOException, CacheException, InterruptedException {
         try {
             Set<URI> locations = new HashSet<>();
             String[] storeCommand = getFlushCommand(request.getReplicaUri(),
                   request.getFileAttributes());
-            String output = new HsmRunSystem(name, MAX_LINES,
-                  request.getDeadline() - System.currentTimeMillis(), storeCommand).execute();
-            for (String uri : Splitter.on("\n").trimResults().omitEmptyStrings().split(output)) {
+            for (String uri : execute(storeCommand, request.getDeadline())) {
                 try {
                     locations.add(new URI(uri));
                 } catch (URISyntaxException e) {
@@ -149,12 +150,12 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
     }
 
     @Override
-    protected Set<Checksum> stage(StageRequest request) throws IOException, CacheException {
+    protected Set<Checksum> stage(StageRequest request)
+          throws IOException, CacheException, InterruptedException {
         try {
             FileAttributes attributes = request.getFileAttributes();
             String[] fetchCommand = getFetchCommand(request.getReplicaUri(), attributes);
-            new HsmRunSystem(name, MAX_LINES, request.getDeadline() - System.currentTimeMillis(),
-                  fetchCommand).execute();
+            execute(fetchCommand, request.getDeadline());
             return readChecksumFromHsm(request.getFile());
         } catch (IllegalThreadStateException e) {
             throw new CacheException(3, e.getMessage(), e);
@@ -162,9 +163,28 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
     }
 
     @Override
-    protected void remove(RemoveRequest request) throws IOException, CacheException {
-        new HsmRunSystem(name, MAX_LINES, request.getDeadline() - System.currentTimeMillis(),
-              getRemoveCommand(request.getUri())).execute();
+    protected void remove(RemoveRequest request)
+          throws IOException, CacheException, InterruptedException {
+        execute(getRemoveCommand(request.getUri()), request.getDeadline());
+    }
+
+    /**
+     * Runs the HSM script, either as a new process or through an idle coprocess, and returns the
+     * non-empty lines or fields of its output.
+     */
+    private List<String> execute(String[] command, long deadline)
+          throws IOException, CacheException, InterruptedException {
+        ScriptCoprocessPool coprocesses = this.coprocesses;
+        if (coprocesses != null) {
+            return coprocesses.execute(Arrays.copyOfRange(command, 1, command.length), deadline)
+                  .stream()
+                  .map(String::trim)
+                  .filter(field -> !field.isEmpty())
+                  .collect(Collectors.toList());
+        }
+        String output = new HsmRunSystem(name, MAX_LINES, deadline - System.currentTimeMillis(),
+              command).execute();
+        return Splitter.on("\n").trimResults().omitEmptyStrings().splitToList(output);
     }
 
     @Override
@@ -183,11 +203,25 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
         retryDelay = properties.containsKey(POLLING_DELAY)
               ? TimeUnit.SECONDS.toMillis(Integer.parseInt(properties.get(POLLING_DELAY)))
               : DEFAULT_RETRY_DELAY;
+
+        ScriptCoprocessPool previous = coprocesses;
+        int n = properties.containsKey(COPROCESSES)
+              ? Integer.parseInt(properties.get(COPROCESSES)) : 0;
+        coprocesses = (n > 0)
+              ? new ScriptCoprocessPool(name, asList(getCoprocessCommand()), n, executor)
+              : null;
+        if (previous != null) {
+            previous.shutdown();
+        }
     }
 
     @Override
     public void shutdown() {
         super.shutdown();
+        ScriptCoprocessPool coprocesses = this.coprocesses;
+        if (coprocesses != null) {
+            coprocesses.shutdown();
+        }
         flushExecutor.shutdown();
         stageExecutor.shutdown();
         removeExecutor.shutdown();
@@ -238,6 +272,16 @@ public class ScriptNearlineStorage extends AbstractBlockingNearlineStorage {
         return argsArray;
     }
 
+    @VisibleForTesting
+    String[] getCoprocessCommand() {
+        String[] argsArray = Stream.concat(Stream.of(
+                    command,
+                    "coprocess"),
+              options.stream()).toArray(String[]::new);
+        LOGGER.debug("COMMAND: {}", Arrays.deepToString(argsArray));
+        return argsArray;
+    }
+
     private Set<Checksum> readChecksumFromHsm(File file)
           throws IOException {
         File checksumFile = new File(file.getCanonicalPath() + ".crcval");
@@ -7,6 +7,8 @@ import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.EnumSet;
+import org.dcache.pool.repository.meta.db.BerkeleyDBMetaDataRepository;
+import org.dcache.pool.repository.meta.db.CompactBerkeleyDBMetaDataRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +40,27 @@ public class MetaDataCopyTool {
 
         Path poolDir = FileSystems.getDefault().getPath(args[0]);
         String poolName = args[1];
+
+        if (args[2].equals(BerkeleyDBMetaDataRepository.class.getName()) &&
+              args[3].equals(CompactBerkeleyDBMetaDataRepository.class.getName())) {
+            /* Both formats share the same Berkeley DB environment, thus the records are
+             * converted in place rather than copied between two stores. Initializing the
+             * compact store performs the conversion.
+             */
+            try (CompactBerkeleyDBMetaDataRepository store =
+                  new CompactBerkeleyDBMetaDataRepository(new FlatFileStore(poolDir), poolDir,
+                        poolName, false)) {
+                store.init();
+            }
+            return;
+        }
+        if (args[2].equals(CompactBerkeleyDBMetaDataRepository.class.getName()) &&
+              args[3].equals(BerkeleyDBMetaDataRepository.class.getName())) {
+            System.err.println("ERROR: Both stores use the same database; convert to an");
+            System.err.println("intermediate store type (e.g., file) first.");
+            System.exit(1);
+        }
+
         FileStore fromFileStore = new DummyFileStore(DummyFileStore.Mode.ALL_EXIST);
         FileStore toFileStore = new DummyFileStore(DummyFileStore.Mode.NONE_EXIST);
         try (ReplicaStore fromStore =
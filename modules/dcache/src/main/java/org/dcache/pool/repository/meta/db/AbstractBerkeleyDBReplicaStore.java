@@ -136,6 +136,13 @@ public abstract class AbstractBerkeleyDBReplicaStore implements ReplicaStore, En
         return views.getAccessTimeInfo();
     }
 
+    /**
+     * Returns a database backed map of all compact replica records.
+     */
+    StoredMap<String, ReplicaEntry> getReplicaMap() {
+        return views.getReplicaMap();
+    }
+
     /**
      * Closes the database.
      */
@@ -4,6 +4,7 @@ import static java.util.Arrays.asList;
 import static org.dcache.util.Exceptions.messageOrClassName;
 
 import com.google.common.base.Stopwatch;
+import com.sleepycat.collections.StoredMap;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.EnvironmentFailureException;
 import com.sleepycat.je.OperationFailureException;
@@ -56,6 +57,25 @@ public class BerkeleyDBMetaDataRepository extends AbstractBerkeleyDBReplicaStore
         _fileStore = fileStore;
     }
 
+    @Override
+    public void init() throws CacheException {
+        super.init();
+        checkFormat();
+    }
+
+    /**
+     * Fails if the database contains records in the compact format. This store would not see
+     * them and thus report the replicas as missing.
+     */
+    protected void checkFormat() throws CacheException {
+        StoredMap<String, ReplicaEntry> replicas = getReplicaMap();
+        if (replicas != null && !replicas.isEmpty()) {
+            throw new CacheException(CacheException.PANIC,
+                  "Meta data in " + dir + " is in the compact format and must be opened with "
+                        + CompactBerkeleyDBMetaDataRepository.class.getName());
+        }
+    }
+
     @Override
     public Set<PnfsId> index(IndexOption... options) throws CacheException {
         try {
@@ -0,0 +1,345 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.db;
+
+import static java.util.Arrays.asList;
+import static org.dcache.util.Exceptions.messageOrClassName;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.EnvironmentFailureException;
+import com.sleepycat.je.OperationFailureException;
+import com.sleepycat.util.RuntimeExceptionWrapper;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskErrorCacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.dcache.pool.repository.DuplicateEntryException;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StickyRecord;
+
+/**
+ * BerkeleyDB based MetaDataRepository storing all meta data of a replica in a single compact
+ * record.
+ * <p>
+ * {@link BerkeleyDBMetaDataRepository} stores state, storage info and access times in three
+ * databases using Java serialization, so loading a replica costs three lookups and three
+ * deserializations. This store uses a single database with the versioned binary layout defined
+ * by {@link ReplicaEntryBinding}.
+ * <p>
+ * Both formats live in the same Berkeley DB environment. On start-up, any records still in the
+ * old format are converted and removed; the same conversion is performed by {@code dcache pool
+ * convert} without starting the pool.
+ */
+public class CompactBerkeleyDBMetaDataRepository extends BerkeleyDBMetaDataRepository {
+
+    /**
+     * Number of records converted per transaction during migration.
+     */
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private final FileStore _fileStore;
+
+    public CompactBerkeleyDBMetaDataRepository(FileStore fileStore, Path directory,
+          String poolName) throws IOException, DatabaseException, CacheException {
+        this(fileStore, directory, poolName, false);
+    }
+
+    public CompactBerkeleyDBMetaDataRepository(FileStore fileStore, Path directory,
+          String poolName, boolean readOnly) throws IOException, DatabaseException {
+        super(fileStore, directory, poolName, readOnly);
+        _fileStore = fileStore;
+    }
+
+    @Override
+    public void init() throws CacheException {
+        super.init();
+        if (!readOnly) {
+            migrate();
+        }
+    }
+
+    /**
+     * Records in the old format are converted rather than rejected.
+     */
+    @Override
+    protected void checkFormat() {
+    }
+
+    /**
+     * Converts all records in the old format to the compact format and removes the old records.
+     * A compact record takes precedence over an old record for the same replica.
+     *
+     * @return the number of converted records
+     */
+    public int migrate() throws CacheException {
+        try {
+            Set<String> ids = views.collectKeys(Collectors.toSet());
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            LOGGER.info("Converting meta data of {} replicas in {} to compact format.",
+                  ids.size(), dir);
+            Stopwatch watch = Stopwatch.createStarted();
+            int count = 0;
+            for (List<String> batch : Iterables.partition(ids, MIGRATION_BATCH_SIZE)) {
+                run(() -> batch.forEach(this::migrateRecord));
+                count += batch.size();
+                LOGGER.info("Converted {} of {} replicas.", count, ids.size());
+            }
+            LOGGER.info("Converted meta data of {} replicas in {}.", count, watch);
+            return count;
+        } catch (EnvironmentFailureException e) {
+            if (!isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data conversion failed and a pool restart is required: "
+                            + e.getMessage(), e);
+            }
+            throw new CacheException("Meta data conversion failed: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new CacheException("Meta data conversion failed: " + messageOrClassName(e), e);
+        }
+    }
+
+    private void migrateRecord(String id) {
+        if (!getReplicaMap().containsKey(id)) {
+            ReplicaEntry entry = readLegacyRecord(id);
+            if (entry != null) {
+                getReplicaMap().put(id, entry);
+            }
+        }
+        getStorageInfoMap().remove(id);
+        getStateMap().remove(id);
+        getAccessTimeInfo().remove(id);
+    }
+
+    /**
+     * Reads the meta data of a replica from the old format.
+     *
+     * @return the meta data, or null if the replica has no data file
+     */
+    private ReplicaEntry readLegacyRecord(String id) {
+        PnfsId pnfsId = new PnfsId(id);
+
+        ReplicaState state;
+        Collection<StickyRecord> sticky;
+        StorageInfo storageInfo;
+        AccessTimeInfo accessTimeInfo;
+        try {
+            CacheRepositoryEntryState legacyState = getStateMap().get(id);
+            state = legacyState == null ? ReplicaState.BROKEN : legacyState.getState();
+            sticky = legacyState == null ? ImmutableList.of() : legacyState.stickyRecords();
+            storageInfo = getStorageInfoMap().get(id);
+            accessTimeInfo = getAccessTimeInfo().get(id);
+        } catch (ClassCastException | RuntimeExceptionWrapper e) {
+            /* As in CacheRepositoryEntryImpl, records that no longer deserialize are broken. */
+            LOGGER.warn("Failed to read meta data of {}: {}", id, e.toString());
+            state = ReplicaState.BROKEN;
+            sticky = ImmutableList.of();
+            storageInfo = null;
+            accessTimeInfo = null;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = _fileStore.getFileAttributeView(pnfsId).readAttributes();
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            LOGGER.warn("Dropping meta data of {} as it has no data file.", id);
+            return null;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read attributes of {}: {}", id, messageOrClassName(e));
+            attributes = null;
+        }
+
+        long size = storageInfo == null ? 0 : storageInfo.getLegacySize();
+        if (size == 0 && attributes != null) {
+            size = attributes.size();
+        }
+
+        long now = System.currentTimeMillis();
+        Long creationTime = accessTimeInfo == null ? null : accessTimeInfo.getCreationTime();
+        if (creationTime == null) {
+            creationTime = attributes == null ? now : attributes.creationTime().toMillis();
+        }
+        Long lastAccessTime = accessTimeInfo == null ? null : accessTimeInfo.getLastAccessTime();
+        if (lastAccessTime == null) {
+            lastAccessTime = attributes == null ? now : attributes.lastAccessTime().toMillis();
+        }
+
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    @Override
+    public Set<PnfsId> index(IndexOption... options) throws CacheException {
+        try {
+            List<IndexOption> indexOptions = asList(options);
+
+            if (indexOptions.contains(IndexOption.META_ONLY)) {
+                return views.collectReplicaKeys(
+                      Collectors.mapping(PnfsId::new, Collectors.toSet()));
+            }
+
+            Stopwatch watch = Stopwatch.createStarted();
+            Set<PnfsId> files = _fileStore.index();
+            LOGGER.info("Indexed {} entries in {} in {}.", files.size(), _fileStore, watch);
+
+            if (indexOptions.contains(IndexOption.ALLOW_REPAIR)) {
+                watch.reset().start();
+                Set<String> records = views.collectReplicaKeys(Collectors.toSet());
+                LOGGER.info("Indexed {} entries in {} in {}.", records.size(), dir, watch);
+
+                for (String id : records) {
+                    if (!files.contains(new PnfsId(id))) {
+                        LOGGER.warn("Removing redundant meta data for {}.", id);
+                        getReplicaMap().remove(id);
+                    }
+                }
+            }
+
+            return files;
+        } catch (EnvironmentFailureException e) {
+            if (!isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data lookup failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        } catch (OperationFailureException e) {
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Meta data lookup failed and a pool restart is required: " + messageOrClassName(
+                        e), e);
+        }
+    }
+
+    @Override
+    public ReplicaRecord get(PnfsId id) throws CacheException {
+        try {
+            return CompactReplicaRecord.load(this, id, _fileStore);
+        } catch (EnvironmentFailureException e) {
+            if (!isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data lookup failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        } catch (OperationFailureException e) {
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new CacheException("Failed to read " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public ReplicaRecord create(PnfsId id, Set<? extends OpenOption> flags)
+          throws CacheException {
+        try {
+            if (_fileStore.contains(id)) {
+                throw new DuplicateEntryException(id);
+            }
+            getReplicaMap().remove(id.toString());
+            if (flags.contains(StandardOpenOption.CREATE)) {
+                _fileStore.create(id);
+            }
+            return new CompactReplicaRecord(this, id, _fileStore);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to create new entry " + id + ": " + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public void remove(PnfsId id) throws CacheException {
+        try {
+            _fileStore.remove(id);
+        } catch (IOException e) {
+            throw new DiskErrorCacheException(
+                  "Failed to delete " + id + ": " + messageOrClassName(e), e);
+        }
+        try {
+            getReplicaMap().remove(id.toString());
+        } catch (EnvironmentFailureException e) {
+            if (!isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data update failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            throw new CacheException("Meta data update failed: " + e.getMessage(), e);
+        } catch (OperationFailureException e) {
+            throw new CacheException("Meta data update failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void setLastModifiedTime(PnfsId pnfsId, long time) throws IOException {
+        String id = pnfsId.toString();
+        try {
+            /* Read and write in one transaction so that a concurrent record update
+             * is neither lost nor overwritten with a stale entry.
+             */
+            run(() -> {
+                ReplicaEntry entry = getReplicaMap().get(id);
+                if (entry != null) {
+                    getReplicaMap().put(id, entry.withLastAccessTime(time));
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to update access time of " + pnfsId + ": "
+                  + messageOrClassName(e), e);
+        }
+    }
+
+    @Override
+    public long getFileSize(PnfsId pnfsId) throws IOException {
+        try {
+            ReplicaEntry entry = getReplicaMap().get(pnfsId.toString());
+            StorageInfo storageInfo = entry == null ? null : entry.getStorageInfo();
+            if (storageInfo != null && storageInfo.getLegacySize() != 0) {
+                return storageInfo.getLegacySize();
+            }
+            return _fileStore
+                  .getFileAttributeView(pnfsId)
+                  .readAttributes()
+                  .size();
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+}
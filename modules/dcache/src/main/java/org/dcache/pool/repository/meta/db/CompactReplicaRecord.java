@@ -0,0 +1,415 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.db;
+
+import static com.google.common.collect.Iterables.elementsEqual;
+import static org.dcache.pool.repository.ReplicaState.BROKEN;
+import static org.dcache.pool.repository.ReplicaState.CACHED;
+import static org.dcache.pool.repository.ReplicaState.DESTROYED;
+import static org.dcache.pool.repository.ReplicaState.NEW;
+import static org.dcache.pool.repository.ReplicaState.PRECIOUS;
+import static org.dcache.pool.repository.ReplicaState.REMOVED;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.sleepycat.je.EnvironmentFailureException;
+import com.sleepycat.je.OperationFailureException;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.DiskErrorCacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.vehicles.StorageInfo;
+import diskCacheV111.vehicles.StorageInfos;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.nio.file.OpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.dcache.namespace.FileAttribute;
+import org.dcache.pool.repository.FileStore;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.RepositoryChannel;
+import org.dcache.pool.repository.StickyRecord;
+import org.dcache.vehicles.FileAttributes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ReplicaRecord backed by a single compact record in the Berkeley DB store.
+ * <p>
+ * State, sticky records, access times and size are kept in memory. As with
+ * {@link CacheRepositoryEntryImpl}, the storage info is only softly cached and is read back from
+ * the database on demand.
+ */
+public class CompactReplicaRecord implements ReplicaRecord {
+
+    private static final Logger LOGGER =
+          LoggerFactory.getLogger(CompactReplicaRecord.class);
+
+    // Reusable list for the common case
+    private static final ImmutableList<StickyRecord> SYSTEM_STICKY =
+          ImmutableList.of(new StickyRecord(-1));
+
+    private final PnfsId _pnfsId;
+    private final CompactBerkeleyDBMetaDataRepository _repository;
+    private final FileStore _fileStore;
+
+    /**
+     * The persistent part of the record, without the storage info.
+     */
+    private ReplicaEntry _entry;
+
+    private int _linkCount;
+
+    // cached storage info
+    private SoftReference<StorageInfo> _storageInfoCache = new SoftReference<>(null);
+
+    CompactReplicaRecord(CompactBerkeleyDBMetaDataRepository repository, PnfsId pnfsId,
+          FileStore fileStore) {
+        long now = System.currentTimeMillis();
+        _repository = repository;
+        _pnfsId = pnfsId;
+        _fileStore = fileStore;
+        _entry = new ReplicaEntry(NEW, ImmutableList.of(), now, now, 0, null);
+    }
+
+    private CompactReplicaRecord(CompactBerkeleyDBMetaDataRepository repository, PnfsId pnfsId,
+          FileStore fileStore, ReplicaEntry entry) {
+        _repository = repository;
+        _pnfsId = pnfsId;
+        _fileStore = fileStore;
+        _entry = entry.withStorageInfo(null)
+              .withStickyRecords(canonical(entry.getStickyRecords()));
+        _storageInfoCache = new SoftReference<>(entry.getStorageInfo());
+    }
+
+    private static ImmutableList<StickyRecord> canonical(List<StickyRecord> records) {
+        return elementsEqual(records, SYSTEM_STICKY) ? SYSTEM_STICKY
+              : ImmutableList.copyOf(records);
+    }
+
+    @Override
+    public synchronized int decrementLinkCount() {
+        if (_linkCount <= 0) {
+            throw new IllegalStateException("Link count is already zero");
+        }
+        _linkCount--;
+        return _linkCount;
+    }
+
+    @Override
+    public synchronized int incrementLinkCount() {
+        ReplicaState state = getState();
+        if (state == REMOVED || state == DESTROYED) {
+            throw new IllegalStateException("Entry is marked as removed");
+        }
+        _linkCount++;
+        return _linkCount;
+    }
+
+    @Override
+    public synchronized int getLinkCount() {
+        return _linkCount;
+    }
+
+    @Override
+    public synchronized long getCreationTime() {
+        return _entry.getCreationTime();
+    }
+
+    @Override
+    public synchronized long getLastAccessTime() {
+        return _entry.getLastAccessTime();
+    }
+
+    @Override
+    public synchronized void setLastAccessTime(long time) throws CacheException {
+        ReplicaEntry entry = _entry.withLastAccessTime(time);
+        store(entry);
+        _entry = entry;
+    }
+
+    @Override
+    public synchronized long getReplicaSize() {
+        try {
+            // use cached value only for file in 'trusted state'
+            ReplicaState state = _entry.getState();
+            return state == CACHED || state == PRECIOUS ? _entry.getSize() : _fileStore
+                  .getFileAttributeView(_pnfsId)
+                  .readAttributes()
+                  .size();
+        } catch (IOException e) {
+            LOGGER.error("Failed to read file size: {}", e.toString());
+            return 0;
+        }
+    }
+
+    private synchronized StorageInfo getStorageInfo() {
+        StorageInfo si = _storageInfoCache.get();
+        if (si == null) {
+            ReplicaEntry stored = _repository.getReplicaMap().get(_pnfsId.toString());
+            si = stored == null ? null : stored.getStorageInfo();
+            _storageInfoCache = new SoftReference<>(si);
+        }
+        return si;
+    }
+
+    @Override
+    public synchronized FileAttributes getFileAttributes() throws CacheException {
+        try {
+            FileAttributes attributes = FileAttributes.ofPnfsId(_pnfsId);
+            StorageInfo storageInfo = getStorageInfo();
+            if (storageInfo != null) {
+                StorageInfos.injectInto(storageInfo, attributes);
+            }
+            return attributes;
+        } catch (EnvironmentFailureException e) {
+            if (!_repository.isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data lookup failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        } catch (OperationFailureException e) {
+            throw new CacheException("Meta data lookup failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized PnfsId getPnfsId() {
+        return _pnfsId;
+    }
+
+    @Override
+    public synchronized ReplicaState getState() {
+        return _entry.getState();
+    }
+
+    @Override
+    public synchronized boolean isSticky() {
+        return !_entry.getStickyRecords().isEmpty();
+    }
+
+    @Override
+    public synchronized URI getReplicaUri() {
+        return _repository.getUri(_pnfsId);
+    }
+
+    @Override
+    public RepositoryChannel openChannel(Set<? extends OpenOption> mode) throws IOException {
+        return _repository.openChannel(_pnfsId, mode);
+    }
+
+    @Override
+    public Collection<StickyRecord> removeExpiredStickyFlags() throws CacheException {
+        return update("removing expired sticky", r -> {
+            long now = System.currentTimeMillis();
+            List<StickyRecord> sticky = _entry.getStickyRecords();
+            List<StickyRecord> removed = sticky.stream()
+                  .filter(s -> !s.isValidAt(now))
+                  .collect(Collectors.toList());
+            if (!removed.isEmpty()) {
+                ((UpdatableRecordImpl) r).setStickyRecords(sticky.stream()
+                      .filter(s -> s.isValidAt(now))
+                      .collect(Collectors.toList()));
+            }
+            return removed;
+        });
+    }
+
+    @Override
+    public synchronized Collection<StickyRecord> stickyRecords() {
+        return _entry.getStickyRecords();
+    }
+
+    @Override
+    public synchronized <T> T update(String why, Update<T> update) throws CacheException {
+        AtomicReference<T> result = new AtomicReference<>();
+        ReplicaEntry entry = _entry;
+        SoftReference<StorageInfo> storageInfoCache = _storageInfoCache;
+        try {
+            _repository.run(() -> {
+                UpdatableRecordImpl record = new UpdatableRecordImpl();
+                result.set(update.apply(record));
+                record.save();
+            });
+        } catch (Exception e) {
+            _entry = entry;
+            _storageInfoCache = storageInfoCache;
+            if (e instanceof EnvironmentFailureException && !_repository.isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data update failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            Throwables.propagateIfPossible(e, CacheException.class);
+            throw new CacheException("Meta data update failed: " + e.getMessage(), e);
+        }
+        return result.get();
+    }
+
+    private void store(ReplicaEntry entry) throws CacheException {
+        store(entry, getStorageInfo());
+    }
+
+    private void store(ReplicaEntry entry, StorageInfo storageInfo) throws CacheException {
+        try {
+            _repository.getReplicaMap()
+                  .put(_pnfsId.toString(), entry.withStorageInfo(storageInfo));
+        } catch (EnvironmentFailureException e) {
+            if (!_repository.isValid()) {
+                throw new DiskErrorCacheException(
+                      "Meta data update failed and a pool restart is required: " + e.getMessage(),
+                      e);
+            }
+            throw new CacheException("Meta data update failed: " + e.getMessage(), e);
+        } catch (OperationFailureException e) {
+            throw new CacheException("Meta data update failed: " + e.getMessage(), e);
+        }
+    }
+
+    static CompactReplicaRecord load(CompactBerkeleyDBMetaDataRepository repository,
+          PnfsId pnfsId, FileStore fileStore) throws IOException {
+        ReplicaEntry entry;
+        try {
+            entry = repository.getReplicaMap().get(pnfsId.toString());
+        } catch (IllegalArgumentException | UncheckedIOException e) {
+            /* Records we cannot decode are treated like missing records. */
+            LOGGER.warn("Failed to decode meta data of {}: {}", pnfsId, e.getMessage());
+            entry = null;
+        }
+
+        if (entry == null) {
+            // no record: either the file doesn't exist (provoke FileNotFound) or it is broken
+            BasicFileAttributes attributes = fileStore.getFileAttributeView(pnfsId)
+                  .readAttributes();
+            entry = new ReplicaEntry(BROKEN, ImmutableList.of(),
+                  attributes.creationTime().toMillis(), attributes.lastAccessTime().toMillis(),
+                  attributes.size(), null);
+        } else if (entry.getStorageInfo() == null) {
+            entry = entry.withState(BROKEN, entry.getSize());
+        } else if (entry.getSize() == 0 && !entry.getState().isMutable()) {
+            try {
+                long size = fileStore.getFileAttributeView(pnfsId).readAttributes().size();
+                if (size != 0) {
+                    entry = entry.withState(entry.getState(), size);
+                    repository.getReplicaMap().put(pnfsId.toString(), entry);
+                }
+            } catch (IOException e) {
+                LOGGER.error("Failed to set file size: {}", e.toString());
+            }
+        }
+        return new CompactReplicaRecord(repository, pnfsId, fileStore, entry);
+    }
+
+    private class UpdatableRecordImpl implements UpdatableRecord {
+
+        private boolean _modified;
+        private boolean _storageInfoModified;
+        private StorageInfo _storageInfo;
+
+        private void setStickyRecords(Collection<StickyRecord> records) {
+            _entry = _entry.withStickyRecords(canonical(ImmutableList.copyOf(records)));
+            _modified = true;
+        }
+
+        @Override
+        public boolean setSticky(String owner, long expire, boolean overwrite)
+              throws CacheException {
+            if (_entry.getState() == REMOVED) {
+                throw new CacheException("Entry in removed state");
+            }
+            List<StickyRecord> sticky = _entry.getStickyRecords();
+            Predicate<StickyRecord> subsumes =
+                  r -> r.owner().equals(owner) && (r.expire() == expire
+                        || !overwrite && r.isValidAt(expire));
+            if (sticky.stream().anyMatch(subsumes)) {
+                return false;
+            }
+            ImmutableList.Builder<StickyRecord> builder = ImmutableList.builder();
+            sticky.stream().filter(r -> !r.owner().equals(owner)).forEach(builder::add);
+            builder.add(new StickyRecord(owner, expire));
+            setStickyRecords(builder.build());
+            return true;
+        }
+
+        @Override
+        public Void setState(ReplicaState state) throws CacheException {
+            ReplicaState current = _entry.getState();
+            if (current != state) {
+                long size = _entry.getSize();
+                if (current.isMutable() && !state.isMutable()) {
+                    try {
+                        size = _fileStore.getFileAttributeView(_pnfsId).readAttributes().size();
+                    } catch (IOException e) {
+                        throw new DiskErrorCacheException("Failed to query file size: " + e, e);
+                    }
+                }
+                _entry = _entry.withState(state, size);
+                _modified = true;
+            }
+            return null;
+        }
+
+        @Override
+        public Void setFileAttributes(FileAttributes attributes) throws CacheException {
+            _storageInfo = attributes.isDefined(FileAttribute.STORAGEINFO)
+                  ? StorageInfos.extractFrom(attributes)
+                  : null;
+            if (attributes.isDefined(FileAttribute.ACCESS_TIME) && attributes.isDefined(
+                  FileAttribute.CREATION_TIME)) {
+                _entry = _entry.withAttributes(null, attributes.getCreationTime(),
+                      attributes.getAccessTime());
+            }
+            _storageInfoCache = new SoftReference<>(_storageInfo);
+            _storageInfoModified = true;
+            _modified = true;
+            return null;
+        }
+
+        @Override
+        public FileAttributes getFileAttributes() throws CacheException {
+            return CompactReplicaRecord.this.getFileAttributes();
+        }
+
+        @Override
+        public ReplicaState getState() {
+            return CompactReplicaRecord.this.getState();
+        }
+
+        @Override
+        public int getLinkCount() {
+            return CompactReplicaRecord.this.getLinkCount();
+        }
+
+        public void save() throws CacheException {
+            if (_storageInfoModified) {
+                store(_entry, _storageInfo);
+            } else if (_modified) {
+                store(_entry);
+            }
+        }
+    }
+}
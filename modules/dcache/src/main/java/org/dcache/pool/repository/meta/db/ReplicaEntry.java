@@ -0,0 +1,101 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.db;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.ImmutableList;
+import diskCacheV111.vehicles.StorageInfo;
+import java.util.Collection;
+import javax.annotation.Nullable;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StickyRecord;
+
+/**
+ * All meta data of a replica as stored in a single record by
+ * {@link CompactBerkeleyDBMetaDataRepository}.
+ * <p>
+ * Instances are immutable; the storage info must not be modified after it has been passed to the
+ * constructor.
+ */
+class ReplicaEntry {
+
+    private final ReplicaState state;
+    private final ImmutableList<StickyRecord> sticky;
+    private final long creationTime;
+    private final long lastAccessTime;
+    private final long size;
+    private final StorageInfo storageInfo;
+
+    ReplicaEntry(ReplicaState state, Collection<StickyRecord> sticky, long creationTime,
+          long lastAccessTime, long size, @Nullable StorageInfo storageInfo) {
+        this.state = requireNonNull(state);
+        this.sticky = ImmutableList.copyOf(sticky);
+        this.creationTime = creationTime;
+        this.lastAccessTime = lastAccessTime;
+        this.size = size;
+        this.storageInfo = storageInfo;
+    }
+
+    ReplicaState getState() {
+        return state;
+    }
+
+    ImmutableList<StickyRecord> getStickyRecords() {
+        return sticky;
+    }
+
+    long getCreationTime() {
+        return creationTime;
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    @Nullable
+    StorageInfo getStorageInfo() {
+        return storageInfo;
+    }
+
+    ReplicaEntry withState(ReplicaState state, long size) {
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    ReplicaEntry withStickyRecords(Collection<StickyRecord> sticky) {
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    ReplicaEntry withLastAccessTime(long lastAccessTime) {
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    ReplicaEntry withStorageInfo(@Nullable StorageInfo storageInfo) {
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    ReplicaEntry withAttributes(@Nullable StorageInfo storageInfo, long creationTime,
+          long lastAccessTime) {
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.pool.repository.meta.db;
+
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StickyRecord;
+
+/**
+ * Binding for the compact, versioned on-disk format of {@link ReplicaEntry}.
+ * <p>
+ * Version 1 has the following layout (tuple encoding, packed numbers are variable length):
+ * <pre>
+ *   byte         format version
+ *   byte         replica state
+ *   packed long  creation time
+ *   packed long  last access time
+ *   packed long  replica size
+ *   packed int   number of sticky records, each followed by
+ *       string       owner
+ *       packed long  expiration time
+ *   byte         storage info encoding: NONE, GENERIC or SERIALIZED
+ *   GENERIC:
+ *       string       hsm, storage class, cache class, bitfile id
+ *       byte         flags
+ *       byte         access latency id, or -1
+ *       byte         retention policy id, or -1
+ *       packed long  legacy size
+ *       packed int   number of locations, each followed by the location URI as string
+ *       packed int   number of keys, each followed by key and value as strings
+ *   SERIALIZED:
+ *       packed int   length, followed by the Java serialized StorageInfo
+ * </pre>
+ * Only {@link GenericStorageInfo} is encoded field by field; the HSM specific subclasses fall
+ * back to Java serialization.
+ * <p>
+ * State codes are persisted and must never be renumbered.
+ */
+class ReplicaEntryBinding extends TupleBinding<ReplicaEntry> {
+
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte STORAGE_INFO_NONE = 0;
+    private static final byte STORAGE_INFO_GENERIC = 1;
+    private static final byte STORAGE_INFO_SERIALIZED = 2;
+
+    private static final int FLAG_SET_HSM = 1;
+    private static final int FLAG_SET_STORAGE_CLASS = 1 << 1;
+    private static final int FLAG_SET_BITFILE_ID = 1 << 2;
+    private static final int FLAG_SET_LOCATION = 1 << 3;
+    private static final int FLAG_IS_NEW = 1 << 4;
+
+    private static final String UNKNOWN_BITFILE_ID = "<Unknown>";
+
+    @Override
+    public ReplicaEntry entryToObject(TupleInput input) {
+        byte version = input.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported replica record format: " + version);
+        }
+        ReplicaState state = toState(input.readByte());
+        long creationTime = input.readPackedLong();
+        long lastAccessTime = input.readPackedLong();
+        long size = input.readPackedLong();
+
+        int count = input.readPackedInt();
+        List<StickyRecord> sticky = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String owner = input.readString();
+            sticky.add(new StickyRecord(owner, input.readPackedLong()));
+        }
+
+        StorageInfo storageInfo;
+        byte encoding = input.readByte();
+        switch (encoding) {
+            case STORAGE_INFO_NONE:
+                storageInfo = null;
+                break;
+            case STORAGE_INFO_GENERIC:
+                storageInfo = readGenericStorageInfo(input);
+                break;
+            case STORAGE_INFO_SERIALIZED:
+                storageInfo = readSerializedStorageInfo(input);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported storage info encoding: " + encoding);
+        }
+
+        return new ReplicaEntry(state, sticky, creationTime, lastAccessTime, size, storageInfo);
+    }
+
+    @Override
+    public void objectToEntry(ReplicaEntry entry, TupleOutput output) {
+        output.writeByte(FORMAT_VERSION);
+        output.writeByte(toCode(entry.getState()));
+        output.writePackedLong(entry.getCreationTime());
+        output.writePackedLong(entry.getLastAccessTime());
+        output.writePackedLong(entry.getSize());
+
+        List<StickyRecord> sticky = entry.getStickyRecords();
+        output.writePackedInt(sticky.size());
+        for (StickyRecord record : sticky) {
+            output.writeString(record.owner());
+            output.writePackedLong(record.expire());
+        }
+
+        StorageInfo storageInfo = entry.getStorageInfo();
+        if (storageInfo == null) {
+            output.writeByte(STORAGE_INFO_NONE);
+        } else if (storageInfo.getClass() == GenericStorageInfo.class) {
+            output.writeByte(STORAGE_INFO_GENERIC);
+            writeGenericStorageInfo(storageInfo, output);
+        } else {
+            output.writeByte(STORAGE_INFO_SERIALIZED);
+            writeSerializedStorageInfo(storageInfo, output);
+        }
+    }
+
+    private static void writeGenericStorageInfo(StorageInfo info, TupleOutput output) {
+        output.writeString(info.getHsm());
+        output.writeString(info.getStorageClass());
+        output.writeString(info.getCacheClass());
+        String bitfileId = info.getBitfileId();
+        output.writeString(UNKNOWN_BITFILE_ID.equals(bitfileId) ? null : bitfileId);
+
+        int flags = 0;
+        if (info.isSetHsm()) {
+            flags |= FLAG_SET_HSM;
+        }
+        if (info.isSetStorageClass()) {
+            flags |= FLAG_SET_STORAGE_CLASS;
+        }
+        if (info.isSetBitFileId()) {
+            flags |= FLAG_SET_BITFILE_ID;
+        }
+        if (info.isSetAddLocation()) {
+            flags |= FLAG_SET_LOCATION;
+        }
+        if (info.isCreatedOnly()) {
+            flags |= FLAG_IS_NEW;
+        }
+        output.writeByte(flags);
+
+        AccessLatency accessLatency = info.getLegacyAccessLatency();
+        output.writeByte(accessLatency == null ? -1 : accessLatency.getId());
+        RetentionPolicy retentionPolicy = info.getLegacyRetentionPolicy();
+        output.writeByte(retentionPolicy == null ? -1 : retentionPolicy.getId());
+        output.writePackedLong(info.getLegacySize());
+
+        List<URI> locations = info.locations();
+        output.writePackedInt(locations.size());
+        for (URI location : locations) {
+            output.writeString(location.toString());
+        }
+
+        Map<String, String> keys = info.getMap();
+        output.writePackedInt(keys.size());
+        for (Map.Entry<String, String> key : keys.entrySet()) {
+            output.writeString(key.getKey());
+            output.writeString(key.getValue());
+        }
+    }
+
+    private static StorageInfo readGenericStorageInfo(TupleInput input) {
+        GenericStorageInfo info = new GenericStorageInfo(intern(input.readString()),
+              intern(input.readString()));
+        info.setCacheClass(intern(input.readString()));
+        info.setBitfileId(input.readString());
+
+        int flags = input.readByte();
+        info.isSetHsm((flags & FLAG_SET_HSM) != 0);
+        info.isSetStorageClass((flags & FLAG_SET_STORAGE_CLASS) != 0);
+        info.isSetBitFileId((flags & FLAG_SET_BITFILE_ID) != 0);
+        info.isSetAddLocation((flags & FLAG_SET_LOCATION) != 0);
+        info.setIsNew((flags & FLAG_IS_NEW) != 0);
+
+        byte accessLatency = input.readByte();
+        if (accessLatency >= 0) {
+            info.setLegacyAccessLatency(AccessLatency.getAccessLatency(accessLatency));
+        }
+        byte retentionPolicy = input.readByte();
+        if (retentionPolicy >= 0) {
+            info.setLegacyRetentionPolicy(RetentionPolicy.getRetentionPolicy(retentionPolicy));
+        }
+        info.setLegacySize(input.readPackedLong());
+
+        int locations = input.readPackedInt();
+        for (int i = 0; i < locations; i++) {
+            info.addLocation(URI.create(input.readString()));
+        }
+
+        int keys = input.readPackedInt();
+        for (int i = 0; i < keys; i++) {
+            info.setKey(input.readString().intern(), input.readString());
+        }
+        return info;
+    }
+
+    private static void writeSerializedStorageInfo(StorageInfo info, TupleOutput output) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(info);
+            }
+            output.writePackedInt(bytes.size());
+            output.writeFast(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StorageInfo readSerializedStorageInfo(TupleInput input) {
+        byte[] bytes = new byte[input.readPackedInt()];
+        input.readFast(bytes);
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (StorageInfo) in.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unknown storage info class: " + e.getMessage(),
+                  e);
+        }
+    }
+
+    private static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    private static byte toCode(ReplicaState state) {
+        switch (state) {
+            case NEW:
+                return 0;
+            case FROM_CLIENT:
+                return 1;
+            case FROM_POOL:
+                return 2;
+            case FROM_STORE:
+                return 3;
+            case BROKEN:
+                return 4;
+            case CACHED:
+                return 5;
+            case PRECIOUS:
+                return 6;
+            case REMOVED:
+                return 7;
+            case DESTROYED:
+                return 8;
+            default:
+                throw new IllegalArgumentException("Unknown state: " + state);
+        }
+    }
+
+    private static ReplicaState toState(byte code) {
+        switch (code) {
+            case 0:
+                return ReplicaState.NEW;
+            case 1:
+                return ReplicaState.FROM_CLIENT;
+            case 2:
+                return ReplicaState.FROM_POOL;
+            case 3:
+                return ReplicaState.FROM_STORE;
+            case 4:
+                return ReplicaState.BROKEN;
+            case 5:
+                return ReplicaState.CACHED;
+            case 6:
+                return ReplicaState.PRECIOUS;
+            case 7:
+                return ReplicaState.REMOVED;
+            case 8:
+                return ReplicaState.DESTROYED;
+            default:
+                throw new IllegalArgumentException("Unknown state code: " + code);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.sleepycat.collections.TransactionWorker;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
 import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.DatabaseNotFoundException;
 import com.sleepycat.je.DiskOrderedCursor;
 import com.sleepycat.je.DiskOrderedCursorConfig;
 import com.sleepycat.je.Environment;
@@ -31,6 +32,7 @@ public class ReplicaStoreDatabase {
     private static final String STORAGE_INFO_STORE = "storage_info_store";
     private static final String STATE_STORE = "state_store";
     private static final String ACCESS_INFO_STORE = "access_info_store";
+    private static final String REPLICA_STORE = "replica_store";
 
 
     private final StoredClassCatalog javaCatalog;
@@ -38,6 +40,12 @@ public class ReplicaStoreDatabase {
     private final Database stateDatabase;
     private final Database accessInfoStore;
 
+    /**
+     * Compact replica records, or null if the database is opened read-only and does not contain
+     * any compact records.
+     */
+    private final Database replicaDatabase;
+
 
     private final TransactionRunner transactionRunner;
 
@@ -76,9 +84,22 @@ public class ReplicaStoreDatabase {
 
         accessInfoStore = env.openDatabase(null, ACCESS_INFO_STORE, dbConfig);
 
+        replicaDatabase = openOptionalDatabase(REPLICA_STORE, dbConfig);
+
         transactionRunner = new TransactionRunner(env);
     }
 
+    private Database openOptionalDatabase(String name, DatabaseConfig config) {
+        try {
+            return env.openDatabase(null, name, config);
+        } catch (DatabaseNotFoundException e) {
+            if (!config.getReadOnly()) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
     private synchronized void setFailed() {
         _failed = true;
     }
@@ -90,6 +111,9 @@ public class ReplicaStoreDatabase {
     public synchronized void close()
           throws DatabaseException {
         if (!_closed) {
+            if (replicaDatabase != null) {
+                replicaDatabase.close();
+            }
             accessInfoStore.close();
             stateDatabase.close();
             storageInfoDatabase.close();
@@ -124,10 +148,20 @@ public class ReplicaStoreDatabase {
     }
 
 
+    public final Database getReplicaDatabase() {
+        return replicaDatabase;
+    }
+
     public DiskOrderedCursor openKeyCursor() {
         DiskOrderedCursorConfig config = new DiskOrderedCursorConfig();
         config.setKeysOnly(true);
         return env.openDiskOrderedCursor(new Database[]{storageInfoDatabase, stateDatabase},
               config);
     }
+
+    public DiskOrderedCursor openReplicaKeyCursor() {
+        DiskOrderedCursorConfig config = new DiskOrderedCursorConfig();
+        config.setKeysOnly(true);
+        return env.openDiskOrderedCursor(new Database[]{replicaDatabase}, config);
+    }
 }
@@ -3,6 +3,7 @@ package org.dcache.pool.repository.meta.db;
 import com.sleepycat.bind.EntryBinding;
 import com.sleepycat.bind.serial.ClassCatalog;
 import com.sleepycat.bind.serial.SerialBinding;
+import com.sleepycat.bind.tuple.StringBinding;
 import com.sleepycat.collections.StoredMap;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DiskOrderedCursor;
@@ -19,12 +20,14 @@ class ReplicaStoreView {
     private final StoredMap<String, StorageInfo> storageInfoMap;
     private final StoredMap<String, CacheRepositoryEntryState> stateMap;
     private final StoredMap<String, AccessTimeInfo> accessTimeInfo;
+    private final StoredMap<String, ReplicaEntry> replicaMap;
 
 
     private final EntryBinding<String> keyBinding;
     private final EntryBinding<StorageInfo> storageInfoBinding;
     private final EntryBinding<CacheRepositoryEntryState> stateBinding;
     private final EntryBinding<AccessTimeInfo> accessTimeInfoBinding;
+    private final EntryBinding<String> replicaKeyBinding = new StringBinding();
 
 
     public ReplicaStoreView(ReplicaStoreDatabase db) {
@@ -49,7 +52,10 @@ class ReplicaStoreView {
               new StoredMap<>(db.getAccessInfoStore(),
                     keyBinding, accessTimeInfoBinding, true);
 
-
+        replicaMap = db.getReplicaDatabase() == null
+              ? null
+              : new StoredMap<>(db.getReplicaDatabase(),
+                    replicaKeyBinding, new ReplicaEntryBinding(), true);
     }
 
     public final StoredMap<String, StorageInfo> getStorageInfoMap() {
@@ -65,6 +71,14 @@ class ReplicaStoreView {
     }
 
 
+    /**
+     * Returns a database backed map of compact replica records, or null if the store was opened
+     * read-only and holds no such records.
+     */
+    public final StoredMap<String, ReplicaEntry> getReplicaMap() {
+        return replicaMap;
+    }
+
     public final <A, R> R collectKeys(Collector<String, A, R> collector) {
         A accumulator = collector.supplier().get();
         DatabaseEntry key = new DatabaseEntry();
@@ -76,4 +90,19 @@ class ReplicaStoreView {
         }
         return collector.finisher().apply(accumulator);
     }
+
+    public final <A, R> R collectReplicaKeys(Collector<String, A, R> collector) {
+        A accumulator = collector.supplier().get();
+        if (replicaMap != null) {
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry data = new DatabaseEntry();
+            try (DiskOrderedCursor cursor = db.openReplicaKeyCursor()) {
+                while (cursor.getNext(key, data, null) == OperationStatus.SUCCESS) {
+                    collector.accumulator().accept(accumulator,
+                          replicaKeyBinding.entryToObject(key));
+                }
+            }
+        }
+        return collector.finisher().apply(accumulator);
+    }
 }
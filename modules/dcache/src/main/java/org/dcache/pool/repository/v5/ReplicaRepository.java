@@ -11,6 +11,8 @@ import static org.dcache.pool.repository.ReplicaState.REMOVED;
 import static org.dcache.util.ByteUnit.GiB;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.RateLimiter;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.DiskErrorCacheException;
 import diskCacheV111.util.DiskSpace;
@@ -155,6 +157,29 @@ public class ReplicaRepository
     private long _workQueuekeepAliveTime = 60;
     private TimeUnit _workQueueTimeUnit = TimeUnit.SECONDS;
 
+    /**
+     * Whether the repository is opened as soon as the inventory has been read, with meta data
+     * being verified on first access and by a background task.
+     */
+    private boolean _lazyLoading;
+
+    /**
+     * Maximum number of entries per second verified by the background task. Zero or less means
+     * unlimited.
+     */
+    private double _verificationRate;
+
+    /**
+     * Thread verifying meta data after a lazy load.
+     */
+    private volatile Thread _verifier;
+
+    /**
+     * Space reserved in the account for entries not yet verified after a lazy load.
+     */
+    @GuardedBy("_account")
+    private long _unverifiedSpace;
+
     /**
      * Executor for periodic tasks.
      */
@@ -295,6 +320,43 @@ public class ReplicaRepository
         this.scanThreads = scanThreads;
     }
 
+    public boolean getLazyLoading() {
+        return _lazyLoading;
+    }
+
+    /**
+     * If set to true, the repository is opened as soon as the inventory has been read. Meta data of
+     * an entry is then verified on first access, while a background task verifies the remaining
+     * entries. Until verification completes, the space used on the file system is reserved in the
+     * account.
+     */
+    public void setLazyLoading(boolean lazyLoading) {
+        _stateLock.readLock().lock();
+        try {
+            checkUninitialized();
+            _lazyLoading = lazyLoading;
+        } finally {
+            _stateLock.readLock().unlock();
+        }
+    }
+
+    public double getVerificationRate() {
+        return _verificationRate;
+    }
+
+    /**
+     * Limits the number of entries per second the background task verifies after a lazy load.
+     */
+    public void setVerificationRate(double rate) {
+        _stateLock.readLock().lock();
+        try {
+            checkUninitialized();
+            _verificationRate = rate;
+        } finally {
+            _stateLock.readLock().unlock();
+        }
+    }
+
 
     /**
      * Get pool name to which repository belongs.
@@ -516,7 +578,7 @@ public class ReplicaRepository
         }
     }
 
-    private PnfsId loadRecord(PnfsId id)
+    private PnfsId loadRecord(PnfsId id, State expected)
           throws CacheException, IllegalStateException,
           InterruptedException {
         ReplicaRecord entry = readReplicaRecord(id);
@@ -525,7 +587,7 @@ public class ReplicaRepository
             LOGGER.debug("{} {}", id, state);
         }
         // Lazily check if repository was closed
-        if (_state != State.LOADING) {
+        if (_state != expected) {
             throw new IllegalStateException("Repository was closed during loading.");
         }
 
@@ -549,12 +611,19 @@ public class ReplicaRepository
             Collection<PnfsId> ids = _store.index();
             int fileCount = ids.size();
 
+            if (_lazyLoading) {
+                openLazily(ImmutableList.copyOf(ids));
+                LOGGER.info("Done reading inventory in {}; verifying meta data of {} files in "
+                      + "the background.", watch, fileCount);
+                return;
+            }
+
             LOGGER.info("Checking meta data for {} files with {} threads.", fileCount, scanThreads);
             int cnt = 0;
 
             if (scanThreads == 1) {
                 for (PnfsId id : ids) {
-                    loadRecord(id);
+                    loadRecord(id, State.LOADING);
                     _initializationProgress = ((float) ++cnt) / fileCount;
                 }
             } else {
@@ -572,7 +641,7 @@ public class ReplicaRepository
                     while (true) {
                         try {
                             futures.add(completionService.submit(() -> {
-                                return loadRecord(id);
+                                return loadRecord(id, State.LOADING);
                             }));
                             break;
                         } catch (RejectedExecutionException e) {
@@ -622,6 +691,85 @@ public class ReplicaRepository
         LOGGER.info("Done generating inventory in {}", watch);
     }
 
+    /**
+     * Opens the repository before the meta data of the entries has been verified and starts a
+     * background task to verify it.
+     * <p>
+     * Entries only become known to the account and to the sweeper once they are verified, either
+     * by the first access or by the background task. To avoid allocating space that is already
+     * used by unverified entries, the space used on the file system is reserved until
+     * verification completes. This is conservative, as the file system may hold data not belonging
+     * to the pool.
+     */
+    private void openLazily(List<PnfsId> ids) {
+        _stateLock.writeLock().lock();
+        try {
+            synchronized (_account) {
+                _unverifiedSpace = Math.max(0, _store.getTotalSpace() - _store.getFreeSpace());
+                _account.growTotalAndUsed(null, _unverifiedSpace);
+            }
+            updateAccountSize();
+            if (!compareAndSetState(State.LOADING, State.OPEN)) {
+                throw new IllegalStateException("Repository was closed during loading.");
+            }
+            _initializationProgress = 0;
+            _verifier = new Thread(() -> verify(ids), "repository-verifier");
+            _verifier.start();
+        } finally {
+            _stateLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Verifies the meta data of the given entries, throttled to the configured verification rate,
+     * and releases the space reserved for unverified entries once done.
+     */
+    private void verify(List<PnfsId> ids) {
+        Stopwatch watch = Stopwatch.createStarted();
+        RateLimiter limiter = _verificationRate > 0 ? RateLimiter.create(_verificationRate) : null;
+        try {
+            int fileCount = ids.size();
+            int cnt = 0;
+            for (PnfsId id : ids) {
+                if (limiter != null) {
+                    limiter.acquire();
+                }
+                loadRecord(id, State.OPEN);
+                _initializationProgress = ((float) ++cnt) / fileCount;
+            }
+
+            _stateLock.writeLock().lock();
+            try {
+                checkOpen();
+                synchronized (_account) {
+                    _account.free(null, _unverifiedSpace);
+                    _unverifiedSpace = 0;
+                }
+                updateAccountSize();
+            } finally {
+                _stateLock.writeLock().unlock();
+            }
+            loadComplete.complete(null);
+            LOGGER.info("Done verifying meta data of {} files in {}", fileCount, watch);
+        } catch (InterruptedException | IllegalStateException e) {
+            LOGGER.info("Meta data verification was interrupted.");
+            loadComplete.completeExceptionally(e);
+        } catch (CacheException | RuntimeException e) {
+            LOGGER.error("Meta data verification failed: {}", e.toString());
+            loadComplete.completeExceptionally(e);
+            fail(FaultAction.DEAD, "Meta data verification failed: " + e.getMessage());
+        } finally {
+            _verifier = null;
+        }
+    }
+
+    /**
+     * Returns whether meta data is still being verified after a lazy load.
+     */
+    private boolean isVerifying() {
+        return _state == State.OPEN && _verifier != null;
+    }
+
     @Override
     public Iterator<PnfsId> iterator() {
         _stateLock.readLock().lock();
@@ -983,7 +1131,7 @@ public class ReplicaRepository
         _stateLock.readLock().lock();
         try {
             info.setState(_state.name());
-            if (_state == State.LOADING) {
+            if (_state == State.LOADING || isVerifying()) {
                 info.setInitializationProgress((int) (_initializationProgress * 100));
             }
             try {
@@ -1037,6 +1185,10 @@ public class ReplicaRepository
         try {
             _stateChangeListeners.stop();
             _state = State.CLOSED;
+            Thread verifier = _verifier;
+            if (verifier != null) {
+                verifier.interrupt();
+            }
             _store.close();
         } finally {
             _stateLock.writeLock().unlock();
@@ -10,6 +10,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.concurrent.GuardedBy;
 import org.dcache.pool.repository.ForwardingRepositoryChannel;
 import org.dcache.pool.repository.RepositoryChannel;
@@ -24,6 +25,9 @@ import org.slf4j.LoggerFactory;
  * spent with at least one IO request (i.e., when blocking) and the different phases of a transfer:
  * pre-transfer, transfer, post-transfer.
  * <p>
+ * IO requests do not contend on a common lock: the number of in-flight requests is tracked with
+ * atomic counters and the lock is only taken when the channel changes between idle and active.
+ * <p>
  * Hint: It might be interesting for further developments to have a closer look at return values
  * from read and write methods, when they equal 0
  */
@@ -46,14 +50,14 @@ public class IoStatisticsChannel extends ForwardingRepositoryChannel {
     private final Stopwatch writeIdle = Stopwatch.createUnstarted();
     private final Stopwatch writeActive = Stopwatch.createUnstarted();
 
-    private int concurrentReads;
-    private int concurrentWrites;
+    private final AtomicInteger concurrentReads = new AtomicInteger();
+    private final AtomicInteger concurrentWrites = new AtomicInteger();
 
     private final Instant whenOpened = Instant.now(); // assuming created when channel is opened.
-    private Instant firstRead;
-    private Instant latestRead;
-    private Instant firstWrite;
-    private Instant latestWrite;
+    private volatile Instant firstRead;
+    private volatile Instant latestRead;
+    private volatile Instant firstWrite;
+    private volatile Instant latestWrite;
     private Instant whenClosed;
 
     public IoStatisticsChannel(RepositoryChannel channel) {
@@ -114,63 +118,97 @@ public class IoStatisticsChannel extends ForwardingRepositoryChannel {
         return whenClosed != null;
     }
 
-    private synchronized int writeStarted() {
+    private int writeStarted() {
         Instant now = Instant.now();
         if (firstWrite == null) {
-            firstWrite = now;
+            synchronized (this) {
+                if (firstWrite == null) {
+                    firstWrite = now;
+                }
+            }
         }
         latestWrite = now;
 
-        if (concurrentWrites++ == 0) {
+        int concurrency = concurrentWrites.incrementAndGet();
+        if (concurrency == 1) {
+            updateWriteActivity();
+        }
+        return concurrency;
+    }
+
+    private void writeCompleted() {
+        if (concurrentWrites.decrementAndGet() == 0) {
+            updateWriteActivity();
+        }
+    }
+
+    /**
+     * Starts or stops the write stopwatches according to the current number of in-flight writes.
+     * As the counter is updated outside the lock, concurrent calls may be applied in any order;
+     * the last call observes the latest count and thus leaves the stopwatches in the right state.
+     */
+    private synchronized void updateWriteActivity() {
+        if (concurrentWrites.get() > 0) {
             if (writeIdle.isRunning()) {
                 writeIdle.stop();
             }
 
-            if (!isClosed()) {
+            if (!isClosed() && !writeActive.isRunning()) {
                 writeActive.start();
             }
-        }
-        return concurrentWrites;
-    }
-
-    private synchronized void writeCompleted() {
-        if (--concurrentWrites == 0) {
+        } else {
             if (writeActive.isRunning()) {
                 writeActive.stop();
             }
 
-            if (!isClosed()) {
+            if (!isClosed() && !writeIdle.isRunning()) {
                 writeIdle.start();
             }
         }
     }
 
-    private synchronized int readStarted() {
+    private int readStarted() {
         Instant now = Instant.now();
         if (firstRead == null) {
-            firstRead = now;
+            synchronized (this) {
+                if (firstRead == null) {
+                    firstRead = now;
+                }
+            }
         }
         latestRead = now;
 
-        if (concurrentReads++ == 0) {
+        int concurrency = concurrentReads.incrementAndGet();
+        if (concurrency == 1) {
+            updateReadActivity();
+        }
+        return concurrency;
+    }
+
+    private void readCompleted() {
+        if (concurrentReads.decrementAndGet() == 0) {
+            updateReadActivity();
+        }
+    }
+
+    /**
+     * Starts or stops the read stopwatches according to the current number of in-flight reads.
+     */
+    private synchronized void updateReadActivity() {
+        if (concurrentReads.get() > 0) {
             if (readIdle.isRunning()) {
                 readIdle.stop();
             }
 
-            if (!isClosed()) {
+            if (!isClosed() && !readActive.isRunning()) {
                 readActive.start();
             }
-        }
-        return concurrentReads;
-    }
-
-    private synchronized void readCompleted() {
-        if (--concurrentReads == 0) {
+        } else {
             if (readActive.isRunning()) {
                 readActive.stop();
             }
 
-            if (!isClosed()) {
+            if (!isClosed() && !readIdle.isRunning()) {
                 readIdle.start();
             }
         }
@@ -332,7 +370,7 @@ public class IoStatisticsChannel extends ForwardingRepositoryChannel {
             if (!isClosed()) {
                 whenClosed = Instant.now();
 
-                if (concurrentReads == 0) {
+                if (concurrentReads.get() == 0) {
                     if (readIdle.isRunning()) {
                         readIdle.stop();
                     }
@@ -341,7 +379,7 @@ public class IoStatisticsChannel extends ForwardingRepositoryChannel {
                     // allow in-flight read request(s) to stop readActive stopwatch.
                 }
 
-                if (concurrentWrites == 0) {
+                if (concurrentWrites.get() == 0) {
                     if (writeIdle.isRunning()) {
                         writeIdle.stop();
                     }
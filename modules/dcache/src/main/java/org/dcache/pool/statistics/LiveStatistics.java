@@ -20,6 +20,12 @@ package org.dcache.pool.statistics;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.time.temporal.ChronoUnit.SECONDS;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.math3.stat.descriptive.AggregateSummaryStatistics;
+import org.apache.commons.math3.stat.descriptive.StatisticalSummary;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
 /**
@@ -31,25 +37,46 @@ import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
  * This class protects against concurrent updates and obtaining a snapshot of a metric's statistics.
  *  External synchronisation is needed if multiple snapshot statistics are desired without any
  * intermediate updates.
+ * <p>
+ * To avoid concurrent IO operations contending on a single lock, updates are spread over several
+ * stripes, selected by the updating thread, which are aggregated when a snapshot is taken.
  */
 public class LiveStatistics {
 
-    private final SummaryStatistics _instantaneousBandwidth = new SummaryStatistics();
-    private final SummaryStatistics _requestedBytes = new SummaryStatistics();
-    private final SummaryStatistics _transferredBytes = new SummaryStatistics();
-    private final SummaryStatistics _duration = new SummaryStatistics();
-    private final SummaryStatistics _concurrency = new SummaryStatistics();
+    private static final int STRIPES = 8;
+
+    private final Stripe[] _stripes = new Stripe[STRIPES];
+
+    public LiveStatistics() {
+        for (int i = 0; i < STRIPES; i++) {
+            _stripes[i] = new Stripe();
+        }
+    }
 
     /**
      * Provide a snapshot of current state of the monitored statistics.
      */
-    public synchronized SnapshotStatistics snapshot() {
+    public SnapshotStatistics snapshot() {
+        List<Stripe> stripes = Arrays.stream(_stripes)
+              .map(Stripe::copy)
+              .collect(Collectors.toList());
         return new SnapshotStatistics(
-              _instantaneousBandwidth,
-              _duration,
-              _requestedBytes,
-              _transferredBytes,
-              _concurrency);
+              aggregate(stripes, s -> s._instantaneousBandwidth),
+              aggregate(stripes, s -> s._duration),
+              aggregate(stripes, s -> s._requestedBytes),
+              aggregate(stripes, s -> s._transferredBytes),
+              aggregate(stripes, s -> s._concurrency));
+    }
+
+    private static StatisticalSummary aggregate(List<Stripe> stripes,
+          Function<Stripe, SummaryStatistics> metric) {
+        List<SummaryStatistics> values = stripes.stream()
+              .map(metric)
+              .filter(s -> s.getN() > 0)
+              .collect(Collectors.toList());
+        return values.isEmpty()
+              ? new SummaryStatistics().getSummary()
+              : AggregateSummaryStatistics.aggregate(values);
     }
 
     /**
@@ -62,7 +89,7 @@ public class LiveStatistics {
      * @param startedAt        the value of System.nanoTime() immediately before starting the IO
      *                         operation.
      */
-    public synchronized void accept(int concurrency, long requestedBytes,
+    public void accept(int concurrency, long requestedBytes,
           long transferredBytes, long startedAt) {
         checkArgument(concurrency > 0);
         checkArgument(requestedBytes >= 0);
@@ -73,11 +100,42 @@ public class LiveStatistics {
         double instantaneousBandwidth = SECONDS.getDuration().toNanos()
               * (double) transferredBytes / duration;
 
-        _duration.addValue(duration);
-        _transferredBytes.addValue(transferredBytes);
-        _requestedBytes.addValue(requestedBytes);
-        _instantaneousBandwidth.addValue(instantaneousBandwidth);
-        _concurrency.addValue(concurrency);
+        Stripe stripe = _stripes[(int) Thread.currentThread().threadId() & (STRIPES - 1)];
+        synchronized (stripe) {
+            stripe._duration.addValue(duration);
+            stripe._transferredBytes.addValue(transferredBytes);
+            stripe._requestedBytes.addValue(requestedBytes);
+            stripe._instantaneousBandwidth.addValue(instantaneousBandwidth);
+            stripe._concurrency.addValue(concurrency);
+        }
     }
-}
 
+    private static class Stripe {
+
+        private final SummaryStatistics _instantaneousBandwidth;
+        private final SummaryStatistics _requestedBytes;
+        private final SummaryStatistics _transferredBytes;
+        private final SummaryStatistics _duration;
+        private final SummaryStatistics _concurrency;
+
+        Stripe() {
+            this(new SummaryStatistics(), new SummaryStatistics(), new SummaryStatistics(),
+                  new SummaryStatistics(), new SummaryStatistics());
+        }
+
+        private Stripe(SummaryStatistics instantaneousBandwidth,
+              SummaryStatistics requestedBytes, SummaryStatistics transferredBytes,
+              SummaryStatistics duration, SummaryStatistics concurrency) {
+            _instantaneousBandwidth = instantaneousBandwidth;
+            _requestedBytes = requestedBytes;
+            _transferredBytes = transferredBytes;
+            _duration = duration;
+            _concurrency = concurrency;
+        }
+
+        synchronized Stripe copy() {
+            return new Stripe(_instantaneousBandwidth.copy(), _requestedBytes.copy(),
+                  _transferredBytes.copy(), _duration.copy(), _concurrency.copy());
+        }
+    }
+}
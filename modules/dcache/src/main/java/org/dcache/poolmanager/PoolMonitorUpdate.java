@@ -0,0 +1,104 @@
+/*
+ * dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.dcache.poolmanager;
+
+import static java.util.Objects.requireNonNull;
+
+import diskCacheV111.poolManager.CostModuleV1;
+import diskCacheV111.poolManager.PoolSelectionUnit;
+import java.io.Serializable;
+import javax.annotation.Nullable;
+
+/**
+ * Incremental update of a pool monitor, published by pool manager.
+ * <p>
+ * Updates are numbered consecutively within an epoch, which identifies the pool manager instance
+ * that published them. An update only applies to a pool monitor of the previous version of the
+ * same epoch. A receiver that missed an update has to fetch a complete pool monitor.
+ * <p>
+ * The pool selection unit and the partition manager are only included if the setup or the
+ * state of a pool changed. Cost information is always included as a delta.
+ */
+public class PoolMonitorUpdate implements Serializable {
+
+    private static final long serialVersionUID = -1904264720937365104L;
+
+    private final long _epoch;
+    private final long _version;
+    private final long _period;
+    private final PoolSelectionUnit _selectionUnit;
+    private final PartitionManager _partitionManager;
+    private final CostModuleV1.Delta _costs;
+
+    public PoolMonitorUpdate(long epoch, long version, long period,
+          @Nullable PoolSelectionUnit selectionUnit,
+          @Nullable PartitionManager partitionManager,
+          CostModuleV1.Delta costs) {
+        _epoch = epoch;
+        _version = version;
+        _period = period;
+        _selectionUnit = selectionUnit;
+        _partitionManager = partitionManager;
+        _costs = requireNonNull(costs);
+    }
+
+    public long getEpoch() {
+        return _epoch;
+    }
+
+    public long getVersion() {
+        return _version;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds until pool manager publishes the next update.
+     */
+    public long getPeriod() {
+        return _period;
+    }
+
+    /**
+     * Returns the pool selection unit, or null if it did not change.
+     */
+    @Nullable
+    public PoolSelectionUnit getPoolSelectionUnit() {
+        return _selectionUnit;
+    }
+
+    /**
+     * Returns the partition manager, or null if it did not change.
+     */
+    @Nullable
+    public PartitionManager getPartitionManager() {
+        return _partitionManager;
+    }
+
+    public CostModuleV1.Delta getCosts() {
+        return _costs;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMonitorUpdate[epoch=" + _epoch + ";version=" + _version
+              + (_selectionUnit != null ? ";psu" : "")
+              + (_partitionManager != null ? ";partitions" : "")
+              + ";" + _costs + "]";
+    }
+}
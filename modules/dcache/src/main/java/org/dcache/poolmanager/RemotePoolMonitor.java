@@ -24,6 +24,7 @@ import static org.dcache.util.MathUtils.subWithInfinity;
 
 import com.google.common.util.concurrent.MoreExecutors;
 import diskCacheV111.poolManager.CostModule;
+import diskCacheV111.poolManager.PoolMonitorV5;
 import diskCacheV111.poolManager.PoolSelectionUnit;
 import diskCacheV111.pools.PoolCostInfo;
 import diskCacheV111.util.CacheException;
@@ -53,6 +54,10 @@ import org.springframework.remoting.RemoteProxyFailureException;
 
 /**
  * PoolMonitor that delegates to a PoolMonitor obtained from pool manager.
+ * <p>
+ * A complete pool monitor is fetched on startup. It is kept current by applying the versioned
+ * updates published by pool manager. If an update is missed, the complete pool monitor is fetched
+ * again.
  */
 public class RemotePoolMonitor
       implements PoolMonitor, CellLifeCycleAware, CellMessageReceiver, CellInfoProvider {
@@ -66,6 +71,17 @@ public class RemotePoolMonitor
     private long refreshCount;
     private CellAddressCore previousMonitorSource;
 
+    /**
+     * Epoch and version of the pool monitor. An epoch of zero means that updates cannot be
+     * applied.
+     */
+    private long epoch;
+    private long version;
+
+    private boolean isResyncing;
+    private long updateCount;
+    private long resyncCount;
+
     @Required
     public void setPoolManagerStub(CellStub stub) {
         poolManagerStub = stub;
@@ -80,6 +96,11 @@ public class RemotePoolMonitor
         }
         pw.println("refresh count = " + refreshCount);
         pw.println("active refresh target = " + poolManagerStub);
+        synchronized (this) {
+            pw.println("version = " + epoch + "/" + version);
+            pw.println("update count = " + updateCount);
+            pw.println("resync count = " + resyncCount);
+        }
     }
 
     @Override
@@ -128,8 +149,7 @@ public class RemotePoolMonitor
     }
 
     public void refresh() throws CacheException, InterruptedException, NoRouteToCellException {
-        acceptMonitor(
-              poolManagerStub.sendAndWait(new PoolManagerGetPoolMonitor()).getPoolMonitor());
+        acceptMonitor(poolManagerStub.sendAndWait(new PoolManagerGetPoolMonitor()));
     }
 
     public synchronized long getRefreshCount() {
@@ -149,11 +169,69 @@ public class RemotePoolMonitor
             }
             previousMonitorSource = envelope.getSourceAddress();
         }
-        acceptMonitor(monitor);
+        acceptMonitor(monitor, 0, 0);
     }
 
-    private synchronized void acceptMonitor(SerializablePoolMonitor monitor) {
+    public synchronized void messageArrived(PoolMonitorUpdate update) {
+        if (poolMonitor == null || isResyncing) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (update.getEpoch() != epoch) {
+            /* Updates from another pool manager instance are ignored for
+             * as long as the instance the pool monitor was obtained from
+             * keeps publishing updates.
+             */
+            if (lastRefreshTime < now - 2 * update.getPeriod()) {
+                LOGGER.info("Fetching pool monitor as no updates were received from epoch {}.",
+                      epoch);
+                resync();
+            }
+            return;
+        }
+
+        if (update.getVersion() <= version) {
+            return;
+        }
+
+        if (update.getVersion() > version + 1 || !(poolMonitor instanceof PoolMonitorV5)) {
+            LOGGER.info("Fetching pool monitor as update {} cannot be applied to version {}.",
+                  update.getVersion(), version);
+            resync();
+            return;
+        }
+
+        try {
+            poolMonitor = ((PoolMonitorV5) poolMonitor).apply(update);
+        } catch (IllegalStateException e) {
+            LOGGER.warn("Failed to apply pool monitor update: {}", e.getMessage());
+            resync();
+            return;
+        }
+        version = update.getVersion();
+        lastRefreshTime = now;
+        refreshCount++;
+        updateCount++;
+        notifyAll();
+    }
+
+    private synchronized void resync() {
+        isResyncing = true;
+        resyncCount++;
+        fetchMonitor(0);
+    }
+
+    private synchronized void acceptMonitor(PoolManagerGetPoolMonitor message) {
+        acceptMonitor(message.getPoolMonitor(), message.getEpoch(), message.getVersion());
+    }
+
+    private synchronized void acceptMonitor(SerializablePoolMonitor monitor, long epoch,
+          long version) {
         poolMonitor = monitor;
+        this.epoch = epoch;
+        this.version = version;
+        isResyncing = false;
         lastRefreshTime = System.currentTimeMillis();
         refreshCount++;
         notifyAll();
@@ -167,7 +245,7 @@ public class RemotePoolMonitor
                   new AbstractMessageCallback<>() {
                       @Override
                       public void success(PoolManagerGetPoolMonitor message) {
-                          acceptMonitor(message.getPoolMonitor());
+                          acceptMonitor(message);
                       }
 
                       @Override
@@ -182,15 +260,21 @@ public class RemotePoolMonitor
 
                       @Override
                       public void failure(int rc, Object error) {
+                          resyncFailed();
                       }
                   },
                   MoreExecutors.directExecutor());
         } else {
             LOGGER.error("Could not get Pool Monitor; max retries {} exceeded.",
                   MAX_FETCH_RETRIES);
+            isResyncing = false;
         }
     }
 
+    private synchronized void resyncFailed() {
+        isResyncing = false;
+    }
+
     private synchronized PoolMonitor getPoolMonitor() {
         try {
             if (poolMonitor == null) {
@@ -59,11 +59,14 @@ documents or software obtained from this server.
  */
 package org.dcache.services.billing.db.impl;
 
+import com.google.common.collect.Queues;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import org.dcache.services.billing.db.IBillingInfoAccess;
 import org.dcache.services.billing.db.data.IHistogramData;
@@ -73,7 +76,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Framework for database access; uses a blocking queue and N consumer threads to process requests;
- * consumer drains the queue up to max, for batching.  Commit is implemented by the store.
+ * consumer drains the queue up to max, for batching, waiting up to the flush interval for the
+ * batch to fill.  Commit is implemented by the store.
  *
  * @author arossi
  */
@@ -98,37 +102,45 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
                     data.add(queue.take());
 
                     /*
-                     * add to data and remove from queue any accumulated entries
+                     * add to data and remove from queue any accumulated entries,
+                     * waiting for more to arrive if the batch is not yet full
                      */
-                    logger.trace("calling queue.drainTo(), queue size {}",
+                    logger.trace("draining queue, queue size {}",
                           queue.size());
-                    queue.drainTo(data, maxBatchSize);
+                    Queues.drain(queue, data, maxBatchSize, flushInterval,
+                          TimeUnit.MILLISECONDS);
 
                     if (isInterrupted()) {
                         break;
                     }
 
-                    try {
-                        logger.trace("calling commit");
-                        commit(data);
-                        committed.addAndGet(data.size());
-                    } catch (RetryException t) {
-                        logger.warn("commit failed; retrying once ...");
-                        try {
-                            commit(data);
-                            committed.addAndGet(data.size());
-                        } catch (RetryException t1) {
-                            logger.error("commit retry failed, {} inserts have "
-                                        + "been lost",
-                                  data.size());
-                            logger.debug("exception in run(), commit", t1);
-                        }
+                    for (Collection<IHistogramData> part : partition(data)) {
+                        commitWithRetry(part);
                     }
                 }
             } catch (InterruptedException ignored) {
                 logger.trace("Consumer interrupted.");
             }
         }
+
+        private void commitWithRetry(Collection<IHistogramData> data) {
+            try {
+                logger.trace("calling commit");
+                commit(data);
+                committed.addAndGet(data.size());
+            } catch (RetryException t) {
+                logger.warn("commit failed; retrying once ...");
+                try {
+                    commit(data);
+                    committed.addAndGet(data.size());
+                } catch (RetryException t1) {
+                    logger.error("commit retry failed, {} inserts have "
+                                + "been lost",
+                          data.size());
+                    logger.debug("exception in run(), commit", t1);
+                }
+            }
+        }
     }
 
     protected final Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -140,6 +152,7 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
     private List<Consumer> consumers;
     private int maxQueueSize;
     private int maxBatchSize;
+    private long flushInterval;
     private int numberOfConsumers;
     private boolean dropMessagesAtLimit;
 
@@ -199,6 +212,13 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
         this.maxBatchSize = maxBatchSize;
     }
 
+    /**
+     * Maximum time in milliseconds a consumer waits for a batch to fill before committing it.
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
     public void setMaxQueueSize(int maxQueueSize) {
         this.maxQueueSize = maxQueueSize;
     }
@@ -213,6 +233,16 @@ public abstract class AbstractBillingInfoAccess implements IBillingInfoAccess {
     public abstract void commit(Collection<IHistogramData> data)
           throws RetryException;
 
+    /**
+     * Splits a batch into parts which are committed, and retried, independently.  A store which
+     * does not commit a batch in a single transaction must split it into parts that it does,
+     * as retrying a partially committed batch would write some of its records twice.
+     */
+    protected Collection<Collection<IHistogramData>> partition(
+          Collection<IHistogramData> data) {
+        return Collections.singletonList(data);
+    }
+
     private void processDroppedData(IHistogramData data) {
         dropped.incrementAndGet();
         logger.info("encountered max queue limit; "
@@ -0,0 +1,341 @@
+/*
+COPYRIGHT STATUS:
+Dec 1st 2001, Fermi National Accelerator Laboratory (FNAL) documents and
+software are sponsored by the U.S. Department of Energy under Contract No.
+DE-AC02-76CH03000. Therefore, the U.S. Government retains a  world-wide
+non-exclusive, royalty-free license to publish or reproduce these documents
+and software for U.S. Government purposes.  All documents and software
+available from this server are protected under the U.S. and Foreign
+Copyright Laws, and FNAL reserves all rights.
+
+Distribution of the software available from this server is free of
+charge subject to the user following the terms of the Fermitools
+Software Legal Information.
+
+Redistribution and/or modification of the software shall be accompanied
+by the Fermitools Software Legal Information  (including the copyright
+notice).
+
+The user is asked to feed back problems, benefits, and/or suggestions
+about the software to the Fermilab Software Providers.
+
+Neither the name of Fermilab, the  URA, nor the names of the contributors
+may be used to endorse or promote products derived from this software
+without specific prior written permission.
+
+DISCLAIMER OF LIABILITY (BSD):
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+"AS IS" AND ANY EXPRESS OR IMPLIED  WARRANTIES, INCLUDING, BUT NOT
+LIMITED TO, THE IMPLIED  WARRANTIES OF MERCHANTABILITY AND FITNESS
+FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL FERMILAB,
+OR THE URA, OR THE U.S. DEPARTMENT of ENERGY, OR CONTRIBUTORS BE LIABLE
+FOR  ANY  DIRECT, INDIRECT,  INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT
+OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR
+BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY  OF
+LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT  OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE  POSSIBILITY OF SUCH DAMAGE.
+
+Liabilities of the Government:
+
+This software is provided by URA, independent from its Prime Contract
+with the U.S. Department of Energy. URA is acting independently from
+the Government and in its own private capacity and is not acting on
+behalf of the U.S. Government, nor as its contractor nor its agent.
+Correspondingly, it is understood and agreed that the U.S. Government
+has no connection to this software and in no manner whatsoever shall
+be liable for nor assume any responsibility or obligation for any claim,
+cost, or damages arising out of or resulting from the use of the software
+available from this server.
+
+Export Control:
+
+All documents and software available from this server are subject to U.S.
+export control laws.  Anyone downloading information from this server is
+obligated to secure any necessary Government licenses before exporting
+documents or software obtained from this server.
+ */
+package org.dcache.services.billing.db.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.data.DoorRequestData;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.dcache.services.billing.db.data.StorageData;
+import org.postgresql.PGConnection;
+
+/**
+ * Writes fine grained billing records directly through JDBC, bypassing the persistence layer.
+ * <p>
+ * Records of the same type are written with multi-row INSERT statements or, on PostgreSQL, with
+ * COPY. All records passed to a single call are written in one transaction.  Only mover, door,
+ * storage and pool hit records are supported; other records are returned to the caller.
+ */
+public class JdbcBillingDataWriter {
+
+    /**
+     * How records are written.
+     */
+    public enum Method {
+        /**
+         * Multi-row INSERT statements.
+         */
+        INSERT,
+
+        /**
+         * PostgreSQL COPY; falls back to INSERT on other databases.
+         */
+        COPY
+    }
+
+    /**
+     * Upper bound on the number of bind parameters of a single INSERT statement. PostgreSQL
+     * supports at most 65535.
+     */
+    private static final int MAX_PARAMETERS = 30000;
+
+    private enum Table {
+        MOVER(MoverData.class, "billinginfo",
+              new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                    "fullsize", "transfersize", "storageclass", "isnew", "client",
+                    "connectiontime", "errorcode", "errormessage", "protocol", "initiator",
+                    "p2p", "owner", "mappeduid", "mappedgid", "fqan"},
+              d -> {
+                  MoverData m = (MoverData) d;
+                  return new Object[]{m.getDateStamp(), m.getCellName(), m.getAction(),
+                        m.getTransaction(), m.getPfsID(), m.getFullSize(), m.getTransferSize(),
+                        m.getStorageClass(), m.getIsNew(), m.getClient(), m.getConnectionTime(),
+                        m.getErrorCode(), m.getErrorMessage(), m.getProtocol(), m.getInitiator(),
+                        m.isP2p(), m.getOwner(), m.getMappedUID(), m.getMappedGID(), m.getFqan()};
+              }),
+        DOOR(DoorRequestData.class, "doorinfo",
+              new String[]{"datestamp", "cellname", "action", "owner", "mappeduid", "mappedgid",
+                    "client", "transaction", "pnfsid", "connectiontime", "queuedtime",
+                    "errorcode", "errormessage", "path", "fqan"},
+              d -> {
+                  DoorRequestData r = (DoorRequestData) d;
+                  return new Object[]{r.getDateStamp(), r.getCellName(), r.getAction(),
+                        r.getOwner(), r.getMappedUID(), r.getMappedGID(), r.getClient(),
+                        r.getTransaction(), r.getPfsID(), r.getConnectionTime(),
+                        r.getQueuedTime(), r.getErrorCode(), r.getErrorMessage(), r.getPath(),
+                        r.getFqan()};
+              }),
+        STORAGE(StorageData.class, "storageinfo",
+              new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                    "fullsize", "storageclass", "connectiontime", "queuedtime", "errorcode",
+                    "errormessage"},
+              d -> {
+                  StorageData s = (StorageData) d;
+                  return new Object[]{s.getDateStamp(), s.getCellName(), s.getAction(),
+                        s.getTransaction(), s.getPfsID(), s.getFullSize(), s.getStorageClass(),
+                        s.getConnectionTime(), s.getQueuedTime(), s.getErrorCode(),
+                        s.getErrorMessage()};
+              }),
+        HIT(PoolHitData.class, "hitinfo",
+              new String[]{"datestamp", "cellname", "action", "transaction", "pnfsid",
+                    "filecached", "errorcode", "errormessage"},
+              d -> {
+                  PoolHitData h = (PoolHitData) d;
+                  return new Object[]{h.getDateStamp(), h.getCellName(), h.getAction(),
+                        h.getTransaction(), h.getPfsID(), h.getFileCached(), h.getErrorCode(),
+                        h.getErrorMessage()};
+              });
+
+        private final Class<? extends IHistogramData> type;
+        private final String name;
+        private final String[] columns;
+        private final Function<IHistogramData, Object[]> values;
+
+        Table(Class<? extends IHistogramData> type, String name, String[] columns,
+              Function<IHistogramData, Object[]> values) {
+            this.type = type;
+            this.name = name;
+            this.columns = columns;
+            this.values = values;
+        }
+
+        static Table of(IHistogramData data) {
+            for (Table table : values()) {
+                if (table.type == data.getClass()) {
+                    return table;
+                }
+            }
+            return null;
+        }
+
+        String insert(int rows) {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(name)
+                  .append(" (").append(String.join(",", columns)).append(") VALUES ");
+            String row = "(" + "?,".repeat(columns.length - 1) + "?)";
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sql.append(',');
+                }
+                sql.append(row);
+            }
+            return sql.toString();
+        }
+
+        String copy() {
+            return "COPY " + name + " (" + String.join(",", columns)
+                  + ") FROM STDIN WITH (FORMAT csv)";
+        }
+    }
+
+    private final DataSource dataSource;
+    private final Method method;
+
+    public JdbcBillingDataWriter(DataSource dataSource, Method method) {
+        this.dataSource = dataSource;
+        this.method = method;
+    }
+
+    /**
+     * Returns whether the record is written by this writer.
+     */
+    public boolean supports(IHistogramData record) {
+        return Table.of(record) != null;
+    }
+
+    /**
+     * Writes all supported records in a single transaction.
+     *
+     * @return the records that are not supported by this writer
+     * @throws SQLException if writing failed, in which case none of the supported records were
+     *                      written
+     */
+    public Collection<IHistogramData> write(Collection<IHistogramData> data)
+          throws SQLException {
+        Map<Table, List<IHistogramData>> byTable = new EnumMap<>(Table.class);
+        List<IHistogramData> unsupported = new ArrayList<>();
+        for (IHistogramData record : data) {
+            Table table = Table.of(record);
+            if (table == null) {
+                unsupported.add(record);
+            } else {
+                byTable.computeIfAbsent(table, t -> new ArrayList<>()).add(record);
+            }
+        }
+
+        if (!byTable.isEmpty()) {
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    boolean copy = method == Method.COPY
+                          && connection.isWrapperFor(PGConnection.class);
+                    for (Map.Entry<Table, List<IHistogramData>> e : byTable.entrySet()) {
+                        if (copy) {
+                            copy(connection, e.getKey(), e.getValue());
+                        } else {
+                            insert(connection, e.getKey(), e.getValue());
+                        }
+                    }
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        }
+        return unsupported;
+    }
+
+    private void insert(Connection connection, Table table, List<IHistogramData> records)
+          throws SQLException {
+        int rowsPerStatement = MAX_PARAMETERS / table.columns.length;
+        PreparedStatement full = null;
+        try {
+            for (int start = 0; start < records.size(); start += rowsPerStatement) {
+                List<IHistogramData> chunk = records.subList(start,
+                      Math.min(records.size(), start + rowsPerStatement));
+                if (chunk.size() == rowsPerStatement) {
+                    if (full == null) {
+                        full = connection.prepareStatement(table.insert(rowsPerStatement));
+                    }
+                    bind(full, table, chunk);
+                    full.executeUpdate();
+                } else {
+                    try (PreparedStatement partial =
+                          connection.prepareStatement(table.insert(chunk.size()))) {
+                        bind(partial, table, chunk);
+                        partial.executeUpdate();
+                    }
+                }
+            }
+        } finally {
+            if (full != null) {
+                full.close();
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Table table,
+          List<IHistogramData> records) throws SQLException {
+        int index = 1;
+        for (IHistogramData record : records) {
+            for (Object value : table.values.apply(record)) {
+                if (value instanceof Date) {
+                    value = new Timestamp(((Date) value).getTime());
+                }
+                statement.setObject(index++, value);
+            }
+        }
+    }
+
+    private static void copy(Connection connection, Table table, List<IHistogramData> records)
+          throws SQLException {
+        StringBuilder csv = new StringBuilder();
+        for (IHistogramData record : records) {
+            Object[] values = table.values.apply(record);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                appendCsv(csv, values[i]);
+            }
+            csv.append('\n');
+        }
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI()
+                  .copyIn(table.copy(), new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("COPY into " + table.name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Appends a value in PostgreSQL's CSV format. Null is written as an unquoted empty field, and
+     * strings are always quoted so that empty strings remain distinct from null.
+     */
+    private static void appendCsv(StringBuilder csv, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof Date) {
+            csv.append(((Date) value).toInstant());
+        } else if (value instanceof String) {
+            csv.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+        } else {
+            csv.append(value);
+        }
+    }
+}
@@ -59,25 +59,33 @@ documents or software obtained from this server.
  */
 package org.dcache.services.billing.db.impl.datanucleus;
 
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import javax.jdo.JDOCanRetryException;
 import javax.jdo.JDODataStoreException;
 import javax.jdo.PersistenceManager;
 import javax.jdo.PersistenceManagerFactory;
 import javax.jdo.Query;
 import javax.jdo.Transaction;
+import javax.sql.DataSource;
 import org.datanucleus.FetchPlan;
 import org.dcache.services.billing.db.IBillingInfoAccess;
 import org.dcache.services.billing.db.data.IHistogramData;
 import org.dcache.services.billing.db.exceptions.RetryException;
 import org.dcache.services.billing.db.impl.AbstractBillingInfoAccess;
+import org.dcache.services.billing.db.impl.JdbcBillingDataWriter;
 import org.springframework.beans.factory.annotation.Required;
 
 /**
  * Implements {@link IBillingInfoAccess} using <href a="http://www.datanucleus.org">DataNucleus</a>.
+ * <p>
+ * Unless the insert method is <code>datanucleus</code>, fine grained records are inserted through
+ * plain JDBC by a {@link JdbcBillingDataWriter}, which is considerably faster than persisting
+ * them one by one.
  *
  * @see AbstractBillingInfoAccess
  */
@@ -109,12 +117,55 @@ public class DataNucleusBillingInfo extends AbstractBillingInfoAccess {
     }
 
     private PersistenceManagerFactory pmf;
+    private DataSource dataSource;
+    private String insertMethod = "datanucleus";
+    private JdbcBillingDataWriter writer;
     private long truncationCutoff;
     private TimeUnit truncationCutoffUnit;
 
+    @Override
+    public void initialize() {
+        if (!insertMethod.equals("datanucleus")) {
+            writer = new JdbcBillingDataWriter(dataSource,
+                  JdbcBillingDataWriter.Method.valueOf(insertMethod.toUpperCase()));
+        }
+        super.initialize();
+    }
+
+    /**
+     * Records written through JDBC and those persisted by DataNucleus are committed in separate
+     * transactions, so they form separate parts of a batch.
+     */
+    @Override
+    protected Collection<Collection<IHistogramData>> partition(
+          Collection<IHistogramData> data) {
+        if (writer == null) {
+            return super.partition(data);
+        }
+        return data.stream()
+              .collect(Collectors.partitioningBy(writer::supports))
+              .values().stream()
+              .filter(part -> !part.isEmpty())
+              .collect(Collectors.toList());
+    }
+
+    /**
+     * Commits a part of a batch as returned by {@link #partition}.
+     */
     @Override
     public void commit(Collection<IHistogramData> data)
           throws RetryException {
+        if (writer != null) {
+            try {
+                data = writer.write(data);
+            } catch (SQLException e) {
+                throw new RetryException(e);
+            }
+            if (data.isEmpty()) {
+                return;
+            }
+        }
+
         PersistenceManager insertManager = pmf.getPersistenceManager();
         Transaction tx = insertManager.currentTransaction();
         try {
@@ -258,6 +309,17 @@ public class DataNucleusBillingInfo extends AbstractBillingInfoAccess {
         this.pmf = pmf;
     }
 
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * One of <code>datanucleus</code>, <code>insert</code> or <code>copy</code>.
+     */
+    public void setInsertMethod(String insertMethod) {
+        this.insertMethod = insertMethod;
+    }
+
     @Required
     public void setTruncationCutoff(long truncationCutoff) {
         this.truncationCutoff = truncationCutoff;
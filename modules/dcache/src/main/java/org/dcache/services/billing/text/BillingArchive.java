@@ -0,0 +1,664 @@
+package org.dcache.services.billing.text;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.google.common.io.CountingInputStream;
+import com.google.common.primitives.Ints;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Columnar archive of the billing entries of a single day.
+ * <p>
+ * Entries are stored sorted by timestamp, with every column in a separately compressed section
+ * of the file. A query only decompresses the columns it refers to. String columns are dictionary
+ * encoded with a sorted dictionary, which makes doors, pools and owners cheap to store and lets
+ * predicates on string columns be resolved to dictionary codes once per day. High cardinality
+ * columns like PNFS IDs, paths and owners are additionally indexed by a Bloom filter, so that
+ * looking up such a value skips the days not containing it without decompressing the column.
+ * <p>
+ * The header records the time range covered by the archive, allowing time range queries to skip
+ * whole days, while the sorted timestamp column narrows the rows to scan within a day.
+ */
+public class BillingArchive {
+
+    private static final int MAGIC = 0x44434241;
+    private static final int VERSION = 1;
+    private static final String INDEX_SUFFIX = ".index";
+    private static final double INDEX_FPP = 0.01;
+
+    /**
+     * Columns of the archive. Each column is populated from the billing attributes of the same
+     * name.
+     */
+    public enum Column {
+        DATE(Kind.NUMERIC, "date"),
+        CELL_TYPE(Kind.STRING, "cellType"),
+        CELL_NAME(Kind.STRING, "cellName", "cellName.cell"),
+        TYPE(Kind.STRING, "type"),
+        PNFSID(Kind.INDEXED_STRING, "pnfsid"),
+        FILESIZE(Kind.NUMERIC, "filesize"),
+        PATH(Kind.INDEXED_STRING, "path"),
+        STORAGE_CLASS(Kind.STRING, "storage.storageClass"),
+        HSM(Kind.STRING, "storage.hsm"),
+        OWNER(Kind.INDEXED_STRING, "owner"),
+        UID(Kind.NUMERIC, "uid"),
+        GID(Kind.NUMERIC, "gid"),
+        CLIENT(Kind.STRING, "clientChain", "client"),
+        PROTOCOL(Kind.STRING, "protocol"),
+        INITIATOR(Kind.STRING, "initiator"),
+        TRANSFERRED(Kind.NUMERIC, "transferred"),
+        CONNECTION_TIME(Kind.NUMERIC, "connectionTime"),
+        TRANSACTION_TIME(Kind.NUMERIC, "transactionTime"),
+        QUEUING_TIME(Kind.NUMERIC, "queuingTime"),
+        TRANSFER_TIME(Kind.NUMERIC, "transferTime"),
+        CACHED(Kind.STRING, "cached"),
+        CREATED(Kind.STRING, "created"),
+        RC(Kind.NUMERIC, "rc"),
+        MESSAGE(Kind.STRING, "message");
+
+        private final Kind kind;
+        private final String[] attributes;
+
+        Column(Kind kind, String... attributes) {
+            this.kind = kind;
+            this.attributes = attributes;
+        }
+
+        public String getName() {
+            return attributes[0];
+        }
+
+        /**
+         * Returns the names of the billing attributes populating this column.
+         */
+        public String[] getAttributes() {
+            return attributes.clone();
+        }
+
+        public boolean isNumeric() {
+            return kind == Kind.NUMERIC;
+        }
+
+        private boolean isIndexed() {
+            return kind == Kind.INDEXED_STRING;
+        }
+
+        public static Column forName(String name) {
+            for (Column column : values()) {
+                if (column.getName().equalsIgnoreCase(name)) {
+                    return column;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field: " + name);
+        }
+    }
+
+    private enum Kind {
+        NUMERIC, STRING, INDEXED_STRING
+    }
+
+    private final File file;
+    private final LocalDate date;
+    private final int size;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    private final Map<String, long[]> sections;
+
+    private final Map<Column, long[]> numericColumns = new EnumMap<>(Column.class);
+    private final Map<Column, StringColumn> stringColumns = new EnumMap<>(Column.class);
+
+    private BillingArchive(File file, LocalDate date, int size, long minTimestamp,
+          long maxTimestamp, Map<String, long[]> sections) {
+        this.file = file;
+        this.date = date;
+        this.size = size;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.sections = sections;
+    }
+
+    /**
+     * Opens an archive. Only the header is read; columns are read when first used.
+     */
+    public static BillingArchive open(File file) throws IOException {
+        try (CountingInputStream counter = new CountingInputStream(
+              new BufferedInputStream(new FileInputStream(file)))) {
+            DataInputStream in = new DataInputStream(counter);
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a billing archive.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(file + " has unsupported version " + version + ".");
+            }
+            LocalDate date = LocalDate.ofEpochDay(in.readLong());
+            int size = in.readInt();
+            long minTimestamp = in.readLong();
+            long maxTimestamp = in.readLong();
+            int columns = in.readInt();
+            String[] names = new String[columns];
+            int[] lengths = new int[columns];
+            for (int i = 0; i < columns; i++) {
+                names[i] = in.readUTF();
+                lengths[i] = in.readInt();
+            }
+            Map<String, long[]> sections = new HashMap<>();
+            long offset = counter.getCount();
+            for (int i = 0; i < columns; i++) {
+                sections.put(names[i], new long[]{offset, lengths[i]});
+                offset += lengths[i];
+            }
+            return new BillingArchive(file, date, size, minTimestamp, maxTimestamp, sections);
+        }
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Returns the number of entries in the archive.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Returns the entries matching the query in timestamp order.
+     */
+    public int[] select(BillingQuery query) throws IOException {
+        if (size == 0 || maxTimestamp < query.getSince() || minTimestamp >= query.getUntil()) {
+            return new int[0];
+        }
+
+        for (BillingQuery.Predicate predicate : query.getPredicates()) {
+            if (!mightMatch(predicate)) {
+                return new int[0];
+            }
+        }
+
+        int from = 0;
+        int to = size;
+        if (minTimestamp < query.getSince() || maxTimestamp >= query.getUntil()) {
+            long[] timestamps = getNumericColumn(Column.DATE);
+            from = lowerBound(timestamps, query.getSince());
+            to = lowerBound(timestamps, query.getUntil());
+        }
+
+        List<RowPredicate> predicates = new ArrayList<>();
+        for (BillingQuery.Predicate predicate : query.getPredicates()) {
+            RowPredicate rowPredicate = toRowPredicate(predicate);
+            if (rowPredicate == null) {
+                return new int[0];
+            }
+            predicates.add(rowPredicate);
+        }
+
+        int[] rows = new int[to - from];
+        int count = 0;
+        for (int row = from; row < to; row++) {
+            if (matchesAll(predicates, row)) {
+                rows[count++] = row;
+            }
+        }
+        return Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Adds the aggregates of the given query over the given entries to totals. Totals are keyed
+     * by the value of the group-by column of the query and hold the number of entries followed
+     * by the sum of every column summed by the query.
+     */
+    public void aggregate(BillingQuery query, int[] rows, Map<String, long[]> totals)
+          throws IOException {
+        Column groupBy = query.getGroupBy();
+        List<Column> sums = query.getSums();
+        long[][] values = new long[sums.size()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getNumericColumn(sums.get(i));
+        }
+        for (int row : rows) {
+            String key = (groupBy == null) ? "" : String.valueOf(get(groupBy, row));
+            long[] total = totals.computeIfAbsent(key, k -> new long[1 + values.length]);
+            total[0]++;
+            for (int i = 0; i < values.length; i++) {
+                long value = values[i][row];
+                if (value != Long.MIN_VALUE) {
+                    total[i + 1] += value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the timestamp of an entry in milliseconds since the epoch.
+     */
+    public long getTimestamp(int row) throws IOException {
+        return getNumericColumn(Column.DATE)[row];
+    }
+
+    /**
+     * Returns the value of a column of an entry, or null if the entry has no such value.
+     */
+    public String get(Column column, int row) throws IOException {
+        if (column.isNumeric()) {
+            long value = getNumericColumn(column)[row];
+            return (value == Long.MIN_VALUE) ? null : String.valueOf(value);
+        } else {
+            StringColumn values = getStringColumn(column);
+            int code = values.codes[row];
+            return (code < 0) ? null : values.dictionary[code];
+        }
+    }
+
+    private static boolean matchesAll(List<RowPredicate> predicates, int row) {
+        for (RowPredicate predicate : predicates) {
+            if (!predicate.matches(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consults the index of a column to determine whether an equality predicate may match any
+     * entry of this archive.
+     */
+    private boolean mightMatch(BillingQuery.Predicate predicate) throws IOException {
+        Column column = predicate.getColumn();
+        if (!column.isIndexed() || predicate.getOperator() != BillingQuery.Operator.EQ) {
+            return true;
+        }
+        try (DataInputStream in = openSection(column.getName() + INDEX_SUFFIX)) {
+            if (in == null) {
+                return true;
+            }
+            return BloomFilter.readFrom(in, Funnels.stringFunnel(UTF_8))
+                  .mightContain(predicate.getValue());
+        }
+    }
+
+    /**
+     * Translates a query predicate into a predicate over row numbers. Returns null if no entry
+     * of this archive can match the predicate.
+     */
+    private RowPredicate toRowPredicate(BillingQuery.Predicate predicate) throws IOException {
+        Column column = predicate.getColumn();
+        BillingQuery.Operator operator = predicate.getOperator();
+        if (column.isNumeric()) {
+            long[] values = getNumericColumn(column);
+            long value = predicate.getNumericValue();
+            return row -> values[row] != Long.MIN_VALUE
+                  && operator.test(Long.compare(values[row], value));
+        }
+
+        StringColumn values = getStringColumn(column);
+        int index = Arrays.binarySearch(values.dictionary, predicate.getValue());
+        int[] codes = values.codes;
+        if (index >= 0) {
+            return row -> codes[row] >= 0 && operator.test(Integer.compare(codes[row], index));
+        }
+        if (operator == BillingQuery.Operator.EQ) {
+            return null;
+        }
+        /* The dictionary is sorted, so comparing to the insertion point of a value that is not
+         * in the dictionary is the same as comparing to the value itself.
+         */
+        int insertionPoint = -index - 1;
+        return row -> codes[row] >= 0
+              && operator.test(codes[row] < insertionPoint ? -1 : 1);
+    }
+
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private synchronized long[] getNumericColumn(Column column) throws IOException {
+        long[] values = numericColumns.get(column);
+        if (values == null) {
+            values = new long[size];
+            Arrays.fill(values, Long.MIN_VALUE);
+            try (DataInputStream in = openSection(column.getName())) {
+                if (in != null) {
+                    BitSet present = BitSet.valueOf(readBytes(in));
+                    long previous = 0;
+                    for (int row = present.nextSetBit(0); row >= 0;
+                          row = present.nextSetBit(row + 1)) {
+                        previous += readSignedVarLong(in);
+                        values[row] = previous;
+                    }
+                }
+            }
+            numericColumns.put(column, values);
+        }
+        return values;
+    }
+
+    private synchronized StringColumn getStringColumn(Column column) throws IOException {
+        StringColumn values = stringColumns.get(column);
+        if (values == null) {
+            values = new StringColumn(size);
+            try (DataInputStream in = openSection(column.getName())) {
+                if (in != null) {
+                    values.dictionary = new String[Ints.checkedCast(readVarLong(in))];
+                    for (int i = 0; i < values.dictionary.length; i++) {
+                        values.dictionary[i] = new String(readBytes(in), UTF_8);
+                    }
+                    for (int row = 0; row < size; row++) {
+                        values.codes[row] = Ints.checkedCast(readVarLong(in)) - 1;
+                    }
+                }
+            }
+            stringColumns.put(column, values);
+        }
+        return values;
+    }
+
+    private DataInputStream openSection(String name) throws IOException {
+        long[] section = sections.get(name);
+        if (section == null) {
+            return null;
+        }
+        byte[] data = new byte[Ints.checkedCast(section[1])];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(section[0]);
+            in.readFully(data);
+        }
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[Ints.checkedCast(readVarLong(in))];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(OutputStream out, byte[] bytes) throws IOException {
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer.");
+    }
+
+    private static long readSignedVarLong(InputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Dictionary encoded string column. A code of -1 represents a missing value.
+     */
+    private static class StringColumn {
+
+        private String[] dictionary = new String[0];
+        private final int[] codes;
+
+        private StringColumn(int size) {
+            codes = new int[size];
+            Arrays.fill(codes, -1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowPredicate {
+
+        boolean matches(int row);
+    }
+
+    /**
+     * Collects the billing entries of a day and writes them as an archive. Entries may be added
+     * concurrently.
+     */
+    public static class Writer {
+
+        private final LocalDate date;
+        private final List<Entry> entries = new ArrayList<>();
+
+        public Writer(LocalDate date) {
+            this.date = date;
+        }
+
+        /**
+         * Adds an entry. The values are indexed by the ordinal of the columns; the value of the
+         * date column is ignored.
+         */
+        public void add(long timestamp, String[] values) {
+            checkArgument(values.length == Column.values().length,
+                  "Wrong number of values.");
+            Entry entry = new Entry(timestamp, values.clone());
+            synchronized (entries) {
+                entries.add(entry);
+            }
+        }
+
+        public int size() {
+            synchronized (entries) {
+                return entries.size();
+            }
+        }
+
+        /**
+         * Writes the archive to file, replacing any existing archive.
+         */
+        public void writeTo(File file) throws IOException {
+            List<Entry> rows;
+            synchronized (entries) {
+                rows = new ArrayList<>(entries);
+            }
+            rows.sort(Comparator.comparingLong(e -> e.timestamp));
+
+            Map<String, byte[]> sections = new LinkedHashMap<>();
+            for (Column column : Column.values()) {
+                sections.put(column.getName(), compress(column, rows));
+                if (column.isIndexed()) {
+                    sections.put(column.getName() + INDEX_SUFFIX, index(column, rows));
+                }
+            }
+
+            File tmp = new File(file.getPath() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                  new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(date.toEpochDay());
+                out.writeInt(rows.size());
+                out.writeLong(rows.isEmpty() ? 0 : rows.get(0).timestamp);
+                out.writeLong(rows.isEmpty() ? 0 : rows.get(rows.size() - 1).timestamp);
+                out.writeInt(sections.size());
+                for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+                    out.writeUTF(section.getKey());
+                    out.writeInt(section.getValue().length);
+                }
+                for (byte[] section : sections.values()) {
+                    out.write(section);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+
+        private static byte[] compress(Column column, List<Entry> rows) throws IOException {
+            return deflate(out -> {
+                if (column == Column.DATE) {
+                    writeTimestamps(rows, out);
+                } else if (column.isNumeric()) {
+                    writeNumbers(column.ordinal(), rows, out);
+                } else {
+                    writeStrings(column.ordinal(), rows, out);
+                }
+            });
+        }
+
+        private static byte[] index(Column column, List<Entry> rows) throws IOException {
+            int index = column.ordinal();
+            Set<String> distinct = new HashSet<>();
+            for (Entry row : rows) {
+                if (row.values[index] != null) {
+                    distinct.add(row.values[index]);
+                }
+            }
+            BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.stringFunnel(UTF_8),
+                  Math.max(distinct.size(), 1), INDEX_FPP);
+            distinct.forEach(filter::put);
+            return deflate(filter::writeTo);
+        }
+
+        private static byte[] deflate(SectionWriter writer) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (OutputStream out = new DeflaterOutputStream(bytes, deflater, 8192)) {
+                writer.write(out);
+            } finally {
+                deflater.end();
+            }
+            return bytes.toByteArray();
+        }
+
+        @FunctionalInterface
+        private interface SectionWriter {
+
+            void write(OutputStream out) throws IOException;
+        }
+
+        private static void writeTimestamps(List<Entry> rows, OutputStream out)
+              throws IOException {
+            BitSet present = new BitSet(rows.size());
+            present.set(0, rows.size());
+            writeBytes(out, present.toByteArray());
+            long previous = 0;
+            for (Entry row : rows) {
+                writeSignedVarLong(out, row.timestamp - previous);
+                previous = row.timestamp;
+            }
+        }
+
+        private static void writeNumbers(int index, List<Entry> rows, OutputStream out)
+              throws IOException {
+            long[] values = new long[rows.size()];
+            BitSet present = new BitSet(rows.size());
+            for (int row = 0; row < values.length; row++) {
+                String value = rows.get(row).values[index];
+                if (value != null) {
+                    try {
+                        values[row] = Long.parseLong(value);
+                        present.set(row);
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            writeBytes(out, present.toByteArray());
+            long previous = 0;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                writeSignedVarLong(out, values[row] - previous);
+                previous = values[row];
+            }
+        }
+
+        private static void writeStrings(int index, List<Entry> rows, OutputStream out)
+              throws IOException {
+            TreeSet<String> distinct = new TreeSet<>();
+            for (Entry row : rows) {
+                if (row.values[index] != null) {
+                    distinct.add(row.values[index]);
+                }
+            }
+            Map<String, Integer> codes = new HashMap<>();
+            writeVarLong(out, distinct.size());
+            for (String value : distinct) {
+                codes.put(value, codes.size());
+                writeBytes(out, value.getBytes(UTF_8));
+            }
+            for (Entry row : rows) {
+                String value = row.values[index];
+                writeVarLong(out, (value == null) ? 0 : codes.get(value) + 1);
+            }
+        }
+
+        private static class Entry {
+
+            private final long timestamp;
+            private final String[] values;
+
+            private Entry(long timestamp, String[] values) {
+                this.timestamp = timestamp;
+                this.values = values;
+            }
+        }
+    }
+}
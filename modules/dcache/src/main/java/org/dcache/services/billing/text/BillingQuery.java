@@ -0,0 +1,184 @@
+package org.dcache.services.billing.text;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.ImmutableList;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.dcache.services.billing.text.BillingArchive.Column;
+
+/**
+ * Query over billing archives.
+ * <p>
+ * A query selects the entries within a time range that match all of its predicates. Optionally,
+ * the selected entries are aggregated by counting them and summing numeric columns, grouped by
+ * the value of a column.
+ */
+public class BillingQuery {
+
+    private static final Pattern PREDICATE_PATTERN =
+          Pattern.compile("^([\\w.]+?)(=|!=|<|>)(.*)$");
+
+    /**
+     * Comparison operators of predicates.
+     */
+    public enum Operator {
+        EQ("="), NE("!="), LT("<"), GT(">");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Tests the result of comparing a value to the value of the predicate.
+         */
+        public boolean test(int comparison) {
+            switch (this) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                default:
+                    return comparison > 0;
+            }
+        }
+
+        public static Operator forSymbol(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operator: " + symbol);
+        }
+    }
+
+    /**
+     * Predicate comparing the value of a column to a constant.
+     */
+    public static class Predicate {
+
+        private final Column column;
+        private final Operator operator;
+        private final String value;
+        private final long numericValue;
+
+        public Predicate(Column column, Operator operator, String value) {
+            this.column = requireNonNull(column);
+            this.operator = requireNonNull(operator);
+            this.value = requireNonNull(value);
+            if (column.isNumeric()) {
+                try {
+                    numericValue = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(
+                          "Field " + column.getName() + " requires a number: " + value);
+                }
+            } else {
+                numericValue = 0;
+            }
+        }
+
+        public Column getColumn() {
+            return column;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public long getNumericValue() {
+            return numericValue;
+        }
+
+        @Override
+        public String toString() {
+            return column.getName() + operator.symbol + value;
+        }
+    }
+
+    private long since = Long.MIN_VALUE;
+    private long until = Long.MAX_VALUE;
+    private final List<Predicate> predicates = new ArrayList<>();
+    private Column groupBy;
+    private final List<Column> sums = new ArrayList<>();
+
+    /**
+     * Restricts the query to entries at or after the given instant.
+     */
+    public BillingQuery since(Instant instant) {
+        since = instant.toEpochMilli();
+        return this;
+    }
+
+    /**
+     * Restricts the query to entries before the given instant.
+     */
+    public BillingQuery until(Instant instant) {
+        until = instant.toEpochMilli();
+        return this;
+    }
+
+    public BillingQuery where(Column column, Operator operator, String value) {
+        predicates.add(new Predicate(column, operator, value));
+        return this;
+    }
+
+    /**
+     * Adds a predicate of the form FIELD=VALUE, FIELD!=VALUE, FIELD&lt;VALUE or FIELD&gt;VALUE.
+     */
+    public BillingQuery where(String expression) {
+        Matcher matcher = PREDICATE_PATTERN.matcher(expression);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid predicate: " + expression);
+        }
+        return where(Column.forName(matcher.group(1)), Operator.forSymbol(matcher.group(2)),
+              matcher.group(3));
+    }
+
+    public BillingQuery groupBy(Column column) {
+        groupBy = column;
+        return this;
+    }
+
+    public BillingQuery sum(Column column) {
+        if (!column.isNumeric()) {
+            throw new IllegalArgumentException("Field is not numeric: " + column.getName());
+        }
+        sums.add(column);
+        return this;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public long getUntil() {
+        return until;
+    }
+
+    public List<Predicate> getPredicates() {
+        return ImmutableList.copyOf(predicates);
+    }
+
+    @Nullable
+    public Column getGroupBy() {
+        return groupBy;
+    }
+
+    public List<Column> getSums() {
+        return ImmutableList.copyOf(sums);
+    }
+}
@@ -23,6 +23,8 @@ import com.google.common.io.ByteSource;
 import com.google.common.io.CharSource;
 import com.google.common.io.CharStreams;
 import com.google.common.io.LineProcessor;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import com.google.gson.stream.JsonWriter;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -44,11 +46,13 @@ import java.io.Reader;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.MonthDay;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.FormatStyle;
@@ -58,6 +62,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -79,6 +84,8 @@ public class Indexer {
 
     private static final Pattern BILLING_NAME_PATTERN =
           Pattern.compile("^billing-(\\d\\d\\d\\d.\\d\\d.\\d\\d)(\\.bz2)?$");
+    private static final Pattern ARCHIVE_NAME_PATTERN =
+          Pattern.compile("^archive-(\\d\\d\\d\\d.\\d\\d.\\d\\d)$");
     private static final String BILLING_TEXT_FLAT_DIR = "billing.text.flat-dir";
     private static final String BILLING_TEXT_DIR = "billing.text.dir";
     private static final String BILLING_TEXT_FORMAT_PREFIX = "billing.parser.format!";
@@ -118,6 +125,7 @@ public class Indexer {
     };
 
     private final boolean isFlat;
+    private final boolean isArchiving;
     private final File dir;
     private final ImmutableMap<String, String> formats;
 
@@ -128,6 +136,7 @@ public class Indexer {
         isFlat = Boolean.valueOf(
               args.getOption("flat", configuration.getValue(BILLING_TEXT_FLAT_DIR)));
         dir = new File(args.getOption("dir", configuration.getValue(BILLING_TEXT_DIR)));
+        isArchiving = args.getBooleanOption("archive", true);
         formats = getBillingFormats(configuration);
 
         if (args.hasOption("find")) {
@@ -151,7 +160,8 @@ public class Indexer {
                       ? LocalDate.parse(args.getOption("until"), CLI_DATE_FORMAT)
                       : LocalDate.now().plusDays(1);
                 filesWithPossibleMatch =
-                      filesWithPossibleMatch.filter(file -> isInRange(file, since, until));
+                      filesWithPossibleMatch.filter(
+                            file -> isInRange(BILLING_NAME_PATTERN, file, since, until));
             }
             if (searchTerms.contains("")) {
                 filesWithPossibleMatch =
@@ -178,6 +188,62 @@ public class Indexer {
                     find(searchTerms, filesWithPossibleMatch, out);
                 }
             }
+        } else if (args.hasOption("query")) {
+            BillingQuery query = new BillingQuery();
+            LocalDate since = args.hasOption("since")
+                  ? LocalDate.parse(args.getOption("since"), CLI_DATE_FORMAT)
+                  : LocalDate.ofEpochDay(0);
+            LocalDate until = args.hasOption("until")
+                  ? LocalDate.parse(args.getOption("until"), CLI_DATE_FORMAT)
+                  : LocalDate.now().plusDays(1);
+            query.since(since.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            query.until(until.atStartOfDay(ZoneId.systemDefault()).toInstant());
+            args.getArguments().forEach(query::where);
+            if (args.hasOption("group-by")) {
+                query.groupBy(BillingArchive.Column.forName(args.getOption("group-by")));
+            }
+            for (String sum : args.getOptions("sum")) {
+                query.sum(BillingArchive.Column.forName(sum));
+            }
+
+            FluentIterable<File> archives =
+                  SORTED_FILE_TREE_TRAVERSER
+                        .preOrderTraversal(dir)
+                        .filter(file -> file.isFile()
+                              && isInRange(ARCHIVE_NAME_PATTERN, file, since, until));
+            if (args.hasOption("count") || args.hasOption("group-by")
+                  || args.hasOption("sum")) {
+                aggregate(query, archives, System.out);
+            } else if (args.hasOption("json")) {
+                JsonWriter writer = new JsonWriter(new OutputStreamWriter(System.out));
+                writer.setIndent("  ");
+                writer.beginArray();
+                query(query, archives, (archive, row) -> {
+                    writer.beginObject();
+                    writer.name("date").value(toIso8601(archive.getTimestamp(row)));
+                    for (BillingArchive.Column column : BillingArchive.Column.values()) {
+                        String value = archive.get(column, row);
+                        if (column != BillingArchive.Column.DATE && value != null) {
+                            writer.name(column.getName()).value(value);
+                        }
+                    }
+                    writer.endObject();
+                });
+                writer.endArray();
+                writer.flush();
+                System.out.println();
+            } else {
+                query(query, archives, (archive, row) -> {
+                    StringBuilder line = new StringBuilder(toIso8601(archive.getTimestamp(row)));
+                    for (BillingArchive.Column column : BillingArchive.Column.values()) {
+                        String value = archive.get(column, row);
+                        if (column != BillingArchive.Column.DATE && value != null) {
+                            line.append(' ').append(column.getName()).append('=').append(value);
+                        }
+                    }
+                    System.out.println(line);
+                });
+            }
         } else if (args.hasOption("all")) {
             for (File file : SORTED_FILE_TREE_TRAVERSER.preOrderTraversal(dir).filter(isFile())) {
                 Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
@@ -396,6 +462,62 @@ public class Indexer {
         Set<String> index = produceIndex(billingFile, threads);
         BloomFilter<CharSequence> filter = produceBloomFilter(fpp, index);
         writeToFile(indexFile, filter);
+        if (isArchiving) {
+            Matcher matcher = BILLING_NAME_PATTERN.matcher(billingFile.getName());
+            if (matcher.matches()) {
+                LocalDate date = LocalDate.parse(matcher.group(1), FILE_DATE_FORMAT);
+                produceArchive(billingFile, date, threads)
+                      .writeTo(getArchiveFile(indexFile.getParentFile(), matcher.group(1)));
+            }
+        }
+    }
+
+    /**
+     * Selects entries matching query from archives and passes them to out in timestamp order.
+     */
+    private static void query(BillingQuery query, FluentIterable<File> archives,
+          RowWriter out) throws IOException {
+        for (File file : archives) {
+            BillingArchive archive = BillingArchive.open(file);
+            for (int row : archive.select(query)) {
+                out.write(archive, row);
+            }
+        }
+    }
+
+    /**
+     * Aggregates entries matching query from archives and writes the totals to out.
+     */
+    private static void aggregate(BillingQuery query, FluentIterable<File> archives,
+          PrintStream out) throws IOException {
+        Map<String, long[]> totals = new TreeMap<>();
+        for (File file : archives) {
+            BillingArchive archive = BillingArchive.open(file);
+            archive.aggregate(query, archive.select(query), totals);
+        }
+
+        StringBuilder header = new StringBuilder();
+        if (query.getGroupBy() != null) {
+            header.append(query.getGroupBy().getName()).append('\t');
+        }
+        header.append("count");
+        for (BillingArchive.Column column : query.getSums()) {
+            header.append("\tsum(").append(column.getName()).append(')');
+        }
+        out.println(header);
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            StringBuilder line = new StringBuilder();
+            if (query.getGroupBy() != null) {
+                line.append(entry.getKey()).append('\t');
+            }
+            line.append(Longs.join("\t", entry.getValue()));
+            out.println(line);
+        }
+    }
+
+    private static String toIso8601(long timestamp) {
+        return ISO8601_FORMAT.format(
+              Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()));
     }
 
     private static void decompress(File compressedFile) throws IOException {
@@ -424,7 +546,7 @@ public class Indexer {
 
     private static void help(PrintStream out) {
         out.println("COMMANDS:");
-        out.println("   -all [-fpp=PROP] [-dir=BASE]");
+        out.println("   -all [-fpp=PROP] [-archive=BOOL] [-dir=BASE]");
         out.println("          (Re)index all billing files.");
         out.println("   -compress FILE...");
         out.println("          Compress FILE.");
@@ -439,14 +561,33 @@ public class Indexer {
         out.println(
               "          of billing files that might contain the search term. If no search term");
         out.println("          is provided, all entries are output.");
-        out.println("   -index [-fpp=PROP] FILE...");
+        out.println("   -index [-fpp=PROP] [-archive=BOOL] FILE...");
         out.println("          Create index for FILE.");
-        out.println("   -yesterday [-compress] [-fpp=PROP] [-dir=BASE] [-flat=BOOL]");
+        out.println(
+              "   -query [-json] [-dir=BASE] [-since=DATE] [-until=DATE] [-count] [-group-by=FIELD]");
+        out.println("          [-sum=FIELD]... [PREDICATE]...");
+        out.println(
+              "          Output billing entries from the archives that match all PREDICATEs, or");
+        out.println(
+              "          with -count, -group-by or -sum, the number of such entries and the sums");
+        out.println(
+              "          of the given numeric fields, optionally grouped by the value of a field.");
+        out.println(
+              "          A predicate has the form FIELD=VALUE, FIELD!=VALUE, FIELD<VALUE or");
+        out.println(
+              "          FIELD>VALUE. Fields are named like the attributes of billing entries,");
+        out.println("          e.g. pnfsid, owner, cellName, type, filesize or transferred.");
+        out.println(
+              "   -yesterday [-compress] [-fpp=PROP] [-archive=BOOL] [-dir=BASE] [-flat=BOOL]");
         out.println(
               "          Index yesterday's billing file. Optionally compresses the billing file");
         out.println("          after indexing it.");
         out.println("");
         out.println("OPTIONS:");
+        out.println("   -archive=BOOLEAN");
+        out.println(
+              "          Whether to write a columnar archive of billing files when indexing them.");
+        out.println("          Archives are used by -query. Default is true.");
         out.println("   -dir=BASE");
         out.println("          Base directory for billing files. Default is taken from dCache");
         out.println("          configuration.");
@@ -500,6 +641,10 @@ public class Indexer {
         return new File(dir, "index-" + date);
     }
 
+    private static File getArchiveFile(File dir, String date) {
+        return new File(dir, "archive-" + date);
+    }
+
     private Set<String> produceIndex(final File file, int threads)
           throws IOException {
         try {
@@ -517,6 +662,23 @@ public class Indexer {
         }
     }
 
+    private BillingArchive.Writer produceArchive(File file, LocalDate date, int threads)
+          throws IOException {
+        try {
+            ArchiveProcessor processor = new ArchiveProcessor(formats, date);
+            BillingArchive.Writer archive;
+            try (ParallelizingLineProcessor<BillingArchive.Writer> parallelizer =
+                  new ParallelizingLineProcessor<>(threads, processor)) {
+                archive = asCharSource(file, UTF_8).readLines(parallelizer);
+            }
+            return archive;
+        } catch (IOException e) {
+            throw new IOException("I/O failure while reading " + file + ":" + e.getMessage(), e);
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid dCache configuration: " + e.getMessage(), e);
+        }
+    }
+
     private static CharSource asCharSource(final File file, Charset charset) {
         ByteSource source;
         if (file.getPath().endsWith("." + BZ2)) {
@@ -613,8 +775,9 @@ public class Indexer {
         };
     }
 
-    private static boolean isInRange(File file, LocalDate since, LocalDate until) {
-        Matcher matcher = BILLING_NAME_PATTERN.matcher(file.getName());
+    private static boolean isInRange(Pattern pattern, File file, LocalDate since,
+          LocalDate until) {
+        Matcher matcher = pattern.matcher(file.getName());
         if (matcher.matches()) {
             LocalDate date = LocalDate.parse(matcher.group(1), FILE_DATE_FORMAT);
             if ((date.isEqual(since) || date.isAfter(since)) && date.isBefore(until)) {
@@ -675,6 +838,83 @@ public class Indexer {
         }
     }
 
+    /**
+     * Billing file line processor that collects entries for a columnar archive.
+     */
+    private static class ArchiveProcessor implements LineProcessor<BillingArchive.Writer> {
+
+        private static final BillingArchive.Column[] COLUMNS = BillingArchive.Column.values();
+
+        private final BillingArchive.Writer result;
+        private final BillingParserBuilder builder;
+        private final LocalDate date;
+        private final int[] columnOfAttribute;
+
+        private Function<String, String[]> parser;
+
+        private ArchiveProcessor(ImmutableMap<String, String> formats, LocalDate date)
+              throws IOException, URISyntaxException {
+            this.date = date;
+            result = new BillingArchive.Writer(date);
+            builder = new BillingParserBuilder(formats);
+            List<Integer> columns = new ArrayList<>();
+            for (BillingArchive.Column column : COLUMNS) {
+                for (String attribute : column.getAttributes()) {
+                    builder.addAttribute(attribute);
+                    columns.add(column.ordinal());
+                }
+            }
+            columnOfAttribute = Ints.toArray(columns);
+            parser = builder.buildToArray();
+        }
+
+        @Override
+        public boolean processLine(String line) throws IOException {
+            if (!line.isEmpty() && line.charAt(0) != '#') {
+                String[] attributes = parser.apply(line);
+                String[] values = new String[COLUMNS.length];
+                boolean isEmpty = true;
+                for (int i = 0; i < attributes.length; i++) {
+                    if (attributes[i] != null) {
+                        values[columnOfAttribute[i]] = attributes[i];
+                        isEmpty = false;
+                    }
+                }
+                if (!isEmpty) {
+                    result.add(toTimestamp(values[BillingArchive.Column.DATE.ordinal()]), values);
+                }
+            } else if (line.startsWith("##")) {
+                parser = builder.withFormat(line).buildToArray();
+            }
+            return true;
+        }
+
+        @Override
+        public BillingArchive.Writer getResult() {
+            return result;
+        }
+
+        /**
+         * Returns the timestamp of an entry in the default or ISO 8601 date format, falling back
+         * to the beginning of the day of the billing file.
+         */
+        private long toTimestamp(String s) {
+            ZonedDateTime timestamp = date.atStartOfDay(ZoneId.systemDefault());
+            if (s != null) {
+                try {
+                    timestamp = parseDefaultTimestamp(date.getYear(), s)
+                          .atZone(ZoneId.systemDefault());
+                } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                    try {
+                        timestamp = ZonedDateTime.parse(s, ISO8601_FORMAT);
+                    } catch (DateTimeParseException ignore) {
+                    }
+                }
+            }
+            return timestamp.toInstant().toEpochMilli();
+        }
+    }
+
     public static void main(String[] arguments)
           throws URISyntaxException, ExecutionException, InterruptedException,
           ClassNotFoundException {
@@ -703,4 +943,9 @@ public class Indexer {
 
         void write(LocalDate date, String line) throws IOException;
     }
+
+    private interface RowWriter {
+
+        void write(BillingArchive archive, int row) throws IOException;
+    }
 }
@@ -1,10 +1,16 @@
 package org.dcache.util.list;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.collect.Range;
 import diskCacheV111.util.CacheException;
 import diskCacheV111.util.FsPath;
 import diskCacheV111.util.PnfsHandler;
+import dmg.cells.nucleus.CellInfoProvider;
+import dmg.cells.nucleus.CellMessage;
 import dmg.cells.nucleus.CellMessageReceiver;
+import dmg.cells.nucleus.CellPath;
+import java.io.PrintWriter;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -21,6 +27,7 @@ import org.dcache.namespace.FileAttribute;
 import org.dcache.util.CacheExceptionFactory;
 import org.dcache.util.Glob;
 import org.dcache.vehicles.FileAttributes;
+import org.dcache.vehicles.PnfsListDirectoryCreditMessage;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,21 +41,64 @@ import org.slf4j.LoggerFactory;
  * consequence that a ListDirectoryHandler cannot be used from the Cells messages thread. Any
  * attempt to do so will cause the message thread to block, as the replies cannot be delivered to
  * the ListDirectoryHandler.
+ * <p>
+ * Listings are flow controlled: PnfsManager sends at most a window of partial replies before
+ * waiting for credit, which is granted whenever a reply is consumed from the stream. A slow
+ * consumer thus pauses the listing in PnfsManager rather than having the complete listing buffered
+ * in the door. PnfsManager echoes the window in its replies; credit and cancellations are only
+ * sent for replies that do, as older PnfsManager instances neither honour the window nor
+ * understand these messages.
  */
 public class ListDirectoryHandler
-      implements CellMessageReceiver, DirectoryListSource {
+      implements CellMessageReceiver, CellInfoProvider, DirectoryListSource {
 
     private static final Logger LOGGER =
           LoggerFactory.getLogger(ListDirectoryHandler.class);
 
+    /**
+     * Default number of partial replies PnfsManager may have in flight for a listing.
+     */
+    public static final int DEFAULT_WINDOW = 4;
+
     private final PnfsHandler _pnfs;
     private final Map<UUID, Stream> _replies =
           new ConcurrentHashMap<>();
+    private int _window = DEFAULT_WINDOW;
 
     public ListDirectoryHandler(PnfsHandler pnfs) {
         _pnfs = pnfs;
     }
 
+    /**
+     * Sets the number of partial replies PnfsManager may have in flight for a listing. Zero
+     * disables flow control.
+     */
+    public void setWindow(int window) {
+        checkArgument(window >= 0, "Window must not be negative");
+        _window = window;
+    }
+
+    public int getWindow() {
+        return _window;
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        int replies = 0;
+        long entries = 0;
+        for (Stream stream : _replies.values()) {
+            for (PnfsListDirectoryMessage msg : stream._queue) {
+                replies++;
+                entries += msg.getEntries().size();
+            }
+        }
+        pw.println("Directory listings:");
+        pw.println("    Window           : " + (_window == 0 ? "unlimited" : _window));
+        pw.println("    In progress      : " + _replies.size());
+        pw.println("    Buffered replies : " + replies);
+        pw.println("    Buffered entries : " + entries);
+    }
+
     /**
      * Sends a directory list request to PnfsManager. The result is provided as a stream of
      * directory entries.
@@ -91,10 +141,12 @@ public class ListDirectoryHandler
               new PnfsListDirectoryMessage(dir, pattern, range, attributes);
         UUID uuid = msg.getUUID();
         boolean success = false;
+        int window = _window;
         Stream stream = new Stream(dir, uuid);
         try {
             msg.setSubject(subject);
             msg.setRestriction(restriction);
+            msg.setWindow(window);
             _replies.put(uuid, stream);
             _pnfs.send(msg);
             stream.waitForMoreEntries();
@@ -102,7 +154,7 @@ public class ListDirectoryHandler
             return stream;
         } finally {
             if (!success) {
-                _replies.remove(uuid);
+                stream.close();
             }
         }
     }
@@ -147,13 +199,19 @@ public class ListDirectoryHandler
      * Callback for delivery of replies from PnfsManager. PnfsListDirectoryMessage have to be routed
      * to this message.
      */
-    public void messageArrived(PnfsListDirectoryMessage reply) {
+    public void messageArrived(CellMessage envelope, PnfsListDirectoryMessage reply) {
         if (reply.isReply()) {
             try {
                 UUID uuid = reply.getUUID();
                 Stream stream = _replies.get(uuid);
                 if (stream != null) {
-                    stream.put(reply);
+                    stream.put(envelope.getSourcePath().revert(), reply);
+                } else if (isFlowControlled(reply) && !reply.isFinal()) {
+                    /* The stream was closed before the first reply arrived,
+                     * thus the listing could not be cancelled yet.
+                     */
+                    _pnfs.notify(envelope.getSourcePath().revert(),
+                          PnfsListDirectoryCreditMessage.cancel(reply.getPnfsPath(), uuid));
                 } else {
                     LOGGER.warn(
                           "Received list result for an unknown request. Directory listing was possibly incomplete.");
@@ -164,6 +222,14 @@ public class ListDirectoryHandler
         }
     }
 
+    /**
+     * Returns whether PnfsManager honours the window of the listing the reply belongs to, in
+     * which case it expects credit for every partial reply.
+     */
+    private static boolean isFlowControlled(PnfsListDirectoryMessage reply) {
+        return reply.getWindow() > 0;
+    }
+
     /**
      * Implementation of DirectoryStream, translating PnfsListDirectoryMessage replies to a stream
      * of DirectoryEntries.
@@ -177,7 +243,12 @@ public class ListDirectoryHandler
               new LinkedBlockingQueue<>();
         private final UUID _uuid;
         private final String _path;
-        private boolean _isFinal;
+        /**
+         * The PnfsManager instance serving the listing, or null if no reply has been received
+         * yet or the listing is not flow controlled.
+         */
+        private volatile CellPath _source;
+        private volatile boolean _isFinal;
         private Iterator<DirectoryEntry> _iterator;
         private int _count;
         private int _total;
@@ -190,10 +261,21 @@ public class ListDirectoryHandler
         @Override
         public void close() {
             _replies.remove(_uuid);
+            /* Without a reply it is unknown whether and where the listing
+             * is flow controlled. A later reply is then cancelled when it
+             * arrives.
+             */
+            CellPath source = _source;
+            if (!_isFinal && source != null) {
+                _pnfs.notify(source, PnfsListDirectoryCreditMessage.cancel(_path, _uuid));
+            }
         }
 
-        private void put(PnfsListDirectoryMessage msg)
+        private void put(CellPath source, PnfsListDirectoryMessage msg)
               throws InterruptedException {
+            if (isFlowControlled(msg)) {
+                _source = source;
+            }
             _queue.put(msg);
         }
 
@@ -223,6 +305,13 @@ public class ListDirectoryHandler
                 throw CacheExceptionFactory.exceptionOf(msg);
             }
 
+            /* The reply is no longer buffered in the queue, so PnfsManager
+             * may send another one.
+             */
+            if (isFlowControlled(msg) && !msg.isFinal()) {
+                _pnfs.notify(_source, PnfsListDirectoryCreditMessage.credit(_path, _uuid, 1));
+            }
+
             _iterator = msg.getEntries().iterator();
 
             /* If the message is empty, then the iterator has no next
@@ -0,0 +1,132 @@
+package diskCacheV111.namespace;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkStealingQueuesTest {
+
+    private WorkStealingQueues<String> queues;
+
+    @Before
+    public void setUp() {
+        queues = new WorkStealingQueues<>(4, 2);
+    }
+
+    @Test
+    public void shouldRejectWhenQueueIsFull() {
+        assertThat(queues.offer(0, "a"), is(true));
+        assertThat(queues.offer(0, "b"), is(true));
+        assertThat(queues.offer(0, "c"), is(false));
+        assertThat(queues.offer(1, "c"), is(true));
+    }
+
+    @Test
+    public void shouldScheduleQueueOnlyOnce() throws Exception {
+        queues.offer(2, "a");
+        queues.offer(2, "b");
+        queues.shutdown(1);
+
+        assertThat(queues.claim(), is(2));
+        assertThat(queues.claim(), is(-1));
+    }
+
+    @Test
+    public void shouldRescheduleQueueOnReleaseWithPendingWork() throws Exception {
+        queues.offer(1, "a");
+        queues.offer(1, "b");
+
+        int index = queues.claim();
+        assertThat(queues.get(index).poll(), is("a"));
+        queues.release(index);
+
+        assertThat(queues.claim(), is(1));
+        assertThat(queues.get(1).poll(), is("b"));
+    }
+
+    @Test
+    public void shouldNotScheduleClaimedQueueTwice() throws Exception {
+        queues.offer(1, "a");
+        int index = queues.claim();
+
+        queues.offer(1, "b");
+        queues.offer(3, "c");
+
+        assertThat(queues.claim(), is(3));
+        queues.release(index);
+        assertThat(queues.claim(), is(1));
+    }
+
+    @Test
+    public void shouldLetIdleWorkerServeOtherQueues() throws Exception {
+        queues.offer(0, "slow");
+        queues.offer(1, "fast");
+
+        int slow = queues.claim();
+        int fast = queues.claim();
+
+        assertThat(slow, is(0));
+        assertThat(fast, is(1));
+    }
+
+    @Test
+    public void shouldPreserveOrderWithinQueue() throws Exception {
+        WorkStealingQueues<Integer> unbounded = new WorkStealingQueues<>(3, 0);
+        List<List<Integer>> processed = new ArrayList<>();
+        for (int i = 0; i < unbounded.size(); i++) {
+            processed.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+
+        int workers = 4;
+        CountDownLatch done = new CountDownLatch(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (int w = 0; w < workers; w++) {
+            executor.execute(() -> {
+                try {
+                    for (int index = unbounded.claim(); index >= 0; index = unbounded.claim()) {
+                        try {
+                            Integer value = unbounded.get(index).poll();
+                            if (value != null) {
+                                processed.get(index).add(value);
+                            }
+                        } finally {
+                            unbounded.release(index);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        for (int i = 0; i < 3000; i++) {
+            unbounded.offer(i % 3, i);
+        }
+        while (processed.stream().mapToInt(List::size).sum() < 3000) {
+            Thread.sleep(10);
+        }
+        unbounded.shutdown(workers);
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        executor.shutdown();
+
+        for (int q = 0; q < 3; q++) {
+            List<Integer> values = processed.get(q);
+            assertThat(values.size(), is(1000));
+            for (int i = 0; i < values.size(); i++) {
+                assertThat(values.get(i), equalTo(3 * i + q));
+            }
+        }
+    }
+}
@@ -12,13 +12,17 @@ import static org.dcache.util.FileAttributesBuilder.fileAttributes;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.any;
 import static org.mockito.BDDMockito.anyLong;
+import static org.mockito.BDDMockito.argThat;
 import static org.mockito.BDDMockito.doAnswer;
 import static org.mockito.BDDMockito.mock;
 import static org.mockito.BDDMockito.never;
+import static org.mockito.BDDMockito.times;
 import static org.mockito.BDDMockito.verify;
 import static org.mockito.BDDMockito.willAnswer;
 
@@ -63,6 +67,7 @@ import org.dcache.util.list.ListDirectoryHandler;
 import org.dcache.util.list.VirtualDirectoryListHandler;
 import org.dcache.vehicles.FileAttributes;
 import org.dcache.vehicles.PnfsGetFileAttributes;
+import org.dcache.vehicles.PnfsListDirectoryCreditMessage;
 import org.dcache.vehicles.PnfsListDirectoryMessage;
 import org.dcache.vehicles.PnfsRemoveChecksumMessage;
 import org.dcache.vehicles.PnfsSetFileAttributes;
@@ -123,6 +128,7 @@ public class RemoteNameSpaceProviderTests {
 
     RemoteNameSpaceProvider _namespace;
     CellEndpoint _endpoint;
+    PnfsHandler _pnfs;
     ListDirectoryHandler _listHandler;
     VirtualDirectoryListHandler _virtualDirectoryHandler;
     LabelsListHandler _labelsListHandler;
@@ -134,6 +140,7 @@ public class RemoteNameSpaceProviderTests {
         _endpoint = mock(CellEndpoint.class);
         CellStub stub = new CellStub(_endpoint, CELLPATH_PNFSMANAGER);
         PnfsHandler pnfs = new PnfsHandler(stub);
+        _pnfs = pnfs;
         _listHandler = new ListDirectoryHandler(pnfs);
         _namespace = new RemoteNameSpaceProvider(pnfs, _listHandler, _virtualDirectoryHandler, _labelsListHandler);
     }
@@ -485,6 +492,64 @@ public class RemoteNameSpaceProviderTests {
         assertThat(file4Attr.getPnfsId(), is(PNFSID_4));
     }
 
+    @Test(timeout = 60_000)
+    public void shouldGrantCreditForEachConsumedPartialReply() throws Exception {
+        givenListResponses(
+              Lists.newArrayList(entry().name("file-1").id(A_PNFSID).size(1000).build()),
+              Lists.newArrayList(entry().name("file-2").id(ANOTHER_PNFSID).size(2000).build()),
+              Lists.newArrayList(entry().name("file-3").id(PNFSID_3).size(3000).build()));
+
+        ListCapture capture = new ListCapture();
+        _namespace.list(ROOT, "/path/to/dir", null, ALL_ENTRIES,
+              EnumSet.of(SIZE), capture);
+
+        assertThat(capture.getNames().keySet(), hasSize(3));
+        verify(_endpoint, times(2)).sendMessage(argThat(m ->
+              m.getMessageObject() instanceof PnfsListDirectoryCreditMessage
+                    && !((PnfsListDirectoryCreditMessage) m.getMessageObject()).isCancel()));
+    }
+
+    @Test(timeout = 60_000)
+    public void shouldNotGrantCreditIfPnfsManagerIgnoresWindow() throws Exception {
+        givenListResponsesIgnoringWindow(
+              Lists.newArrayList(entry().name("file-1").id(A_PNFSID).size(1000).build()),
+              Lists.newArrayList(entry().name("file-2").id(ANOTHER_PNFSID).size(2000).build()),
+              Lists.newArrayList(entry().name("file-3").id(PNFSID_3).size(3000).build()));
+
+        ListCapture capture = new ListCapture();
+        _namespace.list(ROOT, "/path/to/dir", null, ALL_ENTRIES,
+              EnumSet.of(SIZE), capture);
+
+        assertThat(capture.getNames().keySet(), hasSize(3));
+        verify(_endpoint, never()).sendMessage(argThat(m ->
+              m.getMessageObject() instanceof PnfsListDirectoryCreditMessage));
+    }
+
+    @Test(timeout = 60_000)
+    public void shouldCancelListingAbandonedBeforeFirstReply() throws Exception {
+        _pnfs.setPnfsTimeout(100);
+
+        try {
+            _namespace.list(ROOT, "/path/to/dir", null, ALL_ENTRIES,
+                  EnumSet.of(SIZE), new ListCapture());
+            fail("Listing without reply should time out");
+        } catch (CacheException e) {
+            assertThat(e.getRc(), is(CacheException.TIMEOUT));
+        }
+        ArgumentCaptor<CellMessage> sent = ArgumentCaptor.forClass(CellMessage.class);
+        verify(_endpoint).sendMessage(sent.capture());
+        CellMessage request = sent.getValue();
+        assertThat(request.getMessageObject(), instanceOf(PnfsListDirectoryMessage.class));
+
+        CellMessage reply = buildListReply(request,
+              Lists.newArrayList(entry().name("file-1").id(A_PNFSID).size(1000).build()),
+              false, 2);
+        _listHandler.messageArrived(reply, (PnfsListDirectoryMessage) reply.getMessageObject());
+
+        verify(_endpoint).sendMessage(argThat(m ->
+              m.getMessageObject() instanceof PnfsListDirectoryCreditMessage
+                    && ((PnfsListDirectoryCreditMessage) m.getMessageObject()).isCancel()));
+    }
 
     @Test
     public void shouldSucceedForPathToPnfsidWithKnownPathAndResolvingSymlinks()
@@ -627,18 +692,35 @@ public class RemoteNameSpaceProviderTests {
      * messageArrived.
      */
     private void givenListResponses(final Collection<DirectoryEntry>... answers) {
+        givenListResponses(false, answers);
+    }
+
+    /**
+     * Like {@link #givenListResponses(Collection[])}, but the replies are those of a PnfsManager
+     * that does not support flow control.
+     */
+    private void givenListResponsesIgnoringWindow(final Collection<DirectoryEntry>... answers) {
+        givenListResponses(true, answers);
+    }
+
+    private void givenListResponses(boolean ignoreWindow,
+          final Collection<DirectoryEntry>... answers) {
         try {
 
             doAnswer((Answer) (i) -> {
                 CellMessage request = (CellMessage) i.getArguments()[0];
 
-                List<PnfsListDirectoryMessage> replies =
-                      buildMessages(request, answers);
+                List<CellMessage> replies = buildMessages(request, answers);
+                if (ignoreWindow) {
+                    replies.forEach(r -> ((PnfsListDirectoryMessage) r.getMessageObject())
+                          .setWindow(0));
+                }
 
                 backgroundDeliverMessages(replies);
 
                 return null;
-            }).when(_endpoint).sendMessage(any(CellMessage.class));
+            }).when(_endpoint).sendMessage(argThat(m ->
+                  m.getMessageObject() instanceof PnfsListDirectoryMessage));
 
         } catch (SerializationException e) {
             throw new RuntimeException(e);
@@ -646,9 +728,9 @@ public class RemoteNameSpaceProviderTests {
     }
 
 
-    private List<PnfsListDirectoryMessage> buildMessages(final CellMessage request,
+    private List<CellMessage> buildMessages(final CellMessage request,
           final Collection<DirectoryEntry>... replies) {
-        List<PnfsListDirectoryMessage> messages =
+        List<CellMessage> messages =
               Lists.newArrayListWithExpectedSize(replies.length);
 
         for (int i = 0; i < replies.length; i++) {
@@ -656,7 +738,7 @@ public class RemoteNameSpaceProviderTests {
             boolean isLast = i == (replies.length - 1);
             CellMessage reply = buildListReply(request, entries, isLast, replies.length);
 
-            messages.add((PnfsListDirectoryMessage) reply.getMessageObject());
+            messages.add(reply);
         }
 
         return messages;
@@ -674,11 +756,12 @@ public class RemoteNameSpaceProviderTests {
     }
 
 
-    private void backgroundDeliverMessages(final Collection<PnfsListDirectoryMessage> messages) {
+    private void backgroundDeliverMessages(final Collection<CellMessage> messages) {
         new Thread() {
             @Override
             public void run() {
-                messages.forEach((m) -> _listHandler.messageArrived(m));
+                messages.forEach((m) -> _listHandler.messageArrived(m,
+                      (PnfsListDirectoryMessage) m.getMessageObject()));
             }
         }.start();
     }
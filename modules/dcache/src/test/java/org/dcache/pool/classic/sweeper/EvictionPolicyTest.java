@@ -0,0 +1,198 @@
+package org.dcache.pool.classic.sweeper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import diskCacheV111.util.PnfsId;
+import org.junit.Test;
+
+public class EvictionPolicyTest {
+
+    private static final PnfsId A = new PnfsId("000000000000000000000000000A");
+    private static final PnfsId B = new PnfsId("000000000000000000000000000B");
+    private static final PnfsId C = new PnfsId("000000000000000000000000000C");
+    private static final PnfsId D = new PnfsId("000000000000000000000000000D");
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFirst() {
+        EvictionPolicy policy = new LruEvictionPolicy();
+        policy.add(A, 10, 3);
+        policy.add(B, 10, 1);
+        policy.add(C, 10, 2);
+
+        policy.access(B, 4);
+
+        assertThat(policy.victims(), contains(C, A, B));
+        assertThat(policy.getTimeOfLeastRecentlyUsed(), is(2L));
+    }
+
+    @Test
+    public void shouldIgnoreAccessToUntrackedReplica() {
+        EvictionPolicy policy = new LruEvictionPolicy();
+        policy.add(A, 10, 1);
+
+        policy.access(B, 2);
+
+        assertThat(policy.victims(), contains(A));
+    }
+
+    @Test
+    public void shouldNotAddReplicaTwice() {
+        EvictionPolicy policy = new LruEvictionPolicy();
+
+        assertThat(policy.add(A, 10, 1), is(true));
+        assertThat(policy.add(A, 10, 2), is(false));
+        assertThat(policy.size(), is(1));
+        assertThat(policy.remove(A), is(true));
+        assertThat(policy.remove(A), is(false));
+        assertThat(policy.getTimeOfLeastRecentlyUsed(), is(0L));
+    }
+
+    @Test
+    public void shouldProtectReplicasAccessedAgainUnderSegmentedLru() {
+        EvictionPolicy policy = new SegmentedLruEvictionPolicy(0.5);
+        policy.add(A, 10, 1);
+        policy.add(B, 10, 2);
+        policy.add(C, 10, 3);
+        policy.add(D, 10, 4);
+
+        policy.access(A, 5);
+
+        assertThat(policy.victims(), contains(B, C, D, A));
+    }
+
+    @Test
+    public void shouldDemoteProtectedReplicasUnderSegmentedLru() {
+        EvictionPolicy policy = new SegmentedLruEvictionPolicy(0.5);
+        policy.add(A, 10, 1);
+        policy.add(B, 10, 2);
+        policy.add(C, 10, 3);
+        policy.add(D, 10, 4);
+
+        policy.access(A, 5);
+        policy.access(B, 6);
+        policy.access(C, 7);
+
+        assertThat(policy.victims(), contains(D, A, B, C));
+    }
+
+    @Test
+    public void shouldEvictLargeReplicasFirstUnderGdsf() {
+        EvictionPolicy policy = new GdsfEvictionPolicy();
+        policy.add(A, 1000, 1);
+        policy.add(B, 10, 2);
+        policy.add(C, 100, 3);
+
+        assertThat(policy.victims(), contains(A, C, B));
+    }
+
+    @Test
+    public void shouldFavourFrequentlyReadReplicasUnderGdsf() {
+        EvictionPolicy policy = new GdsfEvictionPolicy();
+        policy.add(A, 100, 1);
+        policy.add(B, 100, 2);
+
+        policy.access(A, 3);
+
+        assertThat(policy.victims(), contains(B, A));
+    }
+
+    @Test
+    public void shouldAgeReplicasUnderGdsf() {
+        EvictionPolicy policy = new GdsfEvictionPolicy();
+        policy.add(A, 10, 1);
+        policy.access(A, 2);
+        policy.access(A, 3);
+
+        for (int i = 0; i < 3; i++) {
+            policy.add(B, 10, 4 + i);
+            policy.evict(B);
+            policy.remove(B);
+        }
+        policy.add(C, 10, 7);
+
+        assertThat(policy.victims(), contains(A, C));
+    }
+
+    @Test
+    public void shouldEvictReplicasNotAccessedAgainFirstUnderArc() {
+        EvictionPolicy policy = new ArcEvictionPolicy();
+        policy.add(A, 10, 1);
+        policy.add(B, 10, 2);
+        policy.add(C, 10, 3);
+
+        policy.access(A, 4);
+
+        assertThat(policy.victims(), contains(B, C, A));
+    }
+
+    @Test
+    public void shouldGrowRecentTargetWhenEvictedReplicaReturnsUnderArc() {
+        EvictionPolicy policy = new ArcEvictionPolicy();
+        policy.add(A, 10, 1);
+        policy.add(B, 10, 2);
+        policy.add(C, 10, 3);
+        policy.access(C, 4);
+
+        policy.evict(A);
+        policy.remove(A);
+        policy.add(A, 10, 5);
+
+        assertThat(policy.victims(), contains(C, A, B));
+    }
+
+    @Test
+    public void shouldCopyReplicasToOtherPolicy() {
+        EvictionPolicy policy = new GdsfEvictionPolicy();
+        policy.add(A, 10, 2);
+        policy.add(B, 1000, 1);
+        EvictionPolicy copy = new LruEvictionPolicy();
+
+        policy.copyTo(copy);
+
+        assertThat(copy.victims(), contains(B, A));
+    }
+
+    @Test
+    public void shouldPredictHigherHitRateForSegmentedLruUnderScans() {
+        EvictionSimulator lru = new EvictionSimulator(new LruEvictionPolicy(), 100, 0.0);
+        EvictionSimulator slru = new EvictionSimulator(new SegmentedLruEvictionPolicy(), 100,
+              0.0);
+
+        for (int round = 0; round < 10; round++) {
+            for (int hot = 0; hot < 10; hot++) {
+                PnfsId id = new PnfsId(String.format("%028X", hot % 5));
+                lru.read(id, 10);
+                slru.read(id, 10);
+            }
+            for (int scan = 0; scan < 7; scan++) {
+                PnfsId id = new PnfsId(String.format("%028X", 1000 + round * 10 + scan));
+                lru.read(id, 10);
+                slru.read(id, 10);
+            }
+        }
+
+        assertThat(slru.getHitRate(), is(greaterThan(lru.getHitRate())));
+    }
+
+    @Test
+    public void shouldReplayBillingRecords() {
+        EvictionSimulator simulator = new EvictionSimulator(new LruEvictionPolicy(), 100, 0.0);
+        String write = "10.18 12:00:00 [pool:pool1:transfer] [0000A9D1B4B5B0A24A4F8B3E8E2E4C1C7A6B,10]"
+              + " [/data/file] exp:raw@osm 10 5 true {Http-1.1:127.0.0.1:0} [door:web@dCacheDomain:1]"
+              + " {0:\"\"}";
+        String read = write.replace(" true ", " false ");
+        String otherPool = read.replace("pool1", "pool2");
+        String failed = read.replace("{0:\"\"}", "{10006:\"Failed\"}");
+
+        simulator.replay(write, "pool1");
+        simulator.replay(read, "pool1");
+        simulator.replay(otherPool, "pool1");
+        simulator.replay(failed, "pool1");
+
+        assertThat(simulator.getReads(), is(1L));
+        assertThat(simulator.getHits(), is(1L));
+    }
+}
@@ -7,6 +7,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -15,6 +16,8 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -30,6 +33,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.dcache.pool.repository.FileRepositoryChannel;
 import org.dcache.pool.repository.FileStore;
 import org.dcache.pool.repository.RepositoryChannel;
@@ -49,6 +55,7 @@ public class ChecksumChannelTest {
     private final byte[] data = "\0Just\0A\0Short\0TestString\0To\0Verify\0\0Checksumming\0\0Works\12".getBytes(
           StandardCharsets.ISO_8859_1); // \12 is a octal 10, linefeed
     private final Checksum expectedChecksum = ChecksumType.MD5_TYPE.calculate(data);
+    private final Checksum expectedAdler32 = ChecksumType.ADLER32.calculate(data);
 
     private int blocksize = 2;
     private int blockcount = data.length / blocksize;
@@ -238,43 +245,8 @@ public class ChecksumChannelTest {
     }
 
     @Test
-    public void shouldUpdateChecksumSynchronizedForMultiThreadedWrites()
-          throws IOException, InterruptedException {
-
-        class Writer implements Runnable {
-
-            ChecksumChannel channel;
-            ByteBuffer block;
-            int position;
-
-            public Writer(ChecksumChannel channel, ByteBuffer block, int position) {
-                this.channel = channel;
-                this.block = block;
-                this.position = position;
-            }
-
-            @Override
-            public void run() {
-                try {
-                    channel.write(block, position);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-        }
-
-        int[] blockorder = getRandomPermutationOfBlockOrder();
-        List<Thread> writers = newArrayList();
-        for (int i = 0; i < blockcount; i++) {
-            writers.add(new Thread(
-                  new Writer(chksumChannel, buffers[blockorder[i]], blockorder[i] * blocksize)));
-        }
-
-        writers.forEach(Thread::start);
-
-        for (Thread writer : writers) {
-            writer.join();
-        }
+    public void shouldUpdateChecksumSynchronizedForMultiThreadedWrites() throws Exception {
+        writeConcurrently(chksumChannel);
 
         chksumChannel.close();
 
@@ -342,6 +314,96 @@ public class ChecksumChannelTest {
         assertThat(results, contains(EMPTY_MD5_CHECKSUM));
     }
 
+    @Test
+    public void shouldCombineAdler32OfOutOfOrderWritesWithoutReadingBack() throws IOException {
+        ChecksumChannel channel = new ChecksumChannel(chksumChannel._channel,
+              EnumSet.of(ChecksumType.ADLER32));
+        channel._channel = mock(FileRepositoryChannel.class);
+        when(channel._channel.write(any(), anyLong())).thenAnswer(
+              i -> i.<ByteBuffer>getArgument(0).remaining());
+
+        int[] blockorder = getRandomPermutationOfBlockOrder();
+        for (int i = 0; i < blockcount; i++) {
+            channel.write(buffers[blockorder[i]], blockorder[i] * blocksize);
+        }
+        channel.close();
+
+        verify(channel._channel, never()).read(any(), anyLong());
+        assertThat(channel.getChecksums(), contains(expectedAdler32));
+    }
+
+    @Test
+    public void shouldCombineAdler32ForMultiThreadedWrites() throws Exception {
+        ChecksumChannel channel = new ChecksumChannel(chksumChannel._channel,
+              EnumSet.of(ChecksumType.ADLER32));
+
+        writeConcurrently(channel);
+        channel.close();
+
+        assertThat(channel.getChecksums(), contains(expectedAdler32));
+    }
+
+    @Test
+    public void shouldFillUpRangeGapsWithZerosForAdler32() throws IOException {
+        ChecksumChannel channel = new ChecksumChannel(chksumChannel._channel,
+              EnumSet.of(ChecksumType.ADLER32));
+        Map<Long, ByteBuffer> nonZeroBlocksFromByteArray = getNonZeroBlocksFromByteArray(data);
+        for (Long position : nonZeroBlocksFromByteArray.keySet()) {
+            channel.write(nonZeroBlocksFromByteArray.get(position), position);
+        }
+        channel.close();
+        assertThat(channel.getChecksums(), contains(expectedAdler32));
+    }
+
+    @Test
+    public void shouldCalculateCombinableAndSequentialChecksumsTogether() throws IOException {
+        chksumChannel.addType(ChecksumType.ADLER32);
+        int[] blockorder = getRandomPermutationOfBlockOrder();
+        for (int i = 0; i < blockcount; i++) {
+            chksumChannel.write(buffers[blockorder[i]], blockorder[i] * blocksize);
+        }
+        chksumChannel.close();
+
+        assertThat(chksumChannel.getChecksums(),
+              containsInAnyOrder(expectedChecksum, expectedAdler32));
+    }
+
+    @Test
+    public void shouldCalculateAdler32AddedAfterWrites() throws IOException {
+        ChecksumChannel channel = new ChecksumChannel(chksumChannel._channel,
+              EnumSet.of(ChecksumType.MD5_TYPE));
+        channel.write(buffers[0], 0);
+        channel.write(buffers[2], 2 * blocksize);
+        channel.addType(ChecksumType.ADLER32);
+        for (int block = 1; block < blockcount; block++) {
+            if (block != 2) {
+                channel.write(buffers[block], block * blocksize);
+            }
+        }
+        channel.close();
+
+        assertThat(channel.getChecksums(),
+              containsInAnyOrder(expectedChecksum, expectedAdler32));
+    }
+
+    @Test
+    public void shouldCalculateSequentialChecksumAddedAfterCombinableWrites() throws IOException {
+        ChecksumChannel channel = new ChecksumChannel(chksumChannel._channel,
+              EnumSet.of(ChecksumType.ADLER32));
+        channel.write(buffers[0], 0);
+        channel.write(buffers[2], 2 * blocksize);
+        channel.addType(ChecksumType.MD5_TYPE);
+        for (int block = 1; block < blockcount; block++) {
+            if (block != 2) {
+                channel.write(buffers[block], block * blocksize);
+            }
+        }
+        channel.close();
+
+        assertThat(channel.getChecksums(),
+              containsInAnyOrder(expectedChecksum, expectedAdler32));
+    }
+
     private Map<Long, ByteBuffer> getNonZeroBlocksFromByteArray(byte[] bytes) {
         Map<Long, ByteBuffer> result = new TreeMap<>();
         for (int position = 0; position < bytes.length; position++) {
@@ -358,6 +420,28 @@ public class ChecksumChannelTest {
         return result;
     }
 
+    /**
+     * Writes all blocks in random order, each from its own thread. Fails if any of the writes
+     * fails.
+     */
+    private void writeConcurrently(ChecksumChannel channel) throws Exception {
+        int[] blockorder = getRandomPermutationOfBlockOrder();
+        ExecutorService executor = Executors.newFixedThreadPool(blockcount);
+        try {
+            List<Future<Integer>> writes = newArrayList();
+            for (int i = 0; i < blockcount; i++) {
+                ByteBuffer block = buffers[blockorder[i]];
+                long position = blockorder[i] * blocksize;
+                writes.add(executor.submit(() -> channel.write(block, position)));
+            }
+            for (Future<Integer> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private int[] getRandomPermutationOfBlockOrder() {
         Integer[] blockSequence = new Integer[blockcount];
         for (int i = 0; i < blockcount; i++) {
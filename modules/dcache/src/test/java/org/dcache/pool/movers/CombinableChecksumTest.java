@@ -0,0 +1,47 @@
+package org.dcache.pool.movers;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.dcache.util.ChecksumType;
+import org.junit.Test;
+
+public class CombinableChecksumTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void shouldCombineAdler32OfTwoBlocks() {
+        byte[] data = new byte[100_000];
+        random.nextBytes(data);
+
+        for (int split : new int[]{0, 1, 65521, 65522, 99_999, 100_000}) {
+            long first = CombinableChecksum.ADLER32.compute(ByteBuffer.wrap(data, 0, split));
+            long second = CombinableChecksum.ADLER32.compute(
+                  ByteBuffer.wrap(data, split, data.length - split));
+
+            long combined = CombinableChecksum.ADLER32.combine(first, second,
+                  data.length - split);
+
+            assertThat(CombinableChecksum.ADLER32.toChecksum(combined),
+                  is(ChecksumType.ADLER32.calculate(data)));
+        }
+    }
+
+    @Test
+    public void shouldCalculateAdler32OfZeros() {
+        for (int length : new int[]{0, 1, 65520, 65521, 200_000}) {
+            assertThat(CombinableChecksum.ADLER32.toChecksum(
+                        CombinableChecksum.ADLER32.zeros(length)),
+                  is(ChecksumType.ADLER32.calculate(new byte[length])));
+        }
+    }
+
+    @Test
+    public void shouldHaveInitialAdler32OfEmptyData() {
+        assertThat(CombinableChecksum.ADLER32.toChecksum(CombinableChecksum.ADLER32.initial()),
+              is(ChecksumType.ADLER32.calculate(new byte[0])));
+    }
+}
@@ -0,0 +1,150 @@
+package org.dcache.pool.nearline;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.dcache.pool.nearline.spi.NearlineStorage;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RequestAggregatorTest {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private NearlineStorage storage;
+    private ScheduledExecutorService scheduler;
+    private RequestAggregator<String> aggregator;
+
+    @Before
+    public void setUp() {
+        storage = mock(NearlineStorage.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        doReturn(mock(ScheduledFuture.class)).when(scheduler)
+              .schedule(any(Runnable.class), anyLong(), any());
+        aggregator = new RequestAggregator<>(
+              (s, requests) -> batches.add(List.copyOf(requests)),
+              s -> "hsm",
+              r -> r.substring(0, 1),
+              r -> 10L,
+              () -> scheduler);
+    }
+
+    @Test
+    public void shouldSubmitImmediatelyWithoutLimits() {
+        aggregator.add(storage, List.of("a1", "b1"));
+
+        assertThat(batches, contains(List.of("a1", "b1")));
+        assertThat(aggregator.getPending(), is(0));
+    }
+
+    @Test
+    public void shouldSubmitBatchWhenFileLimitIsReached() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(2, Long.MAX_VALUE, 60_000));
+
+        aggregator.add(storage, List.of("a1", "b1"));
+        assertThat(batches, is(empty()));
+        assertThat(aggregator.getPending(), is(2));
+
+        aggregator.add(storage, List.of("a2"));
+        assertThat(batches, contains(List.of("a1", "a2")));
+        assertThat(aggregator.getPending(), is(1));
+    }
+
+    @Test
+    public void shouldSubmitBatchWhenSizeLimitIsReached() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(100, 30, 60_000));
+
+        aggregator.add(storage, List.of("a1", "a2", "a3", "a4"));
+
+        assertThat(batches, contains(List.of("a1", "a2", "a3")));
+        assertThat(aggregator.getPending(), is(1));
+    }
+
+    @Test
+    public void shouldSubmitBatchWhenDelayExpires() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(100, Long.MAX_VALUE, 5_000));
+
+        aggregator.add(storage, List.of("a1", "a2"));
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(task.capture(), eq(5_000L), eq(TimeUnit.MILLISECONDS));
+        task.getValue().run();
+
+        assertThat(batches, contains(List.of("a1", "a2")));
+        assertThat(aggregator.getPending(), is(0));
+    }
+
+    @Test
+    public void shouldSubmitPendingBatchesWhenLimitsAreRemoved() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(100, Long.MAX_VALUE, 60_000));
+        aggregator.add(storage, List.of("a1", "b1"));
+
+        aggregator.removeLimits("hsm");
+
+        assertThat(batches.size(), is(2));
+        assertThat(aggregator.getPending(), is(0));
+    }
+
+    @Test
+    public void shouldRemoveRequestFromPendingBatch() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(2, Long.MAX_VALUE, 60_000));
+        aggregator.add(storage, List.of("a1", "a2", "a3"));
+
+        assertThat(aggregator.remove("a3"), is(true));
+
+        assertThat(batches, contains(List.of("a1", "a2")));
+        assertThat(aggregator.getPending(), is(0));
+    }
+
+    @Test
+    public void shouldNotRemoveSubmittedRequest() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(2, Long.MAX_VALUE, 60_000));
+        aggregator.add(storage, List.of("a1", "a2"));
+
+        assertThat(aggregator.remove("a1"), is(false));
+    }
+
+    @Test
+    public void shouldNotKeepBatchIfExpiryCannotBeScheduled() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(100, Long.MAX_VALUE, 60_000));
+        doThrow(RejectedExecutionException.class).when(scheduler)
+              .schedule(any(Runnable.class), anyLong(), any());
+
+        try {
+            aggregator.add(storage, List.of("a1"));
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        assertThat(aggregator.getPending(), is(0));
+        aggregator.submitAll(null);
+        assertThat(batches, is(empty()));
+    }
+
+    @Test
+    public void shouldRecordBatchSizes() {
+        aggregator.setLimits("hsm", new RequestAggregator.Limits(2, Long.MAX_VALUE, 60_000));
+
+        aggregator.add(storage, List.of("a1", "a2", "b1", "b2"));
+
+        assertThat(aggregator.getBatchSizeHistogram().getMetadata().getCount(), is(2L));
+        assertThat(aggregator.getBatchSizeHistogram().getMetadata().getSum(), is(4.0));
+        assertThat(aggregator.getQueueTimeHistogram().getMetadata().getCount(), is(4L));
+    }
+}
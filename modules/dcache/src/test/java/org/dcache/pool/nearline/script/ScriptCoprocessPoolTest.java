@@ -0,0 +1,185 @@
+package org.dcache.pool.nearline.script;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.InProgressCacheException;
+import diskCacheV111.util.TimeoutCacheException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptCoprocessPoolTest {
+
+    /**
+     * Stand-in for an HSM script. Run with the coprocess argument, it records its process id in
+     * the file given as second argument and answers requests on stdin.
+     */
+    private static final String SCRIPT = String.join("\n",
+          "#!/bin/sh",
+          "echo $$ >> \"$2\"",
+          "while read -r id op pnfsid rest; do",
+          "    case \"$op\" in",
+          "        put) echo \"$id 0 osm://osm/?bfid=$pnfsid\" ;;",
+          "        fail) echo \"$id 30 no%20tape\" ;;",
+          "        retry) echo \"$id 72\" ;;",
+          "        slow) sleep 1; echo \"$id 0\" ;;",
+          "        sleep) sleep 10 ;;",
+          "        exit) exit 1 ;;",
+          "        *) echo \"$id\" ;;",
+          "    esac",
+          "done",
+          "");
+
+    private Path script;
+    private Path pids;
+    private ExecutorService executor;
+    private ScriptCoprocessPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        script = Files.createTempFile("hsm", ".sh",
+              PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Files.writeString(script, SCRIPT);
+        pids = Files.createTempFile("hsm", ".pids");
+        executor = Executors.newCachedThreadPool();
+        pool = new ScriptCoprocessPool("osm",
+              List.of(script.toString(), "coprocess", pids.toString()), 1, executor);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        executor.shutdownNow();
+        Files.deleteIfExists(script);
+        Files.deleteIfExists(pids);
+    }
+
+    @Test
+    public void shouldReturnOutputOfCoprocess() throws Exception {
+        assertThat(pool.execute(new String[]{"put", "0000A", "/pool/data/0000A"}, deadline(5000)),
+              contains("osm://osm/?bfid=0000A"));
+    }
+
+    @Test
+    public void shouldReportReturnCodeOfCoprocess() throws Exception {
+        try {
+            pool.execute(new String[]{"fail", "0000A"}, deadline(5000));
+            fail("Expected CacheException");
+        } catch (CacheException e) {
+            assertThat(e.getRc(), is(30));
+            assertThat(e.getMessage(), is("HSM script failed (script reported: 30: no tape)"));
+        }
+    }
+
+    @Test(expected = InProgressCacheException.class)
+    public void shouldReportRetryRequestOfCoprocess() throws Exception {
+        pool.execute(new String[]{"retry", "0000A"}, deadline(5000));
+    }
+
+    @Test
+    public void shouldRestartCrashedCoprocess() throws Exception {
+        try {
+            pool.execute(new String[]{"exit", "0000A"}, deadline(5000));
+            fail("Expected CacheException");
+        } catch (CacheException expected) {
+        }
+
+        assertThat(pool.execute(new String[]{"put", "0000B", "/pool/data/0000B"}, deadline(5000)),
+              contains("osm://osm/?bfid=0000B"));
+        assertThat(startedCoprocesses().size(), is(2));
+    }
+
+    @Test
+    public void shouldRestartCoprocessViolatingProtocol() throws Exception {
+        try {
+            pool.execute(new String[]{"unknown", "0000A"}, deadline(5000));
+            fail("Expected CacheException");
+        } catch (CacheException expected) {
+        }
+
+        assertThat(pool.execute(new String[]{"put", "0000B", "/pool/data/0000B"}, deadline(5000)),
+              contains("osm://osm/?bfid=0000B"));
+        assertThat(startedCoprocesses().size(), is(2));
+    }
+
+    @Test
+    public void shouldRestartCoprocessAfterTimeout() throws Exception {
+        try {
+            pool.execute(new String[]{"sleep", "0000A"}, deadline(200));
+            fail("Expected TimeoutCacheException");
+        } catch (TimeoutCacheException expected) {
+        }
+
+        assertThat(pool.execute(new String[]{"put", "0000B", "/pool/data/0000B"}, deadline(5000)),
+              contains("osm://osm/?bfid=0000B"));
+        assertThat(startedCoprocesses().size(), is(2));
+    }
+
+    @Test(expected = TimeoutCacheException.class)
+    public void shouldBlockWhileAllCoprocessesAreBusy() throws Exception {
+        Future<?> busy = executor.submit(
+              () -> pool.execute(new String[]{"sleep", "0000A"}, deadline(2000)));
+        try {
+            Thread.sleep(200);
+            pool.execute(new String[]{"put", "0000B", "/pool/data/0000B"}, deadline(200));
+        } finally {
+            busy.cancel(true);
+        }
+    }
+
+    @Test
+    public void shouldEncodeFields() {
+        String field = "path with spaces/100%\tdone";
+
+        assertThat(ScriptCoprocessPool.encode(field), is("path%20with%20spaces/100%25%09done"));
+        assertThat(ScriptCoprocessPool.decode(ScriptCoprocessPool.encode(field)), is(field));
+    }
+
+    @Test
+    public void shouldReuseCoprocessForSubsequentRequests() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            pool.execute(new String[]{"put", "0000A", "/pool/data/0000A"}, deadline(5000));
+        }
+
+        assertThat(startedCoprocesses().size(), is(1));
+    }
+
+    @Test
+    public void shouldStopBusyCoprocessOnShutdown() throws Exception {
+        Future<List<String>> busy = executor.submit(
+              () -> pool.execute(new String[]{"slow", "0000A"}, deadline(5000)));
+        Thread.sleep(200);
+
+        pool.shutdown();
+        busy.get();
+
+        long pid = Long.parseLong(startedCoprocesses().get(0));
+        assertThat(ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false), is(false));
+    }
+
+    @Test(expected = CacheException.class)
+    public void shouldRejectRequestsAfterShutdown() throws Exception {
+        pool.shutdown();
+        pool.execute(new String[]{"put", "0000A", "/pool/data/0000A"}, deadline(5000));
+    }
+
+    private List<String> startedCoprocesses() throws IOException {
+        return Files.readAllLines(pids);
+    }
+
+    private static long deadline(long millis) {
+        return System.currentTimeMillis() + millis;
+    }
+}
@@ -2,6 +2,7 @@ package org.dcache.pool.nearline.script;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasItemInArray;
+import static org.hamcrest.Matchers.not;
 
 import diskCacheV111.vehicles.GenericStorageInfo;
 import diskCacheV111.vehicles.StorageInfo;
@@ -62,6 +63,12 @@ public class ScriptNearlineStorageTest {
               hasItemInArray("-uri=proto://some/sub/dir"));
     }
 
+    @Test
+    public void testGetCoprocessCommand() {
+        assertThat(storage.getCoprocessCommand(), hasItemInArray("coprocess"));
+        assertThat(storage.getCoprocessCommand(), not(hasItemInArray("-c:puts=30")));
+    }
+
     private FileAttributes createFileAttributes() {
         StorageInfo info = new GenericStorageInfo("testHsm", "testStorageClass");
         info.addLocation(URI.create(
@@ -0,0 +1,163 @@
+package org.dcache.pool.repository.meta.db;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Iterables;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.CacheException;
+import diskCacheV111.util.PnfsId;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import diskCacheV111.vehicles.StorageInfos;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import org.dcache.pool.repository.FlatFileStore;
+import org.dcache.pool.repository.ReplicaRecord;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.ReplicaStore.IndexOption;
+import org.dcache.vehicles.FileAttributes;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompactBerkeleyDBMetaDataRepositoryTest {
+
+    private static final PnfsId PNFSID = new PnfsId("000000000000000000000000000000000001");
+
+    private static final Map<String, Object> ENVIRONMENT =
+          Map.of("pool.plugins.meta.db!je.freeDisk", "0");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path poolDir;
+
+    @Before
+    public void setUp() throws IOException {
+        poolDir = folder.getRoot().toPath();
+    }
+
+    @Test
+    public void shouldPersistReplicaAcrossRestart() throws Exception {
+        StorageInfo info = givenStorageInfo();
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            givenReplica(store, info);
+        }
+
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            assertThat(store.index(IndexOption.META_ONLY), equalTo(Set.of(PNFSID)));
+            assertReplica(store.get(PNFSID), info);
+        }
+    }
+
+    @Test
+    public void shouldRemoveReplica() throws Exception {
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            givenReplica(store, givenStorageInfo());
+
+            store.remove(PNFSID);
+
+            assertThat(store.index(IndexOption.META_ONLY).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldMigrateLegacyRecords() throws Exception {
+        StorageInfo info = givenStorageInfo();
+        try (BerkeleyDBMetaDataRepository store = openLegacyStore()) {
+            givenReplica(store, info);
+        }
+
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            assertThat(store.getStateMap().isEmpty(), is(true));
+            assertThat(store.getStorageInfoMap().isEmpty(), is(true));
+            assertThat(store.getAccessTimeInfo().isEmpty(), is(true));
+            assertThat(store.index(IndexOption.META_ONLY), equalTo(Set.of(PNFSID)));
+            assertReplica(store.get(PNFSID), info);
+        }
+    }
+
+    @Test
+    public void shouldDropLegacyRecordsWithoutDataFile() throws Exception {
+        try (BerkeleyDBMetaDataRepository store = openLegacyStore()) {
+            givenReplica(store, givenStorageInfo());
+        }
+        new FlatFileStore(poolDir).remove(PNFSID);
+
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            assertThat(store.getStateMap().isEmpty(), is(true));
+            assertThat(store.index(IndexOption.META_ONLY).isEmpty(), is(true));
+        }
+    }
+
+    @Test
+    public void shouldRefuseToOpenCompactRecordsWithLegacyStore() throws Exception {
+        try (CompactBerkeleyDBMetaDataRepository store = openCompactStore()) {
+            givenReplica(store, givenStorageInfo());
+        }
+
+        try (BerkeleyDBMetaDataRepository store = new BerkeleyDBMetaDataRepository(
+              new FlatFileStore(poolDir), poolDir, "pool")) {
+            store.setEnvironment(ENVIRONMENT);
+            try {
+                store.init();
+                fail("Legacy store opened compact records");
+            } catch (CacheException e) {
+                assertThat(e.getRc(), is(CacheException.PANIC));
+            }
+        }
+    }
+
+    private static StorageInfo givenStorageInfo() {
+        GenericStorageInfo info = new GenericStorageInfo("osm", "exp:raw");
+        info.setLegacySize(0);
+        info.setLegacyAccessLatency(AccessLatency.NEARLINE);
+        info.setLegacyRetentionPolicy(RetentionPolicy.CUSTODIAL);
+        info.setKey("uid", "1000");
+        return info;
+    }
+
+    private static void givenReplica(BerkeleyDBMetaDataRepository store, StorageInfo info)
+          throws CacheException {
+        ReplicaRecord record = store.create(PNFSID, EnumSet.of(StandardOpenOption.CREATE));
+        FileAttributes attributes = StorageInfos.injectInto(info, FileAttributes.of()
+              .pnfsId(PNFSID).build());
+        record.update("test", r -> {
+            r.setFileAttributes(attributes);
+            r.setSticky("owner", -1, true);
+            return r.setState(ReplicaState.PRECIOUS);
+        });
+    }
+
+    private static void assertReplica(ReplicaRecord record, StorageInfo info)
+          throws CacheException {
+        assertThat(record.getState(), is(ReplicaState.PRECIOUS));
+        assertThat(Iterables.getOnlyElement(record.stickyRecords()).owner(), is("owner"));
+        assertThat(StorageInfos.extractFrom(record.getFileAttributes()), equalTo(info));
+    }
+
+    private CompactBerkeleyDBMetaDataRepository openCompactStore() throws Exception {
+        CompactBerkeleyDBMetaDataRepository store = new CompactBerkeleyDBMetaDataRepository(
+              new FlatFileStore(poolDir), poolDir, "pool");
+        store.setEnvironment(ENVIRONMENT);
+        store.init();
+        return store;
+    }
+
+    private BerkeleyDBMetaDataRepository openLegacyStore() throws Exception {
+        BerkeleyDBMetaDataRepository store = new BerkeleyDBMetaDataRepository(
+              new FlatFileStore(poolDir), poolDir, "pool");
+        store.setEnvironment(ENVIRONMENT);
+        store.init();
+        return store;
+    }
+}
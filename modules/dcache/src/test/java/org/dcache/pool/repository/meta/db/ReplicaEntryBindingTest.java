@@ -0,0 +1,99 @@
+package org.dcache.pool.repository.meta.db;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.sleepycat.je.DatabaseEntry;
+import diskCacheV111.util.AccessLatency;
+import diskCacheV111.util.RetentionPolicy;
+import diskCacheV111.vehicles.GenericStorageInfo;
+import diskCacheV111.vehicles.OSMStorageInfo;
+import diskCacheV111.vehicles.StorageInfo;
+import java.net.URI;
+import java.util.List;
+import org.dcache.pool.repository.ReplicaState;
+import org.dcache.pool.repository.StickyRecord;
+import org.junit.Test;
+
+public class ReplicaEntryBindingTest {
+
+    private final ReplicaEntryBinding binding = new ReplicaEntryBinding();
+
+    @Test
+    public void shouldRoundTripEntryWithGenericStorageInfo() {
+        GenericStorageInfo info = new GenericStorageInfo("osm", "exp:raw");
+        info.setCacheClass("cc");
+        info.setLegacySize(42);
+        info.setLegacyAccessLatency(AccessLatency.ONLINE);
+        info.setLegacyRetentionPolicy(RetentionPolicy.REPLICA);
+        info.addLocation(URI.create("osm://osm/?store=exp&group=raw&bfid=1"));
+        info.setKey("uid", "1000");
+        info.isSetHsm(true);
+        info.setIsNew(false);
+
+        ReplicaEntry entry = new ReplicaEntry(ReplicaState.PRECIOUS,
+              List.of(new StickyRecord("foo", 1000), new StickyRecord(-1)),
+              1, 2, 42, info);
+
+        ReplicaEntry copy = roundTrip(entry);
+
+        assertThat(copy.getState(), is(ReplicaState.PRECIOUS));
+        assertThat(copy.getStickyRecords(), equalTo(entry.getStickyRecords()));
+        assertThat(copy.getCreationTime(), is(1L));
+        assertThat(copy.getLastAccessTime(), is(2L));
+        assertThat(copy.getSize(), is(42L));
+        assertThat(copy.getStorageInfo(), instanceOf(GenericStorageInfo.class));
+        assertThat(copy.getStorageInfo(), equalTo(info));
+        assertThat(copy.getStorageInfo().getLegacyAccessLatency(), is(AccessLatency.ONLINE));
+        assertThat(copy.getStorageInfo().getLegacyRetentionPolicy(),
+              is(RetentionPolicy.REPLICA));
+        assertThat(copy.getStorageInfo().getLegacySize(), is(42L));
+        assertThat(copy.getStorageInfo().isSetHsm(), is(true));
+        assertThat(copy.getStorageInfo().isCreatedOnly(), is(false));
+    }
+
+    @Test
+    public void shouldRoundTripEntryWithoutStorageInfo() {
+        ReplicaEntry entry = new ReplicaEntry(ReplicaState.NEW, List.of(), 1, 2, 0, null);
+
+        ReplicaEntry copy = roundTrip(entry);
+
+        assertThat(copy.getState(), is(ReplicaState.NEW));
+        assertThat(copy.getStickyRecords().isEmpty(), is(true));
+        assertThat(copy.getStorageInfo(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSerializeStorageInfoSubclasses() {
+        StorageInfo info = new OSMStorageInfo("exp", "raw");
+
+        ReplicaEntry copy = roundTrip(
+              new ReplicaEntry(ReplicaState.CACHED, List.of(), 1, 2, 3, info));
+
+        assertThat(copy.getStorageInfo(), instanceOf(OSMStorageInfo.class));
+        assertThat(copy.getStorageInfo(), equalTo(info));
+    }
+
+    @Test
+    public void shouldRoundTripAllStates() {
+        for (ReplicaState state : ReplicaState.values()) {
+            ReplicaEntry copy = roundTrip(new ReplicaEntry(state, List.of(), 0, 0, 0, null));
+            assertThat(copy.getState(), is(state));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownVersion() {
+        DatabaseEntry data = new DatabaseEntry(new byte[]{ReplicaEntryBinding.FORMAT_VERSION + 1});
+        binding.entryToObject(data);
+    }
+
+    private ReplicaEntry roundTrip(ReplicaEntry entry) {
+        DatabaseEntry data = new DatabaseEntry();
+        binding.objectToEntry(entry, data);
+        return binding.entryToObject(data);
+    }
+}
@@ -0,0 +1,48 @@
+package org.dcache.pool.statistics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class LiveStatisticsTest {
+
+    private final LiveStatistics statistics = new LiveStatistics();
+
+    @Test
+    public void shouldHaveNoObservationsInitially() {
+        SnapshotStatistics snapshot = statistics.snapshot();
+
+        assertThat(snapshot.requestedBytes().getN(), equalTo(0L));
+        assertThat(snapshot.concurrency().getN(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldAggregateObservationsFromConcurrentThreads() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            long requested = i + 1;
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    statistics.accept(1, requested, requested, System.nanoTime());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        SnapshotStatistics snapshot = statistics.snapshot();
+
+        assertThat(snapshot.requestedBytes().getN(), equalTo(16_000L));
+        assertThat(snapshot.requestedBytes().getMin(), equalTo(1.0));
+        assertThat(snapshot.requestedBytes().getMax(), equalTo(16.0));
+        assertThat(snapshot.requestedBytes().getMean(), closeTo(8.5, 1e-9));
+        assertThat(snapshot.transferredBytes().getSum(), closeTo(136_000, 1e-6));
+        assertThat(snapshot.concurrency().getMax(), equalTo(1.0));
+    }
+}
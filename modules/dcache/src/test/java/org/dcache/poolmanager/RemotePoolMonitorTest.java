@@ -0,0 +1,150 @@
+package org.dcache.poolmanager;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import diskCacheV111.poolManager.CostModule;
+import diskCacheV111.poolManager.CostModuleV1;
+import diskCacheV111.poolManager.PoolMonitorV5;
+import diskCacheV111.poolManager.PoolSelectionUnitV2;
+import diskCacheV111.pools.PoolCostInfo;
+import diskCacheV111.vehicles.PoolManagerGetPoolMonitor;
+import dmg.cells.nucleus.CellAddressCore;
+import dmg.cells.nucleus.CellEndpoint;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.dcache.cells.CellStub;
+import org.dcache.pool.classic.IoQueueManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemotePoolMonitorTest {
+
+    private static final long PERIOD = TimeUnit.MINUTES.toMillis(1);
+
+    private CellStub poolManager;
+    private RemotePoolMonitor monitor;
+
+    /**
+     * Epoch and version with which pool manager answers requests for the complete pool monitor.
+     */
+    private long epoch;
+    private long version;
+
+    @Before
+    public void setUp() {
+        poolManager = mock(CellStub.class);
+        given(poolManager.send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class))).willAnswer(i -> {
+            PoolManagerGetPoolMonitor reply = i.getArgument(0);
+            reply.setPoolMonitor(newPoolMonitor());
+            reply.setVersion(epoch, version);
+            return Futures.immediateFuture(reply);
+        });
+
+        monitor = new RemotePoolMonitor();
+        monitor.setPoolManagerStub(poolManager);
+
+        epoch = 1;
+        version = 5;
+        monitor.afterStart();
+    }
+
+    @Test
+    public void shouldApplyUpdateOfNextVersion() {
+        monitor.messageArrived(update(1, 6, PERIOD, "pool-a"));
+        monitor.messageArrived(update(1, 7, PERIOD, "pool-b"));
+
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-a"), is(notNullValue()));
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-b"), is(notNullValue()));
+        assertThat(monitor.getRefreshCount(), is(3L));
+        verify(poolManager, times(1)).send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class));
+    }
+
+    @Test
+    public void shouldNotModifyCostModuleOfEarlierVersion() {
+        CostModule earlier = monitor.getCostModule();
+
+        monitor.messageArrived(update(1, 6, PERIOD, "pool-a"));
+
+        assertThat(earlier.getPoolCostInfo("pool-a"), is(nullValue()));
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-a"), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldFetchPoolMonitorOnVersionGap() {
+        version = 7;
+
+        monitor.messageArrived(update(1, 7, PERIOD, "pool-a"));
+
+        verify(poolManager, times(2)).send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class));
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-a"), is(nullValue()));
+
+        monitor.messageArrived(update(1, 8, PERIOD, "pool-b"));
+
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-b"), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldIgnoreUpdateOfOlderVersion() {
+        monitor.messageArrived(update(1, 4, PERIOD, "pool-a"));
+        monitor.messageArrived(update(1, 5, PERIOD, "pool-b"));
+
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-a"), is(nullValue()));
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-b"), is(nullValue()));
+        assertThat(monitor.getRefreshCount(), is(1L));
+        verify(poolManager, times(1)).send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class));
+    }
+
+    @Test
+    public void shouldIgnoreOtherEpochWhileOwnEpochIsActive() {
+        monitor.messageArrived(update(2, 1, PERIOD, "pool-a"));
+
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-a"), is(nullValue()));
+        verify(poolManager, times(1)).send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class));
+    }
+
+    @Test
+    public void shouldSwitchEpochOnceOwnEpochIsSilent() throws Exception {
+        epoch = 2;
+        version = 1;
+        Thread.sleep(20);
+
+        monitor.messageArrived(update(2, 1, 5, "pool-a"));
+
+        verify(poolManager, times(2)).send(any(PoolManagerGetPoolMonitor.class),
+              any(CellEndpoint.SendFlag.class));
+
+        monitor.messageArrived(update(2, 2, PERIOD, "pool-b"));
+
+        assertThat(monitor.getCostModule().getPoolCostInfo("pool-b"), is(notNullValue()));
+    }
+
+    private static PoolMonitorV5 newPoolMonitor() {
+        PoolMonitorV5 poolMonitor = new PoolMonitorV5();
+        poolMonitor.setPoolSelectionUnit(new PoolSelectionUnitV2());
+        poolMonitor.setCostModule(new CostModuleV1());
+        poolMonitor.setPartitionManager(new PartitionManager());
+        return poolMonitor;
+    }
+
+    private static PoolMonitorUpdate update(long epoch, long version, long period, String pool) {
+        PoolInfo info = new PoolInfo(new CellAddressCore(pool),
+              new PoolCostInfo(pool, IoQueueManager.DEFAULT_QUEUE), ImmutableMap.of());
+        return new PoolMonitorUpdate(epoch, version, period, null, null,
+              new CostModuleV1.Delta(List.of(info), List.of(), List.of()));
+    }
+}
@@ -0,0 +1,177 @@
+package org.dcache.services.billing.db.impl;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.io.CharStreams;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.data.HitsDaily;
+import org.dcache.services.billing.db.data.IHistogramData;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+public class JdbcBillingDataWriterTest {
+
+    private JDBCDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new JDBCDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:billing");
+        dataSource.setUser("sa");
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE billinginfo (datestamp TIMESTAMP WITH TIME ZONE,"
+                  + " cellname VARCHAR(256), action VARCHAR(256), transaction VARCHAR(256),"
+                  + " pnfsid VARCHAR(36), fullsize BIGINT, transfersize BIGINT,"
+                  + " storageclass VARCHAR(256), isnew BOOLEAN, client VARCHAR(256),"
+                  + " connectiontime BIGINT, errorcode INTEGER, errormessage VARCHAR(8000),"
+                  + " protocol VARCHAR(256), initiator VARCHAR(256), p2p BOOLEAN,"
+                  + " owner VARCHAR(256), mappeduid INTEGER, mappedgid INTEGER,"
+                  + " fqan VARCHAR(256))");
+            statement.execute("CREATE TABLE hitinfo (datestamp TIMESTAMP WITH TIME ZONE,"
+                  + " cellname VARCHAR(256), action VARCHAR(256), transaction VARCHAR(256),"
+                  + " pnfsid VARCHAR(36), filecached BOOLEAN, errorcode INTEGER,"
+                  + " errormessage VARCHAR(8000))");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void shouldWriteSupportedRecordsAndReturnOthers() throws Exception {
+        JdbcBillingDataWriter writer =
+              new JdbcBillingDataWriter(dataSource, JdbcBillingDataWriter.Method.INSERT);
+        MoverData mover = new MoverData();
+        mover.setCellName("pool1");
+        mover.setTransferSize(42L);
+        mover.setMappedUID(1000);
+        PoolHitData hit = new PoolHitData();
+        hit.setCellName("pool2");
+        hit.setFileCached(true);
+        HitsDaily daily = new HitsDaily();
+
+        Collection<IHistogramData> remaining = writer.write(List.of(mover, hit, daily));
+
+        assertThat(remaining, contains(daily));
+        assertThat(query("SELECT cellname, transfersize, mappeduid, mappedgid FROM billinginfo"),
+              contains("pool1,42,1000,null"));
+        assertThat(query("SELECT cellname, filecached FROM hitinfo"),
+              contains("pool2,TRUE"));
+    }
+
+    @Test
+    public void shouldSplitLargeBatchesIntoSeveralStatements() throws Exception {
+        JdbcBillingDataWriter writer =
+              new JdbcBillingDataWriter(dataSource, JdbcBillingDataWriter.Method.INSERT);
+        List<IHistogramData> data = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            MoverData mover = new MoverData();
+            mover.setTransferSize((long) i);
+            data.add(mover);
+        }
+
+        writer.write(data);
+
+        assertThat(query("SELECT COUNT(*), SUM(transfersize) FROM billinginfo"),
+              contains("4000,7998000"));
+    }
+
+    @Test
+    public void shouldFallBackToInsertWhenCopyIsNotSupported() throws Exception {
+        JdbcBillingDataWriter writer =
+              new JdbcBillingDataWriter(dataSource, JdbcBillingDataWriter.Method.COPY);
+
+        writer.write(List.of(new PoolHitData(), new PoolHitData()));
+
+        assertThat(query("SELECT COUNT(*) FROM hitinfo"), contains("2"));
+    }
+
+    @Test
+    public void shouldWriteRecordsWithCopyOnPostgres() throws Exception {
+        List<String> statements = new ArrayList<>();
+        List<String> content = new ArrayList<>();
+        CopyManager copyManager = mock(CopyManager.class);
+        given(copyManager.copyIn(anyString(), any(Reader.class))).willAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            content.add(CharStreams.toString(invocation.<Reader>getArgument(1)));
+            return 1L;
+        });
+        PGConnection pgConnection = mock(PGConnection.class);
+        given(pgConnection.getCopyAPI()).willReturn(copyManager);
+        Connection connection = mock(Connection.class);
+        given(connection.getAutoCommit()).willReturn(true);
+        given(connection.isWrapperFor(PGConnection.class)).willReturn(true);
+        given(connection.unwrap(PGConnection.class)).willReturn(pgConnection);
+        DataSource postgres = mock(DataSource.class);
+        given(postgres.getConnection()).willReturn(connection);
+        JdbcBillingDataWriter writer =
+              new JdbcBillingDataWriter(postgres, JdbcBillingDataWriter.Method.COPY);
+        PoolHitData hit = new PoolHitData();
+        hit.setDateStamp(Date.from(Instant.parse("2026-01-02T03:04:05Z")));
+        hit.setCellName("pool1");
+        hit.setAction("hit");
+        hit.setTransaction(null);
+        hit.setPnfsID("");
+        hit.setFileCached(true);
+        hit.setErrorCode(0);
+        hit.setErrorMessage("say \"hello\", world");
+
+        writer.write(List.of(hit));
+
+        assertThat(statements, contains("COPY hitinfo (datestamp,cellname,action,transaction,"
+              + "pnfsid,filecached,errorcode,errormessage) FROM STDIN WITH (FORMAT csv)"));
+        assertThat(content, contains("2026-01-02T03:04:05Z,\"pool1\",\"hit\",,\"\",true,0,"
+              + "\"say \"\"hello\"\", world\"\n"));
+        verify(connection).commit();
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+              Statement statement = connection.createStatement();
+              ResultSet rs = statement.executeQuery(sql)) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    if (i > 1) {
+                        row.append(',');
+                    }
+                    row.append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+}
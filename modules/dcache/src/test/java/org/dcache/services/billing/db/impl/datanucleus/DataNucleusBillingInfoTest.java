@@ -0,0 +1,53 @@
+package org.dcache.services.billing.db.impl.datanucleus;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.dcache.services.billing.db.data.HitsDaily;
+import org.dcache.services.billing.db.data.MoverData;
+import org.dcache.services.billing.db.data.PoolHitData;
+import org.junit.Test;
+
+public class DataNucleusBillingInfoTest {
+
+    private final MoverData mover = new MoverData();
+    private final PoolHitData hit = new PoolHitData();
+    private final HitsDaily daily = new HitsDaily();
+
+    @Test
+    public void shouldSeparateRecordsWrittenThroughJdbc() {
+        DataNucleusBillingInfo access = givenAccessWithInsertMethod("copy");
+
+        assertEquals(Set.of(List.of(mover, hit), List.of(daily)),
+              Set.copyOf(access.partition(List.of(mover, daily, hit))));
+    }
+
+    @Test
+    public void shouldNotSplitBatchOfJdbcRecords() {
+        DataNucleusBillingInfo access = givenAccessWithInsertMethod("insert");
+
+        assertEquals(List.of(List.of(mover, hit)),
+              List.copyOf(access.partition(List.of(mover, hit))));
+    }
+
+    @Test
+    public void shouldNotSplitBatchWithoutJdbcWriter() {
+        DataNucleusBillingInfo access = givenAccessWithInsertMethod("datanucleus");
+
+        assertEquals(List.of(List.of(mover, daily, hit)),
+              List.copyOf(access.partition(List.of(mover, daily, hit))));
+    }
+
+    private static DataNucleusBillingInfo givenAccessWithInsertMethod(String method) {
+        DataNucleusBillingInfo access = new DataNucleusBillingInfo();
+        access.setDataSource(mock(DataSource.class));
+        access.setInsertMethod(method);
+        access.setMaxQueueSize(1);
+        access.setNumberOfConsumers(0);
+        access.initialize();
+        return access;
+    }
+}
@@ -0,0 +1,174 @@
+package org.dcache.services.billing.text;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import org.dcache.services.billing.text.BillingArchive.Column;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BillingArchiveTest {
+
+    private static final LocalDate DATE = LocalDate.of(2020, 3, 1);
+    private static final long MIDNIGHT = 1583020800000L;
+    private static final long MINUTE = 60_000;
+
+    private static final String PNFSID_1 = "0000B706DD4045F346F2B90F882B706DA807";
+    private static final String PNFSID_2 = "00001B64D8CD19A84B1FA39C01D3DBFD8F31";
+
+    private File file;
+    private BillingArchive archive;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("archive-", "").toFile();
+
+        BillingArchive.Writer writer = new BillingArchive.Writer(DATE);
+        writer.add(MIDNIGHT + 30 * MINUTE, entry("pool-b", PNFSID_2, "transfer", "2000", "0"));
+        writer.add(MIDNIGHT + 10 * MINUTE, entry("pool-a", PNFSID_1, "transfer", "1000", "0"));
+        writer.add(MIDNIGHT + 20 * MINUTE, entry("pool-a", PNFSID_2, "remove", null, "0"));
+        writer.add(MIDNIGHT + 40 * MINUTE, entry("pool-b", PNFSID_1, "transfer", "4000", "10006"));
+        writer.writeTo(file);
+
+        archive = BillingArchive.open(file);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void shouldReadHeader() {
+        assertThat(archive.getDate(), is(DATE));
+        assertThat(archive.size(), is(4));
+        assertThat(archive.getMinTimestamp(), is(MIDNIGHT + 10 * MINUTE));
+        assertThat(archive.getMaxTimestamp(), is(MIDNIGHT + 40 * MINUTE));
+    }
+
+    @Test
+    public void shouldSortEntriesByTimestamp() throws IOException {
+        int[] rows = archive.select(new BillingQuery());
+
+        assertThat(rows.length, is(4));
+        assertThat(archive.getTimestamp(rows[0]), is(MIDNIGHT + 10 * MINUTE));
+        assertThat(archive.get(Column.CELL_NAME, rows[0]), is("pool-a"));
+        assertThat(archive.get(Column.TRANSFERRED, rows[0]), is("1000"));
+        assertThat(archive.get(Column.TRANSFERRED, rows[1]), is(nullValue()));
+        assertThat(archive.get(Column.OWNER, rows[1]), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSelectByPnfsId() throws IOException {
+        int[] rows = archive.select(new BillingQuery().where("pnfsid=" + PNFSID_1));
+
+        assertThat(rows.length, is(2));
+        assertThat(archive.get(Column.CELL_NAME, rows[0]), is("pool-a"));
+        assertThat(archive.get(Column.CELL_NAME, rows[1]), is("pool-b"));
+    }
+
+    @Test
+    public void shouldSelectNothingForUnknownValue() throws IOException {
+        BillingQuery query = new BillingQuery()
+              .where("pnfsid=00000000000000000000000000000000000A");
+
+        int[] rows = archive.select(query);
+
+        assertThat(rows.length, is(0));
+    }
+
+    @Test
+    public void shouldSelectByTimeRange() throws IOException {
+        BillingQuery query = new BillingQuery()
+              .since(Instant.ofEpochMilli(MIDNIGHT + 20 * MINUTE))
+              .until(Instant.ofEpochMilli(MIDNIGHT + 40 * MINUTE));
+
+        int[] rows = archive.select(query);
+
+        assertThat(rows.length, is(2));
+        assertThat(archive.getTimestamp(rows[0]), is(MIDNIGHT + 20 * MINUTE));
+        assertThat(archive.getTimestamp(rows[1]), is(MIDNIGHT + 30 * MINUTE));
+    }
+
+    @Test
+    public void shouldSkipArchiveOutsideTimeRange() throws IOException {
+        BillingQuery query = new BillingQuery()
+              .since(Instant.ofEpochMilli(MIDNIGHT + 41 * MINUTE));
+
+        assertThat(archive.select(query).length, is(0));
+    }
+
+    @Test
+    public void shouldCombinePredicates() throws IOException {
+        BillingQuery query = new BillingQuery()
+              .where("type=transfer")
+              .where("rc!=0");
+
+        int[] rows = archive.select(query);
+
+        assertThat(rows.length, is(1));
+        assertThat(archive.get(Column.PNFSID, rows[0]), is(PNFSID_1));
+        assertThat(archive.get(Column.CELL_NAME, rows[0]), is("pool-b"));
+    }
+
+    @Test
+    public void shouldCompareNumbersNumerically() throws IOException {
+        int[] rows = archive.select(new BillingQuery().where("transferred>1500"));
+
+        assertThat(rows.length, is(2));
+    }
+
+    @Test
+    public void shouldCompareStringsWithValuesMissingFromDictionary() throws IOException {
+        int[] rows = archive.select(new BillingQuery().where("cellName<pool-aa"));
+
+        assertThat(rows.length, is(2));
+    }
+
+    @Test
+    public void shouldAggregateByGroup() throws IOException {
+        BillingQuery query = new BillingQuery()
+              .where("type=transfer")
+              .groupBy(Column.CELL_NAME)
+              .sum(Column.TRANSFERRED);
+        Map<String, long[]> totals = new TreeMap<>();
+
+        archive.aggregate(query, archive.select(query), totals);
+
+        assertThat(totals.size(), is(2));
+        assertThat(totals.get("pool-a"), equalTo(new long[]{1, 1000}));
+        assertThat(totals.get("pool-b"), equalTo(new long[]{2, 6000}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownField() {
+        new BillingQuery().where("colour=blue");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonNumericValueForNumericField() {
+        new BillingQuery().where("filesize=large");
+    }
+
+    private static String[] entry(String pool, String pnfsid, String type, String transferred,
+          String rc) {
+        String[] values = new String[Column.values().length];
+        values[Column.CELL_TYPE.ordinal()] = "pool";
+        values[Column.CELL_NAME.ordinal()] = pool;
+        values[Column.TYPE.ordinal()] = type;
+        values[Column.PNFSID.ordinal()] = pnfsid;
+        values[Column.TRANSFERRED.ordinal()] = transferred;
+        values[Column.RC.ordinal()] = rc;
+        return values;
+    }
+}
@@ -247,6 +247,103 @@ public class CostModuleTest {
         assertPercentileCost(FRACTION_JUST_BELOW_ONE, perfCost[2]);
     }
 
+    @Test
+    public void testFirstDeltaIncludesAllPools() {
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS_2),
+              buildPoolUpMessageWithCost(POOL_NAME_2, 100, 20, 30, 50));
+
+        CostModuleV1.Delta delta = _costModule.delta();
+
+        assertEquals("changed pools", 2, delta.getChanged().size());
+        assertTrue("removed pools", delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void testDeltaWithoutHeartbeatIsEmpty() {
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.delta();
+
+        CostModuleV1.Delta delta = _costModule.delta();
+
+        assertTrue("changed pools", delta.getChanged().isEmpty());
+        assertTrue("refreshed pools", delta.getRefreshed().isEmpty());
+        assertTrue("removed pools", delta.getRemoved().isEmpty());
+    }
+
+    @Test
+    public void testDeltaIncludesPoolAfterHeartbeatByName() {
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS_2),
+              buildPoolUpMessageWithCost(POOL_NAME_2, 100, 20, 30, 50));
+        _costModule.delta();
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+
+        CostModuleV1.Delta delta = _costModule.delta();
+
+        assertTrue("changed pools", delta.getChanged().isEmpty());
+        assertEquals("refreshed pools", Arrays.asList(POOL_NAME), delta.getRefreshed());
+    }
+
+    @Test
+    public void testDeltaIncludesChangedPool() {
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS_2),
+              buildPoolUpMessageWithCost(POOL_NAME_2, 100, 20, 30, 50));
+        _costModule.delta();
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 10, 40, 50));
+
+        CostModuleV1.Delta delta = _costModule.delta();
+
+        assertEquals("changed pools", 1, delta.getChanged().size());
+        assertEquals("changed pool", POOL_NAME, delta.getChanged().get(0).getName());
+        assertTrue("refreshed pools", delta.getRefreshed().isEmpty());
+        assertPoolSpaceInfo("changed pool",
+              delta.getChanged().get(0).getCostInfo().getSpaceInfo(), 100, 10, 50, 40);
+    }
+
+    @Test
+    public void testDeltaIncludesRemovedPool() {
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.delta();
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildEmptyPoolUpMessage(POOL_NAME, PoolV2Mode.DISABLED_STRICT));
+
+        CostModuleV1.Delta delta = _costModule.delta();
+
+        assertTrue("changed pools", delta.getChanged().isEmpty());
+        assertEquals("removed pools", Arrays.asList(POOL_NAME), delta.getRemoved());
+    }
+
+    @Test
+    public void testApplyDeltaToReplica() {
+        CostModuleV1 replica = new CostModuleV1();
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 20, 30, 50));
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS_2),
+              buildPoolUpMessageWithCost(POOL_NAME_2, 100, 20, 30, 50));
+        replica.apply(_costModule.delta());
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS),
+              buildPoolUpMessageWithCost(POOL_NAME, 100, 10, 40, 50));
+        _costModule.messageArrived(buildEnvelope(POOL_ADDRESS_2),
+              buildEmptyPoolUpMessage(POOL_NAME_2, PoolV2Mode.DISABLED_STRICT));
+
+        replica.apply(_costModule.delta());
+
+        assertPoolSpaceInfo("replica", replica.getPoolCostInfo(POOL_NAME).getSpaceInfo(),
+              100, 10, 50, 40);
+        assertEquals("pool address", POOL_ADDRESS,
+              replica.getPoolInfo(POOL_NAME).getAddress());
+        assertNull("removed pool", replica.getPoolCostInfo(POOL_NAME_2));
+    }
+
     /*
      *  SUPPORT METHODS FOR BUILDING MESSAGES AND ASSERTING
      */
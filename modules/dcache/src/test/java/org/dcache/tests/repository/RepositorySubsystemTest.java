@@ -411,6 +411,18 @@ public class RepositorySubsystemTest
         assertSpaceRecord(repoSize, repoSize - 2048 - 1024, 1024, 1024);
     }
 
+    @Test
+    public void testLazyLoad()
+          throws Exception {
+        repository.setLazyLoading(true);
+        repository.init();
+        repository.load();
+        assertCanOpen(id1, size1, PRECIOUS);
+        repository.waitForLoad().get();
+        assertCanOpen(id2, size2, CACHED);
+        assertSpaceRecord(repoSize, repoSize - 2048 - 1024, 1024, 1024);
+    }
+
     @Test
     public void testOpenEntryBeforeLoad()
           throws IOException, CacheException, InterruptedException {
@@ -21,17 +21,26 @@ package org.dcache.gplazma.plugins;
 
 import static org.dcache.gplazma.util.Preconditions.checkAuthentication;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.sun.security.auth.UserPrincipal;
 import com.sun.security.auth.module.LdapLoginModule;
 import java.security.Principal;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import javax.naming.Context;
@@ -39,7 +48,6 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
-import javax.naming.directory.BasicAttributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
@@ -82,6 +90,10 @@ import org.slf4j.LoggerFactory;
  *    gplazma.ldap.root-dir = "%homeDirectory%" evaluates to the users home directory
  *    gplazma.ldap.group-member = "memberUid" or "uniqueMember"
  * </pre>
+ * <p>
+ * The results of directory searches may be cached, with searches that found nothing cached for a
+ * shorter time than those that found entries. Concurrent identical searches share a single
+ * request to the LDAP server. The password check of the auth phase is never cached.
  *
  * @since 2.3
  */
@@ -119,6 +131,12 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
 
     public static final String LDAP_USER_FILTER = "gplazma.ldap.userfilter";
 
+    public static final String LDAP_CACHE_SIZE = "gplazma.ldap.cache.size";
+    public static final String LDAP_CACHE_LIFETIME = "gplazma.ldap.cache.lifetime";
+    public static final String LDAP_CACHE_LIFETIME_UNIT = "gplazma.ldap.cache.lifetime.unit";
+    public static final String LDAP_CACHE_NEGATIVE_LIFETIME = "gplazma.ldap.cache.negative-lifetime";
+    public static final String LDAP_CACHE_NEGATIVE_LIFETIME_UNIT = "gplazma.ldap.cache.negative-lifetime.unit";
+
     /**
      * Search control to retrieve uidNumber attribute.
      */
@@ -140,6 +158,18 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
      */
     private static final SearchControls SC_ALL = buildSearchControls((String[]) null);
 
+    /**
+     * Search control to retrieve the cn attribute of direct children of the search base.
+     */
+    private static final SearchControls SC_CHILD_COMMON_NAME =
+          buildSearchControls(SearchControls.ONELEVEL_SCOPE, COMMON_NAME_ATTRIBUTE);
+
+    /**
+     * Search control to retrieve the uid attribute of direct children of the search base.
+     */
+    private static final SearchControls SC_CHILD_USER_ID =
+          buildSearchControls(SearchControls.ONELEVEL_SCOPE, USER_ID_ATTRIBUTE);
+
     @FunctionalInterface
     /**
      * Represents a function that accepts a template string and ldap attributes
@@ -178,46 +208,40 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
     private static final ReplaceKeywords RETURN_ORIGINAL_STRING = (s, attrs) -> s;
 
     @FunctionalInterface
-    private interface LdapGroupSearch {
+    /**
+     * Searches the directory and returns the attributes of all matching entries.
+     */
+    private interface LdapSearch {
 
-        Set<GidPrincipal> searchGroup(DirContext ctx, Principal p, String peopleOU, String groupOU)
+        List<Attributes> search(String base, String filter, SearchControls controls)
               throws NamingException;
     }
 
+    @FunctionalInterface
+    private interface LdapGroupSearch {
+
+        Set<GidPrincipal> searchGroup(LdapSearch search, Principal p, String peopleOU,
+              String groupOU) throws NamingException;
+    }
+
     /**
      * Use {@code memberUid} attribute to discover group membership.
      */
-    private static final LdapGroupSearch GROUP_BY_MEMBER_UID = (c, p, pou, gou) -> {
-
-        NamingEnumeration<SearchResult> groupResult = c.search(gou,
-              String.format("%s=%s", MEMBER_UID_ATTRIBUTE, p.getName()),
-              SC_GID_NUMBER);
-
-        try {
-            return extractAttributes(groupResult, GID_NUMBER_ATTRIBUTE,
-                  s -> new GidPrincipal(s, false));
-        } finally {
-            groupResult.close();
-        }
-    };
+    private static final LdapGroupSearch GROUP_BY_MEMBER_UID = (search, p, pou, gou) ->
+          extractAttributes(search.search(gou,
+                      String.format("%s=%s", MEMBER_UID_ATTRIBUTE, p.getName()),
+                      SC_GID_NUMBER),
+                GID_NUMBER_ATTRIBUTE, s -> new GidPrincipal(s, false));
 
     /**
      * Use {@code uniqueMember} attribute to discover group membership as defined by RFC2307 and
      * RFC2307bis.
      */
-    private static final LdapGroupSearch GROUP_BY_UNIQUE_MEMBER = (c, p, pou, gou) -> {
-
-        NamingEnumeration<SearchResult> groupResult = c.search(gou,
-              String.format("%s=uid=%s,%s", UNIQUE_MEMBER_ATTRIBUTE, p.getName(), pou),
-              SC_GID_NUMBER);
-
-        try {
-            return extractAttributes(groupResult, GID_NUMBER_ATTRIBUTE,
-                  s -> new GidPrincipal(s, false));
-        } finally {
-            groupResult.close();
-        }
-    };
+    private static final LdapGroupSearch GROUP_BY_UNIQUE_MEMBER = (search, p, pou, gou) ->
+          extractAttributes(search.search(gou,
+                      String.format("%s=uid=%s,%s", UNIQUE_MEMBER_ATTRIBUTE, p.getName(), pou),
+                      SC_GID_NUMBER),
+                GID_NUMBER_ATTRIBUTE, s -> new GidPrincipal(s, false));
 
     @FunctionalInterface
     /**
@@ -226,7 +250,7 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
      */
     private interface OneToOnePrincipalMapper {
 
-        Principal apply(InitialLdapContext ctx, Principal principal) throws NamingException;
+        Principal apply(Principal principal) throws NamingException;
     }
 
     @FunctionalInterface
@@ -236,7 +260,20 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
      */
     private interface OneToManyPrincipalMapper {
 
-        Set<Principal> apply(InitialLdapContext ctx, Principal principal) throws NamingException;
+        Set<Principal> apply(Principal principal) throws NamingException;
+    }
+
+    /**
+     * Key of a cached directory search. Search controls are compared by identity, which is fine
+     * as only the constants defined by this class are used.
+     */
+    private record SearchKey(String base, String filter, SearchControls controls) {
+    }
+
+    /**
+     * Cached result of a directory search.
+     */
+    private record SearchResults(List<Attributes> entries, long loadedAt) {
     }
 
     /**
@@ -299,6 +336,16 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
      */
     private final boolean tryUidMapping;
 
+    /**
+     * Cache of directory search results, or null if caching is disabled.
+     */
+    private final LoadingCache<SearchKey, SearchResults> searchCache;
+
+    /**
+     * Time in milliseconds for which searches that found nothing are cached.
+     */
+    private final long negativeLifetime;
+
     /**
      * Create a Ldap identity plugin.
      *
@@ -362,6 +409,29 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
                   properties.getProperty(LDAP_BINDPW));
         }
 
+        long lifetime = Long.parseLong(properties.getProperty(LDAP_CACHE_LIFETIME, "0"));
+        if (lifetime > 0) {
+            TimeUnit lifetimeUnit = TimeUnit.valueOf(
+                  properties.getProperty(LDAP_CACHE_LIFETIME_UNIT, "SECONDS"));
+            negativeLifetime = TimeUnit.valueOf(
+                        properties.getProperty(LDAP_CACHE_NEGATIVE_LIFETIME_UNIT, "SECONDS"))
+                  .toMillis(Long.parseLong(
+                        properties.getProperty(LDAP_CACHE_NEGATIVE_LIFETIME, "0")));
+            searchCache = CacheBuilder.newBuilder()
+                  .maximumSize(Long.parseLong(properties.getProperty(LDAP_CACHE_SIZE, "10000")))
+                  .expireAfterWrite(lifetime, lifetimeUnit)
+                  .build(new CacheLoader<SearchKey, SearchResults>() {
+                      @Override
+                      public SearchResults load(SearchKey key) throws NamingException {
+                          return new SearchResults(searchDirectory(key),
+                                System.currentTimeMillis());
+                      }
+                  });
+        } else {
+            negativeLifetime = 0;
+            searchCache = null;
+        }
+
         globalLoginOptions = ImmutableMap.of(
               "userProvider", ldapUrl + "/" + peopleOU,
               "useSSL", Boolean.toString(isSSL),
@@ -436,35 +506,31 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
               .map(GidPrincipal.class::cast)
               .anyMatch(GidPrincipal::isPrimaryGroup);
 
-        try (AutoCloseableLdapContext ctx = new AutoCloseableLdapContext()) {
-            NamingEnumeration<SearchResult> sResult = ctx.search(peopleOU,
+        try {
+            List<Attributes> sResult = search(peopleOU,
                   String.format(filter, principal.get().getName()),
                   SC_UID_GID_NUMBER);
 
-            try {
-                checkAuthentication(sResult.hasMore(), "unknown %s",
-                      isUsernameMissing ? "uid" : "username");
+            checkAuthentication(!sResult.isEmpty(), "unknown %s",
+                  isUsernameMissing ? "uid" : "username");
 
-                Attributes userAttr = sResult.next().getAttributes();
+            Attributes userAttr = sResult.get(0);
 
-                Principal usernamePrincipal;
-                if (isUsernameMissing) {
-                    usernamePrincipal = new UserNamePrincipal(
-                          (String) userAttr.get(USER_ID_ATTRIBUTE).get());
-                    principals.add(usernamePrincipal);
-                } else {
-                    usernamePrincipal = principal.get();
-                    principals.add(
-                          new UidPrincipal((String) userAttr.get(UID_NUMBER_ATTRIBUTE).get()));
-                }
-
-                principals.add(new GidPrincipal((String) userAttr.get(GID_NUMBER_ATTRIBUTE).get(),
-                      !hasPrimaryGid));
-                principals.addAll(
-                      getGroupsByUid.searchGroup(ctx, usernamePrincipal, peopleOU, groupOU));
-            } finally {
-                sResult.close();
+            Principal usernamePrincipal;
+            if (isUsernameMissing) {
+                usernamePrincipal = new UserNamePrincipal(
+                      (String) userAttr.get(USER_ID_ATTRIBUTE).get());
+                principals.add(usernamePrincipal);
+            } else {
+                usernamePrincipal = principal.get();
+                principals.add(
+                      new UidPrincipal((String) userAttr.get(UID_NUMBER_ATTRIBUTE).get()));
             }
+
+            principals.add(new GidPrincipal((String) userAttr.get(GID_NUMBER_ATTRIBUTE).get(),
+                  !hasPrimaryGid));
+            principals.addAll(
+                  getGroupsByUid.searchGroup(this::search, usernamePrincipal, peopleOU, groupOU));
         } catch (NamingException e) {
             LOGGER.warn("Failed to get mapping: {}", e.toString());
             throw new AuthenticationException("problem with LDAP server");
@@ -477,34 +543,21 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
         OneToOnePrincipalMapper mapper;
 
         if (principal instanceof UserNamePrincipal) {
-            mapper = (c, p) -> {
-                NamingEnumeration<SearchResult> sre = c.search(peopleOU,
-                      String.format("(%s=%s)", USER_ID_ATTRIBUTE, p.getName()),
-                      SC_UID_NUMBER);
-
-                try {
-                    return new UidPrincipal(extractAttribute(sre, UID_NUMBER_ATTRIBUTE));
-                } finally {
-                    sre.close();
-                }
-            };
+            mapper = p -> new UidPrincipal(extractAttribute(
+                  search(peopleOU, String.format("(%s=%s)", USER_ID_ATTRIBUTE, p.getName()),
+                        SC_UID_NUMBER),
+                  UID_NUMBER_ATTRIBUTE));
         } else if (principal instanceof GroupNamePrincipal) {
-            mapper = (c, p) -> {
-                NamingEnumeration<SearchResult> sre = c.search(groupOU,
-                      String.format("(%s=%s)", COMMON_NAME_ATTRIBUTE, p.getName()),
-                      SC_GID_NUMBER);
-                try {
-                    return new GidPrincipal(extractAttribute(sre, GID_NUMBER_ATTRIBUTE), false);
-                } finally {
-                    sre.close();
-                }
-            };
+            mapper = p -> new GidPrincipal(extractAttribute(
+                  search(groupOU, String.format("(%s=%s)", COMMON_NAME_ATTRIBUTE, p.getName()),
+                        SC_GID_NUMBER),
+                  GID_NUMBER_ATTRIBUTE), false);
         } else {
             throw new NoSuchPrincipalException(principal);
         }
 
-        try (AutoCloseableLdapContext ctx = new AutoCloseableLdapContext()) {
-            return mapper.apply(ctx, principal);
+        try {
+            return mapper.apply(principal);
         } catch (NoSuchElementException e) {
             throw new NoSuchPrincipalException(principal);
         } catch (NamingException e) {
@@ -518,26 +571,21 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
 
         OneToManyPrincipalMapper mapper;
         if (principal instanceof GidPrincipal) {
-            mapper = (c, p) -> {
-                NamingEnumeration<SearchResult> ne = c.search(groupOU,
-                      new BasicAttributes(GID_NUMBER_ATTRIBUTE, p.getName()));
-
-                return extractAttributes(ne, COMMON_NAME_ATTRIBUTE, GroupNamePrincipal::new);
-
-            };
+            mapper = p -> extractAttributes(
+                  search(groupOU, String.format("(%s=%s)", GID_NUMBER_ATTRIBUTE, p.getName()),
+                        SC_CHILD_COMMON_NAME),
+                  COMMON_NAME_ATTRIBUTE, GroupNamePrincipal::new);
         } else if (principal instanceof UidPrincipal) {
-            mapper = (c, p) -> {
-                NamingEnumeration<SearchResult> ne = c.search(peopleOU,
-                      new BasicAttributes(UID_NUMBER_ATTRIBUTE, p.getName()));
-
-                return extractAttributes(ne, USER_ID_ATTRIBUTE, UserNamePrincipal::new);
-            };
+            mapper = p -> extractAttributes(
+                  search(peopleOU, String.format("(%s=%s)", UID_NUMBER_ATTRIBUTE, p.getName()),
+                        SC_CHILD_USER_ID),
+                  USER_ID_ATTRIBUTE, UserNamePrincipal::new);
         } else {
             throw new NoSuchPrincipalException(principal);
         }
 
-        try (AutoCloseableLdapContext ctx = new AutoCloseableLdapContext()) {
-            return mapper.apply(ctx, principal);
+        try {
+            return mapper.apply(principal);
         } catch (NoSuchElementException e) {
             throw new NoSuchPrincipalException(principal);
         } catch (NamingException e) {
@@ -560,24 +608,19 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
                 return;
             }
 
-            try (AutoCloseableLdapContext ctx = new AutoCloseableLdapContext()) {
-                NamingEnumeration<SearchResult> sResult = ctx.search(peopleOU,
+            try {
+                List<Attributes> sResult = search(peopleOU,
                       String.format(userFilter, principal.get().getName()),
                       SC_ALL);
 
-                try {
-                    if (sResult.hasMore()) {
-                        SearchResult rs = sResult.next();
-                        Attributes attrs = rs.getAttributes();
-                        attrib.add(
-                              new HomeDirectory(userHomeTransformation.transform(userHome, attrs)));
-                        attrib.add(
-                              new RootDirectory(userRootTransformation.transform(userRoot, attrs)));
-                    } else {
-                        throw new AuthenticationException("no mapping for " + principal.get());
-                    }
-                } finally {
-                    sResult.close();
+                if (!sResult.isEmpty()) {
+                    Attributes attrs = sResult.get(0);
+                    attrib.add(
+                          new HomeDirectory(userHomeTransformation.transform(userHome, attrs)));
+                    attrib.add(
+                          new RootDirectory(userRootTransformation.transform(userRoot, attrs)));
+                } else {
+                    throw new AuthenticationException("no mapping for " + principal.get());
                 }
             } catch (NamingException e) {
                 throw new AuthenticationException("no mapping: "
@@ -587,12 +630,60 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
     }
 
     private static SearchControls buildSearchControls(String... attr) {
+        return buildSearchControls(SearchControls.SUBTREE_SCOPE, attr);
+    }
+
+    private static SearchControls buildSearchControls(int scope, String... attr) {
         SearchControls constraints = new SearchControls();
-        constraints.setSearchScope(SearchControls.SUBTREE_SCOPE);
+        constraints.setSearchScope(scope);
         constraints.setReturningAttributes(attr);
         return constraints;
     }
 
+    /**
+     * Searches the directory, using cached results if caching is enabled.
+     *
+     * @return the attributes of all matching entries.
+     * @throws NamingException if the search failed.
+     */
+    private List<Attributes> search(String base, String filter, SearchControls controls)
+          throws NamingException {
+        SearchKey key = new SearchKey(base, filter, controls);
+        if (searchCache == null) {
+            return searchDirectory(key);
+        }
+        try {
+            SearchResults results = searchCache.get(key);
+            if (results.entries().isEmpty()
+                  && System.currentTimeMillis() - results.loadedAt() >= negativeLifetime) {
+                searchCache.asMap().remove(key, results);
+                results = searchCache.get(key);
+            }
+            return results.entries();
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            Throwables.throwIfInstanceOf(cause, NamingException.class);
+            Throwables.throwIfUnchecked(cause);
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private List<Attributes> searchDirectory(SearchKey key) throws NamingException {
+        try (AutoCloseableLdapContext ctx = new AutoCloseableLdapContext()) {
+            NamingEnumeration<SearchResult> sre = ctx.search(key.base(), key.filter(),
+                  key.controls());
+            try {
+                ImmutableList.Builder<Attributes> entries = ImmutableList.builder();
+                while (sre.hasMore()) {
+                    entries.add(sre.next().getAttributes());
+                }
+                return entries.build();
+            } finally {
+                sre.close();
+            }
+        }
+    }
+
     /**
      * A {@link InitialLdapContext} which can be used in try-with-resource block.
      */
@@ -612,32 +703,31 @@ public class Ldap implements GPlazmaIdentityPlugin, GPlazmaSessionPlugin, GPlazm
         }
     }
 
-    private static String extractAttribute(NamingEnumeration<SearchResult> sre, String attr)
+    private static String extractAttribute(List<Attributes> entries, String attr)
           throws NamingException {
-        if (!sre.hasMore()) {
+        if (entries.isEmpty()) {
             throw new NoSuchElementException();
         }
 
-        SearchResult rs = sre.next();
-        return (String) rs.getAttributes().get(attr).get();
+        return (String) entries.get(0).get(attr).get();
     }
 
     /**
      * Get set of attributes extracted from the search result.
      *
-     * @param <T>    type of extracted type.
-     * @param sre    ldap search result.
-     * @param attr   search result attribute.
-     * @param mapper mapping function to apply to each result element.
+     * @param <T>     type of extracted type.
+     * @param entries ldap search result.
+     * @param attr    search result attribute.
+     * @param mapper  mapping function to apply to each result element.
      * @return set of attributes.
      * @throws NamingException
      */
-    private static <T> Set<T> extractAttributes(NamingEnumeration<SearchResult> sre, String attr,
+    private static <T> Set<T> extractAttributes(List<Attributes> entries, String attr,
           Function<String, T> mapper) throws NamingException {
 
         Set<T> attrs = new HashSet<>();
-        while (sre.hasMore()) {
-            T v = mapper.apply((String) sre.next().getAttributes().get(attr).get());
+        for (Attributes entry : entries) {
+            T v = mapper.apply((String) entry.get(attr).get());
             attrs.add(v);
         }
 
@@ -22,6 +22,10 @@ package org.dcache.gplazma.plugins;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_AUTH;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_BINDDN;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_BINDPW;
+import static org.dcache.gplazma.plugins.Ldap.LDAP_CACHE_LIFETIME;
+import static org.dcache.gplazma.plugins.Ldap.LDAP_CACHE_LIFETIME_UNIT;
+import static org.dcache.gplazma.plugins.Ldap.LDAP_CACHE_NEGATIVE_LIFETIME;
+import static org.dcache.gplazma.plugins.Ldap.LDAP_CACHE_NEGATIVE_LIFETIME_UNIT;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_GROUP_MEMBER;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_TRY_UID_MAPPING;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_URL;
@@ -29,11 +33,13 @@ import static org.dcache.gplazma.plugins.Ldap.LDAP_USER_FILTER;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_USER_HOME;
 import static org.dcache.gplazma.plugins.Ldap.LDAP_USER_ROOT;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 import com.google.common.collect.Sets;
 import java.io.IOException;
@@ -83,6 +89,7 @@ public class LdapTest {
     private static final GidPrincipal NON_EXISTING_GID_PRINCIPAL = new GidPrincipal(111, true);
 
     private EmbeddedServer ldapServer;
+    private Properties properties;
     private Ldap plugin;
 
     @Before
@@ -93,7 +100,7 @@ public class LdapTest {
         ldapServer = new EmbeddedServer(0, initLdiff);
         ldapServer.start();
 
-        Properties properties = new Properties();
+        properties = new Properties();
         properties.put(LDAP_URL, "ldap://localhost:" + ldapServer.getSocketAddress().getPort());
         properties.put("gplazma.ldap.dn.users-search-base", "ou=people,o=dcache,c=org");
         properties.put("gplazma.ldap.dn.groups-search-base", "ou=group,o=dcache,c=org");
@@ -255,8 +262,80 @@ public class LdapTest {
         assertFalse("Thread leak detected", threadsAfter.size() > threadsBefore.size() + 4);
     }
 
+    @Test
+    public void shouldMapFromCacheWhenServerIsDown() throws AuthenticationException {
+        Ldap cachingPlugin = givenCachingPlugin(30);
+        cachingPlugin.map(Sets.newHashSet(KERMIT_PRINCIPAL));
+
+        stopServer();
+        Set<Principal> principals = Sets.newHashSet(KERMIT_PRINCIPAL);
+        cachingPlugin.map(principals);
+
+        assertThat("unexpected number of returned principals", principals, hasSize(4));
+        assertThat("expected UID not found", principals, hasItem(KERMIT_UID_PRINCIPAL));
+        assertThat("expected GID not found", principals, hasItem(KERMIT_PRIMARY_GID_PRINCIPAL));
+        assertThat("expected GID not found", principals, hasItem(ACTOR_GID_PRINCIPAL));
+    }
+
+    @Test
+    public void shouldProvideSessionFromCacheWhenServerIsDown() throws AuthenticationException {
+        Ldap cachingPlugin = givenCachingPlugin(30);
+        cachingPlugin.session(Sets.newHashSet(BERND_PRINCIPAL), new HashSet<>());
+
+        stopServer();
+        Set<Object> attrs = new HashSet<>();
+        cachingPlugin.session(Sets.newHashSet(BERND_PRINCIPAL), attrs);
+
+        assertThat("expected HOME attribute not found", attrs, hasItem(BERND_HOME_DIRECTORY));
+        assertThat("expected ROOT attribute not found", attrs, hasItem(BERND_ROOT_DIRECTORY));
+    }
+
+    @Test
+    public void shouldCacheUnknownUser() throws AuthenticationException {
+        Ldap cachingPlugin = givenCachingPlugin(30);
+        assertMapFails(cachingPlugin, "unknown username");
+
+        stopServer();
+
+        assertMapFails(cachingPlugin, "unknown username");
+    }
+
+    @Test
+    public void shouldExpireUnknownUser() throws AuthenticationException {
+        Ldap cachingPlugin = givenCachingPlugin(0);
+        assertMapFails(cachingPlugin, "unknown username");
+
+        stopServer();
+
+        assertMapFails(cachingPlugin, "problem with LDAP server");
+    }
+
+    private Ldap givenCachingPlugin(int negativeLifetimeInSeconds) {
+        properties.put(LDAP_CACHE_LIFETIME, "5");
+        properties.put(LDAP_CACHE_LIFETIME_UNIT, "MINUTES");
+        properties.put(LDAP_CACHE_NEGATIVE_LIFETIME, String.valueOf(negativeLifetimeInSeconds));
+        properties.put(LDAP_CACHE_NEGATIVE_LIFETIME_UNIT, "SECONDS");
+        return new Ldap(properties);
+    }
+
+    private static void assertMapFails(Ldap plugin, String message) {
+        try {
+            plugin.map(Sets.newHashSet(NON_EXISTING_PRINCIPAL));
+            fail("mapping of unknown user succeeded");
+        } catch (AuthenticationException e) {
+            assertThat(e.getMessage(), containsString(message));
+        }
+    }
+
+    private void stopServer() {
+        ldapServer.stop();
+        ldapServer = null;
+    }
+
     @After
     public void tearDown() {
-        ldapServer.stop();
+        if (ldapServer != null) {
+            ldapServer.stop();
+        }
     }
 }
@@ -19,34 +19,57 @@ package org.dcache.gplazma.oidc.jwt;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.http.client.HttpClient;
 import org.dcache.gplazma.AuthenticationException;
 import org.dcache.gplazma.oidc.ExtractResult;
 import org.dcache.gplazma.oidc.IdentityProvider;
 import org.dcache.gplazma.oidc.TokenProcessor;
 import org.dcache.gplazma.oidc.UnableToProcess;
+import org.dcache.gplazma.oidc.jwt.VerifiedTokenCache.VerifiedToken;
 import org.dcache.gplazma.util.JsonWebToken;
 
+import static org.dcache.gplazma.oidc.PropertiesUtils.asDuration;
 import static org.dcache.gplazma.oidc.PropertiesUtils.asIntOrDefault;
 import static org.dcache.gplazma.util.Preconditions.checkAuthentication;
 
 /**
- * This class implements the offline verification of JWTs.
+ * This class implements the offline verification of JWTs.  Successfully verified tokens are
+ * cached until they expire, unless replay protection is enabled: a cached token would not be
+ * checked against the token history.
  */
 public class OfflineJwtVerification implements TokenProcessor {
 
+    private static final String TOKEN_HISTORY = "gplazma.oidc.token-history";
+    private static final String VERIFIED_TOKEN_CACHE_SIZE = "gplazma.oidc.verified-token-cache.size";
+    private static final String VERIFIED_TOKEN_CACHE_LIFETIME = "gplazma.oidc.verified-token-cache.lifetime";
+    private static final int DEFAULT_VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+    private static final Duration DEFAULT_VERIFIED_TOKEN_CACHE_LIFETIME = Duration.ofMinutes(10);
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
     private final Map<String, Issuer> issuersByEndpoint;
 
+    @Nullable
+    private final VerifiedTokenCache verifiedTokens;
+
     public OfflineJwtVerification(Properties properties, HttpClient client,
             Set<IdentityProvider> providers) {
-        this(properties, asIntOrDefault(properties, "gplazma.oidc.token-history", 0), client, providers);
+        this(properties, asIntOrDefault(properties, TOKEN_HISTORY, 0), client, providers);
+        if (verifiedTokens != null) {
+            verifiedTokens.register("org.dcache.gplazma.oidc:type=VerifiedTokenCache,name=offline-"
+                  + INSTANCES.incrementAndGet());
+        }
     }
 
     private OfflineJwtVerification(Properties properties, int history, HttpClient client,
@@ -58,7 +81,38 @@ public class OfflineJwtVerification implements TokenProcessor {
 
     @VisibleForTesting
     OfflineJwtVerification(Properties properties, Collection<Issuer> issuers) {
+        this(properties, issuers, Clock.systemUTC());
+    }
+
+    @VisibleForTesting
+    OfflineJwtVerification(Properties properties, Collection<Issuer> issuers, Clock clock) {
         issuersByEndpoint = issuers.stream().collect(Collectors.toMap(Issuer::getEndpoint, i -> i));
+        verifiedTokens = buildVerifiedTokenCache(properties, clock);
+    }
+
+    @Nullable
+    private static VerifiedTokenCache buildVerifiedTokenCache(Properties properties, Clock clock) {
+        if (asIntOrDefault(properties, TOKEN_HISTORY, 0) > 0) {
+            return null;
+        }
+
+        int size = asIntOrDefault(properties, VERIFIED_TOKEN_CACHE_SIZE,
+              DEFAULT_VERIFIED_TOKEN_CACHE_SIZE);
+        Duration lifetime = properties.getProperty(VERIFIED_TOKEN_CACHE_LIFETIME) == null
+              ? DEFAULT_VERIFIED_TOKEN_CACHE_LIFETIME
+              : asDuration(properties, VERIFIED_TOKEN_CACHE_LIFETIME);
+        if (size <= 0 || lifetime.isZero()) {
+            return null;
+        }
+
+        return new VerifiedTokenCache(size, lifetime, clock);
+    }
+
+    @Override
+    public void shutdown() {
+        if (verifiedTokens != null) {
+            verifiedTokens.unregister();
+        }
     }
 
     @Override
@@ -67,16 +121,26 @@ public class OfflineJwtVerification implements TokenProcessor {
             throw new UnableToProcess("token not JWT");
         }
 
+        VerifiedToken verified = verifiedTokens == null
+              ? verify(token)
+              : verifiedTokens.get(token, () -> verify(token));
+
+        var issuer = verified.issuer();
+        if (issuer.isOfflineSuppressed()) {
+            throw new UnableToProcess("offline suppressed");
+        }
+
+        return new ExtractResult(issuer.getIdentityProvider(), verified.claims());
+    }
+
+    private VerifiedToken verify(String token) throws AuthenticationException, UnableToProcess {
         try {
             var jwt = checkValid(new JsonWebToken(token));
 
             var issuer = issuerOf(jwt);
 
-            if (issuer.isOfflineSuppressed()) {
-                throw new UnableToProcess("offline suppressed");
-            }
-
-            return new ExtractResult(issuer.getIdentityProvider(), jwt.getPayloadMap());
+            return new VerifiedToken(issuer, jwt.getPayloadMap(),
+                  jwt.getPayloadInstant("exp").orElse(null));
         } catch (IOException e) {
             throw new UnableToProcess(e.getMessage());
         }
@@ -0,0 +1,214 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.oidc.jwt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import org.dcache.gplazma.AuthenticationException;
+import org.dcache.gplazma.oidc.UnableToProcess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cache of JWTs that have been successfully verified.  Verifying a JWT's signature is
+ * expensive, while clients typically present the same token many times during its lifetime.
+ * This cache remembers the outcome of a successful verification until the token expires, so
+ * that subsequent logins with the same token avoid the signature check.
+ * <p>
+ * Tokens are identified by their SHA-256 hash, so the cache does not hold the bearer tokens
+ * themselves.  Concurrent lookups for the same token that is not yet cached result in a single
+ * verification.  Failed verifications are not cached.
+ */
+public class VerifiedTokenCache implements VerifiedTokenCacheMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    /**
+     * The outcome of successfully verifying a JWT.
+     *
+     * @param issuer the issuer that signed the token
+     * @param claims the token's payload
+     * @param expiry when the token expires, or null if it does not expire
+     */
+    public record VerifiedToken(Issuer issuer, Map<String, JsonNode> claims,
+          @Nullable Instant expiry) {
+    }
+
+    /**
+     * Verifies a JWT that is not in the cache.
+     */
+    @FunctionalInterface
+    public interface Verifier {
+
+        VerifiedToken verify() throws AuthenticationException, UnableToProcess;
+    }
+
+    private final Cache<HashCode, VerifiedToken> cache;
+    private final Clock clock;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationTime = new LongAdder();
+    private final LongAccumulator maxVerificationTime = new LongAccumulator(Math::max, 0);
+
+    private ObjectName name;
+
+    /**
+     * @param size the maximum number of verified tokens to cache
+     * @param lifetime the maximum duration a verified token is cached, even if it expires later
+     * @param clock the clock used to determine whether a cached token has expired
+     */
+    public VerifiedTokenCache(int size, Duration lifetime, Clock clock) {
+        this.clock = requireNonNull(clock);
+        cache = CacheBuilder.newBuilder()
+              .maximumSize(size)
+              .expireAfterWrite(lifetime.toMillis(), TimeUnit.MILLISECONDS)
+              .build();
+    }
+
+    /**
+     * Returns the cached outcome of verifying the token, verifying the token if it is not
+     * cached or the cached verification has expired.
+     */
+    public VerifiedToken get(String token, Verifier verifier)
+          throws AuthenticationException, UnableToProcess {
+        requests.increment();
+
+        HashCode key = Hashing.sha256().hashString(token, US_ASCII);
+        try {
+            VerifiedToken verified = cache.get(key, () -> verify(verifier));
+            if (verified.expiry() != null && !clock.instant().isBefore(verified.expiry())) {
+                cache.asMap().remove(key, verified);
+                verified = cache.get(key, () -> verify(verifier));
+            }
+            return verified;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Throwables.throwIfInstanceOf(cause, AuthenticationException.class);
+            Throwables.throwIfInstanceOf(cause, UnableToProcess.class);
+            throw new RuntimeException("Unexpected exception", cause);
+        } catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    private VerifiedToken verify(Verifier verifier)
+          throws AuthenticationException, UnableToProcess {
+        verifications.increment();
+        long start = System.nanoTime();
+        try {
+            return verifier.verify();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            verificationTime.add(elapsed);
+            maxVerificationTime.accumulate(elapsed);
+        }
+    }
+
+    /**
+     * Registers this cache with the platform MBean server.
+     */
+    public void register(String mxName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName mxBeanName = new ObjectName(mxName);
+            if (!server.isRegistered(mxBeanName)) {
+                server.registerMBean(this, mxBeanName);
+                name = mxBeanName;
+            }
+        } catch (MalformedObjectNameException ex) {
+            LOGGER.warn("Failed to create a MXBean with name: {} : {}", mxName, ex.toString());
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException ex) {
+            LOGGER.warn("Failed to register a MXBean: {}", ex.toString());
+        } catch (NotCompliantMBeanException ex) {
+            LOGGER.warn("Failed to create a MXBean: {}", ex.toString());
+        }
+    }
+
+    /**
+     * Removes this cache from the platform MBean server, if it was registered.
+     */
+    public void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (InstanceNotFoundException | MBeanRegistrationException ex) {
+                LOGGER.warn("Failed to unregister a MXBean: {}", ex.toString());
+            }
+            name = null;
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return Math.max(requests.sum() - verifications.sum(), 0);
+    }
+
+    @Override
+    public long getMissCount() {
+        return verifications.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long total = requests.sum();
+        return total == 0 ? 1.0 : (double) getHitCount() / total;
+    }
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public double getAverageVerificationTime() {
+        long count = verifications.sum();
+        return count == 0 ? 0 : verificationTime.sum() / 1000.0 / count;
+    }
+
+    @Override
+    public long getMaxVerificationTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxVerificationTime.get());
+    }
+}
@@ -0,0 +1,56 @@
+/* dCache - http://www.dcache.org/
+ *
+ * Copyright (C) 2026 Deutsches Elektronen-Synchrotron
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.dcache.gplazma.oidc.jwt;
+
+/**
+ * JMX view of the cache of successfully verified JWTs.
+ */
+public interface VerifiedTokenCacheMXBean {
+
+    /**
+     * The number of lookups that were answered without verifying the token.
+     */
+    long getHitCount();
+
+    /**
+     * The number of lookups that required the token to be verified, whether successfully or
+     * not.
+     */
+    long getMissCount();
+
+    /**
+     * The fraction of lookups answered without verifying the token, or 1 if there were no
+     * lookups.
+     */
+    double getHitRate();
+
+    /**
+     * The approximate number of verified tokens currently cached.
+     */
+    long getSize();
+
+    /**
+     * The mean time, in microseconds, that a verification took.
+     */
+    double getAverageVerificationTime();
+
+    /**
+     * The longest time, in microseconds, that a verification took.
+     */
+    long getMaxVerificationTime();
+}
@@ -20,6 +20,7 @@ package org.dcache.gplazma.oidc.jwt;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -39,7 +40,10 @@ import static java.time.temporal.ChronoUnit.MINUTES;
 import static org.dcache.gplazma.oidc.MockIdentityProviderBuilder.anIp;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class OfflineJwtVerificationTest {
 
@@ -236,6 +240,123 @@ public class OfflineJwtVerificationTest {
         verification.extract(jwt);
     }
 
+    @Test
+    public void shouldVerifyRepeatedTokenOnce() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("exp", Instant.now().plus(5, MINUTES))
+            .withPayloadClaim("sub", "paul"));
+
+        verification.extract(jwt);
+        ExtractResult result = verification.extract(jwt);
+
+        verify(issuer.build(), times(1)).checkIssued(any());
+        assertThat(result.idp(), is(sameInstance(identityProvider)));
+        assertThat(result.claims(), hasEntry("sub", jsonString("paul")));
+    }
+
+    @Test
+    public void shouldVerifyCachedTokenAgainOnceExpired() throws Exception {
+        Clock clock = mock(Clock.class);
+        BDDMockito.given(clock.instant()).willReturn(Instant.now());
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withIssuer(issuer)
+            .withClock(clock));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("exp", Instant.now().plus(5, MINUTES))
+            .withPayloadClaim("sub", "paul"));
+        verification.extract(jwt);
+
+        BDDMockito.given(clock.instant()).willReturn(Instant.now().plus(10, MINUTES));
+        verification.extract(jwt);
+
+        verify(issuer.build(), times(2)).checkIssued(any());
+    }
+
+    @Test
+    public void shouldNotCacheFailedVerification() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        BDDMockito.willThrow(new AuthenticationException("token not signed by issuer"))
+            .willDoNothing().given(issuer.build()).checkIssued(any());
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+        try {
+            verification.extract(jwt);
+        } catch (AuthenticationException expected) {
+        }
+
+        ExtractResult result = verification.extract(jwt);
+
+        verify(issuer.build(), times(2)).checkIssued(any());
+        assertThat(result.claims(), hasEntry("sub", jsonString("paul")));
+    }
+
+    @Test
+    public void shouldVerifyRepeatedTokenEveryTimeWithTokenHistory() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withProperty("gplazma.oidc.token-history", "10")
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+
+        verification.extract(jwt);
+        verification.extract(jwt);
+
+        verify(issuer.build(), times(2)).checkIssued(any());
+    }
+
+    @Test
+    public void shouldVerifyRepeatedTokenEveryTimeWithoutCache() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withProperty("gplazma.oidc.verified-token-cache.size", "0")
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+
+        verification.extract(jwt);
+        verification.extract(jwt);
+
+        verify(issuer.build(), times(2)).checkIssued(any());
+    }
+
+    @Test(expected=UnableToProcess.class)
+    public void shouldNotProcessCachedTokenOnceOfflineSuppressed() throws Exception {
+        given(anIp("EXAMPLE").withEndpoint("https://oidc.example.org/"));
+        MockIssuerBuilder issuer = anIssuer().withIp(identityProvider);
+        given(anOfflineJwtVerification()
+            .withEmptyAudienceTargetProperty()
+            .withIssuer(issuer));
+        given(aJwt()
+            .withPayloadClaim("iss", "https://oidc.example.org/")
+            .withPayloadClaim("sub", "paul"));
+        verification.extract(jwt);
+
+        issuer.withOfflineSuppressed();
+        verification.extract(jwt);
+    }
+
     private JsonNode jsonString(String json) throws JsonProcessingException {
         return mapper.readTree("\"" + json + "\"");
     }
@@ -301,6 +422,7 @@ public class OfflineJwtVerificationTest {
     private static class OfflineJwtVerificationBuilder {
         private final Properties properties = new Properties();
         private final List<Issuer> issuers = new ArrayList<>();
+        private Clock clock = Clock.systemUTC();
 
         public OfflineJwtVerificationBuilder withAudienceTargetProperty(String value) {
             properties.setProperty("gplazma.oidc.audience-targets", value);
@@ -312,13 +434,23 @@ public class OfflineJwtVerificationTest {
             return this;
         }
 
+        public OfflineJwtVerificationBuilder withProperty(String key, String value) {
+            properties.setProperty(key, value);
+            return this;
+        }
+
+        public OfflineJwtVerificationBuilder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
         public OfflineJwtVerificationBuilder withIssuer(MockIssuerBuilder builder) {
             issuers.add(builder.build());
             return this;
         }
 
         public OfflineJwtVerification build() {
-            return new OfflineJwtVerification(properties, issuers);
+            return new OfflineJwtVerification(properties, issuers, clock);
         }
     }
 }
\ No newline at end of file
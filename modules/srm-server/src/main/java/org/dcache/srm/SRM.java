@@ -78,6 +78,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 import dmg.cells.nucleus.CellLifeCycleAware;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.ArrayList;
@@ -360,6 +362,12 @@ public class SRM implements CellLifeCycleAware {
         return schedulers.getDetailedInfo(LsFileRequest.class);
     }
 
+    public CharSequence getPersistenceInfo() {
+        StringWriter sw = new StringWriter();
+        databaseFactory.getInfo(new PrintWriter(sw));
+        return sw.getBuffer();
+    }
+
     public CharSequence getPutSchedulerInfo() {
         return schedulers.getDetailedInfo(PutFileRequest.class);
     }
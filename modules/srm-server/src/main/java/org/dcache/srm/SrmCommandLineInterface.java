@@ -579,6 +579,19 @@ public class SrmCommandLineInterface
         return sb.toString();
     }
 
+    @Command(name = "ls persistence", hint = "show request persistence statistics",
+          description = "Show statistics about the write-behind of request state changes to "
+                + "the database: the number of requests waiting to be written, the number of "
+                + "saves requested and actually written, the resulting coalescing ratio, and "
+                + "the latency of writing a batch of requests.")
+    class ListPersistenceCommand implements Callable<String> {
+
+        @Override
+        public String call() {
+            return srm.getPersistenceInfo().toString();
+        }
+    }
+
     public static final String fh_set_max_ready_put = " Syntax: set max ready put <count>" +
           " #will set a maximum number of put requests in the ready state";
     public static final String hh_set_max_ready_put = " <count>";
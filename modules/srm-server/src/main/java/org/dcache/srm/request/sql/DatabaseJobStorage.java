@@ -66,15 +66,22 @@ COPYRIGHT STATUS:
 
 package org.dcache.srm.request.sql;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -259,6 +266,131 @@ public abstract class DatabaseJobStorage<J extends Job> implements JobStorage<J>
         markHistoryAsSaved(savedHistory);
     }
 
+    /**
+     * Saves several jobs in a single transaction. The updates of all jobs sharing the same update
+     * query are submitted as a single JDBC batch; jobs not yet in the database are inserted
+     * individually afterwards.
+     */
+    @Override
+    public void saveJobs(Collection<J> jobs) throws TransactionException {
+        List<Job.JobHistory> savedHistory =
+              transactionTemplate.execute(status -> jdbcTemplate.execute((Connection con) -> {
+                  Map<Job, List<Job.JobHistory>> histories = new LinkedHashMap<>();
+                  Map<String, PreparedStatement> updateStatements = new LinkedHashMap<>();
+                  ListMultimap<PreparedStatement, Job> batches = ArrayListMultimap.create();
+                  Connection sharingConnection = sharingStatements(con, updateStatements);
+                  try {
+                      for (Job job : jobs) {
+                          List<Job.JobHistory> history;
+                          job.rlock();
+                          try {
+                              history = getJobHistoriesToSave(job);
+                              PreparedStatement updateStatement =
+                                    getUpdateStatement(sharingConnection, job);
+                              updateStatement.addBatch();
+                              batches.put(updateStatement, job);
+                          } finally {
+                              job.runlock();
+                          }
+                          if (!history.isEmpty()) {
+                              histories.put(job, history);
+                          }
+                      }
+
+                      for (PreparedStatement updateStatement : updateStatements.values()) {
+                          int[] rowCounts = updateStatement.executeBatch();
+                          List<Job> batch = batches.get(updateStatement);
+                          for (int i = 0; i < rowCounts.length; i++) {
+                              if (rowCounts[i] == 0) {
+                                  createJob(con, batch.get(i));
+                              } else if (rowCounts[i] == Statement.SUCCESS_NO_INFO) {
+                                  updateOrCreateJob(con, batch.get(i));
+                              }
+                          }
+                      }
+
+                      for (Map.Entry<Job, List<Job.JobHistory>> e : histories.entrySet()) {
+                          saveHistory(con, e.getKey(), e.getValue());
+                      }
+                  } finally {
+                      updateStatements.values().forEach(SqlHelper::tryToClose);
+                  }
+                  return histories.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+              }));
+        markHistoryAsSaved(savedHistory);
+    }
+
+    /**
+     * Updates a job individually, creating it if it does not exist. Used for jobs for which the
+     * driver did not report whether the batch update found them.
+     */
+    private void updateOrCreateJob(Connection con, Job job) throws SQLException {
+        PreparedStatement updateStatement;
+        job.rlock();
+        try {
+            updateStatement = getUpdateStatement(con, job);
+        } finally {
+            job.runlock();
+        }
+        try {
+            if (updateStatement.executeUpdate() == 0) {
+                createJob(con, job);
+            }
+        } finally {
+            SqlHelper.tryToClose(updateStatement);
+        }
+    }
+
+    private void createJob(Connection con, Job job) throws SQLException {
+        PreparedStatement createStatement = null;
+        PreparedStatement batchCreateStatement = null;
+        try {
+            job.rlock();
+            try {
+                createStatement = getCreateStatement(con, job);
+                batchCreateStatement = getBatchCreateStatement(con, job);
+            } finally {
+                job.runlock();
+            }
+            createStatement.executeUpdate();
+            if (batchCreateStatement != null) {
+                batchCreateStatement.executeBatch();
+            }
+        } finally {
+            SqlHelper.tryToClose(createStatement);
+            SqlHelper.tryToClose(batchCreateStatement);
+        }
+    }
+
+    /**
+     * Returns a view of the connection that prepares a query only once, returning the same
+     * statement for subsequent requests. This allows the statements of several jobs to be
+     * collected into a single batch without changing how subclasses build their statements.
+     */
+    static Connection sharingStatements(Connection connection,
+          Map<String, PreparedStatement> statements) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+              new Class<?>[]{Connection.class},
+              (proxy, method, args) -> {
+                  if (method.getName().equals("prepareStatement") && args.length == 1) {
+                      String sql = (String) args[0];
+                      PreparedStatement statement = statements.get(sql);
+                      if (statement == null) {
+                          statement = connection.prepareStatement(sql);
+                          statements.put(sql, statement);
+                      }
+                      return statement;
+                  }
+                  try {
+                      return method.invoke(connection, args);
+                  } catch (InvocationTargetException e) {
+                      throw e.getCause();
+                  }
+              });
+    }
+
     protected PreparedStatement getBatchCreateStatement(Connection connection, Job job)
           throws SQLException {
         return null;
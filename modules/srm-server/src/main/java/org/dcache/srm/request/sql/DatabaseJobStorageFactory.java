@@ -5,6 +5,7 @@ import static java.util.Objects.requireNonNull;
 import com.google.common.base.Throwables;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,6 +41,7 @@ import org.dcache.srm.scheduler.JobStorageFactory;
 import org.dcache.srm.scheduler.NoopJobStorage;
 import org.dcache.srm.scheduler.SchedulerContainer;
 import org.dcache.srm.scheduler.SharedMemoryCacheJobStorage;
+import org.dcache.srm.scheduler.WriteBehindJobStorage;
 import org.dcache.srm.util.Configuration;
 import org.dcache.srm.util.Configuration.DatabaseParameters;
 import org.springframework.dao.DataAccessException;
@@ -53,8 +55,13 @@ public class DatabaseJobStorageFactory extends JobStorageFactory {
           Collections.unmodifiableMap(jobStorageMap);
     private final Map<Class<? extends Job>, DatabaseParameters> configurations =
           new HashMap<>();
+    private final Map<Class<? extends Job>, WriteBehindJobStorage<?>> writeBehindStorages =
+          new LinkedHashMap<>();
     private final ExecutorService executor;
     private final ScheduledExecutorService scheduledExecutor;
+    private final ScheduledExecutorService flushExecutor;
+    private final long writeBehindWindow;
+    private final int writeBehindBatchSize;
 
     private <J extends Job> void add(DatabaseParameters config, Class<J> entityClass,
           Supplier<JobStorage<J>> storageFactory)
@@ -67,7 +74,15 @@ public class DatabaseJobStorageFactory extends JobStorageFactory {
         JobStorage<J> js;
         if (config.isDatabaseEnabled()) {
             js = storageFactory.get();
-            js = new AsynchronousSaveJobStorage<>(js, executor);
+            if (flushExecutor != null) {
+                WriteBehindJobStorage<J> writeBehind = new WriteBehindJobStorage<>(js,
+                      flushExecutor, writeBehindWindow, TimeUnit.MILLISECONDS,
+                      writeBehindBatchSize);
+                writeBehindStorages.put(entityClass, writeBehind);
+                js = writeBehind;
+            } else {
+                js = new AsynchronousSaveJobStorage<>(js, executor);
+            }
             if (config.getStoreCompletedRequestsOnly()) {
                 js = new ForceOnlyJobStorageDecorator<>(js);
             }
@@ -93,6 +108,12 @@ public class DatabaseJobStorageFactory extends JobStorageFactory {
         scheduledExecutor =
               Executors.newSingleThreadScheduledExecutor(
                     new ThreadFactoryBuilder().setNameFormat("srm-db-gc-%d").build());
+        writeBehindWindow = config.getJdbcWriteBehindWindow();
+        writeBehindBatchSize = config.getJdbcWriteBehindBatchSize();
+        flushExecutor = writeBehindWindow > 0
+              ? Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setNameFormat("srm-db-flush-%d").build())
+              : null;
         try {
             add(config.getDatabaseParametersForBringOnline(),
                   BringOnlineFileRequest.class,
@@ -170,12 +191,32 @@ public class DatabaseJobStorageFactory extends JobStorageFactory {
     public void shutdown() {
         scheduledExecutor.shutdown();
         executor.shutdown();
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
         try {
             if (scheduledExecutor.awaitTermination(3, TimeUnit.SECONDS)) {
                 executor.awaitTermination(3, TimeUnit.SECONDS);
             }
+            if (flushExecutor != null) {
+                flushExecutor.awaitTermination(3, TimeUnit.SECONDS);
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            /* Queued saves would otherwise be lost. */
+            writeBehindStorages.values().forEach(WriteBehindJobStorage::flush);
+        }
+    }
+
+    public void getInfo(PrintWriter pw) {
+        if (writeBehindStorages.isEmpty()) {
+            pw.println("Write-behind of request state changes is disabled.");
+        }
+        for (Map.Entry<Class<? extends Job>, WriteBehindJobStorage<?>> entry :
+              writeBehindStorages.entrySet()) {
+            pw.append(entry.getKey().getSimpleName()).println(':');
+            entry.getValue().getInfo(pw);
         }
     }
 
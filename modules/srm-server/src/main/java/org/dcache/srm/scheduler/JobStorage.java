@@ -74,6 +74,7 @@ package org.dcache.srm.scheduler;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Set;
 import org.dcache.srm.request.Job;
 import org.springframework.dao.DataAccessException;
@@ -100,6 +101,19 @@ public interface JobStorage<J extends Job> {
     void saveJob(J job, boolean force)
           throws TransactionException;
 
+    /**
+     * Saves several jobs at once. All saves are considered forced. Implementations may write the
+     * jobs in a single transaction, in which case a failure to save any of them fails all of them.
+     *
+     * @param jobs Jobs to save
+     * @throws TransactionException if there was a problem
+     */
+    default void saveJobs(Collection<J> jobs) throws TransactionException {
+        for (J job : jobs) {
+            saveJob(job, true);
+        }
+    }
+
     Set<Long> getLatestCompletedJobIds(int maxNum) throws DataAccessException;
 
     Set<Long> getLatestFailedJobIds(int maxNum) throws DataAccessException;
@@ -0,0 +1,230 @@
+package org.dcache.srm.scheduler;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.collect.Lists;
+import dmg.cells.nucleus.CellInfoProvider;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.dcache.srm.request.Job;
+import org.dcache.srm.util.JDC;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.TransactionException;
+
+/**
+ * JobStorage decorator that delays and coalesces saves.
+ * <p>
+ * Saves of jobs in a non-final state are queued for up to the write-behind window. Further saves
+ * of the same job within the window are folded into the one already queued, and all queued jobs
+ * are periodically handed to the decorated storage in batches. A job is read when it is written
+ * rather than when it was queued, so the latest state of the job is persisted.
+ * <p>
+ * Forced saves, which include all saves of jobs in a final state, bypass the queue and are
+ * written synchronously in the calling thread, so the final state of a request is durable before
+ * it is reported to the client. The calling thread usually holds the write lock of the job, which
+ * is why such saves cannot be handed to the flushing thread.
+ * <p>
+ * A forced save may race with a batch that already read an earlier state of the same job. Should
+ * the batch commit after the forced save, it would overwrite the saved state. Jobs are therefore
+ * tracked while their batch is in flight, and a job saved with force during that time is written
+ * again once the batch has completed.
+ * <p>
+ * The queue holds at most one entry per job and is thus bounded by the number of active jobs.
+ */
+public class WriteBehindJobStorage<J extends Job> implements JobStorage<J>, CellInfoProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindJobStorage.class);
+
+    private final JobStorage<J> storage;
+    private final ScheduledExecutorService executor;
+    private final long window;
+    private final int maxBatchSize;
+    private final ConcurrentMap<Long, J> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of jobs in the batch currently being written. Guarded by itself, as is
+     * {@code superseded}.
+     */
+    private final Set<Long> inFlight = new HashSet<>();
+
+    /**
+     * Jobs saved with force while in flight. These have to be written again after the batch, as
+     * the batch may have overwritten the saved state.
+     */
+    private final List<J> superseded = new ArrayList<>();
+
+    private final LongAdder requestedSaves = new LongAdder();
+    private final LongAdder writtenSaves = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushTime = new LongAdder();
+    private final LongAccumulator maxFlushTime = new LongAccumulator(Long::max, 0);
+
+    public WriteBehindJobStorage(JobStorage<J> storage, ScheduledExecutorService executor,
+          long window, TimeUnit unit, int maxBatchSize) {
+        this.storage = storage;
+        this.executor = executor;
+        this.window = unit.toMillis(window);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void init() throws DataAccessException {
+        storage.init();
+        executor.scheduleWithFixedDelay(this::flush, window, window, MILLISECONDS);
+    }
+
+    @Override
+    public J getJob(long jobId) throws DataAccessException {
+        return storage.getJob(jobId);
+    }
+
+    @Override
+    public J getJob(long jobId, Connection connection) throws SQLException {
+        return storage.getJob(jobId, connection);
+    }
+
+    @Override
+    public void saveJob(J job, boolean force) throws TransactionException {
+        requestedSaves.increment();
+        if (force || job.getState().isFinal()) {
+            synchronized (inFlight) {
+                pending.remove(job.getId());
+                if (inFlight.contains(job.getId())) {
+                    superseded.add(job);
+                }
+            }
+            storage.saveJob(job, true);
+            writtenSaves.increment();
+        } else {
+            pending.put(job.getId(), job);
+        }
+    }
+
+    /**
+     * Writes all currently queued jobs to the decorated storage. Concurrent calls are
+     * serialized, so that a flush on shutdown waits for a periodic flush still in progress.
+     */
+    public synchronized void flush() {
+        List<Long> ids = new ArrayList<>(pending.keySet());
+        for (List<Long> chunk : Lists.partition(ids, maxBatchSize)) {
+            List<J> batch = new ArrayList<>(chunk.size());
+            synchronized (inFlight) {
+                for (Long id : chunk) {
+                    J job = pending.remove(id);
+                    if (job != null) {
+                        batch.add(job);
+                        inFlight.add(id);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                rewriteSuperseded();
+            }
+        }
+    }
+
+    private void rewriteSuperseded() {
+        List<J> jobs;
+        synchronized (inFlight) {
+            inFlight.clear();
+            jobs = new ArrayList<>(superseded);
+            superseded.clear();
+        }
+        for (J job : jobs) {
+            try (JDC ignored = job.applyJdc()) {
+                storage.saveJob(job, true);
+            } catch (TransactionException | DataAccessException e) {
+                LOGGER.error("SQL statement failed: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                LOGGER.error("Bug detected", e);
+            }
+        }
+    }
+
+    private void write(List<J> batch) {
+        long start = System.nanoTime();
+        try {
+            storage.saveJobs(batch);
+        } catch (TransactionException | DataAccessException e) {
+            LOGGER.warn("Saving a batch of {} requests failed, saving them individually: {}",
+                  batch.size(), e.getMessage());
+            for (J job : batch) {
+                try (JDC ignored = job.applyJdc()) {
+                    storage.saveJob(job, true);
+                } catch (TransactionException | DataAccessException e1) {
+                    LOGGER.error("SQL statement failed: {}", e1.getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Bug detected", e);
+        }
+        long elapsed = System.nanoTime() - start;
+        writtenSaves.add(batch.size());
+        flushes.increment();
+        flushTime.add(elapsed);
+        maxFlushTime.accumulate(elapsed);
+    }
+
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    public long getRequestedSaves() {
+        return requestedSaves.sum();
+    }
+
+    public long getWrittenSaves() {
+        return writtenSaves.sum();
+    }
+
+    @Override
+    public void getInfo(PrintWriter pw) {
+        long requested = requestedSaves.sum();
+        long written = writtenSaves.sum();
+        long count = flushes.sum();
+        pw.append("    Write-behind window   : ").append(String.valueOf(window)).println(" ms");
+        pw.append("    Queue depth           : ").println(pending.size());
+        pw.append("    Saves requested       : ").println(requested);
+        pw.append("    Saves written         : ").println(written);
+        pw.printf("    Coalescing ratio      : %.2f%n",
+              written == 0 ? 1.0 : (double) requested / written);
+        pw.append("    Batches flushed       : ").println(count);
+        pw.printf("    Flush latency avg/max : %.1f/%.1f ms%n",
+              count == 0 ? 0.0 : flushTime.sum() / (count * 1e6),
+              maxFlushTime.get() / 1e6);
+    }
+
+    @Override
+    public Set<Long> getLatestCompletedJobIds(int maxNum) throws DataAccessException {
+        return storage.getLatestCompletedJobIds(maxNum);
+    }
+
+    @Override
+    public Set<Long> getLatestFailedJobIds(int maxNum) throws DataAccessException {
+        return storage.getLatestFailedJobIds(maxNum);
+    }
+
+    @Override
+    public Set<Long> getLatestCanceledJobIds(int maxNum) throws DataAccessException {
+        return storage.getLatestCanceledJobIds(maxNum);
+    }
+
+    @Override
+    public Set<J> getActiveJobs() throws DataAccessException {
+        return storage.getActiveJobs();
+    }
+}
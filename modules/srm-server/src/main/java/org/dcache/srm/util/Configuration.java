@@ -150,6 +150,8 @@ public class Configuration {
     protected String qosConfigFile = null;
     private Integer maxQueuedJdbcTasksNum; //null by default
     private Integer jdbcExecutionThreadNum;//null by default
+    private long jdbcWriteBehindWindow;
+    private int jdbcWriteBehindBatchSize = 100;
     private String credentialsDirectory = "/opt/d-cache/credentials";
     private boolean overwrite = false;
     private boolean overwrite_by_default = false;
@@ -778,6 +780,26 @@ public class Configuration {
         this.maxQueuedJdbcTasksNum = maxQueuedJdbcTasksNum;
     }
 
+    /**
+     * Returns the time in milliseconds for which non-final request state changes are held back
+     * and coalesced before being written to the database. Zero disables write-behind.
+     */
+    public long getJdbcWriteBehindWindow() {
+        return jdbcWriteBehindWindow;
+    }
+
+    public void setJdbcWriteBehindWindow(long jdbcWriteBehindWindow) {
+        this.jdbcWriteBehindWindow = jdbcWriteBehindWindow;
+    }
+
+    public int getJdbcWriteBehindBatchSize() {
+        return jdbcWriteBehindBatchSize;
+    }
+
+    public void setJdbcWriteBehindBatchSize(int jdbcWriteBehindBatchSize) {
+        this.jdbcWriteBehindBatchSize = jdbcWriteBehindBatchSize;
+    }
+
     public String getCredentialsDirectory() {
         return credentialsDirectory;
     }
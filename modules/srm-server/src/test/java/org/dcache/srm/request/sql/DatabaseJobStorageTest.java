@@ -0,0 +1,76 @@
+package org.dcache.srm.request.sql;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DatabaseJobStorageTest {
+
+    private Connection connection;
+    private Map<String, PreparedStatement> statements;
+    private Connection sharing;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        when(connection.prepareStatement("UPDATE a"))
+              .thenReturn(mock(PreparedStatement.class), mock(PreparedStatement.class));
+        when(connection.prepareStatement("UPDATE b")).thenReturn(mock(PreparedStatement.class));
+        statements = new HashMap<>();
+        sharing = DatabaseJobStorage.sharingStatements(connection, statements);
+    }
+
+    @Test
+    public void shouldPrepareSameQueryOnce() throws Exception {
+        PreparedStatement first = sharing.prepareStatement("UPDATE a");
+        PreparedStatement second = sharing.prepareStatement("UPDATE a");
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(statements.get("UPDATE a"), is(sameInstance(first)));
+        verify(connection, times(1)).prepareStatement("UPDATE a");
+    }
+
+    @Test
+    public void shouldPrepareDifferentQueriesSeparately() throws Exception {
+        PreparedStatement a = sharing.prepareStatement("UPDATE a");
+        PreparedStatement b = sharing.prepareStatement("UPDATE b");
+
+        assertThat(b, is(not(sameInstance(a))));
+        assertThat(statements.size(), is(2));
+    }
+
+    @Test
+    public void shouldDelegateOtherMethods() throws Exception {
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        assertThat(sharing.getAutoCommit(), is(true));
+        verify(connection).getAutoCommit();
+    }
+
+    @Test(expected = SQLException.class)
+    public void shouldPropagateExceptionsOfDelegate() throws Exception {
+        when(connection.prepareStatement("UPDATE c")).thenThrow(new SQLException("failed"));
+
+        sharing.prepareStatement("UPDATE c");
+    }
+
+    @Test(expected = SQLException.class)
+    public void shouldPropagateExceptionsOfDelegatedMethods() throws Exception {
+        when(connection.getAutoCommit()).thenThrow(new SQLException("failed"));
+
+        sharing.getAutoCommit();
+    }
+}
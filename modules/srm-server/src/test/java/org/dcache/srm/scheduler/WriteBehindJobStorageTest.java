@@ -0,0 +1,195 @@
+package org.dcache.srm.scheduler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.dcache.srm.request.Job;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+public class WriteBehindJobStorageTest {
+
+    private JobStorage<Job> storage;
+    private WriteBehindJobStorage<Job> writeBehindStorage;
+    private List<Collection<Job>> batches;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = mock(JobStorage.class);
+        batches = new ArrayList<>();
+        JobStorage<Job> recordingStorage = new NoopJobStorage<>() {
+            @Override
+            public void saveJobs(Collection<Job> jobs) {
+                batches.add(new ArrayList<>(jobs));
+                storage.saveJobs(jobs);
+            }
+
+            @Override
+            public void saveJob(Job job, boolean force) {
+                storage.saveJob(job, force);
+            }
+        };
+        writeBehindStorage = new WriteBehindJobStorage<>(recordingStorage,
+              mock(ScheduledExecutorService.class), 100, TimeUnit.MILLISECONDS, 2);
+    }
+
+    @Test
+    public void whenSavingNonFinalJobThenNothingIsWrittenBeforeFlush() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+
+        writeBehindStorage.saveJob(job, false);
+
+        verify(storage, never()).saveJob(job, false);
+        verify(storage, never()).saveJobs(anyCollection());
+        assertThat(writeBehindStorage.getQueueDepth(), is(1));
+    }
+
+    @Test
+    public void whenSavingJobTwiceThenItIsWrittenOnce() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+
+        writeBehindStorage.saveJob(job, false);
+        writeBehindStorage.saveJob(job, false);
+        writeBehindStorage.flush();
+
+        assertThat(batches, contains(contains(job)));
+        assertThat(writeBehindStorage.getRequestedSaves(), is(2L));
+        assertThat(writeBehindStorage.getWrittenSaves(), is(1L));
+        assertThat(writeBehindStorage.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void whenFlushingThenJobsAreWrittenInBatches() throws Exception {
+        Job job1 = aJob(1, State.RUNNING);
+        Job job2 = aJob(2, State.RQUEUED);
+        Job job3 = aJob(3, State.READY);
+
+        writeBehindStorage.saveJob(job1, false);
+        writeBehindStorage.saveJob(job2, false);
+        writeBehindStorage.saveJob(job3, false);
+        writeBehindStorage.flush();
+
+        assertThat(batches.size(), is(2));
+        List<Job> written = new ArrayList<>();
+        batches.forEach(written::addAll);
+        assertThat(written, containsInAnyOrder(job1, job2, job3));
+    }
+
+    @Test
+    public void whenSavingFinalJobThenItIsWrittenImmediately() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+        writeBehindStorage.saveJob(job, false);
+
+        when(job.getState()).thenReturn(State.DONE);
+        writeBehindStorage.saveJob(job, true);
+
+        verify(storage).saveJob(job, true);
+        assertThat(writeBehindStorage.getQueueDepth(), is(0));
+
+        writeBehindStorage.flush();
+
+        assertThat(batches.isEmpty(), is(true));
+    }
+
+    @Test
+    public void whenForcingSaveOfNonFinalJobThenItIsWrittenImmediately() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+        writeBehindStorage.saveJob(job, false);
+
+        writeBehindStorage.saveJob(job, true);
+
+        verify(storage).saveJob(job, true);
+        assertThat(writeBehindStorage.getQueueDepth(), is(0));
+
+        writeBehindStorage.flush();
+
+        assertThat(batches.isEmpty(), is(true));
+    }
+
+    @Test
+    public void whenJobIsForcedWhileItsBatchIsWrittenThenItIsWrittenAgain() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+        doAnswer(invocation -> {
+            writeBehindStorage.saveJob(job, true);
+            return null;
+        }).when(storage).saveJobs(anyCollection());
+
+        writeBehindStorage.saveJob(job, false);
+        writeBehindStorage.flush();
+
+        InOrder inOrder = inOrder(storage);
+        inOrder.verify(storage).saveJobs(anyCollection());
+        inOrder.verify(storage, times(2)).saveJob(job, true);
+    }
+
+    @Test
+    public void whenJobTurnsFinalWhileItsBatchIsWrittenThenFinalStateIsWrittenAgain()
+          throws Exception {
+        Job job = aJob(1, State.RUNNING);
+        doAnswer(invocation -> {
+            when(job.getState()).thenReturn(State.DONE);
+            writeBehindStorage.saveJob(job, true);
+            return null;
+        }).when(storage).saveJobs(anyCollection());
+
+        writeBehindStorage.saveJob(job, false);
+        writeBehindStorage.flush();
+
+        InOrder inOrder = inOrder(storage);
+        inOrder.verify(storage).saveJobs(anyCollection());
+        inOrder.verify(storage, times(2)).saveJob(job, true);
+    }
+
+    @Test
+    public void whenJobTurnsFinalAfterItsBatchThenItIsWrittenOnce() throws Exception {
+        Job job = aJob(1, State.RUNNING);
+        writeBehindStorage.saveJob(job, false);
+        writeBehindStorage.flush();
+
+        when(job.getState()).thenReturn(State.DONE);
+        writeBehindStorage.saveJob(job, true);
+        writeBehindStorage.flush();
+
+        verify(storage, times(1)).saveJob(job, true);
+    }
+
+    @Test
+    public void whenBatchFailsThenJobsAreWrittenIndividually() throws Exception {
+        Job job1 = aJob(1, State.RUNNING);
+        Job job2 = aJob(2, State.RUNNING);
+        doThrow(CannotCreateTransactionException.class).when(storage)
+              .saveJobs(anyCollection());
+
+        writeBehindStorage.saveJob(job1, false);
+        writeBehindStorage.saveJob(job2, false);
+        writeBehindStorage.flush();
+
+        verify(storage).saveJob(job1, true);
+        verify(storage).saveJob(job2, true);
+    }
+
+    private static Job aJob(long id, State state) {
+        Job job = mock(Job.class);
+        when(job.getId()).thenReturn(id);
+        when(job.getState()).thenReturn(state);
+        return job;
+    }
+}